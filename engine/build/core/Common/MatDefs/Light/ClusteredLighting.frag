@@ -0,0 +1,191 @@
+varying vec2 texCoord;
+#ifdef SEPARATE_TEXCOORD
+  varying vec2 texCoord2;
+#endif
+
+varying vec3 AmbientSum;
+varying vec4 DiffuseSum;
+varying vec3 SpecularSum;
+
+varying vec3 vViewPos;
+varying vec3 vNormal;
+#ifdef NORMALMAP
+  varying vec4 vTangent;
+  uniform sampler2D m_NormalMap;
+#endif
+
+#ifdef DIFFUSEMAP
+  uniform sampler2D m_DiffuseMap;
+#endif
+
+#ifdef SPECULARMAP
+  uniform sampler2D m_SpecularMap;
+#endif
+
+#ifdef LIGHTMAP
+  uniform sampler2D m_LightMap;
+#endif
+
+#ifdef ALPHAMAP
+  uniform sampler2D m_AlphaMap;
+#endif
+
+uniform float m_AlphaDiscardThreshold;
+uniform float m_Shininess;
+
+// 3 rows per light: color and type, view space position 
+// (direction for directional lights) and inverse range, 
+// view space spot direction and packed spot angles cosines
+uniform sampler2D g_ClusterLightData;
+// offset and number of lights of each cluster in the index texture
+uniform sampler2D g_ClusterGrid;
+uniform sampler2D g_ClusterLightIndices;
+// x, y: number of tiles, z: number of depth slices, w: number of global lights
+uniform vec4 g_ClusterParams;
+// x: near plane, y: depth slice scale, z: 1 / light texture width, w: 1 / index texture height
+uniform vec4 g_ClusterDepth;
+// x, y: viewport origin, z, w: 1 / viewport size
+uniform vec4 g_ClusterViewPort;
+
+const float INDEX_TEXTURE_WIDTH = 1024.0;
+
+float lightComputeDiffuse(in vec3 norm, in vec3 lightdir, in vec3 viewdir){
+    #ifdef MINNAERT
+        float NdotL = max(0.0, dot(norm, lightdir));
+        float NdotV = max(0.0, dot(norm, viewdir));
+        return NdotL * pow(max(NdotL * NdotV, 0.1), -1.0) * 0.5;
+    #else
+        return max(0.0, dot(norm, lightdir));
+    #endif
+}
+
+float lightComputeSpecular(in vec3 norm, in vec3 viewdir, in vec3 lightdir, in float shiny){
+    #ifdef LOW_QUALITY
+       // Blinn-Phong
+       vec3 H = (viewdir + lightdir) * vec3(0.5);
+       return pow(max(dot(H, norm), 0.0), shiny);
+    #else
+       // Standard Phong
+       vec3 R = reflect(-lightdir, norm);
+       return pow(max(dot(R, viewdir), 0.0), shiny);
+    #endif
+}
+
+/*
+ * Returns the diffuse and specular factors of the given light.
+ */
+vec2 computeLighting(in float light, in vec3 position, in vec3 normal, in vec3 viewDir, out vec3 lightColor){
+    float u = (light + 0.5) * g_ClusterDepth.z;
+    vec4 color = texture2D(g_ClusterLightData, vec2(u, 0.5 / 3.0));
+    vec4 lightPos = texture2D(g_ClusterLightData, vec2(u, 1.5 / 3.0));
+    lightColor = color.rgb;
+
+    vec3 lightVec;
+    float att;
+    if (color.a == 0.0) {
+        // directional
+        lightVec = -lightPos.xyz;
+        att = 1.0;
+    } else {
+        lightVec = lightPos.xyz - position;
+        float dist = length(lightVec);
+        att = clamp(1.0 - lightPos.w * dist, 0.0, 1.0);
+        lightVec /= dist;
+    }
+
+    if (color.a == 2.0) {
+        vec4 spot = texture2D(g_ClusterLightData, vec2(u, 2.5 / 3.0));
+        float curAngleCos = dot(-lightVec, normalize(spot.xyz));
+        float innerAngleCos = floor(spot.w) * 0.001;
+        float outerAngleCos = fract(spot.w);
+        att *= clamp((curAngleCos - outerAngleCos) / (innerAngleCos - outerAngleCos), 0.0, 1.0);
+    }
+
+    float diffuseFactor = lightComputeDiffuse(normal, lightVec, viewDir);
+    float specularFactor = 0.0;
+    if (m_Shininess > 1.0) {
+        specularFactor = lightComputeSpecular(normal, viewDir, lightVec, m_Shininess) * diffuseFactor;
+    }
+    return vec2(diffuseFactor, specularFactor) * att;
+}
+
+void main(){
+    #ifdef DIFFUSEMAP
+      vec4 diffuseColor = texture2D(m_DiffuseMap, texCoord);
+    #else
+      vec4 diffuseColor = vec4(1.0);
+    #endif
+
+    float alpha = DiffuseSum.a * diffuseColor.a;
+    #ifdef ALPHAMAP
+       alpha = alpha * texture2D(m_AlphaMap, texCoord).r;
+    #endif
+    if(alpha < m_AlphaDiscardThreshold){
+        discard;
+    }
+
+    #ifdef NORMALMAP
+      vec3 tbnNormal = normalize(vNormal);
+      vec3 tangent = normalize(vTangent.xyz);
+      mat3 tbnMat = mat3(tangent, cross(tbnNormal, tangent) * vTangent.w, tbnNormal);
+      vec4 normalHeight = texture2D(m_NormalMap, texCoord);
+      // the green channel is inverted, see Lighting.frag
+      vec3 normal = normalize(tbnMat * normalize(normalHeight.xyz * vec3(2.0, -2.0, 2.0) - vec3(1.0, -1.0, 1.0)));
+    #else
+      vec3 normal = normalize(vNormal);
+    #endif
+
+    #ifdef SPECULARMAP
+      vec4 specularColor = texture2D(m_SpecularMap, texCoord);
+    #else
+      vec4 specularColor = vec4(1.0);
+    #endif
+
+    #ifdef LIGHTMAP
+       vec3 lightMapColor;
+       #ifdef SEPARATE_TEXCOORD
+          lightMapColor = texture2D(m_LightMap, texCoord2).rgb;
+       #else
+          lightMapColor = texture2D(m_LightMap, texCoord).rgb;
+       #endif
+       specularColor.rgb *= lightMapColor;
+       diffuseColor.rgb  *= lightMapColor;
+    #endif
+
+    vec3 viewDir = normalize(-vViewPos);
+    vec3 diffuseSum = vec3(0.0);
+    vec3 specularSum = vec3(0.0);
+    vec3 lightColor;
+
+    // lights lighting every cluster
+    for (float i = 0.0; i < g_ClusterParams.w; i += 1.0) {
+        vec2 light = computeLighting(i, vViewPos, normal, viewDir, lightColor);
+        diffuseSum += lightColor * light.x;
+        specularSum += lightColor * light.y;
+    }
+
+    // lights of the cluster of the fragment
+    vec2 tile = floor((gl_FragCoord.xy - g_ClusterViewPort.xy) * g_ClusterViewPort.zw * g_ClusterParams.xy);
+    tile = clamp(tile, vec2(0.0), g_ClusterParams.xy - vec2(1.0));
+    float slice = floor(log(-vViewPos.z / g_ClusterDepth.x) * g_ClusterDepth.y);
+    slice = clamp(slice, 0.0, g_ClusterParams.z - 1.0);
+    vec2 gridCoord = vec2(tile.x + 0.5, slice * g_ClusterParams.y + tile.y + 0.5) 
+                   / vec2(g_ClusterParams.x, g_ClusterParams.y * g_ClusterParams.z);
+    vec4 cluster = texture2D(g_ClusterGrid, gridCoord);
+
+    for (float i = 0.0; i < cluster.y; i += 1.0) {
+        float index = cluster.x + i;
+        float row = floor(index / INDEX_TEXTURE_WIDTH);
+        vec2 indexCoord = vec2((index - row * INDEX_TEXTURE_WIDTH + 0.5) / INDEX_TEXTURE_WIDTH, 
+                               (row + 0.5) * g_ClusterDepth.w);
+        float lightIndex = texture2D(g_ClusterLightIndices, indexCoord).r;
+        vec2 light = computeLighting(lightIndex, vViewPos, normal, viewDir, lightColor);
+        diffuseSum += lightColor * light.x;
+        specularSum += lightColor * light.y;
+    }
+
+    gl_FragColor.rgb = AmbientSum * diffuseColor.rgb +
+                       DiffuseSum.rgb * diffuseColor.rgb * diffuseSum +
+                       SpecularSum * specularColor.rgb * specularSum;
+    gl_FragColor.a = alpha;
+}
@@ -0,0 +1,48 @@
+#if defined(HAS_GLOWMAP) || defined(HAS_COLORMAP) || (defined(HAS_LIGHTMAP) && !defined(SEPARATE_TEXCOORD))
+    #define NEED_TEXCOORD1
+#endif
+
+#if defined(DISCARD_ALPHA)
+    uniform float m_AlphaDiscardThreshold;
+#endif
+
+uniform vec4 m_Color;
+uniform sampler2D m_ColorMap;
+uniform sampler2D m_LightMap;
+
+varying vec2 texCoord1;
+varying vec2 texCoord2;
+
+varying vec4 vertColor;
+
+void main(){
+    vec4 color = vec4(1.0);
+
+    #ifdef HAS_COLORMAP
+        color *= texture2D(m_ColorMap, texCoord1);     
+    #endif
+
+    #ifdef HAS_VERTEXCOLOR
+        color *= vertColor;
+    #endif
+
+    #ifdef HAS_COLOR
+        color *= m_Color;
+    #endif
+
+    #ifdef HAS_LIGHTMAP
+        #ifdef SEPARATE_TEXCOORD
+            color.rgb *= texture2D(m_LightMap, texCoord2).rgb;
+        #else
+            color.rgb *= texture2D(m_LightMap, texCoord1).rgb;
+        #endif
+    #endif
+
+    #if defined(DISCARD_ALPHA)
+        if(color.a < m_AlphaDiscardThreshold){
+           discard;
+        }
+    #endif
+
+    gl_FragColor = color;
+}
\ No newline at end of file
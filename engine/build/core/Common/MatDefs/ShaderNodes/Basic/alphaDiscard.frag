@@ -0,0 +1,3 @@
+void main(){
+    if( alpha <= threshold )discard;
+}
\ No newline at end of file
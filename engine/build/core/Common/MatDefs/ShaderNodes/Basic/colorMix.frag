@@ -0,0 +1,3 @@
+void main(){
+    outColor = mix(color1,color2,factor);
+}
\ No newline at end of file
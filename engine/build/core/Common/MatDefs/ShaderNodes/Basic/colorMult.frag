@@ -0,0 +1,3 @@
+void main(){
+    outColor = color1 * color2;
+}
\ No newline at end of file
@@ -0,0 +1,3 @@
+void main(){
+    outColor = texture2D(texture,texCoord);
+}
\ No newline at end of file
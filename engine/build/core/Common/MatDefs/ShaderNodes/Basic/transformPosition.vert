@@ -0,0 +1,3 @@
+void main(){
+     outPosition = transformsMatrix * vec4(inputPosition, 1.0);
+}
\ No newline at end of file
@@ -0,0 +1,3 @@
+void main(){
+    projPosition = worldViewProjectionMatrix * vec4(modelPosition, 1.0);
+}
\ No newline at end of file
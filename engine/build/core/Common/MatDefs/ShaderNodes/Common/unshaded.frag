@@ -0,0 +1,14 @@
+void main(){
+    #ifdef colorMap
+        color *= texture2D(colorMap, texCoord);
+    #endif
+
+    #ifdef vertColor
+        color *= vertColor;
+    #endif
+
+    #ifdef matColor
+        color *= matColor;
+    #endif
+
+}
\ No newline at end of file
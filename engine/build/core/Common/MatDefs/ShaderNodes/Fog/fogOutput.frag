@@ -0,0 +1,3 @@
+void main(){
+     color = mix(fogColor, color, fogFactor);
+}
\ No newline at end of file
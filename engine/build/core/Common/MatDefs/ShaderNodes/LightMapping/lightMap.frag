@@ -0,0 +1,3 @@
+void main(){
+    color *= texture2D(lightMap, texCoord);
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+varying vec2 texCoord;
+
+#ifdef DISCARD_ALPHA
+   #ifdef COLOR_MAP
+      uniform sampler2D m_ColorMap;
+   #else    
+      uniform sampler2D m_DiffuseMap;
+   #endif
+    uniform float m_AlphaDiscardThreshold;
+#endif
+
+
+void main(){
+   #ifdef DISCARD_ALPHA
+       #ifdef COLOR_MAP
+            if (texture2D(m_ColorMap, texCoord).a <= m_AlphaDiscardThreshold){
+                discard;
+            }
+       #else    
+            if (texture2D(m_DiffuseMap, texCoord).a <= m_AlphaDiscardThreshold){
+                discard;
+            }
+       #endif
+   #endif
+
+   gl_FragColor = vec4(1.0);
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+#import "Common/ShaderLib/Skinning.glsllib"
+#import "Common/ShaderLib/Instancing.glsllib"
+
+uniform mat4 g_WorldViewProjectionMatrix;
+uniform mat4 g_WorldViewMatrix;
+uniform mat3 g_NormalMatrix;
+
+uniform vec4 m_Ambient;
+uniform vec4 m_Diffuse;
+uniform vec4 m_Specular;
+
+uniform vec4 g_AmbientLightColor;
+
+varying vec2 texCoord;
+#ifdef SEPARATE_TEXCOORD
+  varying vec2 texCoord2;
+  attribute vec2 inTexCoord2;
+#endif
+
+varying vec3 AmbientSum;
+varying vec4 DiffuseSum;
+varying vec3 SpecularSum;
+
+attribute vec3 inPosition;
+attribute vec2 inTexCoord;
+attribute vec3 inNormal;
+
+// view space position and normal, the lights are 
+// given in view space by the light clusters
+varying vec3 vViewPos;
+varying vec3 vNormal;
+
+#ifdef NORMALMAP
+  attribute vec4 inTangent;
+  varying vec4 vTangent;
+#endif
+
+#ifdef VERTEX_COLOR
+  attribute vec4 inColor;
+#endif
+
+void main(){
+   vec4 modelSpacePos = vec4(inPosition, 1.0);
+   vec3 modelSpaceNorm = inNormal;
+
+   #ifdef NORMALMAP
+        vec3 modelSpaceTan = inTangent.xyz;
+   #endif
+
+   #ifdef NUM_BONES
+        #ifdef NORMALMAP
+        Skinning_Compute(modelSpacePos, modelSpaceTan, modelSpaceNorm);
+        #else
+        Skinning_Compute(modelSpacePos, modelSpaceNorm);
+        #endif
+   #endif
+
+   #ifdef INSTANCING
+        #ifdef NORMALMAP
+        Instancing_Compute(modelSpacePos, modelSpaceNorm, modelSpaceTan);
+        #else
+        Instancing_Compute(modelSpacePos, modelSpaceNorm);
+        #endif
+   #endif
+
+   gl_Position = g_WorldViewProjectionMatrix * modelSpacePos;
+   texCoord = inTexCoord;
+   #ifdef SEPARATE_TEXCOORD
+      texCoord2 = inTexCoord2;
+   #endif
+
+   vViewPos = (g_WorldViewMatrix * modelSpacePos).xyz;
+   vNormal = normalize(g_NormalMatrix * modelSpaceNorm);
+   #ifdef NORMALMAP
+      vTangent = vec4(normalize(g_NormalMatrix * modelSpaceTan), inTangent.w);
+   #endif
+
+   #ifdef MATERIAL_COLORS
+      AmbientSum  = (m_Ambient  * g_AmbientLightColor).rgb;
+      DiffuseSum  =  m_Diffuse;
+      SpecularSum =  m_Specular.rgb;
+   #else
+      AmbientSum  = vec3(0.2, 0.2, 0.2) * g_AmbientLightColor.rgb; // Default: ambient color is dark gray
+      DiffuseSum  = vec4(1.0);
+      SpecularSum = vec3(0.0);
+   #endif
+
+   #ifdef VERTEX_COLOR
+      AmbientSum *= inColor.rgb;
+      DiffuseSum *= inColor;
+   #endif
+}
@@ -2,6 +2,7 @@
 //#define HQ_ATTENUATION
 
 #import "Common/ShaderLib/Skinning.glsllib"
+#import "Common/ShaderLib/Instancing.glsllib"
 
 uniform mat4 g_WorldViewProjectionMatrix;
 uniform mat4 g_WorldViewMatrix;
@@ -62,19 +63,19 @@ varying vec3 lightVec;
 
     /**
      * Input:
-     * attribute inPosition
-     * attribute inNormal
+     * modelSpacePos
+     * modelSpaceNorm
      * uniform g_WorldMatrix
      * uniform g_CameraPosition
      *
      * Output:
      * varying refVec
      */
-    void computeRef(in vec4 modelSpacePos){
+    void computeRef(in vec4 modelSpacePos, in vec3 modelSpaceNorm){
         vec3 worldPos = (g_WorldMatrix * modelSpacePos).xyz;
 
         vec3 I = normalize( g_CameraPosition - worldPos  ).xyz;
-        vec3 N = normalize( (g_WorldMatrix * vec4(inNormal, 0.0)).xyz );
+        vec3 N = normalize( (g_WorldMatrix * vec4(modelSpaceNorm, 0.0)).xyz );
 
         refVec.xyz = reflect(I, N);
         refVec.w   = m_FresnelParams.x + m_FresnelParams.y * pow(1.0 + dot(I, N), m_FresnelParams.z);
@@ -148,6 +149,14 @@ void main(){
         #endif
    #endif
 
+   #ifdef INSTANCING
+        #ifndef VERTEX_LIGHTING
+        Instancing_Compute(modelSpacePos, modelSpaceNorm, modelSpaceTan);
+        #else
+        Instancing_Compute(modelSpacePos, modelSpaceNorm);
+        #endif
+   #endif
+
    gl_Position = g_WorldViewProjectionMatrix * modelSpacePos;
    texCoord = inTexCoord;
    #ifdef SEPARATE_TEXCOORD
@@ -218,6 +227,6 @@ void main(){
     #endif
 
     #ifdef USE_REFLECTION
-        computeRef(modelSpacePos);
+        computeRef(modelSpacePos, modelSpaceNorm);
     #endif 
 }
\ No newline at end of file
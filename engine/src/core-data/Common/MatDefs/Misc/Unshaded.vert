@@ -1,4 +1,5 @@
 #import "Common/ShaderLib/Skinning.glsllib"
+#import "Common/ShaderLib/Instancing.glsllib"
 
 uniform mat4 g_WorldViewProjectionMatrix;
 attribute vec3 inPosition;
@@ -33,5 +34,8 @@ void main(){
     #ifdef NUM_BONES
         Skinning_Compute(modelSpacePos);
     #endif
+    #ifdef INSTANCING
+        Instancing_Compute(modelSpacePos);
+    #endif
     gl_Position = g_WorldViewProjectionMatrix * modelSpacePos;
 }
\ No newline at end of file
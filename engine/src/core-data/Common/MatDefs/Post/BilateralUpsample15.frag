@@ -0,0 +1,45 @@
+#import "Common/ShaderLib/MultiSample.glsllib"
+
+uniform COLORTEXTURE m_Texture;
+uniform DEPTHTEXTURE m_DepthTexture;
+uniform sampler2D m_LowResTexture;
+uniform vec2 m_LowResSize;
+uniform vec2 m_FrustumNearFar;
+
+in vec2 texCoord;
+out vec4 outFragColor;
+
+const float epsilon = 0.001;
+
+float readDepth(in vec2 uv){
+    float depthv = getDepth(m_DepthTexture, uv).r;
+    return (2.0 * m_FrustumNearFar.x) / (m_FrustumNearFar.y + m_FrustumNearFar.x - depthv * (m_FrustumNearFar.y - m_FrustumNearFar.x));
+}
+
+// Joint bilateral upsampling: the 4 low resolution texels around the pixel
+// are weighted by their bilinear weight and by how close their depth is to
+// the pixel depth, so that the low resolution result doesn't bleed across
+// the edges of the objects.
+vec4 bilateralUpsample(){
+    float depth = readDepth(texCoord);
+    vec2 texel = texCoord * m_LowResSize - 0.5;
+    vec2 base = floor(texel);
+    vec2 f = texel - base;
+
+    vec4 sum = vec4(0.0);
+    float weightSum = 0.0;
+    for (int i = 0; i < 4; i++) {
+        vec2 offset = vec2(mod(float(i), 2.0), floor(float(i) / 2.0));
+        // low resolution texels were rendered with the depth at their center
+        vec2 uv = (base + offset + 0.5) / m_LowResSize;
+        vec2 bilinear = mix(1.0 - f, f, offset);
+        float weight = bilinear.x * bilinear.y / (epsilon + abs(depth - readDepth(uv)));
+        sum += weight * texture(m_LowResTexture, uv);
+        weightSum += weight;
+    }
+    return sum / weightSum;
+}
+
+void main(){
+    outFragColor = getColor(m_Texture, texCoord) * bilateralUpsample();
+}
@@ -40,13 +40,19 @@ vec3 getPosition(in float depth, in vec2 uv){
 }
 
 void main(){    
+    #ifdef SHADOW_FACTOR
+        //only the shadow factor is rendered, it modulates the scene when upsampled
+        vec4 color = vec4(1.0);
+    #else
+        vec4 color = texture2D(m_Texture,texCoord);
+    #endif
+
     #if !defined( RENDER_SHADOWS )
-          gl_FragColor = texture2D(m_Texture,texCoord);
+          gl_FragColor = color;
           return;
     #endif
     
     float depth = texture2D(m_DepthTexture,texCoord).r;
-    vec4 color = texture2D(m_Texture,texCoord);
 
     //Discard shadow computation on the sky
     if(depth == 1.0){
@@ -43,7 +43,12 @@ vec3 getPosition(in float depth, in vec2 uv){
 
 vec4 main_multiSample(in int numSample){
     float depth = fetchTextureSample(m_DepthTexture,texCoord,numSample).r;//getDepth(m_DepthTexture,texCoord).r;
-    vec4 color = fetchTextureSample(m_Texture,texCoord,numSample);
+    #ifdef SHADOW_FACTOR
+        //only the shadow factor is rendered, it modulates the scene when upsampled
+        vec4 color = vec4(1.0);
+    #else
+        vec4 color = fetchTextureSample(m_Texture,texCoord,numSample);
+    #endif
 
     //Discard shadow computation on the sky
     if(depth == 1.0){        
@@ -100,7 +105,11 @@ vec4 main_multiSample(in int numSample){
 void main(){  
 
     #if !defined( RENDER_SHADOWS )
+        #ifdef SHADOW_FACTOR
+          outFragColor = vec4(1.0);
+        #else
           outFragColor = fetchTextureSample(m_Texture,texCoord,0);
+        #endif
           return;
     #endif
     
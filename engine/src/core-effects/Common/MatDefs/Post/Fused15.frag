@@ -0,0 +1,22 @@
+#import "Common/ShaderLib/MultiSample.glsllib"
+#import "Common/MatDefs/Post/Fused.glsllib"
+
+uniform COLORTEXTURE m_Texture;
+in vec2 texCoord;
+
+void main() {
+    vec4 color = getColor(m_Texture, texCoord);
+    #ifdef STAGE0
+        color = applyStage(STAGE0, color, m_Color0, m_Value0, m_NumColors0, m_Strength0, m_ComputeLuma0);
+    #endif
+    #ifdef STAGE1
+        color = applyStage(STAGE1, color, m_Color1, m_Value1, m_NumColors1, m_Strength1, m_ComputeLuma1);
+    #endif
+    #ifdef STAGE2
+        color = applyStage(STAGE2, color, m_Color2, m_Value2, m_NumColors2, m_Strength2, m_ComputeLuma2);
+    #endif
+    #ifdef STAGE3
+        color = applyStage(STAGE3, color, m_Color3, m_Value3, m_NumColors3, m_Strength3, m_ComputeLuma3);
+    #endif
+    gl_FragColor = color;
+}
@@ -125,8 +125,9 @@ public class BloomFilter extends Filter {
         this.initalWidth = w;
         this.initalHeight = h;
                 
-        screenWidth = (int) Math.max(1, (w / downSamplingFactor));
-        screenHeight = (int) Math.max(1, (h / downSamplingFactor));
+        //the glow is blurred, a bilinear upsampling of the scaled passes is enough
+        screenWidth = (int) Math.max(1, (getScaledSize(w) / downSamplingFactor));
+        screenHeight = (int) Math.max(1, (getScaledSize(h) / downSamplingFactor));
         //    System.out.println(screenWidth + " " + screenHeight);
         if (glowMode != GlowMode.Scene) {
             preGlowPass = new Pass();
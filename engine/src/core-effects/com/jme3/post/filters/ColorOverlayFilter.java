@@ -74,6 +74,16 @@ public class ColorOverlayFilter extends Filter {
         return material;
     }
 
+    @Override
+    protected int getFusedStageType() {
+        return FUSED_STAGE_OVERLAY;
+    }
+
+    @Override
+    protected void setFusedParameters(Material fused, int stage) {
+        fused.setColor("Color" + stage, color);
+    }
+
     /**
      * returns the color
      * @return color
@@ -83,6 +83,16 @@ public class FadeFilter extends Filter {
         material = new Material(manager, "Common/MatDefs/Post/Fade.j3md");
     }
 
+    @Override
+    protected int getFusedStageType() {
+        return FUSED_STAGE_FADE;
+    }
+
+    @Override
+    protected void setFusedParameters(Material fused, int stage) {
+        fused.setFloat("Value" + stage, value);
+    }
+
     @Override
     protected void preFrame(float tpf) {
         if (playing) {
@@ -75,6 +75,19 @@ public class GammaCorrectionFilter extends Filter
 		material.setBoolean("computeLuma", computeLuma);
 	}
 
+	@Override
+	protected int getFusedStageType()
+	{
+		return FUSED_STAGE_GAMMA_CORRECTION;
+	}
+
+	@Override
+	protected void setFusedParameters(Material fused, int stage)
+	{
+		fused.setFloat("Value" + stage, gamma);
+		fused.setBoolean("ComputeLuma" + stage, computeLuma);
+	}
+
 	public float getGamma()
 	{
 		return gamma;
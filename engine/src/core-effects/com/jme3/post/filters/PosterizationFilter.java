@@ -94,6 +94,18 @@ public class PosterizationFilter extends Filter {
         return material;
     }
 
+    @Override
+    protected int getFusedStageType() {
+        return FUSED_STAGE_POSTERIZATION;
+    }
+
+    @Override
+    protected void setFusedParameters(Material fused, int stage) {
+        fused.setInt("NumColors" + stage, numColors);
+        fused.setFloat("Value" + stage, gamma);
+        fused.setFloat("Strength" + stage, strength);
+    }
+
     /**
      * Sets number of color levels used to draw the screen
      */
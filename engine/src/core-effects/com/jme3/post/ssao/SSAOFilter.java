@@ -130,8 +130,12 @@ public class SSAOFilter extends Filter {
         int screenHeight = h;
         postRenderPasses = new ArrayList<Pass>();
 
+        //the ao is computed at the scaled resolution, the blur pass upsamples
+        //it with depth-aware weights
+        int ssaoWidth = getScaledSize((int) (screenWidth / downSampleFactor));
+        int ssaoHeight = getScaledSize((int) (screenHeight / downSampleFactor));
         normalPass = new Pass();
-        normalPass.init(renderManager.getRenderer(), (int) (screenWidth / downSampleFactor), (int) (screenHeight / downSampleFactor), Format.RGBA8, Format.Depth);
+        normalPass.init(renderManager.getRenderer(), ssaoWidth, ssaoHeight, Format.RGBA8, Format.Depth);
 
 
         frustumNearFar = new Vector2f();
@@ -161,7 +165,7 @@ public class SSAOFilter extends Filter {
             }
         };
 
-        ssaoPass.init(renderManager.getRenderer(), (int) (screenWidth / downSampleFactor), (int) (screenHeight / downSampleFactor), Format.RGBA8, Format.Depth, 1, ssaoMat);
+        ssaoPass.init(renderManager.getRenderer(), ssaoWidth, ssaoHeight, Format.RGBA8, Format.Depth, 1, ssaoMat);
         ssaoPass.getRenderedTexture().setMinFilter(Texture.MinFilter.Trilinear);
         ssaoPass.getRenderedTexture().setMagFilter(Texture.MagFilter.Bilinear);
         postRenderPasses.add(ssaoPass);
@@ -181,6 +185,11 @@ public class SSAOFilter extends Filter {
 
         float xScale = 1.0f / w;
         float yScale = 1.0f / h;
+        if (getResolutionScale() < 1f) {
+            //blur taps are spaced by texels of the scaled ao
+            xScale = 1.0f / getScaledSize(w);
+            yScale = 1.0f / getScaledSize(h);
+        }
 
         float blurScale = 2f;
         material.setFloat("XScale", blurScale * xScale);
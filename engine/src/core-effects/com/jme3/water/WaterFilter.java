@@ -215,9 +215,12 @@ public class WaterFilter extends Filter {
 
         this.renderManager = renderManager;
         this.viewPort = vp;
+        //the reflected scene is the expensive part of the water, it's
+        //rendered at the scaled resolution
+        int reflectionSize = getScaledSize(reflectionMapSize);
         reflectionPass = new Pass();
-        reflectionPass.init(renderManager.getRenderer(), reflectionMapSize, reflectionMapSize, Format.RGBA8, Format.Depth);
-        reflectionCam = new Camera(reflectionMapSize, reflectionMapSize);
+        reflectionPass.init(renderManager.getRenderer(), reflectionSize, reflectionSize, Format.RGBA8, Format.Depth);
+        reflectionCam = new Camera(reflectionSize, reflectionSize);
         reflectionView = new ViewPort("reflectionView", reflectionCam);
         reflectionView.setClearFlags(true, true, true);
         reflectionView.attachScene(reflectionScene);
@@ -830,8 +833,9 @@ public class WaterFilter extends Filter {
         this.reflectionMapSize = reflectionMapSize;
         //if reflection pass is already initialized we must update it
         if(reflectionPass !=  null){
-            reflectionPass.init(renderManager.getRenderer(), reflectionMapSize, reflectionMapSize, Format.RGBA8, Format.Depth);
-            reflectionCam.resize(reflectionMapSize, reflectionMapSize, true);
+            int reflectionSize = getScaledSize(reflectionMapSize);
+            reflectionPass.init(renderManager.getRenderer(), reflectionSize, reflectionSize, Format.RGBA8, Format.Depth);
+            reflectionCam.resize(reflectionSize, reflectionSize, true);
             reflectionProcessor.setReflectionBuffer(reflectionPass.getRenderFrameBuffer());
             material.setTexture("ReflectionMap", reflectionPass.getRenderedTexture());
         }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.animation;
+
+import com.jme3.util.SafeArrayList;
+import com.jme3.util.TempVars;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <code>AnimBatch</code> evaluates the animations of several 
+ * {@link AnimControl}s as a batch, in parallel.
+ * <p>
+ * The controls added to a batch are not updated by their spatial anymore,
+ * the application must call {@link #update(float) } once per frame instead, 
+ * before the scene graph is updated, e.g. from an
+ * {@link com.jme3.app.state.AppState}. The bone tracks of each control 
+ * are applied and its skeleton is updated by the executor's threads, 
+ * then the results are published on the calling thread: the other tracks
+ * are applied, the {@link AnimEventListener}s are notified and the bone 
+ * attachment nodes are updated.
+ * <p>
+ * Controls must be removed from the batch when they are not used anymore.
+ * Controls that are disabled or not attached to a spatial are not 
+ * evaluated, and the {@link AnimLod levels of detail} of the controls
+ * are applied.
+ */
+public class AnimBatch {
+
+    private final ExecutorService executor;
+    private final SafeArrayList<AnimControl> controls = new SafeArrayList<AnimControl>(AnimControl.class);
+    private final ArrayList<UpdateTask> updated = new ArrayList<UpdateTask>();
+    private final ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+
+    /**
+     * Creates a batch evaluating the animations with the given executor.
+     * 
+     * @param executor The executor to use
+     */
+    public AnimBatch(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a control to this batch. 
+     * Clones of the control's spatial are added to this batch as well.
+     * 
+     * @param control The control to add
+     * @throws IllegalStateException If the control is in another batch
+     */
+    public void add(AnimControl control) {
+        if (control.batch == this) {
+            return;
+        }
+        if (control.batch != null) {
+            throw new IllegalStateException("The control is already in another batch");
+        }
+        control.batch = this;
+        controls.add(control);
+    }
+
+    /**
+     * Removes a control from this batch, the control is then updated
+     * by its spatial again.
+     * 
+     * @param control The control to remove
+     */
+    public void remove(AnimControl control) {
+        if (control.batch == this) {
+            control.batch = null;
+            controls.remove(control);
+        }
+    }
+
+    /**
+     * @return The number of controls in this batch.
+     */
+    public int getControlCount() {
+        return controls.size();
+    }
+
+    /**
+     * Evaluates the animations of all the controls of this batch.
+     * Blocks until all the skeletons are updated.
+     * 
+     * @param tpf Time per frame, in seconds
+     */
+    public void update(float tpf) {
+        for (AnimControl control : controls.getArray()) {
+            if (control.isEnabled() && control.getSpatial() != null) {
+                float time = control.updateLod(tpf);
+                if (time >= 0) {
+                    UpdateTask task = new UpdateTask(control, time);
+                    updated.add(task);
+                    tasks.add(executor.submit(task));
+                }
+            }
+        }
+
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            updated.clear();
+        } catch (ExecutionException ex) {
+            updated.clear();
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            tasks.clear();
+        }
+
+        TempVars vars = TempVars.get();
+        try {
+            for (int i = 0; i < updated.size(); i++) {
+                UpdateTask task = updated.get(i);
+                task.control.completeUpdate(task.tpf, vars);
+            }
+        } finally {
+            vars.release();
+            updated.clear();
+        }
+    }
+
+    /**
+     * Updates the bones of a single control.
+     */
+    private static class UpdateTask implements Runnable {
+
+        private final AnimControl control;
+        private final float tpf;
+
+        UpdateTask(AnimControl control, float tpf) {
+            this.control = control;
+            this.tpf = tpf;
+        }
+
+        public void run() {
+            // TempVars are per thread
+            TempVars vars = TempVars.get();
+            control.updateBones(tpf, vars);
+            vars.release();
+        }
+    }
+}
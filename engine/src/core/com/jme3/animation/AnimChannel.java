@@ -68,6 +68,14 @@ public final class AnimChannel {
     private float blendAmount = 1f;
     private float blendRate   = 0;
     
+    /**
+     * Animation blended from whose non-bone tracks were not applied yet
+     * by a batch update, and the time and weight to apply them with.
+     */
+    private Animation deferredBlendFrom;
+    private float deferredTimeBlendFrom;
+    private float deferredBlendFromWeight;
+    
     AnimChannel(AnimControl control){
         this.control = control;
     }
@@ -320,11 +328,35 @@ public final class AnimChannel {
         if (animation == null)
             return;
 
+        sampleTracks(tpf, vars, false);
+        completeUpdate(tpf, vars, false);
+    }
+
+    /**
+     * First part of the update: applies the animations at the current time 
+     * and updates the blending.
+     * 
+     * @param boneTracksOnly If true, only the bone tracks are applied and
+     * the other tracks are left for {@link #completeUpdate(float, com.jme3.util.TempVars, boolean) },
+     * so that this part can run outside of the update thread.
+     */
+    void sampleTracks(float tpf, TempVars vars, boolean boneTracksOnly) {
+        deferredBlendFrom = null;
+        if (animation == null)
+            return;
+
         if (blendFrom != null && blendAmount != 1.0f){
             // The blendFrom anim is set, the actual animation
             // playing will be set 
 //            blendFrom.setTime(timeBlendFrom, 1f, control, this, vars);
-            blendFrom.setTime(timeBlendFrom, 1f - blendAmount, control, this, vars);
+            if (boneTracksOnly) {
+                blendFrom.setBoneTracksTime(timeBlendFrom, 1f - blendAmount, control, this, vars);
+                deferredBlendFrom = blendFrom;
+                deferredTimeBlendFrom = timeBlendFrom;
+                deferredBlendFromWeight = 1f - blendAmount;
+            } else {
+                blendFrom.setTime(timeBlendFrom, 1f - blendAmount, control, this, vars);
+            }
             
             timeBlendFrom += tpf * speedBlendFrom;
             timeBlendFrom = AnimationUtils.clampWrapTime(timeBlendFrom,
@@ -342,8 +374,33 @@ public final class AnimChannel {
             }
         }
         
-        animation.setTime(time, blendAmount, control, this, vars);
-        
+        if (boneTracksOnly) {
+            animation.setBoneTracksTime(time, blendAmount, control, this, vars);
+        } else {
+            animation.setTime(time, blendAmount, control, this, vars);
+        }
+    }
+
+    /**
+     * Second part of the update: notifies the listeners and advances 
+     * the time of the animation. Must be called on the update thread.
+     * 
+     * @param otherTracks If true, the tracks that were not applied
+     * by {@link #sampleTracks(float, com.jme3.util.TempVars, boolean) } are
+     * applied first.
+     */
+    void completeUpdate(float tpf, TempVars vars, boolean otherTracks) {
+        if (animation == null)
+            return;
+
+        if (otherTracks) {
+            if (deferredBlendFrom != null) {
+                deferredBlendFrom.setOtherTracksTime(deferredTimeBlendFrom, deferredBlendFromWeight, control, this, vars);
+                deferredBlendFrom = null;
+            }
+            animation.setOtherTracksTime(time, blendAmount, control, this, vars);
+        }
+
         if (animation.getLength() > 0){
             if (!notified && (time >= animation.getLength() || time < 0)) {
                 if (loopMode == LoopMode.DontLoop) {
@@ -41,6 +41,7 @@ import com.jme3.scene.control.Control;
 import com.jme3.util.TempVars;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map.Entry;
@@ -86,6 +87,37 @@ public final class AnimControl extends AbstractControl implements Cloneable {
      * Animation event listeners
      */
     private transient ArrayList<AnimEventListener> listeners = new ArrayList<AnimEventListener>();
+    /**
+     * Batch evaluating this control, or null if it is updated by its spatial
+     */
+    transient AnimBatch batch;
+    /**
+     * Animation levels of detail, or null
+     */
+    private transient AnimLod lod;
+    /**
+     * Current level of detail
+     */
+    private transient int lodLevel = 0;
+    /**
+     * Most detailed level the model was rendered with since the
+     * last update, or -1 if it was not rendered
+     */
+    private transient int renderedLodLevel = -1;
+    /**
+     * Frames and time elapsed since the last animation update,
+     * frames is -1 to update on the next frame
+     */
+    private transient int lodFrames = -1;
+    private transient float lodTime = 0;
+    /**
+     * Bones animated at the current level of detail, or null for all
+     */
+    transient BitSet lodBones;
+    /**
+     * Bone depth lodBones was computed for, -1 for all bones
+     */
+    private transient int lodBoneDepth = -1;
 
     /**
      * Creates a new animation control for the given skeleton.
@@ -114,6 +146,13 @@ public final class AnimControl extends AbstractControl implements Cloneable {
             clone.spatial = spatial;
             clone.channels = new ArrayList<AnimChannel>();
             clone.listeners = new ArrayList<AnimEventListener>();
+            clone.batch = null;
+            clone.lodLevel = 0;
+            clone.renderedLodLevel = -1;
+            clone.lodFrames = -1;
+            clone.lodTime = 0;
+            clone.lodBones = null;
+            clone.lodBoneDepth = -1;
 
             if (skeleton != null) {
                 clone.skeleton = new Skeleton(skeleton);
@@ -123,6 +162,11 @@ public final class AnimControl extends AbstractControl implements Cloneable {
             for (Entry<String, Animation> animEntry : animationMap.entrySet()) {
                 clone.animationMap.put(animEntry.getKey(), animEntry.getValue().cloneForSpatial(spatial));
             }
+
+            // clones of a batched model are evaluated by the same batch
+            if (batch != null) {
+                batch.add(clone);
+            }
             
             return clone;
         } catch (CloneNotSupportedException ex) {
@@ -318,11 +362,139 @@ public final class AnimControl extends AbstractControl implements Cloneable {
         return a.getLength();
     }
 
+    /**
+     * Returns the batch evaluating this control.
+     * 
+     * @return The batch evaluating this control, or null if the control
+     * is updated by its spatial.
+     * 
+     * @see AnimBatch#add(com.jme3.animation.AnimControl) 
+     */
+    public AnimBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Sets the animation levels of detail used by this control.
+     * 
+     * @param lod The levels of detail, or null to always update the 
+     * animation at full detail (the default).
+     */
+    public void setLod(AnimLod lod) {
+        this.lod = lod;
+        lodLevel = 0;
+        renderedLodLevel = -1;
+        lodFrames = -1;
+        lodTime = 0;
+        lodBones = null;
+        lodBoneDepth = -1;
+        if (skeleton != null) {
+            skeleton.poseUnchanged = false;
+        }
+    }
+
+    /**
+     * @return The animation levels of detail used by this control, or null.
+     * 
+     * @see #setLod(com.jme3.animation.AnimLod) 
+     */
+    public AnimLod getLod() {
+        return lod;
+    }
+
+    /**
+     * @return The current level of detail, 0 for full detail.
+     * 
+     * @see AnimLod
+     */
+    public int getLodLevel() {
+        return lodLevel;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        if (!enabled && skeleton != null) {
+            skeleton.poseUnchanged = false;
+        }
+    }
+
+    /**
+     * Selects the level of detail and applies its update rate.
+     * 
+     * @param tpf Time per frame
+     * @return The time to update the animation with, or -1 if the 
+     * animation is not updated this frame.
+     */
+    float updateLod(float tpf) {
+        if (lod == null) {
+            return tpf;
+        }
+
+        int level = renderedLodLevel >= 0 ? renderedLodLevel : lod.getLevelCount();
+        renderedLodLevel = -1;
+        lodLevel = level;
+        // the bone depth of the level can be changed at any time
+        int boneDepth = level == 0 ? -1 : lod.getLevel(level).getBoneDepth();
+        if (boneDepth != lodBoneDepth) {
+            lodBoneDepth = boneDepth;
+            lodBones = computeLodBones(boneDepth);
+        }
+
+        int interval = level == 0 ? 1 : lod.getLevel(level).getUpdateInterval();
+        lodTime += tpf;
+        if (lodFrames >= 0 && ++lodFrames < interval) {
+            if (skeleton != null) {
+                skeleton.poseUnchanged = true;
+            }
+            return -1;
+        }
+
+        if (skeleton != null) {
+            skeleton.poseUnchanged = false;
+        }
+        float time = lodTime;
+        lodFrames = 0;
+        lodTime = 0;
+        return time;
+    }
+
+    private BitSet computeLodBones(int boneDepth) {
+        if (boneDepth < 0 || skeleton == null) {
+            return null;
+        }
+
+        BitSet bones = new BitSet(skeleton.getBoneCount());
+        for (int i = 0; i < skeleton.getBoneCount(); i++) {
+            int depth = 0;
+            Bone bone = skeleton.getBone(i).getParent();
+            while (bone != null && depth <= boneDepth) {
+                bone = bone.getParent();
+                depth++;
+            }
+            if (depth <= boneDepth) {
+                bones.set(i);
+            }
+        }
+        return bones;
+    }
+
     /**
      * Internal use only.
      */
     @Override
     protected void controlUpdate(float tpf) {
+        if (batch != null) {
+            // evaluated by the batch
+            return;
+        }
+
+        tpf = updateLod(tpf);
+        if (tpf < 0) {
+            // skipped by the level of detail
+            return;
+        }
+
         if (skeleton != null) {
             skeleton.reset(); // reset skeleton to bind pose
         }
@@ -338,11 +510,53 @@ public final class AnimControl extends AbstractControl implements Cloneable {
         }
     }
 
+    /**
+     * Applies the bone tracks of the channels and updates the skeleton.
+     * Does not modify the scene graph nor notify the listeners, so this
+     * is called by the {@link AnimBatch} outside of the update thread.
+     */
+    void updateBones(float tpf, TempVars vars) {
+        if (skeleton != null) {
+            skeleton.reset(); // reset skeleton to bind pose
+        }
+
+        for (int i = 0; i < channels.size(); i++) {
+            channels.get(i).sampleTracks(tpf, vars, true);
+        }
+
+        if (skeleton != null) {
+            skeleton.updateModelTransforms();
+        }
+    }
+
+    /**
+     * Completes the update started by {@link #updateBones(float, com.jme3.util.TempVars) }:
+     * applies the other tracks, notifies the listeners, advances the 
+     * channels and updates the attachment nodes. Called by the 
+     * {@link AnimBatch} on the update thread.
+     */
+    void completeUpdate(float tpf, TempVars vars) {
+        for (int i = 0; i < channels.size(); i++) {
+            channels.get(i).completeUpdate(tpf, vars, true);
+        }
+
+        if (skeleton != null) {
+            skeleton.updateAttachmentNodes();
+        }
+    }
+
     /**
      * Internal use only.
      */
     @Override
     protected void controlRender(RenderManager rm, ViewPort vp) {
+        if (lod != null) {
+            // the most detailed level among the viewports is used
+            int level = lod.computeLevel(spatial, vp.getCamera());
+            if (renderedLodLevel < 0 || level < renderedLodLevel) {
+                renderedLodLevel = level;
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.animation;
+
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.AreaUtils;
+import java.util.ArrayList;
+
+/**
+ * <code>AnimLod</code> defines the animation levels of detail used by 
+ * {@link AnimControl}s.
+ * <p>
+ * Level 0 is the full detail: the animation is updated every frame and
+ * all the bones are animated. The other levels are added with 
+ * {@link #addLevel(float, int, int) }, from the nearest to the farthest,
+ * and reduce the update rate and the number of animated bones. The level 
+ * of a model is chosen when it is rendered, using the camera of the 
+ * viewport and the world bound of the model, and applies from the next update. 
+ * A model that was not rendered uses the farthest level.
+ * <p>
+ * While the animation is not updated, the {@link SkeletonControl} does 
+ * not skin the meshes again, so bones under user control should not be
+ * moved then.
+ * <p>
+ * An <code>AnimLod</code> can be shared by several controls.
+ * 
+ * @see AnimControl#setLod(com.jme3.animation.AnimLod) 
+ */
+public class AnimLod {
+
+    /**
+     * A level of detail.
+     */
+    public static class Level {
+
+        private float distance;
+        private float screenArea = 0;
+        private int updateInterval;
+        private int boneDepth;
+
+        Level(float distance, int updateInterval, int boneDepth) {
+            setDistance(distance);
+            setUpdateInterval(updateInterval);
+            setBoneDepth(boneDepth);
+        }
+
+        /**
+         * @return The distance to the camera beyond which this level is used.
+         */
+        public float getDistance() {
+            return distance;
+        }
+
+        /**
+         * Sets the distance from the camera to the model's bound beyond 
+         * which this level is used.
+         * 
+         * @param distance The distance, or {@link Float#POSITIVE_INFINITY}
+         * to only use the screen area.
+         */
+        public void setDistance(float distance) {
+            this.distance = distance;
+        }
+
+        /**
+         * @return The screen area below which this level is used.
+         */
+        public float getScreenArea() {
+            return screenArea;
+        }
+
+        /**
+         * Sets the area of the screen, in pixels, covered by the model's
+         * bound below which this level is used, whatever the distance.
+         * 
+         * @param screenArea The screen area, 0 (the default) to only use
+         * the distance.
+         */
+        public void setScreenArea(float screenArea) {
+            this.screenArea = screenArea;
+        }
+
+        /**
+         * @return The number of frames between two animation updates.
+         */
+        public int getUpdateInterval() {
+            return updateInterval;
+        }
+
+        /**
+         * Sets the number of frames between two animation updates.
+         * The animation time still advances by the time elapsed since the 
+         * last update, so the animation plays at the same speed, with 
+         * fewer poses.
+         * 
+         * @param updateInterval The update interval, 1 to update every frame.
+         */
+        public void setUpdateInterval(int updateInterval) {
+            if (updateInterval < 1) {
+                throw new IllegalArgumentException("updateInterval must be at least 1");
+            }
+            this.updateInterval = updateInterval;
+        }
+
+        /**
+         * @return The depth of the deepest animated bones, or -1 if all
+         * bones are animated.
+         */
+        public int getBoneDepth() {
+            return boneDepth;
+        }
+
+        /**
+         * Sets the depth, in the skeleton hierarchy, of the deepest 
+         * animated bones. Deeper bones, like fingers, stay in their bind
+         * pose relative to their parent.
+         * 
+         * @param boneDepth The bone depth, 0 to only animate the root bones 
+         * or -1 to animate all bones.
+         */
+        public void setBoneDepth(int boneDepth) {
+            this.boneDepth = boneDepth;
+        }
+    }
+
+    private final ArrayList<Level> levels = new ArrayList<Level>();
+
+    /**
+     * Adds a level of detail, farther than the previously added levels.
+     * 
+     * @param distance The distance from the camera beyond which the level
+     * is used
+     * @param updateInterval The number of frames between two animation 
+     * updates
+     * @param boneDepth The depth of the deepest animated bones, -1 for all
+     * bones
+     * @return The new level, whose index is the number of levels added before
+     * plus one.
+     */
+    public Level addLevel(float distance, int updateInterval, int boneDepth) {
+        Level level = new Level(distance, updateInterval, boneDepth);
+        levels.add(level);
+        return level;
+    }
+
+    /**
+     * Returns a level of detail.
+     * 
+     * @param index The index of the level, from 1 to {@link #getLevelCount() }
+     * @return The level
+     */
+    public Level getLevel(int index) {
+        return levels.get(index - 1);
+    }
+
+    /**
+     * @return The number of levels added, level 0 excluded.
+     */
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    /**
+     * Computes the level of detail of a model seen by a camera.
+     * 
+     * @param spatial The animated model
+     * @param cam The camera
+     * @return The index of the farthest level which applies, 0 if none.
+     */
+    public int computeLevel(Spatial spatial, Camera cam) {
+        BoundingVolume bv = spatial.getWorldBound();
+        if (bv == null || levels.isEmpty()) {
+            return 0;
+        }
+
+        float distance = bv.distanceTo(cam.getLocation());
+        float area = -1;
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            Level level = levels.get(i);
+            if (distance >= level.distance) {
+                return i + 1;
+            }
+            if (level.screenArea > 0) {
+                if (area < 0) {
+                    area = AreaUtils.calcScreenArea(bv, distance, cam.getWidth());
+                }
+                if (area <= level.screenArea) {
+                    return i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -111,6 +111,35 @@ public class Animation implements Savable, Cloneable {
         }
     }
 
+    /**
+     * Sets the current time of the bone tracks of the animation only.
+     * Bone tracks only modify the bones of the control's skeleton, so this
+     * may be called outside of the update thread.
+     * 
+     * @see #setTime(float, float, com.jme3.animation.AnimControl, com.jme3.animation.AnimChannel, com.jme3.util.TempVars) 
+     */
+    void setBoneTracksTime(float time, float blendAmount, AnimControl control, AnimChannel channel, TempVars vars) {
+        for (Track track : tracks.getArray()) {
+            if (track instanceof BoneTrack) {
+                track.setTime(time, blendAmount, control, channel, vars);
+            }
+        }
+    }
+
+    /**
+     * Sets the current time of all the tracks of the animation except 
+     * the bone tracks.
+     * 
+     * @see #setBoneTracksTime(float, float, com.jme3.animation.AnimControl, com.jme3.animation.AnimChannel, com.jme3.util.TempVars) 
+     */
+    void setOtherTracksTime(float time, float blendAmount, AnimControl control, AnimChannel channel, TempVars vars) {
+        for (Track track : tracks.getArray()) {
+            if (!(track instanceof BoneTrack)) {
+                track.setTime(time, blendAmount, control, channel, vars);
+            }
+        }
+    }
+
     /**
      * Set the {@link Track}s to be used by this animation.
      * 
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.animation;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import java.util.Arrays;
+
+/**
+ * <code>AnimationCompressor</code> reduces the memory used by the 
+ * {@link BoneTrack}s and {@link SpatialTrack}s of animations, and the 
+ * size of the j3o files they are saved to.
+ * <p>
+ * Keyframes that can be interpolated from their neighbours within the
+ * error tolerances are removed, then the remaining keyframes are stored
+ * in {@link QuantizedVector3Array}s and {@link QuantizedQuaternionArray}s.
+ * The error of the compressed tracks is bounded by the tolerances plus 
+ * the quantization error.
+ * <p>
+ * Animations are typically compressed once, after being imported and
+ * before being saved with the BinaryExporter.
+ */
+public class AnimationCompressor {
+
+    private float translationTolerance = 0.001f;
+    private float rotationTolerance = 0.001f;
+    private float scaleTolerance = 0.001f;
+
+    /**
+     * Creates a compressor with the default tolerances.
+     */
+    public AnimationCompressor() {
+    }
+
+    /**
+     * Creates a compressor with the given tolerances.
+     * 
+     * @param translationTolerance The translation tolerance, in world units
+     * @param rotationTolerance The rotation tolerance, in radians
+     * @param scaleTolerance The scale tolerance
+     */
+    public AnimationCompressor(float translationTolerance, float rotationTolerance, float scaleTolerance) {
+        this.translationTolerance = translationTolerance;
+        this.rotationTolerance = rotationTolerance;
+        this.scaleTolerance = scaleTolerance;
+    }
+
+    /**
+     * @return The translation tolerance.
+     * 
+     * @see #setTranslationTolerance(float) 
+     */
+    public float getTranslationTolerance() {
+        return translationTolerance;
+    }
+
+    /**
+     * Sets the maximum distance between the translations of the compressed 
+     * track and the keyframes it replaces. Default is 0.001.
+     * 
+     * @param translationTolerance The translation tolerance, in world units
+     */
+    public void setTranslationTolerance(float translationTolerance) {
+        this.translationTolerance = translationTolerance;
+    }
+
+    /**
+     * @return The rotation tolerance.
+     * 
+     * @see #setRotationTolerance(float) 
+     */
+    public float getRotationTolerance() {
+        return rotationTolerance;
+    }
+
+    /**
+     * Sets the maximum angle between the rotations of the compressed 
+     * track and the keyframes it replaces. Default is 0.001.
+     * 
+     * @param rotationTolerance The rotation tolerance, in radians
+     */
+    public void setRotationTolerance(float rotationTolerance) {
+        this.rotationTolerance = rotationTolerance;
+    }
+
+    /**
+     * @return The scale tolerance.
+     * 
+     * @see #setScaleTolerance(float) 
+     */
+    public float getScaleTolerance() {
+        return scaleTolerance;
+    }
+
+    /**
+     * Sets the maximum difference between the scales of the compressed 
+     * track and the keyframes it replaces. Default is 0.001.
+     * 
+     * @param scaleTolerance The scale tolerance
+     */
+    public void setScaleTolerance(float scaleTolerance) {
+        this.scaleTolerance = scaleTolerance;
+    }
+
+    /**
+     * Compresses all the animations of a control.
+     * 
+     * @param control The animation control
+     */
+    public void compress(AnimControl control) {
+        for (Animation anim : control.animationMap.values()) {
+            compress(anim);
+        }
+    }
+
+    /**
+     * Compresses the bone and spatial tracks of an animation. 
+     * The other tracks are left unchanged.
+     * 
+     * @param anim The animation
+     */
+    public void compress(Animation anim) {
+        for (Track track : anim.getTracks()) {
+            if (track instanceof BoneTrack) {
+                compress((BoneTrack) track);
+            } else if (track instanceof SpatialTrack) {
+                compress((SpatialTrack) track);
+            }
+        }
+    }
+
+    /**
+     * Compresses a bone track.
+     * 
+     * @param track The track
+     */
+    public void compress(BoneTrack track) {
+        float[] times = track.getTimes();
+        Vector3f[] translations = track.getTranslations();
+        Quaternion[] rotations = track.getRotations();
+        Vector3f[] scales = track.getScales();
+
+        boolean[] kept = reduceKeyframes(times, translations, rotations, scales);
+        track.setCompressedKeyframes(filter(times, kept),
+                quantize(translations, kept),
+                quantize(rotations, kept),
+                quantize(scales, kept));
+    }
+
+    /**
+     * Compresses a spatial track.
+     * 
+     * @param track The track
+     */
+    public void compress(SpatialTrack track) {
+        float[] times = track.getTimes();
+        Vector3f[] translations = track.getTranslations();
+        Quaternion[] rotations = track.getRotations();
+        Vector3f[] scales = track.getScales();
+
+        boolean[] kept = reduceKeyframes(times, translations, rotations, scales);
+        track.setCompressedKeyframes(filter(times, kept),
+                quantize(translations, kept),
+                quantize(rotations, kept),
+                quantize(scales, kept));
+    }
+
+    /**
+     * Selects the keyframes to keep: a keyframe is removed if all the 
+     * keyframes between the previous kept keyframe and the next one can be
+     * interpolated within the tolerances. The first and last keyframes 
+     * are always kept.
+     */
+    private boolean[] reduceKeyframes(float[] times, Vector3f[] translations, 
+                                      Quaternion[] rotations, Vector3f[] scales) {
+        boolean[] kept = new boolean[times.length];
+        if (times.length < 3) {
+            // nothing between the first and last keyframes
+            Arrays.fill(kept, true);
+            return kept;
+        }
+        kept[0] = true;
+        kept[times.length - 1] = true;
+
+        // cosine of half the angle, compared with the quaternions dot product
+        float minDot = FastMath.cos(rotationTolerance / 2f);
+        Vector3f tempV = new Vector3f();
+        Quaternion tempQ = new Quaternion();
+
+        int start = 0;
+        for (int end = 2; end < times.length; end++) {
+            if (!canInterpolate(start, end, times, translations, rotations, scales, minDot, tempV, tempQ)) {
+                kept[end - 1] = true;
+                start = end - 1;
+            }
+        }
+        return kept;
+    }
+
+    private boolean canInterpolate(int start, int end, float[] times, Vector3f[] translations,
+                                   Quaternion[] rotations, Vector3f[] scales, float minDot,
+                                   Vector3f tempV, Quaternion tempQ) {
+        for (int i = start + 1; i < end; i++) {
+            // same interpolation as the tracks
+            float blend = (times[i] - times[start]) / (times[end] - times[start]);
+            if (translations != null) {
+                tempV.set(translations[start]).interpolateLocal(translations[end], blend);
+                if (tempV.distance(translations[i]) > translationTolerance) {
+                    return false;
+                }
+            }
+            if (scales != null) {
+                tempV.set(scales[start]).interpolateLocal(scales[end], blend);
+                if (tempV.distance(scales[i]) > scaleTolerance) {
+                    return false;
+                }
+            }
+            if (rotations != null) {
+                tempQ.set(rotations[start]).nlerp(rotations[end], blend);
+                Quaternion rot = rotations[i];
+                float norm = FastMath.sqrt(rot.dot(rot));
+                if (Math.abs(tempQ.dot(rot)) / norm < minDot) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int count(boolean[] kept) {
+        int count = 0;
+        for (boolean k : kept) {
+            if (k) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static float[] filter(float[] times, boolean[] kept) {
+        float[] result = new float[count(kept)];
+        for (int i = 0, j = 0; i < times.length; i++) {
+            if (kept[i]) {
+                result[j++] = times[i];
+            }
+        }
+        return result;
+    }
+
+    private static QuantizedVector3Array quantize(Vector3f[] values, boolean[] kept) {
+        if (values == null) {
+            return null;
+        }
+        Vector3f[] result = new Vector3f[count(kept)];
+        for (int i = 0, j = 0; i < values.length; i++) {
+            if (kept[i]) {
+                result[j++] = values[i];
+            }
+        }
+        return new QuantizedVector3Array(result);
+    }
+
+    private static QuantizedQuaternionArray quantize(Quaternion[] values, boolean[] kept) {
+        if (values == null) {
+            return null;
+        }
+        Quaternion[] result = new Quaternion[count(kept)];
+        for (int i = 0, j = 0; i < values.length; i++) {
+            if (kept[i]) {
+                result[j++] = values[i];
+            }
+        }
+        return new QuantizedQuaternionArray(result);
+    }
+}
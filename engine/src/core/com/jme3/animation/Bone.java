@@ -331,6 +331,15 @@ public final class Bone implements Savable {
      * world transform with this bones' local transform.
      */
     public final void updateWorldVectors() {
+        updateModelTransforms();
+        updateAttachNode();
+    }
+
+    /**
+     * Updates the model space transforms of this bone, like 
+     * {@link #updateWorldVectors() } but without updating the attach node.
+     */
+    final void updateModelTransforms() {
         if (currentWeightSum == 1f) {
             currentWeightSum = -1;
         } else if (currentWeightSum != -1f) {
@@ -369,7 +378,13 @@ public final class Bone implements Savable {
             worldPos.set(localPos);
             worldScale.set(localScale);
         }
+    }
 
+    /**
+     * Updates the attach node, if any, with the model space transforms
+     * of this bone.
+     */
+    final void updateAttachNode() {
         if (attachNode != null) {
             attachNode.setLocalTranslation(worldPos);
             attachNode.setLocalRotation(worldRot);
@@ -381,10 +396,25 @@ public final class Bone implements Savable {
      * Updates world transforms for this bone and it's children.
      */
     final void update() {
-        this.updateWorldVectors();
+        update(true);
+    }
+
+    /**
+     * Updates world transforms for this bone and it's children.
+     * 
+     * @param updateAttachNodes If false, the attach nodes are not updated.
+     * The scene graph is then not modified, which allows to update the bones
+     * outside of the update thread.
+     */
+    final void update(boolean updateAttachNodes) {
+        if (updateAttachNodes) {
+            this.updateWorldVectors();
+        } else {
+            this.updateModelTransforms();
+        }
 
         for (int i = children.size() - 1; i >= 0; i--) {
-            children.get(i).update();
+            children.get(i).update(updateAttachNodes);
         }
     }
 
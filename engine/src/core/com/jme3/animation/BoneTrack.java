@@ -175,6 +175,18 @@ public final class BoneTrack implements Track {
         }
     }
 
+    /**
+     * Sets the keyframes of this track with arrays built by the 
+     * {@link AnimationCompressor}.
+     */
+    void setCompressedKeyframes(float[] times, CompactVector3Array translations,
+                                CompactQuaternionArray rotations, CompactVector3Array scales) {
+        this.times = times;
+        this.translations = translations;
+        this.rotations = rotations;
+        this.scales = scales;
+    }
+
     /**
      * 
      * Modify the bone which this track modifies in the skeleton to contain
@@ -192,6 +204,10 @@ public final class BoneTrack implements Track {
         if (affectedBones != null && !affectedBones.get(targetBoneIndex)) {
             return;
         }
+        BitSet lodBones = control.lodBones;
+        if (lodBones != null && !lodBones.get(targetBoneIndex)) {
+            return;
+        }
         
         Bone target = control.getSkeleton().getBone(targetBoneIndex);
 
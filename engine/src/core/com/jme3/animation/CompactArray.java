@@ -136,7 +136,7 @@ public abstract class CompactArray<T> {
      * return a float array of serialized data
      * @return 
      */
-    public final float[] getSerializedData() {
+    public float[] getSerializedData() {
         serialize();
         return array;
     }
@@ -160,9 +160,11 @@ public abstract class CompactArray<T> {
     }
 
     /**
+     * Subclasses that do not store their data in the float array
+     * must override this method.
      * @return compacted array's primitive size
      */
-    protected final int getSerializedSize() {
+    protected int getSerializedSize() {
         return Array.getLength(getSerializedData());
     }
 
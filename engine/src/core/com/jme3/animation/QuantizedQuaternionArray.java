@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.animation;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import java.io.IOException;
+
+/**
+ * Stores {@link Quaternion}[] quantized on 48 bits per quaternion, 
+ * instead of 128 bits for {@link CompactQuaternionArray}.
+ * <p>
+ * The "smallest three" encoding is used: the largest component of the
+ * normalized quaternion is dropped and the three others, which lie 
+ * in [-1/sqrt(2), 1/sqrt(2)], are stored on 15 bits each. The index of the 
+ * dropped component takes 2 of the 3 remaining bits. The error on each 
+ * component is below 0.00003.
+ * <p>
+ * Values are not indexed. The range of the stored components does not
+ * depend on the values, so {@link #add(com.jme3.math.Quaternion[]) added}
+ * values are simply appended.
+ * 
+ * @see AnimationCompressor
+ */
+public class QuantizedQuaternionArray extends CompactQuaternionArray {
+
+    private static final float RANGE = 1f / FastMath.sqrt(2f);
+    private static final int MAX_VALUE = 0x7fff;
+
+    private short[] data;
+
+    /**
+     * Serialization only. Do not use.
+     */
+    public QuantizedQuaternionArray() {
+    }
+
+    /**
+     * Creates a quantized array of the given quaternions.
+     * 
+     * @param values The quaternions to store
+     */
+    public QuantizedQuaternionArray(Quaternion[] values) {
+        data = new short[values.length * 3];
+        for (int i = 0; i < values.length; i++) {
+            serialize(i, values[i]);
+        }
+    }
+
+    /**
+     * Appends the given quaternions.
+     * 
+     * @param objArray The quaternions to append
+     */
+    @Override
+    public void add(Quaternion... objArray) {
+        if (objArray == null || objArray.length == 0) {
+            return;
+        }
+        int count = data.length / 3;
+        short[] tmp = new short[data.length + objArray.length * 3];
+        System.arraycopy(data, 0, tmp, 0, data.length);
+        data = tmp;
+        for (int i = 0; i < objArray.length; i++) {
+            serialize(count + i, objArray[i]);
+        }
+    }
+
+    private static int quantize(float value) {
+        int q = Math.round((value + RANGE) / (2f * RANGE) * MAX_VALUE);
+        return q < 0 ? 0 : (q > MAX_VALUE ? MAX_VALUE : q);
+    }
+
+    private static float dequantize(int q) {
+        return q * (2f * RANGE) / MAX_VALUE - RANGE;
+    }
+
+    @Override
+    protected void serialize(int i, Quaternion store) {
+        float x = store.getX(), y = store.getY(), z = store.getZ(), w = store.getW();
+        float norm = FastMath.sqrt(x * x + y * y + z * z + w * w);
+        float[] c = {x / norm, y / norm, z / norm, w / norm};
+
+        int largest = 0;
+        for (int k = 1; k < 4; k++) {
+            if (Math.abs(c[k]) > Math.abs(c[largest])) {
+                largest = k;
+            }
+        }
+        // q and -q are the same rotation, make the dropped component positive
+        float sign = c[largest] < 0 ? -1f : 1f;
+
+        int j = i * 3;
+        int bits = largest;
+        for (int k = 0; k < 4; k++) {
+            if (k != largest) {
+                data[j++] = (short) ((quantize(c[k] * sign) << 1) | (bits & 1));
+                bits >>= 1;
+            }
+        }
+    }
+
+    @Override
+    protected Quaternion deserialize(int i, Quaternion store) {
+        int j = i * 3;
+        int s0 = data[j] & 0xffff, s1 = data[j + 1] & 0xffff, s2 = data[j + 2] & 0xffff;
+        int largest = (s0 & 1) | ((s1 & 1) << 1);
+        float a = dequantize(s0 >> 1);
+        float b = dequantize(s1 >> 1);
+        float c = dequantize(s2 >> 1);
+        float d = FastMath.sqrt(Math.max(0f, 1f - a * a - b * b - c * c));
+        switch (largest) {
+            case 0:
+                return store.set(d, a, b, c);
+            case 1:
+                return store.set(a, d, b, c);
+            case 2:
+                return store.set(a, b, d, c);
+            default:
+                return store.set(a, b, c, d);
+        }
+    }
+
+    @Override
+    protected int getSerializedSize() {
+        return data.length / 3 * getTupleSize();
+    }
+
+    @Override
+    public float[] getSerializedData() {
+        float[] result = new float[getSerializedSize()];
+        Quaternion q = new Quaternion();
+        for (int i = 0; i < data.length / 3; i++) {
+            deserialize(i, q);
+            result[i * 4] = q.getX();
+            result[i * 4 + 1] = q.getY();
+            result[i * 4 + 2] = q.getZ();
+            result[i * 4 + 3] = q.getW();
+        }
+        return result;
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        OutputCapsule out = ex.getCapsule(this);
+        out.write(data, "data", null);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        InputCapsule in = im.getCapsule(this);
+        data = in.readShortArray("data", null);
+    }
+}
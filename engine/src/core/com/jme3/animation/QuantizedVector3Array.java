@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.animation;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.Vector3f;
+import java.io.IOException;
+
+/**
+ * Stores {@link Vector3f}[] quantized on 48 bits per vector, instead of 
+ * 96 bits for {@link CompactVector3Array}.
+ * <p>
+ * Each component is quantized on 16 bits within the range of the values
+ * of that component in the array, the error is below 1/131070th of 
+ * that range. 
+ * <p>
+ * Values are not indexed. When {@link #add(com.jme3.math.Vector3f[]) added}
+ * values fall outside the current range, the whole array is quantized
+ * again within the new range. Values 
+ * {@link #set(int, java.lang.Object) set} afterwards are clamped to the range.
+ * 
+ * @see AnimationCompressor
+ */
+public class QuantizedVector3Array extends CompactVector3Array {
+
+    private static final int MAX_VALUE = 0xffff;
+
+    private short[] data;
+    private float[] min;
+    private float[] extent;
+
+    /**
+     * Serialization only. Do not use.
+     */
+    public QuantizedVector3Array() {
+    }
+
+    /**
+     * Creates a quantized array of the given vectors.
+     * 
+     * @param values The vectors to store
+     */
+    public QuantizedVector3Array(Vector3f[] values) {
+        quantize(values);
+    }
+
+    private void quantize(Vector3f[] values) {
+        min = new float[]{Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        extent = new float[3];
+        float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (Vector3f v : values) {
+            for (int k = 0; k < 3; k++) {
+                min[k] = Math.min(min[k], v.get(k));
+                max[k] = Math.max(max[k], v.get(k));
+            }
+        }
+        for (int k = 0; k < 3; k++) {
+            if (values.length == 0) {
+                min[k] = 0;
+            } else {
+                extent[k] = max[k] - min[k];
+            }
+        }
+
+        data = new short[values.length * 3];
+        for (int i = 0; i < values.length; i++) {
+            serialize(i, values[i]);
+        }
+    }
+
+    /**
+     * Appends the given vectors. If one of them lies outside the current 
+     * range, all the values are quantized again within the new range.
+     * 
+     * @param objArray The vectors to append
+     */
+    @Override
+    public void add(Vector3f... objArray) {
+        if (objArray == null || objArray.length == 0) {
+            return;
+        }
+        int count = data.length / 3;
+        boolean inRange = true;
+        for (Vector3f v : objArray) {
+            for (int k = 0; k < 3; k++) {
+                if (v.get(k) < min[k] || v.get(k) > min[k] + extent[k]) {
+                    inRange = false;
+                }
+            }
+        }
+
+        if (inRange) {
+            short[] tmp = new short[data.length + objArray.length * 3];
+            System.arraycopy(data, 0, tmp, 0, data.length);
+            data = tmp;
+            for (int i = 0; i < objArray.length; i++) {
+                serialize(count + i, objArray[i]);
+            }
+        } else {
+            Vector3f[] values = new Vector3f[count + objArray.length];
+            for (int i = 0; i < count; i++) {
+                values[i] = deserialize(i, new Vector3f());
+            }
+            System.arraycopy(objArray, 0, values, count, objArray.length);
+            quantize(values);
+        }
+    }
+
+    @Override
+    protected void serialize(int i, Vector3f store) {
+        int j = i * 3;
+        for (int k = 0; k < 3; k++) {
+            int q = 0;
+            if (extent[k] > 0) {
+                q = Math.round((store.get(k) - min[k]) / extent[k] * MAX_VALUE);
+                q = q < 0 ? 0 : (q > MAX_VALUE ? MAX_VALUE : q);
+            }
+            data[j + k] = (short) q;
+        }
+    }
+
+    @Override
+    protected Vector3f deserialize(int i, Vector3f store) {
+        int j = i * 3;
+        return store.set(min[0] + (data[j] & 0xffff) * extent[0] / MAX_VALUE,
+                         min[1] + (data[j + 1] & 0xffff) * extent[1] / MAX_VALUE,
+                         min[2] + (data[j + 2] & 0xffff) * extent[2] / MAX_VALUE);
+    }
+
+    @Override
+    protected int getSerializedSize() {
+        return data.length;
+    }
+
+    @Override
+    public float[] getSerializedData() {
+        float[] result = new float[data.length];
+        Vector3f v = new Vector3f();
+        for (int i = 0; i < data.length / 3; i++) {
+            deserialize(i, v);
+            result[i * 3] = v.x;
+            result[i * 3 + 1] = v.y;
+            result[i * 3 + 2] = v.z;
+        }
+        return result;
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        OutputCapsule out = ex.getCapsule(this);
+        out.write(data, "data", null);
+        out.write(min, "min", null);
+        out.write(extent, "extent", null);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        InputCapsule in = im.getCapsule(this);
+        data = in.readShortArray("data", null);
+        min = in.readFloatArray("min", null);
+        extent = in.readFloatArray("extent", null);
+    }
+}
@@ -56,6 +56,13 @@ public final class Skeleton implements Savable {
      */
     private transient Matrix4f[] skinningMatrixes;
 
+    /**
+     * True if the animation of this skeleton was skipped this frame by
+     * the level of detail of its {@link AnimControl}, the bones being left 
+     * in the previous pose.
+     */
+    transient boolean poseUnchanged = false;
+
     /**
      * Creates a skeleton from a bone list. 
      * The root bones are found automatically.
@@ -149,6 +156,28 @@ public final class Skeleton implements Savable {
         }
     }
 
+    /**
+     * Updates the model space transforms of all bones in this skeleton, 
+     * without updating the attachment nodes.
+     * 
+     * @see #updateAttachmentNodes() 
+     */
+    void updateModelTransforms() {
+        for (int i = rootBones.length - 1; i >= 0; i--) {
+            rootBones[i].update(false);
+        }
+    }
+
+    /**
+     * Updates the attachment nodes of the bones with their model space 
+     * transforms. Must be called on the update thread.
+     */
+    void updateAttachmentNodes() {
+        for (int i = 0; i < boneList.length; i++) {
+            boneList[i].updateAttachNode();
+        }
+    }
+
     /**
      * Saves the current skeleton state as it's binding pose.
      */
@@ -43,15 +43,21 @@ import com.jme3.scene.VertexBuffer.Type;
 import com.jme3.scene.control.AbstractControl;
 import com.jme3.scene.control.Control;
 import com.jme3.shader.VarType;
+import com.jme3.util.BufferUtils;
 import com.jme3.util.SafeArrayList;
 import com.jme3.util.TempVars;
 import java.io.IOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -109,6 +115,45 @@ public class SkeletonControl extends AbstractControl implements Cloneable {
      */
     private Set<Material> materials = new HashSet<Material>();
 
+    /**
+     * Number of vertices skinned by a single task when skinning
+     * with an executor. Larger meshes are split in several tasks.
+     */
+    private static final int VERTICES_PER_TASK = 2048;
+
+    /**
+     * Executor used to skin the meshes during update, or null
+     * to skin them on the render thread.
+     */
+    private transient ExecutorService skinningExecutor;
+
+    /**
+     * Back buffers written by the skinning tasks, per target mesh.
+     */
+    private transient IdentityHashMap<Mesh, SkinningBuffers> skinningBuffers;
+
+    /**
+     * Skinning tasks submitted during this frame's update.
+     */
+    private transient ArrayList<Future<?>> skinningTasks = new ArrayList<Future<?>>();
+
+    /**
+     * Copy of the skinning matrices used by the skinning tasks.
+     */
+    private transient Matrix4f[] taskMatrices;
+
+    /**
+     * True if the meshes were software skinned during the last render,
+     * i.e. the model was visible.
+     */
+    private transient boolean wasSoftwareSkinned = false;
+
+    /**
+     * True if the meshes are software skinned with the current pose of
+     * the skeleton, so skinning can be skipped while the pose is unchanged.
+     */
+    private transient boolean softwareSkinningValid = false;
+
     /**
      * Serialization only. Do not use.
      */
@@ -313,10 +358,17 @@ public class SkeletonControl extends AbstractControl implements Cloneable {
             }
 
             if (hwSkinningEnabled) {
+                finishSkinningTasks(false);
                 controlRenderHardware();
-            } else {
+            } else if (softwareSkinningValid) {
+                // the animation was skipped by the level of detail,
+                // the meshes are still skinned with the current pose
+                finishSkinningTasks(false);
+            } else if (!finishSkinningTasks(true)) {
                 controlRenderSoftware();
             }
+            wasSoftwareSkinned = !hwSkinningEnabled;
+            softwareSkinningValid = !hwSkinningEnabled;
 
             wasMeshUpdated = true;
         }
@@ -325,7 +377,328 @@ public class SkeletonControl extends AbstractControl implements Cloneable {
     @Override
     protected void controlUpdate(float tpf) {
         wasMeshUpdated = false;
-     }
+
+        // discard the results that were not used because the model 
+        // was not rendered
+        finishSkinningTasks(false);
+        if (!skeleton.poseUnchanged) {
+            softwareSkinningValid = false;
+        }
+        if (skinningExecutor != null && wasSoftwareSkinned && !softwareSkinningValid && !targets.isEmpty()) {
+            startSkinningTasks();
+        }
+        wasSoftwareSkinned = false;
+    }
+
+    /**
+     * Sets the executor used to perform software skinning.
+     * <p>
+     * When an executor is set, the meshes of a model that was visible
+     * in the previous frame are skinned by the executor's threads 
+     * during {@link #update(float) update}, large meshes being split in
+     * several tasks. The skinned positions, normals and tangents are
+     * written to back buffers which are swapped with the mesh buffers
+     * when the model is rendered, so skinning overlaps with the rest
+     * of the frame. The pose of the skeleton at the time this control
+     * is updated is used, so the {@link AnimControl} must be updated before
+     * this control.
+     * <p>
+     * The same executor can be shared by all the skeleton controls.
+     * Set to null to skin meshes on the render thread (the default).
+     * Has no effect when hardware skinning is used.
+     * 
+     * @param executor The executor to use, or null.
+     */
+    public void setSkinningExecutor(ExecutorService executor) {
+        if (executor == null) {
+            finishSkinningTasks(false);
+            skinningBuffers = null;
+        }
+        this.skinningExecutor = executor;
+    }
+
+    /**
+     * @return The executor used to perform software skinning, or null
+     * if skinning is done on the render thread.
+     * 
+     * @see #setSkinningExecutor(java.util.concurrent.ExecutorService) 
+     */
+    public ExecutorService getSkinningExecutor() {
+        return skinningExecutor;
+    }
+
+    /**
+     * Submits the skinning of all target meshes to the skinning executor.
+     */
+    private void startSkinningTasks() {
+        Matrix4f[] matrices = skeleton.computeSkinningMatrices();
+        if (taskMatrices == null || taskMatrices.length != matrices.length) {
+            taskMatrices = new Matrix4f[matrices.length];
+            for (int i = 0; i < matrices.length; i++) {
+                taskMatrices[i] = new Matrix4f();
+            }
+        }
+        // the skeleton matrices can be recomputed while the tasks run
+        for (int i = 0; i < matrices.length; i++) {
+            taskMatrices[i].set(matrices[i]);
+        }
+
+        if (skinningBuffers == null) {
+            skinningBuffers = new IdentityHashMap<Mesh, SkinningBuffers>();
+        }
+        for (Mesh mesh : targets.getArray()) {
+            Buffer bwBuff = mesh.getBuffer(Type.BoneWeight).getData();
+            Buffer biBuff = mesh.getBuffer(Type.BoneIndex).getData();
+            if (!biBuff.hasArray() || !bwBuff.hasArray()) {
+                mesh.prepareForAnim(true); // prepare for software animation
+            }
+
+            SkinningBuffers buffers = skinningBuffers.get(mesh);
+            if (buffers == null) {
+                buffers = new SkinningBuffers();
+                skinningBuffers.put(mesh, buffers);
+            }
+            buffers.prepare(mesh);
+
+            int numVerts = mesh.getVertexCount();
+            for (int start = 0; start < numVerts; start += VERTICES_PER_TASK) {
+                int end = Math.min(numVerts, start + VERTICES_PER_TASK);
+                SkinningTask task = new SkinningTask(mesh, buffers, taskMatrices, start, end);
+                skinningTasks.add(skinningExecutor.submit(task));
+            }
+        }
+    }
+
+    /**
+     * Waits for the skinning tasks submitted during update.
+     * 
+     * @param apply If true, the back buffers are swapped with the
+     * mesh buffers.
+     * @return True if the skinning results were applied to all targets.
+     */
+    private boolean finishSkinningTasks(boolean apply) {
+        if (skinningTasks.isEmpty()) {
+            return false;
+        }
+
+        try {
+            for (Future<?> task : skinningTasks) {
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            apply = false;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            skinningTasks.clear();
+        }
+
+        if (!apply) {
+            return false;
+        }
+        // targets are gathered again every frame, make sure
+        // they were all skinned
+        for (Mesh mesh : targets.getArray()) {
+            SkinningBuffers buffers = skinningBuffers.get(mesh);
+            if (buffers == null || !buffers.ready) {
+                return false;
+            }
+        }
+        for (Mesh mesh : targets.getArray()) {
+            skinningBuffers.get(mesh).swap(mesh);
+        }
+        return true;
+    }
+
+    /**
+     * Double buffers of a mesh skinned by the skinning executor.
+     */
+    private static class SkinningBuffers {
+
+        private FloatBuffer positions;
+        private FloatBuffer normals;
+        private FloatBuffer tangents;
+        private boolean ready = false;
+
+        private static FloatBuffer createBackBuffer(FloatBuffer back, VertexBuffer front) {
+            FloatBuffer frontData = (FloatBuffer) front.getData();
+            if (back != null && back.capacity() == frontData.limit()
+                    && back.isDirect() == frontData.isDirect()) {
+                return back;
+            }
+            if (frontData.isDirect()) {
+                return BufferUtils.createFloatBuffer(frontData.limit());
+            }
+            return FloatBuffer.allocate(frontData.limit());
+        }
+
+        private void prepare(Mesh mesh) {
+            positions = createBackBuffer(positions, mesh.getBuffer(Type.Position));
+            normals = createBackBuffer(normals, mesh.getBuffer(Type.Normal));
+            VertexBuffer tb = mesh.getBuffer(Type.Tangent);
+            if (tb != null && mesh.getBuffer(Type.BindPoseTangent) != null) {
+                tangents = createBackBuffer(tangents, tb);
+            } else {
+                tangents = null;
+            }
+            ready = true;
+        }
+
+        private void swap(Mesh mesh) {
+            positions = swap(mesh.getBuffer(Type.Position), positions);
+            normals = swap(mesh.getBuffer(Type.Normal), normals);
+            if (tangents != null) {
+                tangents = swap(mesh.getBuffer(Type.Tangent), tangents);
+            }
+            ready = false;
+        }
+
+        private static FloatBuffer swap(VertexBuffer vb, FloatBuffer back) {
+            FloatBuffer front = (FloatBuffer) vb.getData();
+            back.clear();
+            vb.updateData(back);
+            return front;
+        }
+    }
+
+    /**
+     * Skins a range of vertices of a mesh from its bind pose into 
+     * the back buffers. Tasks of the same mesh write to disjoint ranges.
+     */
+    private static class SkinningTask implements Runnable {
+
+        private final Mesh mesh;
+        private final SkinningBuffers buffers;
+        private final Matrix4f[] offsetMatrices;
+        private final int startVertex, endVertex;
+
+        SkinningTask(Mesh mesh, SkinningBuffers buffers, Matrix4f[] offsetMatrices, int startVertex, int endVertex) {
+            this.mesh = mesh;
+            this.buffers = buffers;
+            this.offsetMatrices = offsetMatrices;
+            this.startVertex = startVertex;
+            this.endVertex = endVertex;
+        }
+
+        /**
+         * Returns a view on the given range of components of the buffer,
+         * so that tasks do not share buffer positions.
+         */
+        private static FloatBuffer range(Buffer data, int components, int start, int end) {
+            FloatBuffer view = ((FloatBuffer) data).duplicate();
+            view.limit(end * components);
+            view.position(start * components);
+            return view;
+        }
+
+        public void run() {
+            int maxWeightsPerVert = mesh.getMaxNumWeights();
+            if (maxWeightsPerVert <= 0) {
+                throw new IllegalStateException("Max weights per vert is incorrectly set!");
+            }
+            int fourMinusMaxWeights = 4 - maxWeightsPerVert;
+
+            FloatBuffer bindPos = range(mesh.getBuffer(Type.BindPosePosition).getData(), 3, startVertex, endVertex);
+            FloatBuffer bindNorm = range(mesh.getBuffer(Type.BindPoseNormal).getData(), 3, startVertex, endVertex);
+            FloatBuffer pos = range(buffers.positions, 3, startVertex, endVertex);
+            FloatBuffer norm = range(buffers.normals, 3, startVertex, endVertex);
+            FloatBuffer bindTan = null;
+            FloatBuffer tan = null;
+            if (buffers.tangents != null) {
+                bindTan = range(mesh.getBuffer(Type.BindPoseTangent).getData(), 4, startVertex, endVertex);
+                tan = range(buffers.tangents, 4, startVertex, endVertex);
+            }
+
+            float[] weights = ((FloatBuffer) mesh.getBuffer(Type.BoneWeight).getData()).array();
+            byte[] indices = ((ByteBuffer) mesh.getBuffer(Type.BoneIndex).getData()).array();
+            int idxWeights = startVertex * 4;
+
+            // TempVars are per thread, the chunk arrays are not shared
+            TempVars vars = TempVars.get();
+            float[] posBuf = vars.skinPositions;
+            float[] normBuf = vars.skinNormals;
+            float[] tanBuf = vars.skinTangents;
+
+            while (bindPos.hasRemaining()) {
+                int bufLength = Math.min(posBuf.length, bindPos.remaining());
+                int verts = bufLength / 3;
+                bindPos.get(posBuf, 0, bufLength);
+                bindNorm.get(normBuf, 0, bufLength);
+                if (tan != null) {
+                    bindTan.get(tanBuf, 0, verts * 4);
+                }
+
+                int idxPositions = 0;
+                int idxTangents = 0;
+                for (int vert = verts - 1; vert >= 0; vert--) {
+                    // Skip this vertex if the first weight is zero.
+                    if (weights[idxWeights] == 0) {
+                        idxPositions += 3;
+                        idxTangents += 4;
+                        idxWeights += 4;
+                        continue;
+                    }
+
+                    float vtx = posBuf[idxPositions];
+                    float vty = posBuf[idxPositions + 1];
+                    float vtz = posBuf[idxPositions + 2];
+                    float nmx = normBuf[idxPositions];
+                    float nmy = normBuf[idxPositions + 1];
+                    float nmz = normBuf[idxPositions + 2];
+                    float tnx = tanBuf[idxTangents];
+                    float tny = tanBuf[idxTangents + 1];
+                    float tnz = tanBuf[idxTangents + 2];
+
+                    float rx = 0, ry = 0, rz = 0, rnx = 0, rny = 0, rnz = 0, rtx = 0, rty = 0, rtz = 0;
+
+                    for (int w = maxWeightsPerVert - 1; w >= 0; w--) {
+                        float weight = weights[idxWeights];
+                        Matrix4f mat = offsetMatrices[indices[idxWeights++] & 0xff];
+
+                        rx += (mat.m00 * vtx + mat.m01 * vty + mat.m02 * vtz + mat.m03) * weight;
+                        ry += (mat.m10 * vtx + mat.m11 * vty + mat.m12 * vtz + mat.m13) * weight;
+                        rz += (mat.m20 * vtx + mat.m21 * vty + mat.m22 * vtz + mat.m23) * weight;
+
+                        rnx += (nmx * mat.m00 + nmy * mat.m01 + nmz * mat.m02) * weight;
+                        rny += (nmx * mat.m10 + nmy * mat.m11 + nmz * mat.m12) * weight;
+                        rnz += (nmx * mat.m20 + nmy * mat.m21 + nmz * mat.m22) * weight;
+
+                        rtx += (tnx * mat.m00 + tny * mat.m01 + tnz * mat.m02) * weight;
+                        rty += (tnx * mat.m10 + tny * mat.m11 + tnz * mat.m12) * weight;
+                        rtz += (tnx * mat.m20 + tny * mat.m21 + tnz * mat.m22) * weight;
+                    }
+
+                    idxWeights += fourMinusMaxWeights;
+
+                    posBuf[idxPositions] = rx;
+                    normBuf[idxPositions++] = rnx;
+                    posBuf[idxPositions] = ry;
+                    normBuf[idxPositions++] = rny;
+                    posBuf[idxPositions] = rz;
+                    normBuf[idxPositions++] = rnz;
+
+                    // the 4th component of the tangent is not transformed
+                    tanBuf[idxTangents++] = rtx;
+                    tanBuf[idxTangents++] = rty;
+                    tanBuf[idxTangents++] = rtz;
+                    idxTangents++;
+                }
+
+                pos.put(posBuf, 0, bufLength);
+                norm.put(normBuf, 0, bufLength);
+                if (tan != null) {
+                    tan.put(tanBuf, 0, verts * 4);
+                }
+            }
+
+            vars.release();
+        }
+    }
 
     //only do this for software updates
     void resetToBind() {
@@ -373,6 +746,7 @@ public class SkeletonControl extends AbstractControl implements Cloneable {
         SkeletonControl clone = new SkeletonControl();
 
         clone.skeleton = ctrl.getSkeleton();
+        clone.skinningExecutor = skinningExecutor;
 
         clone.setSpatial(clonedNode);
 
@@ -201,6 +201,18 @@ public class SpatialTrack implements Track {
         }
     }
 
+    /**
+     * Sets the keyframes of this track with arrays built by the 
+     * {@link AnimationCompressor}.
+     */
+    void setCompressedKeyframes(float[] times, CompactVector3Array translations,
+                                CompactQuaternionArray rotations, CompactVector3Array scales) {
+        this.times = times;
+        this.translations = translations;
+        this.rotations = rotations;
+        this.scales = scales;
+    }
+
     /**
      * @return the array of rotations of this track
      */
@@ -31,6 +31,7 @@
  */
 package com.jme3.light;
 
+import com.jme3.bounding.BoundingVolume;
 import com.jme3.export.*;
 import com.jme3.math.ColorRGBA;
 import com.jme3.scene.Spatial;
@@ -99,6 +100,13 @@ public abstract class Light implements Savable, Cloneable {
      */
     protected transient float lastDistance = -1;
 
+    /**
+     * Incremented each time the area of influence of a light changes.
+     * Used by {@link LightList} to know when lists filtered by
+     * bounding volume must be rebuilt.
+     */
+    private static int influenceVersion = 0;
+
     /**
      * If light is disabled, it will not have any 
      */
@@ -192,6 +200,30 @@ public abstract class Light implements Savable, Cloneable {
         name = ic.readString("name", null);
     }
 
+    /**
+     * Returns true if this light can affect an object contained in the
+     * given world bound. Lights without a limited area of influence, 
+     * like ambient and directional lights, always return true.
+     * 
+     * @param bound the world bound to test
+     * @return true if the light can affect the bound
+     */
+    public boolean intersectsBound(BoundingVolume bound) {
+        return true;
+    }
+
+    /**
+     * Must be called by subclasses when the area of influence 
+     * of the light has changed.
+     */
+    protected static void influenceChanged() {
+        influenceVersion++;
+    }
+
+    static int getInfluenceVersion() {
+        return influenceVersion;
+    }
+
     /**
      * Used internally to compute the last distance value.
      */
@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.light;
+
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Renderer;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.shader.Shader;
+import com.jme3.shader.VarType;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.util.BufferUtils;
+import com.jme3.util.TempVars;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code>LightClusters</code> bins the lights of a {@link ViewPort} into 
+ * clusters for {@link com.jme3.material.TechniqueDef.LightMode#Clustered clustered forward lighting}.
+ * <p>
+ * The view frustum is divided into screen space tiles and exponential 
+ * depth slices. Each frame the point and spot lights are assigned on the 
+ * CPU to the clusters intersecting their bounding sphere. 
+ * Directional lights and point lights without a radius light every 
+ * cluster and are stored first.
+ * The result is uploaded as three float textures:
+ * <ul>
+ * <li><code>g_ClusterLightData</code>: 3 rows of texels per light, 
+ * the color and type, the view space position (or direction) and the 
+ * inverse range, and the view space spot direction and packed angle cosines.</li>
+ * <li><code>g_ClusterGrid</code>: one texel per cluster, holding the offset
+ * and the number of its lights in the index texture.</li>
+ * <li><code>g_ClusterLightIndices</code>: the light indices of each cluster.</li>
+ * </ul>
+ * All the lights of the scenes attached to the viewport are considered,
+ * regardless of the spatial they are attached to.
+ * 
+ * @see com.jme3.renderer.RenderManager#setPreferredLightMode(com.jme3.material.TechniqueDef.LightMode) 
+ */
+public class LightClusters {
+
+    public static final int DEFAULT_TILES_X = 16;
+    public static final int DEFAULT_TILES_Y = 9;
+    public static final int DEFAULT_SLICES = 24;
+    private static final int INDEX_TEXTURE_WIDTH = 1024;
+
+    private final int tilesX;
+    private final int tilesY;
+    private final int slices;
+    private final ArrayList<Light> lights = new ArrayList<Light>();
+    private int numGlobalLights;
+    private int numLights;
+    /**
+     * tile and slice ranges of the binned lights, 6 values per light
+     */
+    private int[] lightBounds = new int[0];
+    private final int[] clusterCounts;
+    private final int[] clusterOffsets;
+    private int numIndices;
+    private int lightCapacity = 0;
+    private int indexCapacity = 0;
+    private Texture2D lightTexture;
+    private Texture2D clusterTexture;
+    private Texture2D indexTexture;
+    private FloatBuffer lightData;
+    private FloatBuffer clusterData;
+    private FloatBuffer indexData;
+    private final Vector4f params = new Vector4f();
+    private final Vector4f depthParams = new Vector4f();
+    private final Vector4f viewPortParams = new Vector4f();
+
+    /**
+     * Creates light clusters with the default number of tiles and slices.
+     */
+    public LightClusters() {
+        this(DEFAULT_TILES_X, DEFAULT_TILES_Y, DEFAULT_SLICES);
+    }
+
+    /**
+     * Creates light clusters.
+     * 
+     * @param tilesX number of horizontal screen tiles
+     * @param tilesY number of vertical screen tiles
+     * @param slices number of depth slices
+     */
+    public LightClusters(int tilesX, int tilesY, int slices) {
+        if (tilesX <= 0 || tilesY <= 0 || slices <= 0) {
+            throw new IllegalArgumentException("The number of tiles and slices must be positive");
+        }
+        this.tilesX = tilesX;
+        this.tilesY = tilesY;
+        this.slices = slices;
+        clusterCounts = new int[tilesX * tilesY * slices];
+        clusterOffsets = new int[clusterCounts.length];
+
+        ByteBuffer bytes = BufferUtils.createByteBuffer(clusterCounts.length * 4 * 4);
+        clusterData = bytes.asFloatBuffer();
+        clusterTexture = createTexture(tilesX, tilesY * slices, Image.Format.RGBA32F, bytes);
+        ensureLightCapacity(64);
+        ensureIndexCapacity(INDEX_TEXTURE_WIDTH);
+    }
+
+    /**
+     * Bins the lights of all the scenes of the viewport.
+     * 
+     * @param vp the viewport about to be rendered
+     */
+    public void update(ViewPort vp) {
+        lights.clear();
+        List<Spatial> scenes = vp.getScenes();
+        for (int i = 0; i < scenes.size(); i++) {
+            gatherLights(scenes.get(i));
+        }
+        update(vp.getCamera(), lights);
+        lights.clear();
+    }
+
+    private void gatherLights(Spatial s) {
+        LightList localLights = s.getLocalLightList();
+        for (int i = 0; i < localLights.size(); i++) {
+            lights.add(localLights.get(i));
+        }
+        if (s instanceof Node) {
+            List<Spatial> children = ((Node) s).getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                gatherLights(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Bins the given lights in the clusters of the camera frustum.
+     * 
+     * @param cam the camera
+     * @param lightList the lights, ambient lights are ignored
+     */
+    public void update(Camera cam, List<Light> lightList) {
+        float near = cam.getFrustumNear();
+        float far = cam.getFrustumFar();
+        float sliceScale = slices / FastMath.log(far / near);
+        depthParams.set(near, sliceScale, 0, 0);
+        float viewX = cam.getViewPortLeft() * cam.getWidth();
+        float viewY = cam.getViewPortBottom() * cam.getHeight();
+        float viewWidth = (cam.getViewPortRight() - cam.getViewPortLeft()) * cam.getWidth();
+        float viewHeight = (cam.getViewPortTop() - cam.getViewPortBottom()) * cam.getHeight();
+        viewPortParams.set(viewX, viewY, 1f / viewWidth, 1f / viewHeight);
+
+        ensureLightCapacity(lightList.size());
+        if (lightBounds.length < lightList.size() * 6) {
+            lightBounds = new int[lightList.size() * 6];
+        }
+        lightData.clear();
+        numLights = 0;
+
+        // lights lighting every cluster come first
+        for (int i = 0; i < lightList.size(); i++) {
+            Light l = lightList.get(i);
+            if (l.getType() == Light.Type.Directional
+                    || (l.getType() == Light.Type.Point && ((PointLight) l).getRadius() == 0)) {
+                putLight(l, cam.getViewMatrix(), numLights++);
+            }
+        }
+        numGlobalLights = numLights;
+
+        for (int i = 0; i < clusterCounts.length; i++) {
+            clusterCounts[i] = 0;
+        }
+        TempVars vars = TempVars.get();
+        Vector3f center = vars.vect1;
+        for (int i = 0; i < lightList.size(); i++) {
+            Light l = lightList.get(i);
+            float radius;
+            if (l.getType() == Light.Type.Point) {
+                PointLight pl = (PointLight) l;
+                radius = pl.getRadius();
+                if (radius == 0) {
+                    continue;
+                }
+                cam.getViewMatrix().mult(pl.getPosition(), center);
+            } else if (l.getType() == Light.Type.Spot) {
+                SpotLight sl = (SpotLight) l;
+                radius = sl.getSpotRange();
+                cam.getViewMatrix().mult(sl.getPosition(), center);
+            } else {
+                continue;
+            }
+            if (computeBounds(cam, center, radius, numLights - numGlobalLights)) {
+                int b = (numLights - numGlobalLights) * 6;
+                for (int z = lightBounds[b + 4]; z <= lightBounds[b + 5]; z++) {
+                    for (int y = lightBounds[b + 2]; y <= lightBounds[b + 3]; y++) {
+                        for (int x = lightBounds[b]; x <= lightBounds[b + 1]; x++) {
+                            clusterCounts[(z * tilesY + y) * tilesX + x]++;
+                        }
+                    }
+                }
+                putLight(l, cam.getViewMatrix(), numLights++);
+            }
+        }
+        vars.release();
+
+        // offsets of the clusters in the index list
+        numIndices = 0;
+        for (int i = 0; i < clusterCounts.length; i++) {
+            clusterOffsets[i] = numIndices;
+            numIndices += clusterCounts[i];
+        }
+        ensureIndexCapacity(numIndices);
+
+        clusterData.clear();
+        for (int i = 0; i < clusterCounts.length; i++) {
+            clusterData.put(clusterOffsets[i]).put(clusterCounts[i]).put(0).put(0);
+            clusterCounts[i] = 0;
+        }
+        indexData.clear();
+        for (int light = numGlobalLights; light < numLights; light++) {
+            int b = (light - numGlobalLights) * 6;
+            for (int z = lightBounds[b + 4]; z <= lightBounds[b + 5]; z++) {
+                for (int y = lightBounds[b + 2]; y <= lightBounds[b + 3]; y++) {
+                    for (int x = lightBounds[b]; x <= lightBounds[b + 1]; x++) {
+                        int cluster = (z * tilesY + y) * tilesX + x;
+                        indexData.put(clusterOffsets[cluster] + clusterCounts[cluster]++, light);
+                    }
+                }
+            }
+        }
+
+        params.set(tilesX, tilesY, slices, numGlobalLights);
+        depthParams.z = 1f / lightCapacity;
+        depthParams.w = 1f / (indexCapacity / INDEX_TEXTURE_WIDTH);
+        lightTexture.getImage().setUpdateNeeded();
+        clusterTexture.getImage().setUpdateNeeded();
+        indexTexture.getImage().setUpdateNeeded();
+    }
+
+    /**
+     * Computes the clusters intersecting the bounding sphere of a light.
+     * 
+     * @return false if the light is outside of the frustum
+     */
+    private boolean computeBounds(Camera cam, Vector3f center, float radius, int index) {
+        float near = cam.getFrustumNear();
+        float far = cam.getFrustumFar();
+        float zMin = -center.z - radius;
+        float zMax = -center.z + radius;
+        if (zMax < near || zMin > far) {
+            return false;
+        }
+        int b = index * 6;
+        lightBounds[b + 4] = getSlice(Math.max(zMin, near), near, depthParams.y);
+        lightBounds[b + 5] = getSlice(Math.min(zMax, far), near, depthParams.y);
+
+        if (zMin <= near && !cam.isParallelProjection()) {
+            // the light surrounds the camera
+            lightBounds[b] = 0;
+            lightBounds[b + 1] = tilesX - 1;
+            lightBounds[b + 2] = 0;
+            lightBounds[b + 3] = tilesY - 1;
+            return true;
+        }
+        return computeTiles(cam, center.x, radius, zMin, zMax, cam.getFrustumLeft(), cam.getFrustumRight(), tilesX, b)
+                && computeTiles(cam, center.y, radius, zMin, zMax, cam.getFrustumBottom(), cam.getFrustumTop(), tilesY, b + 2);
+    }
+
+    private boolean computeTiles(Camera cam, float center, float radius, float zMin, float zMax,
+            float min, float max, int numTiles, int b) {
+        float ndcMin, ndcMax;
+        if (cam.isParallelProjection()) {
+            ndcMin = (2 * (center - radius) - (max + min)) / (max - min);
+            ndcMax = (2 * (center + radius) - (max + min)) / (max - min);
+        } else {
+            // extremes of the box around the sphere, at its nearest and farthest depths
+            float scale = 2 * cam.getFrustumNear() / (max - min);
+            float offset = (max + min) / (max - min);
+            float lo = center - radius;
+            float hi = center + radius;
+            ndcMin = Math.min(scale * lo / zMin, scale * lo / zMax) - offset;
+            ndcMax = Math.max(scale * hi / zMin, scale * hi / zMax) - offset;
+        }
+        if (ndcMax < -1 || ndcMin > 1) {
+            return false;
+        }
+        lightBounds[b] = clampTile((int) FastMath.floor((ndcMin * 0.5f + 0.5f) * numTiles), numTiles);
+        lightBounds[b + 1] = clampTile((int) FastMath.floor((ndcMax * 0.5f + 0.5f) * numTiles), numTiles);
+        return true;
+    }
+
+    private static int clampTile(int tile, int numTiles) {
+        return Math.max(0, Math.min(numTiles - 1, tile));
+    }
+
+    private int getSlice(float depth, float near, float sliceScale) {
+        int slice = (int) FastMath.floor(FastMath.log(depth / near) * sliceScale);
+        return Math.max(0, Math.min(slices - 1, slice));
+    }
+
+    /**
+     * Writes the light in view space in the 3 rows of the light texture.
+     */
+    private void putLight(Light l, Matrix4f viewMatrix, int index) {
+        TempVars vars = TempVars.get();
+        Vector3f tmp = vars.vect2;
+        ColorRGBA color = l.getColor();
+        lightData.put(index * 4, color.r);
+        lightData.put(index * 4 + 1, color.g);
+        lightData.put(index * 4 + 2, color.b);
+        lightData.put(index * 4 + 3, l.getType().getId());
+
+        int pos = (lightCapacity + index) * 4;
+        int dir = (lightCapacity * 2 + index) * 4;
+        switch (l.getType()) {
+            case Directional:
+                viewMatrix.multNormal(((DirectionalLight) l).getDirection(), tmp);
+                putVector(pos, tmp, -1);
+                putVector(dir, Vector3f.ZERO, 0);
+                break;
+            case Point:
+                PointLight pl = (PointLight) l;
+                viewMatrix.mult(pl.getPosition(), tmp);
+                putVector(pos, tmp, pl.getInvRadius());
+                putVector(dir, Vector3f.ZERO, 0);
+                break;
+            case Spot:
+                SpotLight sl = (SpotLight) l;
+                viewMatrix.mult(sl.getPosition(), tmp);
+                putVector(pos, tmp, sl.getInvSpotRange());
+                viewMatrix.multNormal(sl.getDirection(), tmp);
+                putVector(dir, tmp, sl.getPackedAngleCos());
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown type of light: " + l.getType());
+        }
+        vars.release();
+    }
+
+    private void putVector(int offset, Vector3f v, float w) {
+        lightData.put(offset, v.x);
+        lightData.put(offset + 1, v.y);
+        lightData.put(offset + 2, v.z);
+        lightData.put(offset + 3, w);
+    }
+
+    private void ensureLightCapacity(int count) {
+        if (count <= lightCapacity) {
+            return;
+        }
+        lightCapacity = Math.max(count, lightCapacity * 2);
+        ByteBuffer bytes = BufferUtils.createByteBuffer(lightCapacity * 3 * 4 * 4);
+        lightData = bytes.asFloatBuffer();
+        lightTexture = createTexture(lightCapacity, 3, Image.Format.RGBA32F, bytes);
+    }
+
+    private void ensureIndexCapacity(int count) {
+        if (count <= indexCapacity) {
+            return;
+        }
+        int height = (Math.max(count, indexCapacity * 2) + INDEX_TEXTURE_WIDTH - 1) / INDEX_TEXTURE_WIDTH;
+        indexCapacity = height * INDEX_TEXTURE_WIDTH;
+        ByteBuffer bytes = BufferUtils.createByteBuffer(indexCapacity * 4);
+        indexData = bytes.asFloatBuffer();
+        indexTexture = createTexture(INDEX_TEXTURE_WIDTH, height, Image.Format.Luminance32F, bytes);
+    }
+
+    private static Texture2D createTexture(int width, int height, Image.Format format, ByteBuffer data) {
+        Image image = new Image(format, width, height, data);
+        Texture2D texture = new Texture2D(image);
+        texture.setMinFilter(Texture.MinFilter.NearestNoMipMaps);
+        texture.setMagFilter(Texture.MagFilter.Nearest);
+        texture.setWrap(Texture.WrapMode.EdgeClamp);
+        return texture;
+    }
+
+    /**
+     * Binds the cluster textures to the texture units starting at the 
+     * given one, and sets the cluster uniforms of the shader.
+     * 
+     * @param shader the shader of a technique using the Clustered light mode
+     * @param r the renderer
+     * @param textureUnit the first free texture unit
+     */
+    public void setUniforms(Shader shader, Renderer r, int textureUnit) {
+        r.setTexture(textureUnit, lightTexture);
+        shader.getUniform("g_ClusterLightData").setValue(VarType.Int, textureUnit);
+        r.setTexture(textureUnit + 1, clusterTexture);
+        shader.getUniform("g_ClusterGrid").setValue(VarType.Int, textureUnit + 1);
+        r.setTexture(textureUnit + 2, indexTexture);
+        shader.getUniform("g_ClusterLightIndices").setValue(VarType.Int, textureUnit + 2);
+
+        shader.getUniform("g_ClusterParams").setValue(VarType.Vector4, params);
+        shader.getUniform("g_ClusterDepth").setValue(VarType.Vector4, depthParams);
+        shader.getUniform("g_ClusterViewPort").setValue(VarType.Vector4, viewPortParams);
+    }
+
+    /**
+     * @return the number of lights binned by the last update, including 
+     * the lights lighting every cluster
+     */
+    public int getNumLights() {
+        return numLights;
+    }
+
+    /**
+     * @return the number of lights lighting every cluster
+     */
+    public int getNumGlobalLights() {
+        return numGlobalLights;
+    }
+
+    /**
+     * @return the number of lights assigned to the given cluster, 
+     * the global lights are not included
+     */
+    public int getClusterLightCount(int tileX, int tileY, int slice) {
+        return clusterCounts[(slice * tilesY + tileY) * tilesX + tileX];
+    }
+
+    /**
+     * @return the total number of light indices of the clusters
+     */
+    public int getNumIndices() {
+        return numIndices;
+    }
+
+    public int getTilesX() {
+        return tilesX;
+    }
+
+    public int getTilesY() {
+        return tilesY;
+    }
+
+    public int getSlices() {
+        return slices;
+    }
+}
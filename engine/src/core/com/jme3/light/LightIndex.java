@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.light;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import java.util.Arrays;
+
+/**
+ * <code>LightIndex</code> is a spatial hash grid of the point and spot
+ * lights of a {@link LightList}, used to find the lights that can affect
+ * a world bound without testing every light of the list.
+ * <p>
+ * The cell size is the average diameter of the indexed lights, so each
+ * light covers only a few cells. Lights covering too many cells, and lights
+ * without a limited area of influence, are kept in a separate list that is
+ * tested on every query.
+ * 
+ * @see LightList#updateFiltered(com.jme3.bounding.BoundingVolume) 
+ */
+final class LightIndex {
+
+    /**
+     * Lights covering more cells than this are tested on every query.
+     */
+    private static final int MAX_LIGHT_CELLS = 64;
+
+    /**
+     * Queries covering more cells than this test every light.
+     */
+    private static final int MAX_QUERY_CELLS = 256;
+
+    private Light[] lights = new Light[0];
+    private boolean[] inGrid = new boolean[0];
+    private int numLights;
+
+    private Light[] unbounded = new Light[8];
+    private int numUnbounded;
+
+    // hash table of cells, each bucket is a linked list of entries
+    private int[] buckets = new int[0];
+    private int[] entryNext = new int[64];
+    private int[] entryLight = new int[64];
+    private int numEntries;
+    private int mask;
+
+    private float invCellSize;
+
+    // used to avoid returning a light twice in a query
+    private int[] marks = new int[0];
+    private int queryId;
+
+    private final Vector3f min = new Vector3f();
+    private final Vector3f max = new Vector3f();
+    private final int[] cellMin = new int[3];
+    private final int[] cellMax = new int[3];
+
+    /**
+     * Rebuilds the index from the given lights.
+     * 
+     * @param list the lights to index
+     * @param size the number of lights to read from the array
+     */
+    public void build(Light[] list, int size) {
+        if (lights.length < size) {
+            lights = new Light[size];
+            inGrid = new boolean[size];
+            marks = new int[size];
+        }
+        System.arraycopy(list, 0, lights, 0, size);
+        for (int i = size; i < numLights; i++) {
+            lights[i] = null;
+        }
+        numLights = size;
+        queryId = 0;
+        Arrays.fill(marks, 0);
+
+        for (int i = 0; i < numUnbounded; i++) {
+            unbounded[i] = null;
+        }
+        numUnbounded = 0;
+        numEntries = 0;
+
+        float sum = 0;
+        int bounded = 0;
+        for (int i = 0; i < size; i++) {
+            float radius = getRadius(lights[i]);
+            if (radius > 0) {
+                sum += radius;
+                bounded++;
+            }
+        }
+        if (bounded == 0) {
+            invCellSize = 0;
+        } else {
+            invCellSize = bounded / (2f * sum);
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(16, bounded * 4) - 1) << 1;
+        if (buckets.length != tableSize) {
+            buckets = new int[tableSize];
+        }
+        Arrays.fill(buckets, -1);
+        mask = tableSize - 1;
+
+        for (int i = 0; i < size; i++) {
+            Light light = lights[i];
+            float radius = getRadius(light);
+            inGrid[i] = false;
+            if (radius <= 0) {
+                addUnbounded(light);
+                continue;
+            }
+            Vector3f pos = getPosition(light);
+            min.set(pos).subtractLocal(radius, radius, radius);
+            max.set(pos).addLocal(radius, radius, radius);
+            if (computeCells(min, max) > MAX_LIGHT_CELLS) {
+                addUnbounded(light);
+                continue;
+            }
+            inGrid[i] = true;
+            for (int z = cellMin[2]; z <= cellMax[2]; z++) {
+                for (int y = cellMin[1]; y <= cellMax[1]; y++) {
+                    for (int x = cellMin[0]; x <= cellMax[0]; x++) {
+                        addEntry(hash(x, y, z), i);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds to the store the indexed lights that can affect the given bound.
+     * 
+     * @param bound the world bound
+     * @param store the list to add the lights to
+     */
+    public void query(BoundingVolume bound, LightList store) {
+        for (int i = 0; i < numUnbounded; i++) {
+            if (unbounded[i].intersectsBound(bound)) {
+                store.add(unbounded[i]);
+            }
+        }
+        if (numEntries == 0) {
+            return;
+        }
+
+        if (!computeBounds(bound) || computeCells(min, max) > MAX_QUERY_CELLS) {
+            // test every light of the grid
+            for (int i = 0; i < numLights; i++) {
+                if (inGrid[i] && lights[i].intersectsBound(bound)) {
+                    store.add(lights[i]);
+                }
+            }
+            return;
+        }
+
+        queryId++;
+        if (queryId == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            queryId = 1;
+        }
+        for (int z = cellMin[2]; z <= cellMax[2]; z++) {
+            for (int y = cellMin[1]; y <= cellMax[1]; y++) {
+                for (int x = cellMin[0]; x <= cellMax[0]; x++) {
+                    for (int e = buckets[hash(x, y, z)]; e != -1; e = entryNext[e]) {
+                        int index = entryLight[e];
+                        if (marks[index] == queryId) {
+                            continue;
+                        }
+                        marks[index] = queryId;
+                        if (lights[index].intersectsBound(bound)) {
+                            store.add(lights[index]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void addUnbounded(Light light) {
+        if (numUnbounded == unbounded.length) {
+            Light[] temp = new Light[unbounded.length * 2];
+            System.arraycopy(unbounded, 0, temp, 0, numUnbounded);
+            unbounded = temp;
+        }
+        unbounded[numUnbounded++] = light;
+    }
+
+    private void addEntry(int bucket, int lightIndex) {
+        if (numEntries == entryNext.length) {
+            int[] temp = new int[entryNext.length * 2];
+            System.arraycopy(entryNext, 0, temp, 0, numEntries);
+            entryNext = temp;
+            temp = new int[entryLight.length * 2];
+            System.arraycopy(entryLight, 0, temp, 0, numEntries);
+            entryLight = temp;
+        }
+        // the same light can hash twice in the same bucket, 
+        // duplicates are removed by the query marks
+        entryLight[numEntries] = lightIndex;
+        entryNext[numEntries] = buckets[bucket];
+        buckets[bucket] = numEntries++;
+    }
+
+    private int hash(int x, int y, int z) {
+        return ((x * 73856093) ^ (y * 19349663) ^ (z * 83492791)) & mask;
+    }
+
+    private boolean computeBounds(BoundingVolume bound) {
+        Vector3f center = bound.getCenter();
+        if (bound.getType() == BoundingVolume.Type.AABB) {
+            BoundingBox box = (BoundingBox) bound;
+            min.set(center).subtractLocal(box.getXExtent(), box.getYExtent(), box.getZExtent());
+            max.set(center).addLocal(box.getXExtent(), box.getYExtent(), box.getZExtent());
+            return true;
+        } else if (bound.getType() == BoundingVolume.Type.Sphere) {
+            float radius = ((BoundingSphere) bound).getRadius();
+            min.set(center).subtractLocal(radius, radius, radius);
+            max.set(center).addLocal(radius, radius, radius);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Computes the range of cells overlapping the box and returns
+     * the number of cells in the range.
+     */
+    private int computeCells(Vector3f min, Vector3f max) {
+        long count = 1;
+        for (int i = 0; i < 3; i++) {
+            float lo = min.get(i) * invCellSize;
+            float hi = max.get(i) * invCellSize;
+            if (Float.isNaN(lo) || Float.isNaN(hi)
+                    || Math.abs(lo) > 1e6f || Math.abs(hi) > 1e6f) {
+                return Integer.MAX_VALUE;
+            }
+            cellMin[i] = (int) FastMath.floor(lo);
+            cellMax[i] = (int) FastMath.floor(hi);
+            count *= cellMax[i] - cellMin[i] + 1;
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the radius of the bounding sphere of the light influence, 
+     * or 0 if it is unlimited.
+     */
+    static float getRadius(Light light) {
+        if (light instanceof PointLight) {
+            return ((PointLight) light).getRadius();
+        } else if (light instanceof SpotLight) {
+            return ((SpotLight) light).getSpotRange();
+        }
+        return 0;
+    }
+
+    private static Vector3f getPosition(Light light) {
+        if (light instanceof PointLight) {
+            return ((PointLight) light).getPosition();
+        }
+        return ((SpotLight) light).getPosition();
+    }
+}
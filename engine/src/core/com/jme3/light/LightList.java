@@ -31,6 +31,7 @@
  */
 package com.jme3.light;
 
+import com.jme3.bounding.BoundingVolume;
 import com.jme3.export.*;
 import com.jme3.scene.Spatial;
 import com.jme3.util.SortUtil;
@@ -50,8 +51,25 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
     private int listSize;
     private Spatial owner;
 
+    // incremented each time the content of the list changes
+    private transient int modCount;
+
+    // spatial index of the lights, used by large local lists
+    private transient LightIndex index;
+    private transient int indexModCount = -1;
+    private transient int indexVersion;
+
+    // light influence version the list was last filtered with
+    private transient int filterVersion = -1;
+
     private static final int DEFAULT_SIZE = 1;
 
+    /**
+     * Local lists holding at least this many lights are indexed
+     * when filtering world lists.
+     */
+    private static final int INDEX_THRESHOLD = 16;
+
     private static final Comparator<Light> c = new Comparator<Light>() {
         /**
          * This assumes lastDistance have been computed in a previous step.
@@ -114,6 +132,7 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
         }
         list[listSize] = l;
         distToOwner[listSize++] = Float.NEGATIVE_INFINITY;
+        modCount++;
     }
 
     /**
@@ -126,6 +145,7 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
             throw new IndexOutOfBoundsException();
 
         listSize --;
+        modCount++;
         if (index == listSize){
             list[listSize] = null;
             return;
@@ -176,6 +196,8 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
         if (listSize == 0)
             return;
 
+        modCount++;
+
         for (int i = 0; i < listSize; i++)
             list[i] = null;
 
@@ -228,6 +250,7 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
         // clear the list as it will be reconstructed
         // using the arguments
         clear();
+        modCount++;
 
         while (list.length <= local.listSize){
             doubleSize();
@@ -259,6 +282,63 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
         }
     }
 
+    /**
+     * Updates a "world-space" light list containing only the lights that 
+     * can affect the given world bound, using the local-space light lists
+     * of the owner and of all its parents.
+     * <p>
+     * Local lists holding many lights are indexed in a spatial grid,
+     * so the cost of the update depends on the number of lights near 
+     * the bound rather than on the number of lights in the scene.
+     * 
+     * @param bound the world bound of the owner, or null to keep all lights
+     * 
+     * @see Light#intersectsBound(com.jme3.bounding.BoundingVolume) 
+     */
+    public void updateFiltered(BoundingVolume bound){
+        clear();
+        for (Spatial s = owner; s != null; s = s.getParent()){
+            s.getLocalLightList().addInfluencing(bound, this);
+        }
+        filterVersion = Light.getInfluenceVersion();
+    }
+
+    /**
+     * Returns true if a light moved or changed its area of influence since
+     * the last call to {@link #updateFiltered(com.jme3.bounding.BoundingVolume) }.
+     * Only changes made through the light setters are detected.
+     * 
+     * @return true if the filtered list might be outdated
+     */
+    public boolean isFilterOutdated(){
+        return filterVersion != Light.getInfluenceVersion();
+    }
+
+    private void addInfluencing(BoundingVolume bound, LightList store){
+        if (bound == null){
+            for (int i = 0; i < listSize; i++){
+                store.add(list[i]);
+            }
+        } else if (listSize < INDEX_THRESHOLD){
+            for (int i = 0; i < listSize; i++){
+                if (list[i].intersectsBound(bound)){
+                    store.add(list[i]);
+                }
+            }
+        } else {
+            if (index == null){
+                index = new LightIndex();
+            }
+            int version = Light.getInfluenceVersion();
+            if (indexModCount != modCount || indexVersion != version){
+                index.build(list, listSize);
+                indexModCount = modCount;
+                indexVersion = version;
+            }
+            index.query(bound, store);
+        }
+    }
+
     /**
      * Returns an iterator that can be used to iterate over this LightList.
      * 
@@ -295,6 +375,9 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
             clone.list = list.clone();
             clone.distToOwner = distToOwner.clone();
             clone.tlist = null; // list used for sorting only
+            clone.index = null;
+            clone.indexModCount = -1;
+            clone.filterVersion = -1;
 
             return clone;
         }catch (CloneNotSupportedException ex){
@@ -319,6 +402,7 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable {
 
         List<Light> lights = ic.readSavableArrayList("lights", null);
         listSize = lights.size();
+        modCount++;
         
         // NOTE: make sure the array has a length of at least 1
         int arraySize = Math.max(DEFAULT_SIZE, listSize);
@@ -84,6 +84,7 @@ public class PointLight extends Light {
      */
     public void setPosition(Vector3f position) {
         this.position.set(position);
+        influenceChanged();
     }
 
     /**
@@ -119,6 +120,7 @@ public class PointLight extends Light {
         }else{
             this.invRadius = 0;
         }
+        influenceChanged();
     }
 
     /**
@@ -129,6 +131,11 @@ public class PointLight extends Light {
         return invRadius;
     }
 
+    @Override
+    public boolean intersectsBound(BoundingVolume bound) {
+        return radius == 0 || bound.distanceToEdge(position) <= radius;
+    }
+
     @Override
     public Light.Type getType() {
         return Light.Type.Point;
@@ -153,5 +160,6 @@ public class PointLight extends Light {
         }else{
             this.invRadius = 0;
         }
+        influenceChanged();
     }
 }
@@ -31,11 +31,14 @@
  */
 package com.jme3.light;
 
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
 import com.jme3.bounding.BoundingVolume;
 import com.jme3.export.*;
 import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Spatial;
+import com.jme3.util.TempVars;
 import java.io.IOException;
 
 /**
@@ -89,6 +92,35 @@ public class SpotLight extends Light implements Savable {
         }
     }
 
+    @Override
+    public boolean intersectsBound(BoundingVolume bound) {
+        if (spotRange != 0 && bound.distanceToEdge(position) > spotRange) {
+            return false;
+        }
+        if (spotOuterAngle >= FastMath.HALF_PI) {
+            return true;
+        }
+
+        // the cone is entirely in front of the plane going through
+        // the light position, reject bounds that are behind it
+        TempVars vars = TempVars.get();
+        Vector3f dir = vars.vect1.set(direction).normalizeLocal();
+        float distance = dir.dot(bound.getCenter(vars.vect2).subtractLocal(position));
+        float radius;
+        if (bound.getType() == BoundingVolume.Type.AABB) {
+            BoundingBox box = (BoundingBox) bound;
+            radius = FastMath.abs(box.getXExtent() * dir.x)
+                    + FastMath.abs(box.getYExtent() * dir.y)
+                    + FastMath.abs(box.getZExtent() * dir.z);
+        } else if (bound.getType() == BoundingVolume.Type.Sphere) {
+            radius = ((BoundingSphere) bound).getRadius();
+        } else {
+            radius = Float.POSITIVE_INFINITY;
+        }
+        vars.release();
+        return distance >= -radius;
+    }
+
     @Override
     public Type getType() {
         return Type.Spot;
@@ -100,6 +132,7 @@ public class SpotLight extends Light implements Savable {
 
     public void setDirection(Vector3f direction) {
         this.direction.set(direction);
+        influenceChanged();
     }
 
     public Vector3f getPosition() {
@@ -108,6 +141,7 @@ public class SpotLight extends Light implements Savable {
 
     public void setPosition(Vector3f position) {
         this.position.set(position);
+        influenceChanged();
     }
 
     public float getSpotRange() {
@@ -137,6 +171,7 @@ public class SpotLight extends Light implements Savable {
         } else {
             this.invSpotRange = 0;
         }
+        influenceChanged();
     }
 
     /**
@@ -182,6 +217,7 @@ public class SpotLight extends Light implements Savable {
     public void setSpotOuterAngle(float spotOuterAngle) {
         this.spotOuterAngle = spotOuterAngle;
         computePackedCos();
+        influenceChanged();
     }
 
     /**
@@ -220,5 +256,6 @@ public class SpotLight extends Light implements Savable {
         } else {
             this.invSpotRange = 0;
         }
+        influenceChanged();
     }
 }
@@ -47,6 +47,7 @@ import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.Renderer;
 import com.jme3.renderer.queue.RenderQueue.Bucket;
 import com.jme3.scene.Geometry;
+import com.jme3.scene.InstancedGeometry;
 import com.jme3.shader.Shader;
 import com.jme3.shader.Uniform;
 import com.jme3.shader.UniformBindingManager;
@@ -95,8 +96,11 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
     private Technique technique;
     private HashMap<String, Technique> techniques = new HashMap<String, Technique>();
     private int nextTexUnit = 0;
+    private LightMode defaultLightMode;
     private RenderState additionalState = null;
     private RenderState mergedRenderState = new RenderState();
+    private int mergedTechStateId = -1;
+    private int mergedAdditionalStateId = -1;
     private boolean transparent = false;
     private boolean receivesShadows = false;
     private int sortingId = -1;
@@ -204,6 +208,9 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             if (additionalState != null) {
                 mat.additionalState = additionalState.clone();
             }
+            mat.mergedRenderState = new RenderState();
+            mat.mergedTechStateId = -1;
+            mat.mergedAdditionalStateId = -1;
             mat.technique = null;
             mat.techniques = new HashMap<String, Technique>();
 
@@ -761,6 +768,21 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
         }
     }
 
+    /**
+     * Sets the ambient color of the geometry and the light clusters of the 
+     * render manager on the shader, the textures of the clusters are bound 
+     * after the textures of the material.
+     */
+    protected void updateClusteredLightUniforms(Shader shader, Geometry g, RenderManager rm) {
+        Uniform ambientColor = shader.getUniform("g_AmbientLightColor");
+        ambientColor.setValue(VarType.Vector4, getAmbientColor(g.getWorldLightList()));
+
+        LightClusters clusters = rm.getLightClusters();
+        if (clusters != null) {
+            clusters.setUniforms(shader, rm.getRenderer(), nextTexUnit);
+        }
+    }
+
     protected void renderMultipassLighting(Shader shader, Geometry g, RenderManager rm) {
 
         Renderer r = rm.getRenderer();
@@ -850,7 +872,7 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             }
             vars.release();
             r.setShader(shader);
-            r.renderMesh(g.getMesh(), g.getLodLevel(), 1);
+            renderMeshFromGeometry(r, g);
         }
 
         if (isFirstLight && lightList.size() > 0) {
@@ -860,7 +882,7 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             lightColor.setValue(VarType.Vector4, ColorRGBA.BlackNoAlpha);
             lightPos.setValue(VarType.Vector4, nullDirLight);
             r.setShader(shader);
-            r.renderMesh(g.getMesh(), g.getLodLevel(), 1);
+            renderMeshFromGeometry(r, g);
         }
     }
 
@@ -901,16 +923,34 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
                     throw new IllegalArgumentException("No default techniques are available on material '" + def.getName() + "'");
                 }
 
-                TechniqueDef lastTech = null;
+                LightMode preferredLightMode = renderManager.getPreferredLightMode();
                 for (TechniqueDef techDef : techDefs) {
+                    if (techDef.getLightMode() == preferredLightMode
+                            && rendererCaps.containsAll(techDef.getRequiredCaps())) {
+                        // use the first one using the preferred light mode
+                        tech = new Technique(this, techDef);
+                        break;
+                    }
+                }
+
+                TechniqueDef lastTech = null;
+                for (int i = 0; tech == null && i < techDefs.size(); i++) {
+                    TechniqueDef techDef = techDefs.get(i);
+                    if (techDef.getLightMode() == LightMode.Clustered) {
+                        // requires the light clusters of the render manager
+                        continue;
+                    }
                     if (rendererCaps.containsAll(techDef.getRequiredCaps())) {
                         // use the first one that supports all the caps
                         tech = new Technique(this, techDef);
-                        techniques.put(name, tech);
                         break;
                     }
                     lastTech = techDef;
                 }
+                if (tech != null) {
+                    techniques.put(name, tech);
+                    defaultLightMode = preferredLightMode;
+                }
                 if (tech == null) {
                     throw new UnsupportedOperationException("No default technique on material '" + def.getName() + "'\n"
                             + " is supported by the video hardware. The caps "
@@ -949,6 +989,11 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
     private void autoSelectTechnique(RenderManager rm) {
         if (technique == null) {
             selectTechnique("Default", rm);
+        } else if (defaultLightMode != rm.getPreferredLightMode() 
+                && technique == techniques.get("Default")) {
+            // the preferred light mode changed, select the default technique again
+            techniques.remove("Default");
+            selectTechnique("Default", rm);
         } else {
             technique.makeCurrent(def.getAssetManager(), false, rm.getRenderer().getCaps());
         }
@@ -989,6 +1034,49 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
         }
     }
 
+    /**
+     * Loads and compiles the shader of the given technique without making
+     * it the current technique of this material.
+     * <p>
+     * This is used to avoid the pause caused by the compilation of a shader
+     * the first time a technique is used, e.g. when a shadow renderer 
+     * forces the "PreShadow" technique.
+     * Techniques that do not exist in the material definition or that are
+     * not supported by the renderer are ignored.
+     *
+     * @param name The name of the technique, "Default" for the default technique
+     * @param rm The render manager to preload for
+     * @return The shader of the technique, or null if the technique was 
+     * ignored or does not use shaders.
+     */
+    public Shader preloadTechnique(String name, RenderManager rm) {
+        if (name.equals("Default")) {
+            autoSelectTechnique(rm);
+            preload(rm);
+            return technique.getDef().isUsingShaders() ? technique.getShader() : null;
+        }
+
+        TechniqueDef techDef = def.getTechniqueDef(name);
+        EnumSet<Caps> rendererCaps = rm.getRenderer().getCaps();
+        if (techDef == null || !techDef.isUsingShaders()
+                || !rendererCaps.containsAll(techDef.getRequiredCaps())) {
+            return null;
+        }
+
+        Technique tech = techniques.get(name);
+        if (tech == null) {
+            tech = new Technique(this, techDef);
+            tech.makeCurrent(def.getAssetManager(), true, rendererCaps);
+            techniques.put(name, tech);
+        } else {
+            tech.makeCurrent(def.getAssetManager(), true, rendererCaps);
+        }
+
+        Shader shader = tech.getShader();
+        rm.getRenderer().setShader(shader);
+        return shader;
+    }
+
     private void clearUniformsSetByCurrent(Shader shader) {
         ListMap<String, Uniform> uniforms = shader.getUniformMap();
         int size = uniforms.size();
@@ -1009,6 +1097,26 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
         }
     }
 
+    /**
+     * Merges the additional render state of this material into the given 
+     * technique render state. The merge is only done again when
+     * one of the two states was modified, so the merged state keeps its 
+     * {@link RenderState#getStateId() ID} from one frame to the next.
+     */
+    private RenderState getMergedRenderState(RenderState techState) {
+        if (additionalState == null) {
+            return techState;
+        }
+        int techStateId = techState.getStateId();
+        int additionalStateId = additionalState.getStateId();
+        if (techStateId != mergedTechStateId || additionalStateId != mergedAdditionalStateId) {
+            techState.copyMergedTo(additionalState, mergedRenderState);
+            mergedTechStateId = techStateId;
+            mergedAdditionalStateId = additionalStateId;
+        }
+        return mergedRenderState;
+    }
+
     /**
      * Called by {@link RenderManager} to render the geometry by
      * using this material.
@@ -1082,9 +1190,9 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             r.applyRenderState(rm.getForcedRenderState());
         } else {
             if (techDef.getRenderState() != null) {
-                r.applyRenderState(techDef.getRenderState().copyMergedTo(additionalState, mergedRenderState));
+                r.applyRenderState(getMergedRenderState(techDef.getRenderState()));
             } else {
-                r.applyRenderState(RenderState.DEFAULT.copyMergedTo(additionalState, mergedRenderState));
+                r.applyRenderState(getMergedRenderState(RenderState.DEFAULT));
             }
         }
 
@@ -1116,6 +1224,9 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             case FixedPipeline:
                 r.setLighting(geom.getWorldLightList());
                 break;
+            case Clustered:
+                updateClusteredLightUniforms(shader, geom, rm);
+                break;
             case MultiPass:
                 // NOTE: Special case!
                 resetUniformsNotSetByCurrent(shader);
@@ -1131,7 +1242,23 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             r.setShader(shader);
         }
 
-        r.renderMesh(geom.getMesh(), geom.getLodLevel(), 1);
+        renderMeshFromGeometry(r, geom);
+    }
+
+    /**
+     * Renders the mesh of the geometry, instanced geometries render all
+     * their visible instances in one call.
+     */
+    private void renderMeshFromGeometry(Renderer r, Geometry geom) {
+        if (geom instanceof InstancedGeometry) {
+            InstancedGeometry instancedGeom = (InstancedGeometry) geom;
+            int count = instancedGeom.getVisibleInstanceCount();
+            if (count > 0) {
+                r.renderMesh(geom.getMesh(), geom.getLodLevel(), count, instancedGeom.getAllInstanceData());
+            }
+        } else {
+            r.renderMesh(geom.getMesh(), geom.getLodLevel(), 1);
+        }
     }
 
     public void write(JmeExporter ex) throws IOException {
@@ -186,4 +186,15 @@ public class MaterialDef {
         return techniques.get(name);
     }
 
+    /**
+     * Returns the names of all the technique definitions that are
+     * not default techniques.
+     * 
+     * @return an unmodifiable view of the names of the named technique 
+     * definitions
+     */
+    public Collection<String> getTechniqueDefNames() {
+        return Collections.unmodifiableCollection(techniques.keySet());
+    }
+
 }
@@ -35,6 +35,7 @@ import com.jme3.export.*;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.Mesh.Mode;
 import java.io.IOException;
+import java.util.HashMap;
 
 /**
  * <code>RenderState</code> specifies material rendering properties that cannot
@@ -311,6 +312,36 @@ public class RenderState implements Cloneable, Savable {
     TestFunction frontStencilFunction = TestFunction.Always;
     TestFunction backStencilFunction = TestFunction.Always;
     int cachedHashCode = -1;
+    int stateId = -1;
+    
+    private static final int MAX_INTERNED_STATES = 4096;
+    private static final HashMap<StateBlock, Integer> internedStates = new HashMap<StateBlock, Integer>();
+    private static int nextStateId = 0;
+
+    /**
+     * Immutable snapshot of a render state, used as key to intern
+     * render states.
+     */
+    private static final class StateBlock {
+        
+        private final RenderState state;
+        private final int hash;
+
+        StateBlock(RenderState state) {
+            this.state = state;
+            this.hash = state.contentHashCode() * 31 + state.applyFlags();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return ((StateBlock) obj).state.contentEquals(state);
+        }
+    }
 
     public void write(JmeExporter ex) throws IOException {
         OutputCapsule oc = ex.getCapsule(this);
@@ -532,6 +563,7 @@ public class RenderState implements Cloneable, Savable {
         applyPointSprite = true;
         this.pointSprite = pointSprite;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -556,6 +588,7 @@ public class RenderState implements Cloneable, Savable {
         applyAlphaFallOff = true;
         this.alphaFallOff = alphaFallOff;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -581,6 +614,7 @@ public class RenderState implements Cloneable, Savable {
         applyAlphaTest = true;
         this.alphaTest = alphaTest;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -596,6 +630,7 @@ public class RenderState implements Cloneable, Savable {
         applyColorWrite = true;
         this.colorWrite = colorWrite;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -614,6 +649,7 @@ public class RenderState implements Cloneable, Savable {
         applyCullMode = true;
         this.cullMode = cullMode;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -634,6 +670,7 @@ public class RenderState implements Cloneable, Savable {
         applyBlendMode = true;
         this.blendMode = blendMode;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -650,6 +687,7 @@ public class RenderState implements Cloneable, Savable {
         applyDepthTest = true;
         this.depthTest = depthTest;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -665,6 +703,7 @@ public class RenderState implements Cloneable, Savable {
         applyDepthWrite = true;
         this.depthWrite = depthWrite;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -680,6 +719,7 @@ public class RenderState implements Cloneable, Savable {
         applyWireFrame = true;
         this.wireframe = wireframe;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -704,6 +744,7 @@ public class RenderState implements Cloneable, Savable {
             offsetUnits = units;
         }
         cachedHashCode = -1;
+        stateId = -1;
     }    
 
     /**
@@ -753,6 +794,7 @@ public class RenderState implements Cloneable, Savable {
         this.frontStencilFunction = _frontStencilFunction;
         this.backStencilFunction = _backStencilFunction;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -766,6 +808,7 @@ public class RenderState implements Cloneable, Savable {
         applyDepthFunc = true;
         this.depthFunc = depthFunc;
         cachedHashCode = -1;
+        stateId = -1;
     }
 
     /**
@@ -787,6 +830,7 @@ public class RenderState implements Cloneable, Savable {
         applyAlphaFunc = true;
         this.alphaFunc = alphaFunc;
         cachedHashCode = -1;
+        stateId = -1;
     }
     
     
@@ -1156,6 +1200,88 @@ public class RenderState implements Cloneable, Savable {
     
     
 
+    /**
+     * Returns an ID identifying the content of this render state.
+     * 
+     * <p>Render states with the same values and the same apply flags
+     * share the same ID, and IDs are never reused for other values. A renderer
+     * can therefore skip applying a render state entirely if its ID 
+     * is the one it applied last. Modifying the render state assigns
+     * it a new ID the next time this method is called.
+     * 
+     * @return The ID of the current content of this render state.
+     */
+    public int getStateId() {
+        if (stateId == -1) {
+            stateId = intern(this);
+        }
+        return stateId;
+    }
+
+    private static synchronized int intern(RenderState state) {
+        StateBlock block = new StateBlock(state);
+        Integer id = internedStates.get(block);
+        if (id == null) {
+            if (internedStates.size() >= MAX_INTERNED_STATES) {
+                // Most likely a value animated every frame,
+                // IDs keep increasing so old ones remain unique
+                internedStates.clear();
+            }
+            id = nextStateId++;
+            internedStates.put(new StateBlock(state.clone()), id);
+        }
+        return id;
+    }
+
+    private int applyFlags() {
+        int flags = 0;
+        flags = flags << 1 | (applyPointSprite ? 1 : 0);
+        flags = flags << 1 | (applyWireFrame ? 1 : 0);
+        flags = flags << 1 | (applyCullMode ? 1 : 0);
+        flags = flags << 1 | (applyDepthWrite ? 1 : 0);
+        flags = flags << 1 | (applyDepthTest ? 1 : 0);
+        flags = flags << 1 | (applyColorWrite ? 1 : 0);
+        flags = flags << 1 | (applyBlendMode ? 1 : 0);
+        flags = flags << 1 | (applyAlphaTest ? 1 : 0);
+        flags = flags << 1 | (applyAlphaFallOff ? 1 : 0);
+        flags = flags << 1 | (applyPolyOffset ? 1 : 0);
+        flags = flags << 1 | (applyStencilTest ? 1 : 0);
+        flags = flags << 1 | (applyDepthFunc ? 1 : 0);
+        flags = flags << 1 | (applyAlphaFunc ? 1 : 0);
+        return flags;
+    }
+
+    /**
+     * Unlike {@link #equals(java.lang.Object) } this compares every value, 
+     * including the ones that have no effect, and the apply flags.
+     */
+    private boolean contentEquals(RenderState rs) {
+        return applyFlags() == rs.applyFlags()
+                && pointSprite == rs.pointSprite
+                && wireframe == rs.wireframe
+                && cullMode == rs.cullMode
+                && depthWrite == rs.depthWrite
+                && depthTest == rs.depthTest
+                && depthFunc == rs.depthFunc
+                && colorWrite == rs.colorWrite
+                && blendMode == rs.blendMode
+                && alphaTest == rs.alphaTest
+                && alphaFunc == rs.alphaFunc
+                && Float.floatToIntBits(alphaFallOff) == Float.floatToIntBits(rs.alphaFallOff)
+                && offsetEnabled == rs.offsetEnabled
+                && Float.floatToIntBits(offsetFactor) == Float.floatToIntBits(rs.offsetFactor)
+                && Float.floatToIntBits(offsetUnits) == Float.floatToIntBits(rs.offsetUnits)
+                && stencilTest == rs.stencilTest
+                && frontStencilStencilFailOperation == rs.frontStencilStencilFailOperation
+                && frontStencilDepthFailOperation == rs.frontStencilDepthFailOperation
+                && frontStencilDepthPassOperation == rs.frontStencilDepthPassOperation
+                && backStencilStencilFailOperation == rs.backStencilStencilFailOperation
+                && backStencilDepthFailOperation == rs.backStencilDepthFailOperation
+                && backStencilDepthPassOperation == rs.backStencilDepthPassOperation
+                && frontStencilFunction == rs.frontStencilFunction
+                && backStencilFunction == rs.backStencilFunction;
+    }
+
     /**
      *
      */
@@ -1310,6 +1436,7 @@ public class RenderState implements Cloneable, Savable {
             state.backStencilFunction = backStencilFunction;
         }
         state.cachedHashCode = -1;
+        state.stateId = -1;
         return state;
     }
 
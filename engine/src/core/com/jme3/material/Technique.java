@@ -115,8 +115,8 @@ public class Technique /* implements Savable */ {
     void notifyParamChanged(String paramName, VarType type, Object value) {
         // Check if there's a define binding associated with this
         // parameter.
-        String defineName = def.getShaderParamDefine(paramName);
-        if (defineName != null) {
+        int defineId = def.getShaderParamDefineId(paramName);
+        if (defineId != -1) {
             // There is a define. Change it on the define list.
             // The "needReload" variable will determine
             // if the shader will be reloaded when the material
@@ -124,10 +124,10 @@ public class Technique /* implements Savable */ {
             
             if (value == null) {
                 // Clear the define.
-                needReload = defines.remove(defineName) || needReload;
+                needReload = defines.remove(defineId) || needReload;
             } else {
                 // Set the define.
-                needReload = defines.set(defineName, type, value) || needReload;
+                needReload = defines.set(defineId, type, value) || needReload;
             }
         }
     }
@@ -189,9 +189,9 @@ public class Technique /* implements Savable */ {
                 defines.clear();
                 for(int i=0;i<params.size();i++) {
                     MatParam param = (MatParam)params.getValue(i);
-                    String defineName = def.getShaderParamDefine(param.getName());
-                    if (defineName != null) {
-                        defines.set(defineName, param.getVarType(), param.getValue());
+                    int defineId = def.getShaderParamDefineId(param.getName());
+                    if (defineId != -1) {
+                        defines.set(defineId, param.getVarType(), param.getValue());
                     }
                 }
                 needReload = true;
@@ -215,7 +215,14 @@ public class Technique /* implements Savable */ {
            manager.getShaderGenerator(rendererCaps).initialize(this);           
            key.setUsesShaderNodes(true);
         }   
+        Shader previous = shader;
         shader = manager.loadShader(key);
+        needReload = false;
+        if (shader == previous) {
+            // defines toggled back to the state of the current shader,
+            // the world bound uniforms are already registered
+            return;
+        }
 
         // register the world bound uniforms
         worldBindUniforms.clear();
@@ -226,7 +233,6 @@ public class Technique /* implements Savable */ {
                worldBindUniforms.add(uniform);
            }
         }        
-        needReload = false;
     }
     
     /**
@@ -234,8 +240,11 @@ public class Technique /* implements Savable */ {
      * @return the complete define list
      */
     public DefineList getAllDefines() {
-        DefineList allDefines = new DefineList();
-        allDefines.addFrom(def.getShaderPresetDefines());
+        DefineList presetDefines = def.getShaderPresetDefines();
+        if (presetDefines == null) {
+            return defines.clone();
+        }
+        DefineList allDefines = presetDefines.clone();
         allDefines.addFrom(defines);
         return allDefines;
     } 
@@ -93,6 +93,20 @@ public class TechniqueDef implements Savable {
          * renderer implementation.
          */
         FixedPipeline,
+
+        /**
+         * Enable light rendering by using clustered forward rendering.
+         * <p>
+         * The lights of the viewport are binned each frame into screen space
+         * tiles and depth slices by {@link com.jme3.light.LightClusters}, 
+         * and the geometry is rendered once, the shader fetching the lights
+         * of the cluster of each fragment from float textures.
+         * Requires {@link Caps#FloatTexture}. 
+         * <p>
+         * Techniques using this mode are only selected by default when it is
+         * the {@link com.jme3.renderer.RenderManager#setPreferredLightMode(com.jme3.material.TechniqueDef.LightMode) preferred light mode}.
+         */
+        Clustered,
     }
 
     public enum ShadowMode {
@@ -122,6 +136,7 @@ public class TechniqueDef implements Savable {
     private ShadowMode shadowMode = ShadowMode.Disable;
 
     private HashMap<String, String> defineParams;
+    private HashMap<String, Integer> defineParamIds;
     private ArrayList<UniformBinding> worldBinds;
 
     /**
@@ -170,6 +185,9 @@ public class TechniqueDef implements Savable {
      */
     public void setLightMode(LightMode lightMode) {
         this.lightMode = lightMode;
+        if (lightMode == LightMode.Clustered) {
+            requiredCaps.add(Caps.FloatTexture);
+        }
     }
 
     /**
@@ -279,6 +297,23 @@ public class TechniqueDef implements Savable {
         return defineParams.get(paramName);
     }
 
+    /**
+     * Returns the ID of the define linked to the given material parameter,
+     * as assigned by {@link DefineList#getDefineId(java.lang.String) }.
+     * 
+     * @param paramName The name of the material parameter
+     * @return The define ID, or -1 if the parameter has no define bound
+     * 
+     * @see #getShaderParamDefine(java.lang.String) 
+     */
+    public int getShaderParamDefineId(String paramName){
+        if (defineParamIds == null) {
+            return -1;
+        }
+        Integer id = defineParamIds.get(paramName);
+        return id != null ? id : -1;
+    }
+
     /**
      * Adds a define linked to a material parameter.
      * <p>
@@ -294,8 +329,10 @@ public class TechniqueDef implements Savable {
     public void addShaderParamDefine(String paramName, String defineName){
         if (defineParams == null) {
             defineParams = new HashMap<String, String>();
+            defineParamIds = new HashMap<String, Integer>();
         }
         defineParams.put(paramName, defineName);
+        defineParamIds.put(paramName, DefineList.getDefineId(defineName));
     }
 
     /**
@@ -438,7 +475,7 @@ public class TechniqueDef implements Savable {
         vertName = ic.readString("vertName", null);
         fragName = ic.readString("fragName", null);
         presetDefines = (DefineList) ic.readSavable("presetDefines", null);
-        lightMode = ic.readEnum("lightMode", LightMode.class, LightMode.Disable);
+        setLightMode(ic.readEnum("lightMode", LightMode.class, LightMode.Disable));
         shadowMode = ic.readEnum("shadowMode", ShadowMode.class, ShadowMode.Disable);
         renderState = (RenderState) ic.readSavable("renderState", null);
         usesShaders = ic.readBoolean("usesShaders", false);
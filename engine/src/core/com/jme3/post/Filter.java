@@ -34,6 +34,8 @@ package com.jme3.post;
 import com.jme3.asset.AssetManager;
 import com.jme3.export.*;
 import com.jme3.material.Material;
+import com.jme3.math.Vector2f;
+import com.jme3.renderer.Camera;
 import com.jme3.renderer.Caps;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.Renderer;
@@ -62,6 +64,15 @@ import java.util.List;
  */
 public abstract class Filter implements Savable {
 
+    /**
+     * Fused stage types, see {@link #getFusedStageType()}. The values must
+     * match the stage defines of Common/MatDefs/Post/Fused.glsllib
+     */
+    protected static final int FUSED_STAGE_NONE = 0;
+    protected static final int FUSED_STAGE_OVERLAY = 1;
+    protected static final int FUSED_STAGE_FADE = 2;
+    protected static final int FUSED_STAGE_GAMMA_CORRECTION = 3;
+    protected static final int FUSED_STAGE_POSTERIZATION = 4;
 
     private String name;
     protected Pass defaultPass;
@@ -69,6 +80,7 @@ public abstract class Filter implements Savable {
     protected Material material;
     protected boolean enabled = true;
     protected FilterPostProcessor processor;
+    private float resolutionScale = 1f;
 
     public Filter(String name) {
         this.name = name;
@@ -235,7 +247,10 @@ public abstract class Filter implements Savable {
     protected final void init(AssetManager manager, RenderManager renderManager, ViewPort vp, int w, int h) {
         //  cleanup(renderManager.getRenderer());
         defaultPass = new Pass();
-        defaultPass.init(renderManager.getRenderer(), w, h, getDefaultPassTextureFormat(), getDefaultPassDepthFormat());
+        //when render targets are pooled the processor assigns the default pass target
+        if (!isRenderTargetPooled()) {
+            defaultPass.init(renderManager.getRenderer(), w, h, getDefaultPassTextureFormat(), getDefaultPassDepthFormat());
+        }
         initFilter(manager, renderManager, vp, w, h);
     }
 
@@ -244,8 +259,9 @@ public abstract class Filter implements Savable {
      * @param r
      */
     protected final void cleanup(Renderer r) {   
+        boolean pooled = isRenderTargetPooled();
         processor = null;
-        if (defaultPass != null) {
+        if (defaultPass != null && !pooled) {
             defaultPass.cleanup(r);
         }
         if (postRenderPasses != null) {
@@ -328,6 +344,7 @@ public abstract class Filter implements Savable {
         OutputCapsule oc = ex.getCapsule(this);
         oc.write(name, "name", "");
         oc.write(enabled, "enabled", true);
+        oc.write(resolutionScale, "resolutionScale", 1f);
     }
 
     /**
@@ -339,6 +356,7 @@ public abstract class Filter implements Savable {
         InputCapsule ic = im.getCapsule(this);
         name = ic.readString("name", "");
         enabled = ic.readBoolean("enabled", true);
+        resolutionScale = ic.readFloat("resolutionScale", 1f);
     }
 
     /**
@@ -407,6 +425,108 @@ public abstract class Filter implements Savable {
         return true;
     }
 
+    /**
+     * Sets the fraction of the viewport size at which the expensive passes 
+     * of this filter are rendered, 0.5 renders them at half resolution, 
+     * with a quarter of the pixels to shade.<br>
+     * The filter upsamples the result to the viewport size, most filters 
+     * use a depth-aware bilateral upsampling (see 
+     * {@link #createUpsampleMaterial(AssetManager, ViewPort, Texture2D)})
+     * so that the low resolution result doesn't bleed over the edges of 
+     * the objects.<br>
+     * Filters that don't support it render at full resolution. 
+     * Default is 1.
+     * @param resolutionScale the scale, must be in ]0, 1]
+     */
+    public void setResolutionScale(float resolutionScale) {
+        if (resolutionScale <= 0 || resolutionScale > 1) {
+            throw new IllegalArgumentException("resolutionScale must be in ]0, 1]");
+        }
+        if (this.resolutionScale == resolutionScale) {
+            return;
+        }
+        this.resolutionScale = resolutionScale;
+        //the passes must be created again with the new size
+        if (processor != null && processor.isInitialized()) {
+            processor.reinitFilter(this);
+        }
+    }
+
+    /**
+     * returns the fraction of the viewport size at which the expensive 
+     * passes of this filter are rendered
+     * @return the resolution scale
+     * @see #setResolutionScale(float) 
+     */
+    public float getResolutionScale() {
+        return resolutionScale;
+    }
+
+    /**
+     * returns the given viewport dimension scaled by the resolution scale, 
+     * filters supporting scaled execution use it to size their passes
+     * @param size the width or height of the viewport
+     * @return the scaled size, at least 1
+     */
+    protected int getScaledSize(int size) {
+        return Math.max(1, (int) (size * resolutionScale));
+    }
+
+    /**
+     * Creates a material that upsamples the given low resolution texture to
+     * the viewport size with depth-aware bilateral weights, and modulates 
+     * the scene with it.<br>
+     * The low resolution texture must be rendered from the scene depth 
+     * texture sampled at its texel centers, the material needs the 
+     * DepthTexture and Texture params like any filter material.
+     * @param manager the asset manager
+     * @param vp the viewport of the filter
+     * @param lowResTexture the low resolution texture to upsample
+     * @return the upsample material
+     */
+    protected Material createUpsampleMaterial(AssetManager manager, ViewPort vp, Texture2D lowResTexture) {
+        Material mat = new Material(manager, "Common/MatDefs/Post/BilateralUpsample.j3md");
+        mat.setTexture("LowResTexture", lowResTexture);
+        mat.setVector2("LowResSize", new Vector2f(lowResTexture.getImage().getWidth(), lowResTexture.getImage().getHeight()));
+        Camera cam = vp.getCamera();
+        mat.setVector2("FrustumNearFar", new Vector2f(cam.getFrustumNear(), cam.getFrustumFar()));
+        return mat;
+    }
+
+    /**
+     * Override this method if the Filter is a simple per pixel color 
+     * transform of the scene texture that can be fused with its neighbours 
+     * in a single full screen pass when filter fusion is enabled on the 
+     * FilterPostProcessor.
+     * The returned value is one of the FUSED_STAGE_* stage types used by the
+     * fused material, {@link #FUSED_STAGE_NONE} means the filter can't be fused.
+     *
+     * @return the fused stage type of this filter, FUSED_STAGE_NONE by default
+     * @see FilterPostProcessor#setFilterFusion(boolean) 
+     */
+    protected int getFusedStageType() {
+        return FUSED_STAGE_NONE;
+    }
+
+    /**
+     * Called every frame when this filter is rendered as a stage of a fused
+     * pass, must set the parameters of the given stage on the fused material
+     * (for example "Color0" for the overlay color of stage 0).
+     *
+     * @param fused the fused material
+     * @param stage the stage index of this filter in the fused pass
+     */
+    protected void setFusedParameters(Material fused, int stage) {
+    }
+
+    /**
+     * returns true if the default pass render target of this filter is
+     * provided by the FilterPostProcessor pool
+     */
+    private boolean isRenderTargetPooled() {
+        return processor != null && processor.isRenderTargetPooling();
+    }
+
     /**
      * returns the list of the postRender passes
      * @return
@@ -54,6 +54,10 @@ import java.util.List;
  */
 public class FilterPostProcessor implements SceneProcessor, Savable {
 
+    /**
+     * The maximum number of filters rendered in a single fused pass
+     */
+    private static final int MAX_FUSED_STAGES = 4;
     private RenderManager renderManager;
     private Renderer renderer;
     private ViewPort viewPort;
@@ -78,6 +82,27 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
     private int lastFilterIndex = -1;
     private boolean cameraInit = false;
     private boolean multiView = false;
+    private boolean renderTargetPooling = false;
+    private List<RenderTarget> renderTargets = new ArrayList<RenderTarget>();
+    private boolean filterFusion = false;
+    private List<Material> fusedMaterials = new ArrayList<Material>();
+    private final int[] fusedRun = new int[MAX_FUSED_STAGES];
+
+    /**
+     * A render target of the pool shared by the filters default passes
+     */
+    private static class RenderTarget {
+
+        private Filter.Pass pass;
+        private Format format;
+        private Format depthFormat;
+
+        public RenderTarget(Filter.Pass pass, Format format, Format depthFormat) {
+            this.pass = pass;
+            this.format = format;
+            this.depthFormat = depthFormat;
+        }
+    }
 
     /**
      * Create a FilterProcessor 
@@ -168,6 +193,129 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
         } else {
             filter.init(assetManager, renderManager, vp, width, height);
         }
+        if (renderTargetPooling) {
+            assignRenderTarget(filter, null);
+        }
+    }
+
+    /**
+     * cleans up and initializes again the given filter, used when a 
+     * setting of the filter that affects its passes changes
+     * @param filter 
+     */
+    void reinitFilter(Filter filter) {
+        filter.cleanup(renderer);
+        initFilter(filter, viewPort);
+    }
+
+    /**
+     * Assigns a render target of the pool to the given filter, creating it
+     * if no compatible target is available.
+     * @param filter the filter
+     * @param inUse the frame buffer the filter reads from, that can't be
+     * assigned to it
+     */
+    private void assignRenderTarget(Filter filter, FrameBuffer inUse) {
+        Format format = filter.getDefaultPassTextureFormat();
+        Format depthFormat = filter.getDefaultPassDepthFormat();
+        RenderTarget target = null;
+        for (RenderTarget t : renderTargets) {
+            if (t.format == format && t.depthFormat == depthFormat
+                    && t.pass.getRenderFrameBuffer() != inUse) {
+                target = t;
+                break;
+            }
+        }
+        if (target == null) {
+            target = new RenderTarget(filter.new Pass(), format, depthFormat);
+            target.pass.init(renderer, width, height, format, depthFormat);
+            renderTargets.add(target);
+        }
+        filter.setRenderFrameBuffer(target.pass.getRenderFrameBuffer());
+        filter.setRenderedTexture(target.pass.getRenderedTexture());
+    }
+
+    private void disposeRenderTargets() {
+        for (RenderTarget target : renderTargets) {
+            target.pass.cleanup(renderer);
+        }
+        renderTargets.clear();
+    }
+
+    /**
+     * returns the memory of a filter render target in bytes
+     */
+    private long getRenderTargetSize(Format format, Format depthFormat) {
+        int bits = format.getBitsPerPixel();
+        if (depthFormat != null) {
+            //the generic depth format is usually backed by a 24 bits buffer
+            bits += depthFormat.getBitsPerPixel() > 0 ? depthFormat.getBitsPerPixel() : 24;
+        }
+        return (long) width * height * bits / 8;
+    }
+
+    /**
+     * returns the render target memory saved by the pool, in bytes
+     */
+    private long getRenderTargetMemorySaved() {
+        long saved = 0;
+        for (Filter filter : filters) {
+            saved += getRenderTargetSize(filter.getDefaultPassTextureFormat(), filter.getDefaultPassDepthFormat());
+        }
+        for (RenderTarget target : renderTargets) {
+            saved -= getRenderTargetSize(target.format, target.depthFormat);
+        }
+        return saved;
+    }
+
+    /**
+     * returns true if the given filter can be rendered as a stage of a 
+     * fused pass
+     */
+    private boolean isFusable(Filter filter) {
+        return filter.getFusedStageType() != Filter.FUSED_STAGE_NONE
+                && filter.getPostRenderPasses() == null
+                && !filter.isRequiresDepthTexture()
+                && filter.isRequiresSceneTexture();
+    }
+
+    /**
+     * Collects the indices of the enabled fusable filters that directly 
+     * follow the filter at the given index (included) in fusedRun.
+     * @return the number of collected filters
+     */
+    private int collectFusedRun(int start) {
+        int count = 0;
+        for (int i = start; i < filters.size() && count < MAX_FUSED_STAGES; i++) {
+            Filter filter = filters.get(i);
+            if (!filter.isEnabled()) {
+                continue;
+            }
+            if (!isFusable(filter)) {
+                break;
+            }
+            fusedRun[count++] = i;
+        }
+        return count;
+    }
+
+    private Material getFusedMaterial(int index) {
+        while (fusedMaterials.size() <= index) {
+            fusedMaterials.add(new Material(assetManager, "Common/MatDefs/Post/Fused.j3md"));
+        }
+        return fusedMaterials.get(index);
+    }
+
+    /**
+     * sets the texture to process on the given material
+     */
+    private void setSceneTexture(Material mat, Texture2D tex) {
+        mat.setTexture("Texture", tex);
+        if (tex.getImage().getMultiSamples() > 1) {
+            mat.setInt("NumSamples", tex.getImage().getMultiSamples());
+        } else {
+            mat.clearParam("NumSamples");
+        }
     }
 
     /**
@@ -229,21 +377,56 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
         Texture2D tex = filterTexture;
         FrameBuffer buff = sceneFb;
         boolean msDepth = depthTexture != null && depthTexture.getImage().getMultiSamples() > 1;
+        int numFusedPasses = 0;
+        int passesMerged = 0;
         for (int i = 0; i < filters.size(); i++) {
             Filter filter = filters.get(i);
             if (filter.isEnabled()) {
+                int numStages = filterFusion ? collectFusedRun(i) : 0;
+                if (numStages > 1) {
+                    //rendering the run of fusable filters in one pass to
+                    //the target of the last filter of the run
+                    int last = fusedRun[numStages - 1];
+                    Filter lastFilter = filters.get(last);
+                    if (renderTargetPooling && last != lastFilterIndex) {
+                        assignRenderTarget(lastFilter, buff);
+                    }
+                    Material mat = getFusedMaterial(numFusedPasses++);
+                    for (int s = 0; s < MAX_FUSED_STAGES; s++) {
+                        if (s < numStages) {
+                            Filter stage = filters.get(fusedRun[s]);
+                            stage.postFrame(renderManager, viewPort, buff, sceneFb);
+                            stage.setFusedParameters(mat, s);
+                            mat.setInt("Stage" + s, stage.getFusedStageType());
+                        } else {
+                            mat.clearParam("Stage" + s);
+                        }
+                    }
+                    setSceneTexture(mat, tex);
+
+                    buff = outputBuffer;
+                    if (last != lastFilterIndex) {
+                        buff = lastFilter.getRenderFrameBuffer();
+                        tex = lastFilter.getRenderedTexture();
+                    }
+                    renderProcessing(r, buff, mat);
+                    for (int s = 0; s < numStages; s++) {
+                        filters.get(fusedRun[s]).postFilter(r, buff);
+                    }
+                    passesMerged += numStages - 1;
+                    i = last;
+                    continue;
+                }
+
+                if (renderTargetPooling && i != lastFilterIndex) {
+                    assignRenderTarget(filter, buff);
+                }
                 if (filter.getPostRenderPasses() != null) {
                     for (Iterator<Filter.Pass> it1 = filter.getPostRenderPasses().iterator(); it1.hasNext();) {
                         Filter.Pass pass = it1.next();
                         pass.beforeRender();
                         if (pass.requiresSceneAsTexture()) {
-                            pass.getPassMaterial().setTexture("Texture", tex);
-                            if (tex.getImage().getMultiSamples() > 1) {
-                                pass.getPassMaterial().setInt("NumSamples", tex.getImage().getMultiSamples());
-                            } else {
-                                pass.getPassMaterial().clearParam("NumSamples");
-
-                            }
+                            setSceneTexture(pass.getPassMaterial(), tex);
                         }
                         if (pass.requiresDepthAsTexture()) {
                             pass.getPassMaterial().setTexture("DepthTexture", depthTexture);
@@ -265,12 +448,7 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
                 }
 
                 if (filter.isRequiresSceneTexture()) {
-                    mat.setTexture("Texture", tex);
-                    if (tex.getImage().getMultiSamples() > 1) {
-                        mat.setInt("NumSamples", tex.getImage().getMultiSamples());
-                    } else {
-                        mat.clearParam("NumSamples");
-                    }
+                    setSceneTexture(mat, tex);
                 }
 
                 buff = outputBuffer;
@@ -283,6 +461,14 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
                 filter.postFilter(r, buff);
             }
         }
+
+        Statistics stats = r.getStatistics();
+        if (passesMerged > 0) {
+            stats.onFilterPassesMerged(passesMerged);
+        }
+        if (renderTargetPooling) {
+            stats.onFilterMemorySaved(getRenderTargetMemorySaved());
+        }
     }
 
     public void postFrame(FrameBuffer out) {
@@ -390,6 +576,7 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
             for (Filter filter : filters) {
                 filter.cleanup(renderer);
             }
+            disposeRenderTargets();
         }
 
     }
@@ -452,6 +639,8 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
             renderFrameBuffer.setColorTexture(filterTexture);
         }
 
+        //the pooled targets have the previous size
+        disposeRenderTargets();
         for (Iterator<Filter> it = filters.iterator(); it.hasNext();) {
             Filter filter = it.next();
             initFilter(filter, vp);
@@ -488,6 +677,70 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
         this.numSamples = numSamples;
     }
 
+    /**
+     * Enables or disables render target pooling.<br>
+     * When enabled, the filters don't own their render target anymore, the 
+     * processor assigns them a target from a pool every frame so that 
+     * filters which are not rendered at the same time share the same target.
+     * Most of the time two targets per texture format are enough 
+     * for the whole filter stack.<br>
+     * Only the default pass of the filters is pooled, extra passes keep 
+     * their own targets.
+     * Disabled by default.
+     * @param renderTargetPooling true to pool the filters render targets
+     */
+    public void setRenderTargetPooling(boolean renderTargetPooling) {
+        if (this.renderTargetPooling == renderTargetPooling) {
+            return;
+        }
+        if (isInitialized()) {
+            //the filters must release their targets with the previous mode
+            for (Filter filter : filters) {
+                filter.cleanup(renderer);
+            }
+            disposeRenderTargets();
+            this.renderTargetPooling = renderTargetPooling;
+            for (Filter filter : filters) {
+                initFilter(filter, viewPort);
+            }
+        } else {
+            this.renderTargetPooling = renderTargetPooling;
+        }
+    }
+
+    /**
+     * returns true if the filters render targets are pooled
+     * @return true if render target pooling is enabled
+     * @see #setRenderTargetPooling(boolean) 
+     */
+    public boolean isRenderTargetPooling() {
+        return renderTargetPooling;
+    }
+
+    /**
+     * Enables or disables filter fusion.<br>
+     * When enabled, consecutive filters that are simple color transforms 
+     * of the scene (ColorOverlayFilter, FadeFilter, GammaCorrectionFilter, 
+     * PosterizationFilter) are rendered in a single full screen pass 
+     * instead of one pass each, saving a full screen read and write per 
+     * merged filter.
+     * Disabled by default.
+     * @param filterFusion true to fuse compatible filters
+     * @see Filter#getFusedStageType() 
+     */
+    public void setFilterFusion(boolean filterFusion) {
+        this.filterFusion = filterFusion;
+    }
+
+    /**
+     * returns true if compatible filters are fused
+     * @return true if filter fusion is enabled
+     * @see #setFilterFusion(boolean) 
+     */
+    public boolean isFilterFusion() {
+        return filterFusion;
+    }
+
     /**
      * Sets the asset manager for this processor
      * @param assetManager
@@ -499,12 +752,16 @@ public class FilterPostProcessor implements SceneProcessor, Savable {
     public void write(JmeExporter ex) throws IOException {
         OutputCapsule oc = ex.getCapsule(this);
         oc.write(numSamples, "numSamples", 0);
+        oc.write(renderTargetPooling, "renderTargetPooling", false);
+        oc.write(filterFusion, "filterFusion", false);
         oc.writeSavableArrayList((ArrayList) filters, "filters", null);
     }
 
     public void read(JmeImporter im) throws IOException {
         InputCapsule ic = im.getCapsule(this);
         numSamples = ic.readInt("numSamples", 0);
+        renderTargetPooling = ic.readBoolean("renderTargetPooling", false);
+        filterFusion = ic.readBoolean("filterFusion", false);
         filters = ic.readSavableArrayList("filters", null);
         for (Filter filter : filters) {
             filter.setProcessor(this);
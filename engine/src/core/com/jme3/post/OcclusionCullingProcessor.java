@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.post;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState;
+import com.jme3.material.RenderState.FaceCullMode;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.OcclusionQuery;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.Renderer;
+import com.jme3.renderer.Statistics;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.NullComparator;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Box;
+import com.jme3.texture.FrameBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.logging.Logger;
+
+/**
+ * Removes geometries hidden behind other objects from the render queue,
+ * using hardware {@link OcclusionQuery occlusion queries}.
+ * <p>
+ * After the scene has been rendered, the world bounding box of each
+ * queued object is drawn into a query, with color and depth writes 
+ * disabled. The results are read during the next frames, only once
+ * the GPU has made them available so the pipeline never stalls.
+ * Objects whose query found no visible sample are removed from the 
+ * {@link Bucket#Opaque opaque} and {@link Bucket#Transparent transparent}
+ * buckets in {@link #postQueue(com.jme3.renderer.queue.RenderQueue) } and
+ * are queried again every frame, visible objects are only queried again every
+ * {@link #setVisibleQueryInterval(int) few frames}. Because of this temporal 
+ * coherence, an object that comes into view may appear one frame late.
+ * <p>
+ * By default each geometry is queried on its own. Geometries below a node
+ * added with {@link #addQueryNode(com.jme3.scene.Node) } are queried
+ * together against the bound of the node, which needs less queries
+ * for nodes made of many small parts.
+ * <p>
+ * The processor must be added to the viewport before any processor that
+ * changes the frame buffer in {@link #postFrame(com.jme3.texture.FrameBuffer) },
+ * like the {@link FilterPostProcessor}, so that the queries are tested against 
+ * the depth buffer of the scene. It does nothing if the renderer does not support
+ * {@link Caps#OcclusionQuery}. The number of queries and of occluded objects 
+ * are reported by the {@link Statistics}.
+ */
+public class OcclusionCullingProcessor implements SceneProcessor {
+
+    private static final Logger logger = Logger.getLogger(OcclusionCullingProcessor.class.getName());
+
+    /**
+     * Number of frames after which the query of an object that is no longer
+     * queued is deleted.
+     */
+    private static final int EXPIRE_FRAMES = 60;
+
+    private RenderManager rm;
+    private ViewPort vp;
+    private boolean supported;
+    private boolean enabled = true;
+    private int visibleQueryInterval = 4;
+    private int sampleThreshold = 0;
+    private long frame;
+    private int nextStateId;
+    private final Geometry boundsGeom;
+    private final RenderState queryState;
+    private final HashMap<Spatial, OcclusionState> states = new HashMap<Spatial, OcclusionState>();
+    private final HashSet<Node> queryNodes = new HashSet<Node>();
+    private final ArrayList<OcclusionState> frameStates = new ArrayList<OcclusionState>();
+    private final GeometryList visibleList = new GeometryList(new NullComparator());
+    private final Vector3f tmpExtents = new Vector3f();
+
+    /**
+     * The visibility of a queried spatial, carried over frames.
+     */
+    private static class OcclusionState {
+
+        final Spatial spatial;
+        final int id;
+        final OcclusionQuery query = new OcclusionQuery();
+        boolean visible = true;
+        boolean queryPending = false;
+        long lastSeenFrame = -1;
+
+        OcclusionState(Spatial spatial, int id) {
+            this.spatial = spatial;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Creates an occlusion culling processor.
+     * 
+     * @param assetManager The asset manager used to load the material
+     * of the bounding boxes.
+     */
+    public OcclusionCullingProcessor(AssetManager assetManager) {
+        Material boundsMat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        boundsGeom = new Geometry("OcclusionBounds", new Box(1, 1, 1));
+        boundsGeom.setMaterial(boundsMat);
+
+        queryState = new RenderState();
+        queryState.setColorWrite(false);
+        queryState.setDepthWrite(false);
+        queryState.setDepthTest(true);
+        queryState.setFaceCullMode(FaceCullMode.Off);
+    }
+
+    /**
+     * Enables or disables occlusion culling. When disabled, no object is 
+     * removed from the queue and no query is issued.
+     * 
+     * @param enabled True to enable occlusion culling
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return True if occlusion culling is enabled.
+     * @see #setEnabled(boolean) 
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets every how many frames an object found visible is queried again.
+     * Hidden objects are queried every frame. Higher values need less queries,
+     * but an object that becomes hidden keeps being rendered for longer.
+     * The default is 4.
+     * 
+     * @param visibleQueryInterval The interval in frames, at least 1
+     */
+    public void setVisibleQueryInterval(int visibleQueryInterval) {
+        if (visibleQueryInterval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1");
+        }
+        this.visibleQueryInterval = visibleQueryInterval;
+    }
+
+    /**
+     * @return Every how many frames an object found visible is queried again.
+     * @see #setVisibleQueryInterval(int) 
+     */
+    public int getVisibleQueryInterval() {
+        return visibleQueryInterval;
+    }
+
+    /**
+     * Sets the number of samples an object's bounding box may pass while 
+     * still being considered hidden. The default is 0, any visible sample 
+     * keeps the object.
+     * 
+     * @param sampleThreshold The number of samples
+     */
+    public void setSampleThreshold(int sampleThreshold) {
+        this.sampleThreshold = sampleThreshold;
+    }
+
+    /**
+     * @return The number of samples an object may pass while still 
+     * being considered hidden.
+     * @see #setSampleThreshold(int) 
+     */
+    public int getSampleThreshold() {
+        return sampleThreshold;
+    }
+
+    /**
+     * Queries the geometries below the given node together, against 
+     * the node's world bound. If query nodes are nested, a geometry 
+     * belongs to its nearest query node.
+     * 
+     * @param node The node to query as a whole
+     */
+    public void addQueryNode(Node node) {
+        queryNodes.add(node);
+    }
+
+    /**
+     * Queries the geometries below the given node individually again.
+     * 
+     * @param node The node previously given to {@link #addQueryNode(com.jme3.scene.Node) }
+     */
+    public void removeQueryNode(Node node) {
+        if (queryNodes.remove(node)) {
+            OcclusionState state = states.remove(node);
+            if (state != null && rm != null) {
+                rm.getRenderer().deleteOcclusionQuery(state.query);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given spatial was found hidden by its last 
+     * query result, the geometries it stands for are then removed from 
+     * the render queue.
+     * 
+     * @param spatial A queued geometry, or a query node
+     * @return True if the spatial is currently considered occluded
+     */
+    public boolean isOccluded(Spatial spatial) {
+        OcclusionState state = states.get(spatial);
+        return state != null && !state.visible;
+    }
+
+    public void initialize(RenderManager rm, ViewPort vp) {
+        this.rm = rm;
+        this.vp = vp;
+        supported = rm.getRenderer().getCaps().contains(Caps.OcclusionQuery);
+        if (!supported) {
+            logger.warning("Occlusion queries are not supported by the video hardware, occlusion culling is disabled.");
+        }
+    }
+
+    public void reshape(ViewPort vp, int w, int h) {
+        this.vp = vp;
+    }
+
+    public boolean isInitialized() {
+        return vp != null;
+    }
+
+    public void preFrame(float tpf) {
+        frame++;
+    }
+
+    public void postQueue(RenderQueue rq) {
+        if (!enabled || !supported) {
+            return;
+        }
+
+        Statistics stats = rm.getRenderer().getStatistics();
+        cullList(rq.getQueueContent(Bucket.Opaque), stats);
+        cullList(rq.getQueueContent(Bucket.Transparent), stats);
+    }
+
+    private void cullList(GeometryList list, Statistics stats) {
+        for (int i = 0; i < list.size(); i++) {
+            Geometry g = list.get(i);
+            if (getState(g).visible) {
+                visibleList.add(g);
+            }
+        }
+
+        if (visibleList.size() != list.size()) {
+            stats.onObjectsOccluded(list.size() - visibleList.size());
+            list.clear();
+            list.addAll(visibleList);
+        }
+        visibleList.clear();
+    }
+
+    /**
+     * Returns the state of the spatial queried for the given geometry,
+     * reading the result of its last query if available.
+     */
+    private OcclusionState getState(Geometry g) {
+        Spatial target = g;
+        if (!queryNodes.isEmpty()) {
+            for (Node parent = g.getParent(); parent != null; parent = parent.getParent()) {
+                if (queryNodes.contains(parent)) {
+                    target = parent;
+                    break;
+                }
+            }
+        }
+
+        OcclusionState state = states.get(target);
+        if (state == null) {
+            state = new OcclusionState(target, nextStateId++);
+            states.put(target, state);
+        }
+
+        if (state.lastSeenFrame != frame) {
+            if (state.lastSeenFrame != frame - 1) {
+                // not queued last frame, the last result is outdated
+                state.visible = true;
+                state.queryPending = false;
+            } else if (state.queryPending) {
+                Renderer renderer = rm.getRenderer();
+                if (renderer.isOcclusionQueryResultAvailable(state.query)) {
+                    state.visible = renderer.getOcclusionQueryResult(state.query) > sampleThreshold;
+                    state.queryPending = false;
+                }
+            }
+            state.lastSeenFrame = frame;
+            frameStates.add(state);
+        }
+        return state;
+    }
+
+    public void postFrame(FrameBuffer out) {
+        if (!enabled || !supported) {
+            frameStates.clear();
+            return;
+        }
+
+        Camera cam = vp.getCamera();
+        float nearRadius = FastMath.sqrt(cam.getFrustumNear() * cam.getFrustumNear()
+                + cam.getFrustumRight() * cam.getFrustumRight()
+                + cam.getFrustumTop() * cam.getFrustumTop());
+
+        Renderer renderer = rm.getRenderer();
+        RenderState prevState = rm.getForcedRenderState();
+        rm.setForcedRenderState(queryState);
+        for (int i = 0; i < frameStates.size(); i++) {
+            OcclusionState state = frameStates.get(i);
+            if (state.queryPending
+                    || (state.visible && (frame + state.id) % visibleQueryInterval != 0)) {
+                continue;
+            }
+
+            BoundingVolume bound = state.spatial.getWorldBound();
+            if (bound == null || !getExtents(bound, tmpExtents)) {
+                continue;
+            }
+
+            Vector3f center = bound.getCenter();
+            Vector3f loc = cam.getLocation();
+            if (FastMath.abs(loc.x - center.x) <= tmpExtents.x + nearRadius
+                    && FastMath.abs(loc.y - center.y) <= tmpExtents.y + nearRadius
+                    && FastMath.abs(loc.z - center.z) <= tmpExtents.z + nearRadius) {
+                // the near plane may clip the box, the query would be wrong
+                state.visible = true;
+                continue;
+            }
+
+            boundsGeom.setLocalTranslation(center);
+            boundsGeom.setLocalScale(tmpExtents);
+            boundsGeom.updateGeometricState();
+
+            renderer.startOcclusionQuery(state.query);
+            rm.renderGeometry(boundsGeom);
+            renderer.stopOcclusionQuery(state.query);
+            state.queryPending = true;
+        }
+        rm.setForcedRenderState(prevState);
+        frameStates.clear();
+
+        if (frame % EXPIRE_FRAMES == 0) {
+            deleteExpiredQueries();
+        }
+    }
+
+    private boolean getExtents(BoundingVolume bound, Vector3f store) {
+        if (bound instanceof BoundingBox) {
+            ((BoundingBox) bound).getExtent(store);
+            return true;
+        } else if (bound instanceof BoundingSphere) {
+            float radius = ((BoundingSphere) bound).getRadius();
+            store.set(radius, radius, radius);
+            return true;
+        }
+        return false;
+    }
+
+    private void deleteExpiredQueries() {
+        Renderer renderer = rm.getRenderer();
+        for (Iterator<OcclusionState> it = states.values().iterator(); it.hasNext();) {
+            OcclusionState state = it.next();
+            if (frame - state.lastSeenFrame > EXPIRE_FRAMES) {
+                renderer.deleteOcclusionQuery(state.query);
+                it.remove();
+            }
+        }
+    }
+
+    public void cleanup() {
+        if (rm != null) {
+            Renderer renderer = rm.getRenderer();
+            for (OcclusionState state : states.values()) {
+                renderer.deleteOcclusionQuery(state.query);
+            }
+        }
+        states.clear();
+        frameStates.clear();
+        vp = null;
+    }
+}
@@ -231,7 +231,20 @@ public enum Caps {
     /**
      * Supports FBO with Depth24Stencil8 image format
      */
-    PackedDepthStencilBuffer;
+    PackedDepthStencilBuffer,
+
+    /**
+     * Supports occlusion queries, see {@link OcclusionQuery}
+     */
+    OcclusionQuery,
+
+    /**
+     * Supports copying framebuffers, including their depth, with
+     * {@link Renderer#copyFrameBuffer(FrameBuffer, FrameBuffer, boolean) }
+     * <p>
+     * OpenGL: Renderer exposes the GL EXT framebuffer blit extension
+     */
+    FrameBufferBlit;
 
     /**
      * Returns true if given the renderer capabilities, the texture
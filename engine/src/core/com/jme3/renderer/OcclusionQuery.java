@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.util.NativeObject;
+
+/**
+ * An <code>OcclusionQuery</code> counts the number of samples that 
+ * passed the depth test while it was active.
+ * <p>
+ * The query is started with {@link Renderer#startOcclusionQuery(com.jme3.renderer.OcclusionQuery) }
+ * and stopped with {@link Renderer#stopOcclusionQuery(com.jme3.renderer.OcclusionQuery) },
+ * every draw call issued in between is counted. The GPU computes the
+ * result asynchronously, use {@link Renderer#isOcclusionQueryResultAvailable(com.jme3.renderer.OcclusionQuery) }
+ * to avoid stalling the pipeline when reading it.
+ * <p>
+ * Requires {@link Caps#OcclusionQuery}.
+ * 
+ * @see com.jme3.post.OcclusionCullingProcessor
+ */
+public class OcclusionQuery extends NativeObject {
+
+    /**
+     * Creates a new occlusion query. The native object is created
+     * by the renderer the first time the query is started.
+     */
+    public OcclusionQuery() {
+        super();
+    }
+
+    protected OcclusionQuery(int id) {
+        super(id);
+    }
+
+    @Override
+    public void resetObject() {
+        this.id = -1;
+        setUpdateNeeded();
+    }
+
+    @Override
+    public void deleteObject(Object rendererObject) {
+        ((Renderer)rendererObject).deleteOcclusionQuery(this);
+    }
+
+    @Override
+    public NativeObject createDestructableClone() {
+        return new OcclusionQuery(id);
+    }
+
+    @Override
+    public long getUniqueId() {
+        return ((long)OBJTYPE_QUERY << 32) | ((long)id);
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.StaticDrawList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <code>ParallelSceneCuller</code> flattens a scene graph into a
+ * {@link RenderQueue} using several threads.
+ * <p>
+ * The top of the scene graph is walked on the render thread until
+ * enough independent subtrees are found, those subtrees are then culled
+ * by worker threads, each one using its own copy of the camera plane state
+ * and its own queue fragment. The fragments are merged into the
+ * ViewPort's queue in scene graph order, so the resulting queue content
+ * is the same as the one produced by the serial traversal.
+ * <p>
+ * {@link Spatial#runControlRender(com.jme3.renderer.RenderManager, com.jme3.renderer.ViewPort) Control rendering}
+ * of spatials culled by a worker is deferred to the render thread and
+ * happens after the subtree has been culled.
+ *
+ * @see RenderManager#setParallelCulling(boolean)
+ */
+class ParallelSceneCuller {
+
+    /**
+     * Number of subtrees a node must have before the render thread
+     * stops walking down and hands its children to the workers.
+     */
+    private static final int UNITS_PER_THREAD = 8;
+
+    /**
+     * Maximum depth walked on the render thread.
+     */
+    private static final int MAX_SPLIT_DEPTH = 4;
+
+    private final int numThreads;
+    private SoftwareOcclusionCuller occlusionCuller;
+    private ExecutorService executor;
+    private int nextThreadId = 0;
+
+    private final ArrayList<Spatial> units = new ArrayList<Spatial>();
+    private final ArrayList<Integer> unitPlaneStates = new ArrayList<Integer>();
+    private final ArrayList<CullTask> tasks = new ArrayList<CullTask>();
+    private final ArrayList<CullTask> activeTasks = new ArrayList<CullTask>();
+    // tracks the tasks running on the workers, so that they can be
+    // waited for after their futures have been cancelled
+    private final Object taskLock = new Object();
+    private int runningTasks = 0;
+    private boolean aborted = false;
+
+    ParallelSceneCuller(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    private class CullThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "jME3-cull-" + (nextThreadId++));
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * Culls a range of subtrees into a queue fragment.
+     * Only the spatials of the range are touched, so different tasks
+     * can run concurrently.
+     */
+    private class CullTask implements Callable<CullTask> {
+
+        private final Camera cam;
+        private final RenderQueue fragment = new RenderQueue();
+        private final ArrayList<Spatial> controlRenders = new ArrayList<Spatial>();
+        private int start, end;
+        private int numOccluded;
+
+        CullTask(Camera source) {
+            cam = source.clone();
+        }
+
+        void reset(Camera source, int start, int end) {
+            cam.copyFrom(source);
+            this.start = start;
+            this.end = end;
+        }
+
+        public CullTask call() {
+            synchronized (taskLock) {
+                if (aborted) {
+                    return this;
+                }
+                runningTasks++;
+            }
+            try {
+                for (int i = start; i < end; i++) {
+                    int planeState = unitPlaneStates.get(i);
+                    if (planeState < 0) {
+                        cullShadow(units.get(i));
+                    } else {
+                        cam.setPlaneState(planeState);
+                        cullSubScene(units.get(i));
+                    }
+                }
+            } finally {
+                synchronized (taskLock) {
+                    runningTasks--;
+                    taskLock.notifyAll();
+                }
+            }
+            return this;
+        }
+
+        private void cullSubScene(Spatial scene) {
+            if (!scene.checkCulling(cam)) {
+                if ((scene.getShadowMode() != RenderQueue.ShadowMode.Off || scene instanceof Node) && scene.getCullHint() != Spatial.CullHint.Always) {
+                    cullShadow(scene);
+                }
+                return;
+            }
+
+            if (occlusionCuller != null && occlusionCuller.isOccluded(scene)) {
+                numOccluded++;
+                if (scene.getShadowMode() != RenderQueue.ShadowMode.Off || scene instanceof Node) {
+                    cullShadow(scene);
+                }
+                return;
+            }
+
+            if (scene.getNumControls() > 0) {
+                controlRenders.add(scene);
+            }
+            if (scene instanceof Node) {
+                StaticDrawList drawList = ((Node) scene).getStaticDrawList();
+                if (drawList != null) {
+                    numOccluded += drawList.cull(cam, fragment, controlRenders, occlusionCuller);
+                    return;
+                }
+                List<Spatial> children = ((Node) scene).getChildren();
+                int camState = cam.getPlaneState();
+                for (int i = 0; i < children.size(); i++) {
+                    cam.setPlaneState(camState);
+                    cullSubScene(children.get(i));
+                }
+            } else if (scene instanceof Geometry) {
+                Geometry gm = (Geometry) scene;
+                if (gm.getMaterial() == null) {
+                    throw new IllegalStateException("No material is set for Geometry: " + gm.getName());
+                }
+
+                fragment.addToQueue(gm, scene.getQueueBucket());
+
+                RenderQueue.ShadowMode shadowMode = scene.getShadowMode();
+                if (shadowMode != RenderQueue.ShadowMode.Off) {
+                    fragment.addToShadowQueue(gm, shadowMode);
+                }
+            }
+        }
+
+        private void cullShadow(Spatial s) {
+            if (s instanceof Node) {
+                StaticDrawList drawList = ((Node) s).getStaticDrawList();
+                if (drawList != null) {
+                    drawList.addShadowCasters(fragment);
+                    return;
+                }
+                List<Spatial> children = ((Node) s).getChildren();
+                for (int i = 0; i < children.size(); i++) {
+                    cullShadow(children.get(i));
+                }
+            } else if (s instanceof Geometry) {
+                RenderQueue.ShadowMode shadowMode = s.getShadowMode();
+                if (shadowMode != RenderQueue.ShadowMode.Off && shadowMode != RenderQueue.ShadowMode.Receive) {
+                    fragment.addToShadowQueue((Geometry) s, RenderQueue.ShadowMode.Cast);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flattens the scene into the ViewPort's queue.
+     * The camera plane state must be reset before calling this method.
+     */
+    void renderScene(Spatial scene, ViewPort vp, RenderManager rm) {
+        Camera cam = vp.getCamera();
+        occlusionCuller = rm.getOcclusionCuller();
+        split(scene, vp, rm, 0);
+
+        if (units.size() < 2) {
+            // not worth it, cull whatever is left on this thread
+            if (units.size() == 1) {
+                CullTask task = getTask(0, cam);
+                task.reset(cam, 0, 1);
+                task.call();
+                activeTasks.add(task);
+                flush(vp, rm);
+            }
+            units.clear();
+            unitPlaneStates.clear();
+            return;
+        }
+
+        int numTasks = Math.min(units.size(), numThreads * 4);
+        int perTask = units.size() / numTasks;
+        int remainder = units.size() % numTasks;
+        int start = 0;
+        for (int i = 0; i < numTasks; i++) {
+            int end = start + perTask + (i < remainder ? 1 : 0);
+            CullTask task = getTask(i, cam);
+            task.reset(cam, start, end);
+            activeTasks.add(task);
+            start = end;
+        }
+
+        List<Future<CullTask>> results = new ArrayList<Future<CullTask>>(activeTasks.size());
+        try {
+            ExecutorService exec = getExecutor();
+            for (int i = 0; i < activeTasks.size(); i++) {
+                results.add(exec.submit(activeTasks.get(i)));
+            }
+            for (Future<CullTask> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            // the fragments may be incomplete, or still being filled:
+            // stop the workers and cull the whole scene on this thread
+            cancelTasks(results);
+            clearTasks();
+            CullTask task = getTask(0, cam);
+            task.reset(cam, 0, units.size());
+            task.call();
+            activeTasks.add(task);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            cancelTasks(results);
+            clearTasks();
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            units.clear();
+            unitPlaneStates.clear();
+        }
+
+        flush(vp, rm);
+    }
+
+    /**
+     * Walks the top of the scene graph on the render thread, emitting
+     * the subtrees to be culled by the workers, in scene graph order.
+     */
+    private void split(Spatial scene, ViewPort vp, RenderManager rm, int depth) {
+        Camera cam = vp.getCamera();
+        boolean splitNode = scene instanceof Node
+                && depth < MAX_SPLIT_DEPTH
+                && ((Node) scene).getQuantity() > 0
+                && !((Node) scene).isStatic();
+        if (!splitNode) {
+            units.add(scene);
+            unitPlaneStates.add(cam.getPlaneState());
+            return;
+        }
+
+        if (!scene.checkCulling(cam)) {
+            if (scene.getCullHint() != Spatial.CullHint.Always) {
+                units.add(scene);
+                unitPlaneStates.add(-1);
+            }
+            return;
+        }
+
+        if (occlusionCuller != null && occlusionCuller.isOccluded(scene)) {
+            // a worker tests it again, counts it and adds its shadow casters
+            units.add(scene);
+            unitPlaneStates.add(cam.getPlaneState());
+            return;
+        }
+
+        scene.runControlRender(rm, vp);
+        List<Spatial> children = ((Node) scene).getChildren();
+        int camState = cam.getPlaneState();
+        boolean childrenAreUnits = children.size() >= numThreads * UNITS_PER_THREAD;
+        for (int i = 0; i < children.size(); i++) {
+            cam.setPlaneState(camState);
+            if (childrenAreUnits) {
+                units.add(children.get(i));
+                unitPlaneStates.add(camState);
+            } else {
+                split(children.get(i), vp, rm, depth + 1);
+            }
+        }
+    }
+
+    private void flush(ViewPort vp, RenderManager rm) {
+        RenderQueue queue = vp.getQueue();
+        for (int i = 0; i < activeTasks.size(); i++) {
+            CullTask task = activeTasks.get(i);
+            for (int j = 0; j < task.controlRenders.size(); j++) {
+                task.controlRenders.get(j).runControlRender(rm, vp);
+            }
+            queue.addAll(task.fragment);
+            if (task.numOccluded > 0) {
+                rm.getRenderer().getStatistics().onObjectsOccluded(task.numOccluded);
+            }
+        }
+        clearTasks();
+    }
+
+    /**
+     * Cancels the tasks which have not started and waits for the
+     * running ones to complete.
+     */
+    private void cancelTasks(List<Future<CullTask>> results) {
+        synchronized (taskLock) {
+            aborted = true;
+        }
+        for (Future<CullTask> result : results) {
+            result.cancel(false);
+        }
+        boolean interrupted = false;
+        synchronized (taskLock) {
+            while (runningTasks > 0) {
+                try {
+                    taskLock.wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            aborted = false;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void clearTasks() {
+        for (int i = 0; i < activeTasks.size(); i++) {
+            CullTask task = activeTasks.get(i);
+            task.controlRenders.clear();
+            task.fragment.clear();
+            task.numOccluded = 0;
+        }
+        activeTasks.clear();
+    }
+
+    private CullTask getTask(int index, Camera cam) {
+        while (tasks.size() <= index) {
+            tasks.add(new CullTask(cam));
+        }
+        return tasks.get(index);
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(numThreads, new CullThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    void cleanup() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        tasks.clear();
+    }
+}
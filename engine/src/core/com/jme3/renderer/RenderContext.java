@@ -134,6 +134,15 @@ public class RenderContext {
      */
     public boolean pointSprite = false;
 
+    /**
+     * ID of the last render state applied, or -1 if the render state
+     * values of this context were modified outside of 
+     * {@link Renderer#applyRenderState(com.jme3.material.RenderState) }.
+     * 
+     * @see RenderState#getStateId() 
+     */
+    public int renderStateId = -1;
+
     /**
      * @see Renderer#setShader(com.jme3.shader.Shader) 
      */
@@ -297,6 +306,7 @@ public class RenderContext {
         pointSize = 1;
         blendMode = RenderState.BlendMode.Off;
         wireframe = false;
+        renderStateId = -1;
         boundShaderProgram = 0;
         boundFBO = 0;
         boundRB = 0;
@@ -31,10 +31,13 @@
  */
 package com.jme3.renderer;
 
+import com.jme3.asset.AssetNotFoundException;
+import com.jme3.light.LightClusters;
 import com.jme3.material.Material;
 import com.jme3.material.MaterialDef;
 import com.jme3.material.RenderState;
 import com.jme3.material.Technique;
+import com.jme3.material.TechniqueDef.LightMode;
 import com.jme3.math.*;
 import com.jme3.post.SceneProcessor;
 import com.jme3.renderer.queue.GeometryList;
@@ -42,6 +45,7 @@ import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.renderer.queue.RenderQueue.Bucket;
 import com.jme3.renderer.queue.RenderQueue.ShadowMode;
 import com.jme3.scene.*;
+import com.jme3.shader.Shader;
 import com.jme3.shader.Uniform;
 import com.jme3.shader.UniformBinding;
 import com.jme3.shader.UniformBindingManager;
@@ -49,7 +53,10 @@ import com.jme3.system.NullRenderer;
 import com.jme3.system.Timer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -79,6 +86,11 @@ public class RenderManager {
     private Matrix4f orthoMatrix = new Matrix4f();
     private String tmpTech;
     private boolean handleTranlucentBucket = true;
+    private ParallelSceneCuller parallelCuller;
+    private SoftwareOcclusionCuller occlusionCuller;
+    private final ArrayList<Spatial> staticControlRenders = new ArrayList<Spatial>();
+    private LightMode preferredLightMode = LightMode.MultiPass;
+    private LightClusters lightClusters;
 
     /**
      * Create a high-level rendering interface over the
@@ -444,6 +456,122 @@ public class RenderManager {
         this.handleTranlucentBucket = handleTranslucentBucket;
     }
 
+    /**
+     * Enable or disable parallel culling of the scene graphs.
+     * <p>
+     * When enabled, {@link #renderScene(com.jme3.scene.Spatial, com.jme3.renderer.ViewPort) }
+     * splits large scene graphs into subtrees that are culled and
+     * flattened into the render queue by worker threads. The content
+     * of the render queue is the same as with serial culling, however
+     * the {@link com.jme3.scene.control.Control#render(com.jme3.renderer.RenderManager, com.jme3.renderer.ViewPort) render}
+     * method of controls attached to spatials culled by a worker is called
+     * on the render thread after the culling of the subtree completed.
+     * The scene graph must not be modified while it is being rendered.
+     * <p>
+     * The default is disabled.
+     * 
+     * @param parallelCulling True to enable parallel culling.
+     */
+    public void setParallelCulling(boolean parallelCulling) {
+        if (parallelCulling && parallelCuller == null) {
+            parallelCuller = new ParallelSceneCuller(Runtime.getRuntime().availableProcessors());
+        } else if (!parallelCulling && parallelCuller != null) {
+            parallelCuller.cleanup();
+            parallelCuller = null;
+        }
+    }
+
+    /**
+     * Returns true if parallel culling is enabled.
+     * 
+     * @return true if parallel culling is enabled.
+     * 
+     * @see #setParallelCulling(boolean) 
+     */
+    public boolean isParallelCulling() {
+        return parallelCuller != null;
+    }
+
+    /**
+     * Sets the software occlusion culler used when flattening scenes.
+     * <p>
+     * When set, {@link #renderScene(com.jme3.scene.Spatial, com.jme3.renderer.ViewPort) }
+     * first rasterizes the occluders of the scene on the CPU, then 
+     * the spatials hidden behind them are culled during the traversal,
+     * as if they were outside of the camera frustum. They are still 
+     * added to the shadow cast queue if needed.
+     * <p>
+     * The default is null, no occlusion culling. The worker threads of a
+     * previous culler are stopped when it is replaced.
+     * 
+     * @param occlusionCuller The occlusion culler, or null to disable 
+     * occlusion culling.
+     */
+    public void setOcclusionCuller(SoftwareOcclusionCuller occlusionCuller) {
+        if (this.occlusionCuller != null && this.occlusionCuller != occlusionCuller) {
+            this.occlusionCuller.cleanup();
+        }
+        this.occlusionCuller = occlusionCuller;
+    }
+
+    /**
+     * Returns the software occlusion culler.
+     * 
+     * @return the software occlusion culler, or null.
+     * 
+     * @see #setOcclusionCuller(com.jme3.renderer.SoftwareOcclusionCuller) 
+     */
+    public SoftwareOcclusionCuller getOcclusionCuller() {
+        return occlusionCuller;
+    }
+
+    /**
+     * Sets the light mode of the default techniques selected by the materials.
+     * <p>
+     * When a material definition has several default techniques, the
+     * first one using this light mode and supported by the renderer is 
+     * selected, otherwise the first supported one. 
+     * Techniques using the {@link LightMode#Clustered clustered} light mode 
+     * are only selected when it is the preferred mode, the lights of each
+     * viewport are then binned by {@link LightClusters} before its queue
+     * is rendered.
+     * <p>
+     * The default is {@link LightMode#MultiPass}.
+     * 
+     * @param preferredLightMode The preferred light mode
+     */
+    public void setPreferredLightMode(LightMode preferredLightMode) {
+        this.preferredLightMode = preferredLightMode;
+        if (preferredLightMode == LightMode.Clustered) {
+            if (lightClusters == null) {
+                lightClusters = new LightClusters();
+            }
+        } else {
+            lightClusters = null;
+        }
+    }
+
+    /**
+     * Returns the preferred light mode.
+     * 
+     * @return the preferred light mode.
+     * 
+     * @see #setPreferredLightMode(com.jme3.material.TechniqueDef.LightMode) 
+     */
+    public LightMode getPreferredLightMode() {
+        return preferredLightMode;
+    }
+
+    /**
+     * Returns the light clusters of the viewport being rendered, 
+     * null unless the preferred light mode is {@link LightMode#Clustered}.
+     * 
+     * @return the light clusters
+     */
+    public LightClusters getLightClusters() {
+        return lightClusters;
+    }
+
     /**
      * Internal use only. Sets the world matrix to use for future
      * rendering. This has no effect unless objects are rendered manually
@@ -502,6 +630,20 @@ public class RenderManager {
      * @see Material#render(com.jme3.scene.Geometry, com.jme3.renderer.RenderManager) 
      */
     public void renderGeometry(Geometry g) {
+        if (g instanceof InstancedGeometry) {
+            InstancedGeometry instancedGeom = (InstancedGeometry) g;
+            instancedGeom.updateInstances(prevCam);
+            if (forcedMaterial != null || forcedTechnique != null
+                    || !instancedGeom.isInstancingEnabled(renderer.getCaps())) {
+                // the material may not read the instance data,
+                // render the visible instances one by one
+                for (int i = 0; i < instancedGeom.getVisibleInstanceCount(); i++) {
+                    renderGeometry(instancedGeom.getVisibleInstance(i));
+                }
+                return;
+            }
+        }
+
         if (g.isIgnoreTransform()) {
             setWorldMatrix(Matrix4f.IDENTITY);
         } else {
@@ -567,6 +709,11 @@ public class RenderManager {
     private void renderShadow(Spatial s, RenderQueue rq) {
         if (s instanceof Node) {
             Node n = (Node) s;
+            StaticDrawList drawList = n.getStaticDrawList();
+            if (drawList != null) {
+                drawList.addShadowCasters(rq);
+                return;
+            }
             List<Spatial> children = n.getChildren();
             for (int i = 0; i < children.size(); i++) {
                 renderShadow(children.get(i), rq);
@@ -582,6 +729,71 @@ public class RenderManager {
         }
     }
 
+    /**
+     * Compiles the shader variants needed to render the materials of a scene
+     * with the given techniques.
+     * <p>
+     * Each material of the scene is processed once, and each shader variant
+     * (a shader with a given set of defines) is only compiled once even
+     * if it is used by several materials. Calling this at startup or behind
+     * a loading screen avoids the pauses caused by the compilation of a
+     * shader the first time a material or a technique is rendered.
+     * 
+     * @param scene The scene to preload
+     * @param techniqueNames The techniques to preload, e.g. "Default" or
+     * "PreShadow". If none are given, the default technique and all the
+     * techniques of the material definitions used by the scene are preloaded.
+     * @return The number of distinct shader variants that were preloaded
+     * 
+     * @see Material#preloadTechnique(java.lang.String, com.jme3.renderer.RenderManager) 
+     */
+    public int preloadShaderVariants(Spatial scene, String... techniqueNames) {
+        Map<Material, Material> materials = new IdentityHashMap<Material, Material>();
+        Map<Shader, Shader> shaders = new IdentityHashMap<Shader, Shader>();
+        preloadShaderVariants(scene, techniqueNames, materials, shaders);
+        return shaders.size();
+    }
+
+    private void preloadShaderVariants(Spatial scene, String[] techniqueNames,
+            Map<Material, Material> materials, Map<Shader, Shader> shaders) {
+        if (scene instanceof Node) {
+            List<Spatial> children = ((Node) scene).getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                preloadShaderVariants(children.get(i), techniqueNames, materials, shaders);
+            }
+        } else if (scene instanceof Geometry) {
+            Material mat = ((Geometry) scene).getMaterial();
+            if (mat == null || materials.put(mat, mat) != null) {
+                return;
+            }
+
+            if (techniqueNames.length > 0) {
+                for (String name : techniqueNames) {
+                    preloadTechnique(mat, name, shaders);
+                }
+            } else {
+                preloadTechnique(mat, "Default", shaders);
+                for (String name : mat.getMaterialDef().getTechniqueDefNames()) {
+                    preloadTechnique(mat, name, shaders);
+                }
+            }
+        }
+    }
+
+    private void preloadTechnique(Material mat, String name, Map<Shader, Shader> shaders) {
+        try {
+            Shader shader = mat.preloadTechnique(name, this);
+            if (shader != null) {
+                shaders.put(shader, shader);
+            }
+        } catch (AssetNotFoundException ex) {
+            // a technique can reference shaders that are not deployed
+            // with the application, it will fail when it is used
+            logger.log(Level.WARNING, "Cannot preload technique {0} of material {1}: {2}",
+                    new Object[]{name, mat.getMaterialDef().getName(), ex.getMessage()});
+        }
+    }
+
     /**
      * Preloads a scene for rendering.
      * <p>
@@ -652,10 +864,17 @@ public class RenderManager {
      * contain the flattened scene graph.
      */
     public void renderScene(Spatial scene, ViewPort vp) {
+        if (occlusionCuller != null) {
+            occlusionCuller.rasterize(scene, vp.getCamera());
+        }
         //reset of the camera plane state for proper culling (must be 0 for the first note of the scene to be rendered)
         vp.getCamera().setPlaneState(0);
         //rendering the scene
-        renderSubScene(scene, vp);
+        if (parallelCuller != null && scene instanceof Node) {
+            parallelCuller.renderScene(scene, vp, this);
+        } else {
+            renderSubScene(scene, vp);
+        }
     }
     
     // recursively renders the scene
@@ -670,10 +889,32 @@ public class RenderManager {
             return;
         }
 
+        // then check if it is hidden behind the occluders
+        if (occlusionCuller != null && occlusionCuller.isOccluded(scene)) {
+            renderer.getStatistics().onObjectsOccluded(1);
+            if (scene.getShadowMode() != RenderQueue.ShadowMode.Off || scene instanceof Node) {
+                renderShadow(scene, vp.getQueue());
+            }
+            return;
+        }
+
         scene.runControlRender(this, vp);
         if (scene instanceof Node) {
             // Recurse for all children
             Node n = (Node) scene;
+            StaticDrawList drawList = n.getStaticDrawList();
+            if (drawList != null) {
+                // recorded subtree, no need to walk it
+                int numOccluded = drawList.cull(vp.getCamera(), vp.getQueue(), staticControlRenders, occlusionCuller);
+                if (numOccluded > 0) {
+                    renderer.getStatistics().onObjectsOccluded(numOccluded);
+                }
+                for (int i = 0; i < staticControlRenders.size(); i++) {
+                    staticControlRenders.get(i).runControlRender(this, vp);
+                }
+                staticControlRenders.clear();
+                return;
+            }
             List<Spatial> children = n.getChildren();
             // Saving cam state for culling
             int camState = vp.getCamera().getPlaneState();
@@ -914,6 +1155,9 @@ public class RenderManager {
         for (int i = scenes.size() - 1; i >= 0; i--) {           
             renderScene(scenes.get(i), vp);
         }
+        if (lightClusters != null) {
+            lightClusters.update(vp);
+        }
         flushQueue(vp);
     }
 
@@ -992,6 +1236,10 @@ public class RenderManager {
             renderScene(scenes.get(i), vp);
         }
 
+        if (lightClusters != null) {
+            lightClusters.update(vp);
+        }
+
         if (processors != null) {
             for (SceneProcessor proc : processors) {
                 proc.postQueue(vp.getQueue());
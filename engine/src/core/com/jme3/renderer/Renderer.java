@@ -280,6 +280,64 @@ public interface Renderer {
      */
     public void renderMesh(Mesh mesh, int lod, int count);
 
+    /**
+     * Renders <code>count</code> instances of the mesh, with per-instance
+     * attributes supplied by <code>instanceData</code>. Each buffer must be
+     * {@link VertexBuffer#setInstanced(boolean) instanced}, it advances once
+     * per instance rather than once per vertex.
+     * Requires {@link Caps#MeshInstancing}.
+     *
+     * @param mesh The mesh to render
+     * @param lod The LOD level to use, see {@link Mesh#setLodLevels(com.jme3.scene.VertexBuffer[]) }.
+     * @param count Number of mesh instances to render
+     * @param instanceData Per-instance vertex buffers, or null
+     */
+    public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData);
+
+    /**
+     * Starts counting the samples that pass the depth test into the
+     * given query. The native query object is created if needed.
+     * Only one occlusion query can be active at a time.
+     * Requires {@link Caps#OcclusionQuery}.
+     *
+     * @param query The query to start
+     */
+    public void startOcclusionQuery(OcclusionQuery query);
+
+    /**
+     * Stops the given query, which must be the currently active one.
+     *
+     * @param query The query to stop
+     */
+    public void stopOcclusionQuery(OcclusionQuery query);
+
+    /**
+     * Checks if the result of the given query can be read without stalling.
+     *
+     * @param query The query to check, it must have been stopped
+     * @return True if {@link #getOcclusionQueryResult(com.jme3.renderer.OcclusionQuery) }
+     * returns immediately.
+     */
+    public boolean isOcclusionQueryResultAvailable(OcclusionQuery query);
+
+    /**
+     * Returns the number of samples that passed the depth test while
+     * the given query was active. Blocks until the GPU has computed the
+     * result, unless {@link #isOcclusionQueryResultAvailable(com.jme3.renderer.OcclusionQuery) }
+     * returned true.
+     *
+     * @param query The query to read, it must have been stopped
+     * @return The number of samples that passed
+     */
+    public int getOcclusionQueryResult(OcclusionQuery query);
+
+    /**
+     * Deletes an occlusion query from the GPU.
+     *
+     * @param query The query to delete
+     */
+    public void deleteOcclusionQuery(OcclusionQuery query);
+
     /**
      * Resets all previously used {@link NativeObject Native Objects} on this Renderer.
      * The state of the native objects is reset in such way, that using
@@ -0,0 +1,619 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera.FrustumIntersect;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Mesh.Mode;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.mesh.IndexBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <code>SoftwareOcclusionCuller</code> culls the spatials hidden behind
+ * designated occluders, using a depth buffer rasterized on the CPU.
+ * <p>
+ * Before a scene is flattened into the render queue, the occluders that
+ * are part of it and inside the camera frustum are rasterized into a low 
+ * resolution depth buffer. The buffer is divided into tiles, which are
+ * rasterized concurrently by worker threads. While the scene is traversed, 
+ * the world bound of each spatial that passed frustum culling is projected
+ * onto the buffer, and the spatial is culled if every pixel it covers holds 
+ * an occluder nearer than the nearest point of the bound.
+ * <p>
+ * Good occluders are large and simple, like walls, floors or terrain. 
+ * A simplified mesh can be given for rasterization with 
+ * {@link #addOccluder(com.jme3.scene.Geometry, com.jme3.scene.Mesh) }.
+ * Occluders and the nodes containing them are never culled, 
+ * neither are spatials whose cull hint is {@link Spatial.CullHint#Never}.
+ * <p>
+ * No GPU is involved, the result can be inspected with 
+ * {@link #getDepth(int, int) } and {@link #isOccluded(com.jme3.bounding.BoundingVolume) }.
+ * 
+ * @see RenderManager#setOcclusionCuller(com.jme3.renderer.SoftwareOcclusionCuller) 
+ */
+public class SoftwareOcclusionCuller {
+
+    /**
+     * Size in pixels of the square tiles rasterized by each task.
+     */
+    private static final int TILE_SIZE = 32;
+
+    /**
+     * Depth of the pixels not covered by any occluder.
+     */
+    private static final float FAR_DEPTH = Float.POSITIVE_INFINITY;
+
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tilesY;
+    private final int numThreads;
+    private final float[] depth;
+    private final float[] tileMaxDepth;
+
+    private final ArrayList<Geometry> occluders = new ArrayList<Geometry>();
+    private final ArrayList<Mesh> occluderMeshes = new ArrayList<Mesh>();
+    private final HashSet<Spatial> occluderSpatials = new HashSet<Spatial>();
+    private final Matrix4f viewProjection = new Matrix4f();
+    private final Matrix4f worldViewProjection = new Matrix4f();
+    private boolean empty = true;
+
+    // screen space triangles, x, y and depth of each vertex
+    private float[] triangles = new float[9 * 256];
+    private int numTriangles;
+    // clip space vertices of the occluder mesh being set up
+    private float[] clipVertices = new float[4 * 256];
+    // a triangle clipped by the near plane has up to 4 vertices
+    private final float[] clipped = new float[4 * 4];
+    private final int[] triangleIndices = new int[3];
+
+    private ExecutorService executor;
+    private int nextThreadId = 0;
+    private final ArrayList<RasterTask> tasks = new ArrayList<RasterTask>();
+
+    /**
+     * Creates an occlusion culler with a 256x128 depth buffer, 
+     * using all the available processors.
+     */
+    public SoftwareOcclusionCuller() {
+        this(256, 128, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an occlusion culler.
+     * 
+     * @param width Width of the depth buffer in pixels
+     * @param height Height of the depth buffer in pixels
+     * @param numThreads Number of threads rasterizing the tiles, 1 
+     * rasterizes on the calling thread
+     */
+    public SoftwareOcclusionCuller(int width, int height, int numThreads) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Depth buffer size must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.numThreads = Math.max(1, numThreads);
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        depth = new float[width * height];
+        tileMaxDepth = new float[tilesX * tilesY];
+        Arrays.fill(depth, FAR_DEPTH);
+        Arrays.fill(tileMaxDepth, FAR_DEPTH);
+    }
+
+    private class RasterThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "jME3-occlusion-" + (nextThreadId++));
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * Rasterizes every n-th tile, so that the cost of large 
+     * occluders is spread among the tasks.
+     */
+    private class RasterTask implements Callable<RasterTask> {
+
+        private final int first;
+        private final int stride;
+
+        RasterTask(int first, int stride) {
+            this.first = first;
+            this.stride = stride;
+        }
+
+        public RasterTask call() {
+            int numTiles = tilesX * tilesY;
+            for (int tile = first; tile < numTiles; tile += stride) {
+                rasterizeTile(tile);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * @return The width of the depth buffer in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the depth buffer in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Adds an occluder, its own mesh is rasterized.
+     * 
+     * @param geom The occluder
+     */
+    public void addOccluder(Geometry geom) {
+        addOccluder(geom, geom.getMesh());
+    }
+
+    /**
+     * Adds an occluder, rasterized using the given mesh. The mesh 
+     * is transformed by the world transform of the geometry, it should
+     * lie inside the visible mesh of the geometry, otherwise spatials
+     * that are visible may be culled.
+     * 
+     * @param geom The occluder
+     * @param occluderMesh The mesh to rasterize, in the geometry's 
+     * local space.
+     */
+    public void addOccluder(Geometry geom, Mesh occluderMesh) {
+        removeOccluder(geom);
+        occluders.add(geom);
+        occluderMeshes.add(occluderMesh);
+    }
+
+    /**
+     * Removes an occluder.
+     * 
+     * @param geom The occluder to remove
+     */
+    public void removeOccluder(Geometry geom) {
+        int index = occluders.indexOf(geom);
+        if (index >= 0) {
+            occluders.remove(index);
+            occluderMeshes.remove(index);
+        }
+    }
+
+    /**
+     * @return The occluders of this culler.
+     */
+    public List<Geometry> getOccluders() {
+        return occluders;
+    }
+
+    /**
+     * Rasterizes the occluders that are part of the given scene into
+     * the depth buffer, as seen by the given camera.
+     * Called by the {@link RenderManager} before the scene is culled.
+     * 
+     * @param scene The scene about to be culled
+     * @param cam The camera used for culling
+     */
+    public void rasterize(Spatial scene, Camera cam) {
+        numTriangles = 0;
+        occluderSpatials.clear();
+        viewProjection.set(cam.getViewProjectionMatrix());
+
+        int planeState = cam.getPlaneState();
+        for (int i = 0; i < occluders.size(); i++) {
+            Geometry geom = occluders.get(i);
+            if (!isPartOf(geom, scene)) {
+                continue;
+            }
+
+            // occluders and their parents must never be culled
+            for (Spatial s = geom; s != scene; s = s.getParent()) {
+                occluderSpatials.add(s);
+            }
+            occluderSpatials.add(scene);
+
+            cam.setPlaneState(0);
+            if (cam.contains(geom.getWorldBound()) == FrustumIntersect.Outside) {
+                continue;
+            }
+            setupMesh(geom, occluderMeshes.get(i), cam);
+        }
+        cam.setPlaneState(planeState);
+
+        empty = numTriangles == 0;
+        if (empty) {
+            Arrays.fill(depth, FAR_DEPTH);
+            Arrays.fill(tileMaxDepth, FAR_DEPTH);
+        } else {
+            rasterizeTiles();
+        }
+    }
+
+    private boolean isPartOf(Spatial s, Spatial scene) {
+        for (; s != null; s = s.getParent()) {
+            if (s.getCullHint() == Spatial.CullHint.Always) {
+                return false;
+            }
+            if (s == scene) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Transforms the triangles of a mesh to screen space, clipping 
+     * them against the near plane.
+     */
+    private void setupMesh(Geometry geom, Mesh mesh, Camera cam) {
+        if (mesh == null
+                || (mesh.getMode() != Mode.Triangles
+                && mesh.getMode() != Mode.TriangleStrip
+                && mesh.getMode() != Mode.TriangleFan)) {
+            return;
+        }
+        FloatBuffer positions = mesh.getFloatBuffer(Type.Position);
+        if (positions == null) {
+            return;
+        }
+
+        viewProjection.mult(geom.getWorldMatrix(), worldViewProjection);
+        Matrix4f m = worldViewProjection;
+        int vertexCount = mesh.getVertexCount();
+        if (clipVertices.length < vertexCount * 4) {
+            clipVertices = new float[vertexCount * 4];
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            float x = positions.get(i * 3);
+            float y = positions.get(i * 3 + 1);
+            float z = positions.get(i * 3 + 2);
+            clipVertices[i * 4] = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+            clipVertices[i * 4 + 1] = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+            clipVertices[i * 4 + 2] = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+            clipVertices[i * 4 + 3] = m.m30 * x + m.m31 * y + m.m32 * z + m.m33;
+        }
+
+        IndexBuffer ib = mesh.getIndicesAsList();
+        int numIndices = mesh.getTriangleCount() * 3;
+        for (int i = 0; i < numIndices; i += 3) {
+            clipTriangle(ib.get(i), ib.get(i + 1), ib.get(i + 2));
+        }
+    }
+
+    /**
+     * Clips a triangle against the near plane (z &gt;= -w) and
+     * emits the remaining polygon as screen space triangles.
+     */
+    private void clipTriangle(int i0, int i1, int i2) {
+        int count = 0;
+        triangleIndices[0] = i0;
+        triangleIndices[1] = i1;
+        triangleIndices[2] = i2;
+        for (int i = 0; i < 3; i++) {
+            int a = triangleIndices[i] * 4;
+            int b = triangleIndices[(i + 1) % 3] * 4;
+            float da = clipVertices[a + 2] + clipVertices[a + 3];
+            float db = clipVertices[b + 2] + clipVertices[b + 3];
+            if (da >= 0) {
+                System.arraycopy(clipVertices, a, clipped, count * 4, 4);
+                count++;
+            }
+            if ((da >= 0) != (db >= 0)) {
+                float t = da / (da - db);
+                for (int c = 0; c < 4; c++) {
+                    clipped[count * 4 + c] = clipVertices[a + c] + t * (clipVertices[b + c] - clipVertices[a + c]);
+                }
+                count++;
+            }
+        }
+
+        for (int i = 2; i < count; i++) {
+            emitTriangle(0, i - 1, i);
+        }
+    }
+
+    private void emitTriangle(int v0, int v1, int v2) {
+        if (triangles.length < (numTriangles + 1) * 9) {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+        }
+        int offset = numTriangles * 9;
+        emitVertex(v0, offset);
+        emitVertex(v1, offset + 3);
+        emitVertex(v2, offset + 6);
+        numTriangles++;
+    }
+
+    private void emitVertex(int vertex, int offset) {
+        int v = vertex * 4;
+        float w = clipped[v + 3];
+        triangles[offset] = (clipped[v] / w * 0.5f + 0.5f) * width;
+        triangles[offset + 1] = (clipped[v + 1] / w * 0.5f + 0.5f) * height;
+        triangles[offset + 2] = clipped[v + 2] / w;
+    }
+
+    private void rasterizeTiles() {
+        if (tasks.isEmpty()) {
+            int numTasks = Math.min(numThreads, tilesX * tilesY);
+            for (int i = 0; i < numTasks; i++) {
+                tasks.add(new RasterTask(i, numTasks));
+            }
+        }
+
+        if (tasks.size() == 1) {
+            tasks.get(0).call();
+            return;
+        }
+
+        try {
+            List<Future<RasterTask>> results = getExecutor().invokeAll(tasks);
+            for (Future<RasterTask> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void rasterizeTile(int tile) {
+        int tileX0 = (tile % tilesX) * TILE_SIZE;
+        int tileY0 = (tile / tilesX) * TILE_SIZE;
+        int tileX1 = Math.min(tileX0 + TILE_SIZE, width);
+        int tileY1 = Math.min(tileY0 + TILE_SIZE, height);
+
+        for (int y = tileY0; y < tileY1; y++) {
+            Arrays.fill(depth, y * width + tileX0, y * width + tileX1, FAR_DEPTH);
+        }
+
+        for (int t = 0; t < numTriangles; t++) {
+            int offset = t * 9;
+            float x0 = triangles[offset], y0 = triangles[offset + 1], z0 = triangles[offset + 2];
+            float x1 = triangles[offset + 3], y1 = triangles[offset + 4], z1 = triangles[offset + 5];
+            float x2 = triangles[offset + 6], y2 = triangles[offset + 7], z2 = triangles[offset + 8];
+
+            // pixel centers covered by the triangle bounds
+            int minX = Math.max(tileX0, (int) Math.ceil(Math.min(x0, Math.min(x1, x2)) - 0.5f));
+            int maxX = Math.min(tileX1 - 1, (int) Math.floor(Math.max(x0, Math.max(x1, x2)) - 0.5f));
+            int minY = Math.max(tileY0, (int) Math.ceil(Math.min(y0, Math.min(y1, y2)) - 0.5f));
+            int maxY = Math.min(tileY1 - 1, (int) Math.floor(Math.max(y0, Math.max(y1, y2)) - 0.5f));
+            if (minX > maxX || minY > maxY) {
+                continue;
+            }
+
+            float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+            if (area == 0) {
+                continue;
+            }
+            if (area < 0) {
+                // occluders are two sided, make the winding counter clockwise
+                float tx = x1, ty = y1, tz = z1;
+                x1 = x2; y1 = y2; z1 = z2;
+                x2 = tx; y2 = ty; z2 = tz;
+                area = -area;
+            }
+
+            // depth is linear in screen space
+            float dzdx = ((z1 - z0) * (y2 - y0) - (z2 - z0) * (y1 - y0)) / area;
+            float dzdy = ((z2 - z0) * (x1 - x0) - (z1 - z0) * (x2 - x0)) / area;
+
+            for (int y = minY; y <= maxY; y++) {
+                float py = y + 0.5f;
+                int row = y * width;
+                for (int x = minX; x <= maxX; x++) {
+                    float px = x + 0.5f;
+                    if ((x1 - x0) * (py - y0) - (y1 - y0) * (px - x0) < 0
+                            || (x2 - x1) * (py - y1) - (y2 - y1) * (px - x1) < 0
+                            || (x0 - x2) * (py - y2) - (y0 - y2) * (px - x2) < 0) {
+                        continue;
+                    }
+                    float z = z0 + dzdx * (px - x0) + dzdy * (py - y0);
+                    if (z < depth[row + x]) {
+                        depth[row + x] = z;
+                    }
+                }
+            }
+        }
+
+        float max = -FAR_DEPTH;
+        for (int y = tileY0; y < tileY1; y++) {
+            for (int x = tileX0; x < tileX1; x++) {
+                max = Math.max(max, depth[y * width + x]);
+            }
+        }
+        tileMaxDepth[tile] = max;
+    }
+
+    /**
+     * Returns the depth of the nearest occluder rasterized at the given 
+     * pixel, in normalized device coordinates (-1 at the near plane, 
+     * 1 at the far plane), or positive infinity if no occluder covers it.
+     * Pixel (0, 0) is the bottom left corner of the screen.
+     * 
+     * @param x The pixel column
+     * @param y The pixel row
+     * @return The depth of the pixel
+     */
+    public float getDepth(int x, int y) {
+        return depth[y * width + x];
+    }
+
+    /**
+     * Returns true if the given spatial is hidden by the occluders
+     * rasterized by the last call to {@link #rasterize(com.jme3.scene.Spatial, com.jme3.renderer.Camera) }.
+     * May be called concurrently from several threads.
+     * 
+     * @param spatial The spatial to test
+     * @return True if the spatial can be culled
+     */
+    public boolean isOccluded(Spatial spatial) {
+        if (empty 
+                || spatial.getCullHint() == Spatial.CullHint.Never
+                || occluderSpatials.contains(spatial)) {
+            return false;
+        }
+        BoundingVolume bound = spatial.getWorldBound();
+        return bound != null && isOccluded(bound);
+    }
+
+    /**
+     * Returns true if the given world bound is hidden by the occluders
+     * rasterized by the last call to {@link #rasterize(com.jme3.scene.Spatial, com.jme3.renderer.Camera) }.
+     * May be called concurrently from several threads.
+     * 
+     * @param bound The world bound to test
+     * @return True if every pixel covered by the bound holds an occluder
+     * nearer than the nearest point of the bound.
+     */
+    public boolean isOccluded(BoundingVolume bound) {
+        if (empty) {
+            return false;
+        }
+
+        Vector3f center = bound.getCenter();
+        float ex, ey, ez;
+        if (bound instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) bound;
+            ex = box.getXExtent();
+            ey = box.getYExtent();
+            ez = box.getZExtent();
+        } else if (bound instanceof BoundingSphere) {
+            ex = ey = ez = ((BoundingSphere) bound).getRadius();
+        } else {
+            return false;
+        }
+
+        // project the corners of the box
+        Matrix4f m = viewProjection;
+        float minX = Float.POSITIVE_INFINITY, maxX = Float.NEGATIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < 8; i++) {
+            float x = center.x + ((i & 1) == 0 ? -ex : ex);
+            float y = center.y + ((i & 2) == 0 ? -ey : ey);
+            float z = center.z + ((i & 4) == 0 ? -ez : ez);
+            float cx = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+            float cy = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+            float cz = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+            float cw = m.m30 * x + m.m31 * y + m.m32 * z + m.m33;
+            if (cz < -cw) {
+                // crosses the near plane
+                return false;
+            }
+            float sx = (cx / cw * 0.5f + 0.5f) * width;
+            float sy = (cy / cw * 0.5f + 0.5f) * height;
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+            minZ = Math.min(minZ, cz / cw);
+        }
+
+        // one more pixel on each side, rasterization only samples pixel centers
+        int x0 = Math.max(0, (int) Math.floor(minX) - 1);
+        int x1 = Math.min(width - 1, (int) Math.floor(maxX) + 1);
+        int y0 = Math.max(0, (int) Math.floor(minY) - 1);
+        int y1 = Math.min(height - 1, (int) Math.floor(maxY) + 1);
+        if (x0 > x1 || y0 > y1) {
+            return false;
+        }
+
+        for (int ty = y0 / TILE_SIZE; ty <= y1 / TILE_SIZE; ty++) {
+            for (int tx = x0 / TILE_SIZE; tx <= x1 / TILE_SIZE; tx++) {
+                if (tileMaxDepth[ty * tilesX + tx] < minZ) {
+                    // the whole tile is nearer
+                    continue;
+                }
+                int px0 = Math.max(x0, tx * TILE_SIZE);
+                int px1 = Math.min(x1, tx * TILE_SIZE + TILE_SIZE - 1);
+                int py0 = Math.max(y0, ty * TILE_SIZE);
+                int py1 = Math.min(y1, ty * TILE_SIZE + TILE_SIZE - 1);
+                for (int y = py0; y <= py1; y++) {
+                    int row = y * width;
+                    for (int x = px0; x <= px1; x++) {
+                        if (depth[row + x] >= minZ) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(numThreads, new RasterThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
@@ -31,6 +31,7 @@
  */
 package com.jme3.renderer;
 
+import com.jme3.material.RenderState;
 import com.jme3.scene.Mesh;
 import com.jme3.shader.Shader;
 import com.jme3.texture.FrameBuffer;
@@ -55,6 +56,13 @@ public class Statistics {
     protected int numTextureBinds;
     protected int numFboSwitches;
     protected int numUniformsSet;
+    protected int numBufferUploads;
+    protected int numBytesUploaded;
+    protected int numRenderStateSwitches;
+    protected int numOcclusionQueries;
+    protected int numOccludedObjects;
+    protected int numFilterPassesMerged;
+    protected long numFilterBytesSaved;
 
     protected int memoryShaders;
     protected int memoryFrameBuffers;
@@ -63,6 +71,7 @@ public class Statistics {
     protected HashSet<Integer> shadersUsed = new HashSet<Integer>();
     protected HashSet<Integer> texturesUsed = new HashSet<Integer>();
     protected HashSet<Integer> fbosUsed = new HashSet<Integer>();
+    protected HashSet<Integer> renderStatesUsed = new HashSet<Integer>();
 
     /**
      * Returns a list of labels corresponding to each statistic.
@@ -88,7 +97,19 @@ public class Statistics {
 
                              "FrameBuffers (S)",
                              "FrameBuffers (F)",
-                             "FrameBuffers (M)" };
+                             "FrameBuffers (M)",
+
+                             "Buffer Uploads",
+                             "Uploaded Bytes",
+
+                             "RenderStates (S)",
+                             "RenderStates (F)",
+
+                             "Occlusion Queries",
+                             "Occluded Objects",
+
+                             "Filter Passes Merged",
+                             "Filter Memory Saved (KB)" };
 
     }
 
@@ -116,6 +137,18 @@ public class Statistics {
         data[10] = numFboSwitches;
         data[11] = fbosUsed.size();
         data[12] = memoryFrameBuffers;
+
+        data[13] = numBufferUploads;
+        data[14] = numBytesUploaded;
+
+        data[15] = numRenderStateSwitches;
+        data[16] = renderStatesUsed.size();
+
+        data[17] = numOcclusionQueries;
+        data[18] = numOccludedObjects;
+
+        data[19] = numFilterPassesMerged;
+        data[20] = (int) (numFilterBytesSaved / 1024);
     }
 
     /**
@@ -199,6 +232,80 @@ public class Statistics {
             numFboSwitches ++;
     }
     
+    /**
+     * Called by the Renderer when vertex buffer data has been sent to the GPU.
+     * 
+     * @param bytes The number of bytes uploaded
+     */
+    public void onBufferUpload(int bytes){
+        if( !enabled )
+            return;
+        numBufferUploads ++;
+        numBytesUploaded += bytes;
+    }
+
+    /**
+     * Called by the Renderer when a render state is applied.
+     *
+     * @param state The render state
+     * @param wasSwitched If true, the state differed from the last one applied
+     * and the renderer had to compare and change GL state.
+     */
+    public void onRenderStateUse(RenderState state, boolean wasSwitched){
+        if( !enabled )
+            return;
+
+        renderStatesUsed.add(state.getStateId());
+
+        if (wasSwitched)
+            numRenderStateSwitches ++;
+    }
+
+    /**
+     * Called by the Renderer when an occlusion query has been started.
+     */
+    public void onOcclusionQuery(){
+        if( !enabled )
+            return;
+        numOcclusionQueries ++;
+    }
+
+    /**
+     * Called when spatials were culled or removed from the render queue
+     * because an occlusion test found them hidden.
+     *
+     * @param count The number of occluded spatials
+     */
+    public void onObjectsOccluded(int count){
+        if( !enabled )
+            return;
+        numOccludedObjects += count;
+    }
+
+    /**
+     * Called by the FilterPostProcessor when several filters were rendered
+     * in a single full screen pass.
+     *
+     * @param count The number of full screen passes that were saved
+     */
+    public void onFilterPassesMerged(int count){
+        if( !enabled )
+            return;
+        numFilterPassesMerged += count;
+    }
+
+    /**
+     * Called by the FilterPostProcessor when filters share their
+     * render targets.
+     *
+     * @param bytes The amount of render target memory saved, in bytes
+     */
+    public void onFilterMemorySaved(long bytes){
+        if( !enabled )
+            return;
+        numFilterBytesSaved += bytes;
+    }
+
     /**
      * Clears all frame-specific statistics such as objects used per frame.
      */
@@ -206,6 +313,7 @@ public class Statistics {
         shadersUsed.clear();
         texturesUsed.clear();
         fbosUsed.clear();
+        renderStatesUsed.clear();
 
         numObjects = 0;
         numTriangles = 0;
@@ -214,6 +322,13 @@ public class Statistics {
         numTextureBinds = 0;
         numFboSwitches = 0;
         numUniformsSet = 0;
+        numBufferUploads = 0;
+        numBytesUploaded = 0;
+        numRenderStateSwitches = 0;
+        numOcclusionQueries = 0;
+        numOccludedObjects = 0;
+        numFilterPassesMerged = 0;
+        numFilterBytesSaved = 0;
     }
 
     /**
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import java.util.ArrayDeque;
+
+/**
+ * <code>StreamBufferAllocator</code> sub-allocates frequently updated
+ * vertex data from a single large ring buffer, so that the driver does not
+ * have to reallocate a buffer object every time the data changes.
+ * <p>
+ * The allocator only does the bookkeeping, the renderer owns the buffer 
+ * object and writes the data at {@link #getOffset(long) } of each 
+ * allocation. Allocations are identified by an absolute position which 
+ * grows forever, the data at a position stays valid until the ring wraps 
+ * around and overwrites it, see {@link #isValid(long) }. In fenced mode, 
+ * data allocated in an earlier frame must be {@link #markUsed(long) marked}
+ * when it is drawn again, so the fence of the current frame protects it.
+ * <p>
+ * Two synchronization modes are supported:
+ * <ul>
+ * <li>Fenced: the renderer ends each frame with a fence, before reusing
+ * the memory written during that frame the allocator waits on its fence 
+ * with {@link #waitFence(java.lang.Object) }. Data written or used in the 
+ * current frame is never overwritten, allocations fail instead.</li>
+ * <li>Orphaning: when the ring wraps around, {@link #orphan() } is called 
+ * so the renderer can give the buffer storage back to the driver and get 
+ * a fresh one, all previous allocations become invalid.</li>
+ * </ul>
+ * 
+ * @see com.jme3.scene.VertexBuffer.Usage#Stream
+ */
+public abstract class StreamBufferAllocator {
+
+    private static class Fence {
+
+        final long start;
+        final Object fence;
+
+        Fence(long start, Object fence) {
+            this.start = start;
+            this.fence = fence;
+        }
+    }
+
+    private final int capacity;
+    private final int alignment;
+    private final boolean fenced;
+    private final ArrayDeque<Fence> fences = new ArrayDeque<Fence>();
+    private long head = 0;
+    private long frameStart = 0;
+    /**
+     * Lowest position used by the current frame, below frameStart when
+     * data of an earlier frame is drawn again.
+     */
+    private long frameUseStart = 0;
+    private long validStart = 0;
+
+    /**
+     * Creates a streaming buffer allocator.
+     * 
+     * @param capacity The size of the ring buffer in bytes
+     * @param alignment The alignment in bytes of the allocations, a power of two
+     * @param fenced True to synchronize with fences, false to orphan the
+     * buffer when it wraps around.
+     */
+    public StreamBufferAllocator(int capacity, int alignment, boolean fenced) {
+        if (capacity <= 0 || alignment <= 0 || (alignment & (alignment - 1)) != 0) {
+            throw new IllegalArgumentException("Invalid capacity or alignment");
+        }
+        this.capacity = capacity;
+        this.alignment = alignment;
+        this.fenced = fenced;
+    }
+
+    /**
+     * Waits until the GPU has executed the commands issued before 
+     * the given fence.
+     * 
+     * @param fence A fence given to {@link #endFrame(java.lang.Object) }
+     */
+    protected abstract void waitFence(Object fence);
+
+    /**
+     * Deletes a fence which is no longer needed.
+     * 
+     * @param fence A fence given to {@link #endFrame(java.lang.Object) }
+     */
+    protected abstract void deleteFence(Object fence);
+
+    /**
+     * Replaces the storage of the buffer, called when the ring wraps
+     * around in orphaning mode.
+     */
+    protected abstract void orphan();
+
+    /**
+     * @return The size of the ring buffer in bytes.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return True if the allocator synchronizes with fences, false if it
+     * orphans the buffer.
+     */
+    public boolean isFenced() {
+        return fenced;
+    }
+
+    /**
+     * Allocates the given number of bytes.
+     * 
+     * @param size The number of bytes
+     * @return The position of the allocation, or -1 if it does not fit
+     * in the ring buffer at this time.
+     */
+    public long allocate(int size) {
+        if (size > capacity) {
+            return -1;
+        }
+
+        long start = (head + alignment - 1) & ~(long) (alignment - 1);
+        if (start % capacity + size > capacity) {
+            // wrap around to the beginning of the ring
+            start = (start / capacity + 1) * capacity;
+        }
+        if (!fenced && start + size > validStart + capacity) {
+            // the storage is full, continue in a new one
+            orphan();
+            validStart = start;
+            frameStart = start;
+            frameUseStart = start;
+        }
+
+        if (fenced) {
+            // the bytes written one lap earlier must have been consumed
+            long reused = start + size - capacity;
+            if (frameUseStart < reused) {
+                // in use by the current frame
+                return -1;
+            }
+            // a later frame may protect older data than an earlier one, 
+            // wait up to the last fence protecting the reused bytes
+            Fence last = null;
+            for (Fence fence : fences) {
+                if (fence.start < reused) {
+                    last = fence;
+                }
+            }
+            while (last != null) {
+                Fence fence = fences.poll();
+                waitFence(fence.fence);
+                deleteFence(fence.fence);
+                if (fence == last) {
+                    last = null;
+                }
+            }
+        }
+
+        head = start + size;
+        return start;
+    }
+
+    /**
+     * Returns the offset in the ring buffer of the given allocation.
+     * 
+     * @param position The position of the allocation
+     * @return The offset in bytes
+     */
+    public int getOffset(long position) {
+        return (int) (position % capacity);
+    }
+
+    /**
+     * Returns true if the data of the given allocation has not 
+     * been overwritten by a later one.
+     * <p>
+     * In fenced mode, data of an earlier frame that is used again must
+     * be passed to {@link #markUsed(long) }.
+     * 
+     * @param position The position of the allocation, or -1
+     * @return True if the data at the position can still be used
+     */
+    public boolean isValid(long position) {
+        return position >= validStart && head <= position + capacity;
+    }
+
+    /**
+     * Marks valid data as used by the current frame. In fenced mode, 
+     * the data is then protected by the fence of the frame and is not
+     * overwritten by the allocations of the frame.
+     * 
+     * @param position The position of a {@link #isValid(long) valid} allocation
+     */
+    public void markUsed(long position) {
+        if (fenced && position < frameUseStart) {
+            frameUseStart = position;
+        }
+    }
+
+    /**
+     * @return True if data was allocated or used again since the last 
+     * call to {@link #endFrame(java.lang.Object) }.
+     */
+    public boolean hasFrameAllocations() {
+        return head > frameStart || frameUseStart < frameStart;
+    }
+
+    /**
+     * Ends the frame. In fenced mode, the given fence protects the data 
+     * allocated during the frame.
+     * 
+     * @param fence The fence issued after the commands using the data
+     * of the frame, or null if not fenced
+     */
+    public void endFrame(Object fence) {
+        if (fenced && fence != null) {
+            fences.add(new Fence(frameUseStart, fence));
+        }
+        frameStart = head;
+        frameUseStart = head;
+    }
+
+    /**
+     * Invalidates all the allocations and forgets the pending fences,
+     * without waiting or deleting them. Used when the graphics context 
+     * has been lost.
+     */
+    public void reset() {
+        head = (head / capacity + 1) * capacity;
+        frameStart = head;
+        frameUseStart = head;
+        validStart = head;
+        fences.clear();
+    }
+
+    /**
+     * Deletes the pending fences.
+     */
+    public void cleanup() {
+        while (!fences.isEmpty()) {
+            deleteFence(fences.poll().fence);
+        }
+    }
+}
@@ -47,10 +47,20 @@ public class GeometryList {
 
     private static final int DEFAULT_SIZE = 32;
 
+    /**
+     * The size at or below which keyed sorting uses insertion sort
+     * instead of radix sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
     private Geometry[] geometries;    
     private ListSort listSort;
     private int size;
     private GeometryComparator comparator;
+    private long[] sortKeys;
+    private long[] tmpKeys;
+    private Geometry[] tmpGeometries;
+    private final int[] radixCounts = new int[256];
 
     /**
      * Initializes the GeometryList to use the given {@link GeometryComparator}
@@ -122,6 +132,23 @@ public class GeometryList {
         geometries[size++] = g;
     }
 
+    /**
+     * Adds all the geometries of the given list at the end of this list,
+     * keeping their order.
+     *
+     * @param list The list to copy the geometries from.
+     */
+    public void addAll(GeometryList list) {
+        int newSize = size + list.size;
+        if (newSize > geometries.length) {
+            Geometry[] temp = new Geometry[Math.max(newSize, size * 2)];
+            System.arraycopy(geometries, 0, temp, 0, size);
+            geometries = temp;
+        }
+        System.arraycopy(list.geometries, 0, geometries, size, list.size);
+        size = newSize;
+    }
+
     /**
      * Resets list size to 0.
      */
@@ -135,9 +162,15 @@ public class GeometryList {
 
     /**
      * Sorts the elements in the list according to their Comparator.
+     * <p>
+     * If the comparator is a {@link KeyedGeometryComparator}, the sort
+     * key of each geometry is computed once and the keys are sorted instead
+     * of comparing the geometries pairwise.
      */
     public void sort() {
-        if (size > 1) {
+        if (size > 1 && comparator instanceof KeyedGeometryComparator) {
+            sortByKeys((KeyedGeometryComparator) comparator);
+        } else if (size > 1) {
             // sort the spatial list using the comparator
             if(listSort.getLength() != size){
                 listSort.allocateStack(size);
@@ -145,4 +178,96 @@ public class GeometryList {
             listSort.sort(geometries,comparator);
         }
     }
-}
\ No newline at end of file
+
+    private void sortByKeys(KeyedGeometryComparator keyedComparator) {
+        if (sortKeys == null || sortKeys.length < size) {
+            sortKeys = new long[geometries.length];
+            tmpKeys = new long[geometries.length];
+            tmpGeometries = new Geometry[geometries.length];
+        }
+        for (int i = 0; i < size; i++) {
+            sortKeys[i] = keyedComparator.getSortKey(geometries[i]);
+        }
+
+        if (size <= INSERTION_SORT_THRESHOLD) {
+            insertionSort();
+        } else {
+            radixSort();
+        }
+    }
+
+    private void insertionSort() {
+        for (int i = 1; i < size; i++) {
+            long key = sortKeys[i];
+            Geometry g = geometries[i];
+            int j = i - 1;
+            while (j >= 0 && sortKeys[j] > key) {
+                sortKeys[j + 1] = sortKeys[j];
+                geometries[j + 1] = geometries[j];
+                j--;
+            }
+            sortKeys[j + 1] = key;
+            geometries[j + 1] = g;
+        }
+    }
+
+    /**
+     * Stable least significant digit radix sort on the signed keys,
+     * 8 bits per pass. Passes where all keys share the same digit are
+     * skipped, which is the common case for the upper bits of the key.
+     */
+    private void radixSort() {
+        long[] srcKeys = sortKeys;
+        long[] dstKeys = tmpKeys;
+        Geometry[] srcGeoms = geometries;
+        Geometry[] dstGeoms = tmpGeometries;
+        int[] counts = radixCounts;
+
+        for (int shift = 0; shift < 64; shift += 8) {
+            for (int i = 0; i < 256; i++) {
+                counts[i] = 0;
+            }
+            for (int i = 0; i < size; i++) {
+                counts[digit(srcKeys[i], shift)]++;
+            }
+            if (counts[digit(srcKeys[0], shift)] == size) {
+                continue;
+            }
+
+            int offset = 0;
+            for (int i = 0; i < 256; i++) {
+                int count = counts[i];
+                counts[i] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int dst = counts[digit(srcKeys[i], shift)]++;
+                dstKeys[dst] = srcKeys[i];
+                dstGeoms[dst] = srcGeoms[i];
+            }
+
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            Geometry[] swapGeoms = srcGeoms;
+            srcGeoms = dstGeoms;
+            dstGeoms = swapGeoms;
+        }
+
+        if (srcGeoms != geometries) {
+            System.arraycopy(srcGeoms, 0, geometries, 0, size);
+            System.arraycopy(srcKeys, 0, sortKeys, 0, size);
+        }
+        for (int i = 0; i < size; i++) {
+            tmpGeometries[i] = null;
+        }
+    }
+
+    private static int digit(long key, int shift) {
+        if (shift == 56) {
+            // flip the sign bit so that negative keys come first
+            return (int) ((key >>> 56) ^ 0x80);
+        }
+        return (int) ((key >>> shift) & 0xFF);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.scene.Geometry;
+
+/**
+ * <code>KeyedGeometryComparator</code> is a {@link GeometryComparator} 
+ * whose ordering can be expressed as a single 64 bit sort key per geometry.
+ * <p>
+ * When a {@link GeometryList} uses such a comparator, the sort key of 
+ * each geometry is computed once per sort and the list is sorted by
+ * comparing the keys instead of calling 
+ * {@link #compare(java.lang.Object, java.lang.Object) compare()} 
+ * for every pair of geometries.
+ * The keys are compared as signed longs, geometries with equal keys keep
+ * the order in which they were added to the list.
+ */
+public interface KeyedGeometryComparator extends GeometryComparator {
+
+    /**
+     * Computes the sort key of the given geometry. The camera set with
+     * {@link #setCamera(com.jme3.renderer.Camera) } can be used to compute it.
+     * <p>
+     * For any two geometries, comparing their keys must give the same 
+     * result as {@link #compare(java.lang.Object, java.lang.Object) compare()}.
+     * 
+     * @param g The geometry to compute the key for
+     * @return The sort key of the geometry
+     */
+    public long getSortKey(Geometry g);
+}
@@ -36,7 +36,7 @@ import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Geometry;
 
-public class OpaqueComparator implements GeometryComparator {
+public class OpaqueComparator implements KeyedGeometryComparator {
 
     private Camera cam;
     private final Vector3f tempVec  = new Vector3f();
@@ -91,4 +91,19 @@ public class OpaqueComparator implements GeometryComparator {
         }
     }
 
+    /**
+     * Packs the material sort ID in the upper 32 bits of the key and
+     * the distance to the camera in the lower 32 bits, so that keys are
+     * ordered like {@link #compare(com.jme3.scene.Geometry, com.jme3.scene.Geometry) }
+     * orders geometries: by decreasing sort ID, then front to back.
+     */
+    public long getSortKey(Geometry g) {
+        long sortId = g.getMaterial().getSortId();
+        // adding zero turns -0.0 into 0.0, they compare as equal
+        int distBits = Float.floatToIntBits(distanceToCam(g) + 0f);
+        // map the float bits to an unsigned int with the same ordering
+        distBits ^= (distBits >> 31) | 0x80000000;
+        return (-sortId << 32) | (distBits & 0xFFFFFFFFL);
+    }
+
 }
@@ -295,6 +295,24 @@ public class RenderQueue {
         }
     }
 
+    /**
+     * Appends the content of all the buckets and shadow buckets
+     * of the given queue to this queue.
+     * The order of the geometries within each bucket is kept.
+     * 
+     * @param queue The queue to copy the geometries from, it is not
+     * cleared by this call.
+     */
+    public void addAll(RenderQueue queue) {
+        opaqueList.addAll(queue.opaqueList);
+        guiList.addAll(queue.guiList);
+        transparentList.addAll(queue.transparentList);
+        translucentList.addAll(queue.translucentList);
+        skyList.addAll(queue.skyList);
+        shadowCast.addAll(queue.shadowCast);
+        shadowRecv.addAll(queue.shadowRecv);
+    }
+
     /**
      * 
      * @param shadBucket The shadow mode to retrieve the {@link GeometryList
@@ -313,6 +331,33 @@ public class RenderQueue {
         }
     }
 
+    /**
+     * Returns the list of geometries queued into the given bucket.
+     * The list may be modified, for example by a 
+     * {@link com.jme3.post.SceneProcessor} that removes geometries
+     * in {@link com.jme3.post.SceneProcessor#postQueue(com.jme3.renderer.queue.RenderQueue) }.
+     *
+     * @param bucket The bucket to retrieve the {@link GeometryList
+     * queue content} for.
+     * @return The {@link GeometryList} of the bucket
+     */
+    public GeometryList getQueueContent(Bucket bucket) {
+        switch (bucket) {
+            case Gui:
+                return guiList;
+            case Opaque:
+                return opaqueList;
+            case Sky:
+                return skyList;
+            case Transparent:
+                return transparentList;
+            case Translucent:
+                return translucentList;
+            default:
+                throw new UnsupportedOperationException("Unknown bucket type: " + bucket);
+        }
+    }
+
     private void renderGeometryList(GeometryList list, RenderManager rm, Camera cam, boolean clear) {
         list.setCamera(cam); // select camera for sorting
         list.sort();
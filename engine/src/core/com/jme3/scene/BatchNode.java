@@ -31,6 +31,7 @@
  */
 package com.jme3.scene;
 
+import com.jme3.bounding.BoundingVolume;
 import com.jme3.export.*;
 import com.jme3.material.Material;
 import com.jme3.math.Matrix4f;
@@ -41,9 +42,14 @@ import com.jme3.util.SafeArrayList;
 import com.jme3.util.TempVars;
 import java.io.IOException;
 import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -57,9 +63,10 @@ import java.util.logging.Logger;
  * (see todo more automagic for further enhancements)
  * All the geometries that have been batched are set to {@link CullHint#Always} to not render them.
  * The sub geometries can be transformed as usual, their transforms are used to update the mesh of the geometryBatch.
- * Sub geoms can be removed but it may be slower than the normal spatial removing
+ * Sub geoms can be removed, their primitives are made degenerate and their part of the batched mesh is reused by the geometries batched later on.
  * Sub geoms can be added after the batch() method has been called but won't be batched and will just be rendered as normal geometries.
- * To integrate them in the batch you have to call the batch() method again on the batchNode.
+ * To integrate them in the batch you have to call the batch() method again on the batchNode, only the new geometries are then copied in the batched mesh
+ * and only the modified parts of the buffers are sent to the GPU.
  * 
  * TODO normal or tangents or both looks a bit weird
  * TODO more automagic (batch when needed in the updateLogicalState)
@@ -97,6 +104,7 @@ public class BatchNode extends Node implements Savable {
         super(name);
     }
 
+
     @Override
     public void updateGeometricState() {
         if ((refreshFlags & RF_LIGHTLIST) != 0) {
@@ -109,6 +117,7 @@ public class BatchNode extends Node implements Savable {
             updateWorldTransforms();
         }
 
+        refreshFlags &= ~RF_CHILD_LIGHTLIST;
         if (!children.isEmpty()) {
             // the important part- make sure child geometric state is refreshed
             // first before updating own world bound. This saves
@@ -122,7 +131,7 @@ public class BatchNode extends Node implements Savable {
 
             for (Batch batch : batches.getArray()) {
                 if (batch.needMeshUpdate) {
-                    batch.geometry.updateModelBound();
+                    batch.updateBound();
                     batch.geometry.updateWorldBound();
                     batch.needMeshUpdate = false;
 
@@ -159,29 +168,43 @@ public class BatchNode extends Node implements Savable {
             VertexBuffer onvb = origMesh.getBuffer(VertexBuffer.Type.Normal);
             FloatBuffer onormBuf = (FloatBuffer) onvb.getData();
             Matrix4f transformMat = getTransformMatrix(bg);
+            int vertCount = bg.getVertexCount();
             
-            if (mesh.getBuffer(VertexBuffer.Type.Tangent) != null) {
-
-                VertexBuffer tvb = mesh.getBuffer(VertexBuffer.Type.Tangent);
+            VertexBuffer tvb = mesh.getBuffer(VertexBuffer.Type.Tangent);
+            VertexBuffer otvb = origMesh.getBuffer(VertexBuffer.Type.Tangent);
+            if (tvb != null && otvb != null) {
                 FloatBuffer tanBuf = (FloatBuffer) tvb.getData();
-                VertexBuffer otvb = origMesh.getBuffer(VertexBuffer.Type.Tangent);
                 FloatBuffer otanBuf = (FloatBuffer) otvb.getData();
-                doTransformsTangents(oposBuf, onormBuf, otanBuf, posBuf, normBuf, tanBuf, bg.startIndex, bg.startIndex + bg.getVertexCount(), transformMat);
-                tvb.updateData(tanBuf);
+                doTransformsTangents(oposBuf, onormBuf, otanBuf, posBuf, normBuf, tanBuf, bg.startIndex, bg.startIndex + vertCount, transformMat);
+                tvb.setUpdateNeeded(bg.startIndex, vertCount);
             } else {
-                doTransforms(oposBuf, onormBuf, posBuf, normBuf, bg.startIndex, bg.startIndex + bg.getVertexCount(), transformMat);
+                doTransforms(oposBuf, onormBuf, posBuf, normBuf, bg.startIndex, bg.startIndex + vertCount, transformMat);
             }
-            pvb.updateData(posBuf);
-            nvb.updateData(normBuf);
+            // only the vertices of this geometry are sent to the GPU
+            pvb.setUpdateNeeded(bg.startIndex, vertCount);
+            nvb.setUpdateNeeded(bg.startIndex, vertCount);
 
 
             batch.needMeshUpdate = true;
         }
     }
 
+    /**
+     * Removes a geometry from its batch, should only be called by the geometry
+     * when it is unbatched.
+     * Its vertices and indices are released for the geometries batched later on.
+     */
+    protected void removeFromBatch(Geometry geom) {
+        Batch batch = batchesByGeom.get(geom);
+        if (batch != null) {
+            batch.remove(geom);
+            setBoundRefresh();
+        }
+    }
+
     /**
      * Batch this batchNode
-     * every geometry of the sub scene graph of this node will be batched into a single mesh that will be rendered in one call
+     * every geometry of the sub scenegraph of this node will be batched into a single mesh that will be rendered in one call
      */
     public void batch() {
         doBatch();
@@ -205,44 +228,32 @@ public class BatchNode extends Node implements Savable {
             batches.clear();
             batchesByGeom.clear();
         }        
-        //only reset maxVertCount if there is something new to batch
-        if (matMap.size() > 0) {
-            maxVertCount = 0;
-        }
         
         for (Map.Entry<Material, List<Geometry>> entry : matMap.entrySet()) {
-            Mesh m = new Mesh();
             Material material = entry.getKey();
             List<Geometry> list = entry.getValue();
             nbGeoms += list.size();
-            String batchName = name + "-batch" + batches.size();
-            Batch batch;
+            Batch batch = null;
             if (!needsFullRebatch) {
                 batch = findBatchByMaterial(material);
+            }
+            if (batch != null && batch.canAppend(list)) {
+                // only the new geometries are copied in the batch mesh
+                for (Geometry geom : list) {
+                    batch.append(geom);
+                }
+            } else {
+                String batchName = name + "-batch" + batches.size();
                 if (batch != null) {
-                    list.add(0, batch.geometry);
+                    // the new geometries have buffers the batch mesh does
+                    // not have, the batch has to be rebuilt
+                    list.addAll(0, batch.getGeometries());
                     batchName = batch.geometry.getName();
                     batch.geometry.removeFromParent();
-                } else {
-                    batch = new Batch();
+                    batches.remove(batch);
                 }
-            } else {
-                batch = new Batch();
+                createBatch(batchName, material, list);
             }
-            mergeGeometries(m, list);
-            m.setDynamic();
-
-            batch.updateGeomList(list);
-
-            batch.geometry = new Geometry(batchName);
-            batch.geometry.setMaterial(material);
-            this.attachChild(batch.geometry);
-
-
-            batch.geometry.setMesh(m);
-            batch.geometry.getMesh().updateCounts();
-            batch.geometry.getMesh().updateBound();
-            batches.add(batch);
         }
         if (batches.size() > 0) {
             needsFullRebatch = false;
@@ -250,17 +261,19 @@ public class BatchNode extends Node implements Savable {
 
 
         logger.log(Level.FINE, "Batched {0} geometries in {1} batches.", new Object[]{nbGeoms, batches.size()});
+    }
 
-        //init the temp arrays if something has been batched only.
-        if(matMap.size()>0){
-            //TODO these arrays should be allocated by chunk instead to avoid recreating them each time the batch is changed.
-            //init temp float arrays
-            tmpFloat = new float[maxVertCount * 3];
-            tmpFloatN = new float[maxVertCount * 3];
-            if (useTangents) {
-                tmpFloatT = new float[maxVertCount * 4];
-            }
+    private Batch createBatch(String batchName, Material material, List<Geometry> list) {
+        Batch batch = new Batch();
+        batch.geometry = new Geometry(batchName);
+        batch.geometry.setMaterial(material);
+        this.attachChild(batch.geometry);
+        batch.geometry.setMesh(createMesh(list));
+        for (Geometry geom : list) {
+            batch.append(geom);
         }
+        batches.add(batch);
+        return batch;
     }
 
     //in case the detached spatial is a node, we unbatch all geometries in its subegraph
@@ -348,6 +361,7 @@ public class BatchNode extends Node implements Savable {
         return false;
     }
 
+
     /**
      * Sets the material to the all the batches of this BatchNode
      * use setMaterial(Material material,int batchIndex) to set a material to a specific batch
@@ -446,52 +460,43 @@ public class BatchNode extends Node implements Savable {
 
     }
 
+    private static Mesh.Mode getListMode(Mesh mesh) {
+        switch (mesh.getMode()) {
+            case Points:
+                return Mesh.Mode.Points;
+            case LineLoop:
+            case LineStrip:
+            case Lines:
+                return Mesh.Mode.Lines;
+            case TriangleFan:
+            case TriangleStrip:
+            case Triangles:
+                return Mesh.Mode.Triangles;
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+
     /**
-     * Merges all geometries in the collection into
-     * the output mesh. Does not take into account materials.
+     * Creates the mesh of a batch, with room for all the given
+     * geometries. Does not take into account materials.
      * 
      * @param geometries
-     * @param outMesh
+     * @return the batch mesh
      */
-    private void mergeGeometries(Mesh outMesh, List<Geometry> geometries) {
+    private Mesh createMesh(List<Geometry> geometries) {
         int[] compsForBuf = new int[VertexBuffer.Type.values().length];
         VertexBuffer.Format[] formatForBuf = new VertexBuffer.Format[compsForBuf.length];
 
         int totalVerts = 0;
         int totalTris = 0;
-        int totalLodLevels = 0;
         int maxWeights = -1;
 
         Mesh.Mode mode = null;
         for (Geometry geom : geometries) {
             totalVerts += geom.getVertexCount();
             totalTris += geom.getTriangleCount();
-            totalLodLevels = Math.min(totalLodLevels, geom.getMesh().getNumLodLevels());
-            if (maxVertCount < geom.getVertexCount()) {
-                maxVertCount = geom.getVertexCount();
-            }
-            Mesh.Mode listMode;
-            int components;
-            switch (geom.getMesh().getMode()) {
-                case Points:
-                    listMode = Mesh.Mode.Points;
-                    components = 1;
-                    break;
-                case LineLoop:
-                case LineStrip:
-                case Lines:
-                    listMode = Mesh.Mode.Lines;
-                    components = 2;
-                    break;
-                case TriangleFan:
-                case TriangleStrip:
-                case Triangles:
-                    listMode = Mesh.Mode.Triangles;
-                    components = 3;
-                    break;
-                default:
-                    throw new UnsupportedOperationException();
-            }
+            Mesh.Mode listMode = getListMode(geom.getMesh());
 
             for (VertexBuffer vb : geom.getMesh().getBufferList().getArray()) {
                 compsForBuf[vb.getBufferType().ordinal()] = vb.getNumComponents();
@@ -505,18 +510,13 @@ public class BatchNode extends Node implements Savable {
                         + " primitive types: " + mode + " != " + listMode);
             }
             mode = listMode;
-            compsForBuf[VertexBuffer.Type.Index.ordinal()] = components;
         }
 
+        Mesh outMesh = new Mesh();
         outMesh.setMaxNumWeights(maxWeights);
         outMesh.setMode(mode);
-        if (totalVerts >= 65536) {
-            // make sure we create an UnsignedInt buffer so
-            // we can fit all of the meshes
-            formatForBuf[VertexBuffer.Type.Index.ordinal()] = VertexBuffer.Format.UnsignedInt;
-        } else {
-            formatForBuf[VertexBuffer.Type.Index.ordinal()] = VertexBuffer.Format.UnsignedShort;
-        }
+        compsForBuf[VertexBuffer.Type.Index.ordinal()] = getComponents(mode);
+        formatForBuf[VertexBuffer.Type.Index.ordinal()] = getIndexFormat(totalVerts);
 
         // generate output buffers based on retrieved info
         for (int i = 0; i < compsForBuf.length; i++) {
@@ -535,65 +535,106 @@ public class BatchNode extends Node implements Savable {
             vb.setupData(VertexBuffer.Usage.Dynamic, compsForBuf[i], formatForBuf[i], data);
             outMesh.setBuffer(vb);
         }
+        return outMesh;
+    }
 
-        int globalVertIndex = 0;
-        int globalTriIndex = 0;
-
-        for (Geometry geom : geometries) {
-            Mesh inMesh = geom.getMesh();
-            if (!isBatch(geom)) {
-                geom.batch(this, globalVertIndex);
-            }
-
-            int geomVertCount = inMesh.getVertexCount();
-            int geomTriCount = inMesh.getTriangleCount();
-
-            for (int bufType = 0; bufType < compsForBuf.length; bufType++) {
-                VertexBuffer inBuf = inMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
-
-                VertexBuffer outBuf = outMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
-
-                if (outBuf == null) {
-                    continue;
-                }
+    private static int getComponents(Mesh.Mode listMode) {
+        switch (listMode) {
+            case Points:
+                return 1;
+            case Lines:
+                return 2;
+            default:
+                return 3;
+        }
+    }
 
-                if (VertexBuffer.Type.Index.ordinal() == bufType) {
-                    int components = compsForBuf[bufType];
+    private static VertexBuffer.Format getIndexFormat(int vertexCount) {
+        if (vertexCount >= 65536) {
+            // make sure we create an UnsignedInt buffer so
+            // we can fit all of the meshes
+            return VertexBuffer.Format.UnsignedInt;
+        } else {
+            return VertexBuffer.Format.UnsignedShort;
+        }
+    }
 
-                    IndexBuffer inIdx = inMesh.getIndicesAsList();
-                    IndexBuffer outIdx = outMesh.getIndexBuffer();
+    /**
+     * Copies the content of a buffer to the start of a larger buffer of the same type.
+     */
+    private static void copyBuffer(Buffer src, Buffer dest) {
+        src.clear();
+        if (src instanceof FloatBuffer) {
+            ((FloatBuffer) dest).put((FloatBuffer) src);
+        } else if (src instanceof ShortBuffer) {
+            ((ShortBuffer) dest).put((ShortBuffer) src);
+        } else if (src instanceof IntBuffer) {
+            ((IntBuffer) dest).put((IntBuffer) src);
+        } else if (src instanceof ByteBuffer) {
+            ((ByteBuffer) dest).put((ByteBuffer) src);
+        } else if (src instanceof DoubleBuffer) {
+            ((DoubleBuffer) dest).put((DoubleBuffer) src);
+        } else {
+            throw new UnsupportedOperationException("Unrecognized buffer type: " + src);
+        }
+        src.clear();
+        dest.clear();
+    }
 
-                    for (int tri = 0; tri < geomTriCount; tri++) {
-                        for (int comp = 0; comp < components; comp++) {
-                            int idx = inIdx.get(tri * components + comp) + globalVertIndex;
-                            outIdx.put((globalTriIndex + tri) * components + comp, idx);
-                        }
-                    }
-                } else if (VertexBuffer.Type.Position.ordinal() == bufType) {
-                    FloatBuffer inPos = (FloatBuffer) inBuf.getData();
-                    FloatBuffer outPos = (FloatBuffer) outBuf.getData();
-                    doCopyBuffer(inPos, globalVertIndex, outPos, 3);
-                } else if (VertexBuffer.Type.Normal.ordinal() == bufType || VertexBuffer.Type.Tangent.ordinal() == bufType) {
-                    FloatBuffer inPos = (FloatBuffer) inBuf.getData();
-                    FloatBuffer outPos = (FloatBuffer) outBuf.getData();
-                    doCopyBuffer(inPos, globalVertIndex, outPos, compsForBuf[bufType]);
-                    if (VertexBuffer.Type.Tangent.ordinal() == bufType) {
-                        useTangents = true;
-                    }
-                } else {
-                    inBuf.copyElements(0, outBuf, globalVertIndex, geomVertCount);
-//                    for (int vert = 0; vert < geomVertCount; vert++) {
-//                        int curGlobalVertIndex = globalVertIndex + vert;
-//                        inBuf.copyElement(vert, outBuf, curGlobalVertIndex);
-//                    }
+    /**
+     * Takes the first free range of the given length in the list.
+     * 
+     * @return the start of the range, -1 if there is no free range large enough
+     */
+    private static int allocate(List<Range> freeList, int length) {
+        for (int i = 0; i < freeList.size(); i++) {
+            Range range = freeList.get(i);
+            if (range.length >= length) {
+                int start = range.start;
+                range.start += length;
+                range.length -= length;
+                if (range.length == 0) {
+                    freeList.remove(i);
                 }
+                return start;
             }
+        }
+        return -1;
+    }
 
-            globalVertIndex += geomVertCount;
-            globalTriIndex += geomTriCount;
+    /**
+     * Adds a range to the free list, merged with the adjacent free ranges.
+     * Ranges reaching the end of the used part are given back.
+     * 
+     * @return the new size of the used part
+     */
+    private static int free(List<Range> freeList, int start, int length, int used) {
+        if (length == 0) {
+            return used;
+        }
+        int i = 0;
+        while (i < freeList.size() && freeList.get(i).start < start) {
+            i++;
+        }
+        Range range = new Range(start, length);
+        if (i > 0 && freeList.get(i - 1).start + freeList.get(i - 1).length == start) {
+            range = freeList.get(i - 1);
+            range.length += length;
+            i--;
+        } else {
+            freeList.add(i, range);
+        }
+        if (i + 1 < freeList.size() && range.start + range.length == freeList.get(i + 1).start) {
+            range.length += freeList.remove(i + 1).length;
         }
+        if (range.start + range.length == used) {
+            freeList.remove(i);
+            return range.start;
+        }
+        return used;
     }
 
+
     private void doTransforms(FloatBuffer bindBufPos, FloatBuffer bindBufNorm, FloatBuffer bufPos, FloatBuffer bufNorm, int start, int end, Matrix4f transform) {
         TempVars vars = TempVars.get();
         Vector3f pos = vars.vect1;
@@ -710,41 +751,235 @@ public class BatchNode extends Node implements Savable {
         bufTangents.put(tmpFloatT, 0, tanLength);
     }
 
-    private void doCopyBuffer(FloatBuffer inBuf, int offset, FloatBuffer outBuf, int componentSize) {
-        TempVars vars = TempVars.get();
-        Vector3f pos = vars.vect1;
-
-        // offset is given in element units
-        // convert to be in component units
-        offset *= componentSize;
+    /**
+     * A range of vertices or primitives in a batch mesh
+     */
+    static class Range {
 
-        for (int i = 0; i < inBuf.limit() / componentSize; i++) {
-            pos.x = inBuf.get(i * componentSize + 0);
-            pos.y = inBuf.get(i * componentSize + 1);
-            pos.z = inBuf.get(i * componentSize + 2);
+        int start;
+        int length;
 
-            outBuf.put(offset + i * componentSize + 0, pos.x);
-            outBuf.put(offset + i * componentSize + 1, pos.y);
-            outBuf.put(offset + i * componentSize + 2, pos.z);
+        Range(int start, int length) {
+            this.start = start;
+            this.length = length;
         }
-        vars.release();
     }
 
     protected class Batch {
 
+        Geometry geometry;
+        boolean needMeshUpdate = false;
+        /**
+         * the range of primitives of each geometry in the index buffer, 
+         * the vertex range starts at the geometry startIndex.
+         */
+        private Map<Geometry, Range> primitiveRanges = new LinkedHashMap<Geometry, Range>();
+        private List<Range> freeVertices = new ArrayList<Range>();
+        private List<Range> freePrimitives = new ArrayList<Range>();
         /**
-         * update the batchesByGeom map for this batch with the given List of geometries
-         * @param list 
+         * number of vertices and primitives used at the start of the buffers,
+         * free ranges included.
          */
-        void updateGeomList(List<Geometry> list) {
+        private int vertexCount = 0;
+        private int primitiveCount = 0;
+        private BoundingVolume tmpBound;
+
+        /**
+         * @return the geometries in this batch
+         */
+        List<Geometry> getGeometries() {
+            return new ArrayList<Geometry>(primitiveRanges.keySet());
+        }
+
+        /**
+         * Checks if the geometries can be added to the batch mesh without 
+         * rebuilding it.
+         */
+        boolean canAppend(List<Geometry> list) {
+            Mesh mesh = geometry.getMesh();
             for (Geometry geom : list) {
-                if (!isBatch(geom)) {
-                    batchesByGeom.put(geom, this);
+                if (getListMode(geom.getMesh()) != mesh.getMode()) {
+                    return false;
+                }
+                for (VertexBuffer vb : geom.getMesh().getBufferList().getArray()) {
+                    if (vb.getBufferType() == VertexBuffer.Type.Index) {
+                        continue;
+                    }
+                    VertexBuffer outBuf = mesh.getBuffer(vb.getBufferType());
+                    if (outBuf == null || outBuf.getFormat() != vb.getFormat()
+                            || outBuf.getNumComponents() != vb.getNumComponents()) {
+                        return false;
+                    }
                 }
             }
+            return true;
+        }
+
+        /**
+         * Copies the geometry in a free part of the batch mesh, the buffers
+         * grow if there is not enough room. Only the modified ranges will be 
+         * sent to the GPU.
+         */
+        void append(Geometry geom) {
+            Mesh mesh = geometry.getMesh();
+            Mesh inMesh = geom.getMesh();
+            int geomVertCount = inMesh.getVertexCount();
+            int geomTriCount = inMesh.getTriangleCount();
+
+            int vertStart = allocate(freeVertices, geomVertCount);
+            if (vertStart == -1) {
+                vertStart = vertexCount;
+                vertexCount += geomVertCount;
+                ensureVertexCapacity(vertexCount);
+            }
+            int triStart = allocate(freePrimitives, geomTriCount);
+            if (triStart == -1) {
+                triStart = primitiveCount;
+                primitiveCount += geomTriCount;
+                ensurePrimitiveCapacity(primitiveCount);
+            }
+
+            for (VertexBuffer outBuf : mesh.getBufferList().getArray()) {
+                VertexBuffer.Type type = outBuf.getBufferType();
+                VertexBuffer inBuf = inMesh.getBuffer(type);
+                if (type == VertexBuffer.Type.Index || inBuf == null) {
+                    continue;
+                }
+                inBuf.copyElements(0, outBuf, vertStart, geomVertCount);
+                outBuf.setUpdateNeeded(vertStart, geomVertCount);
+                if (type == VertexBuffer.Type.Tangent) {
+                    useTangents = true;
+                }
+            }
+
+            VertexBuffer idxBuf = mesh.getBuffer(VertexBuffer.Type.Index);
+            int components = idxBuf.getNumComponents();
+            IndexBuffer inIdx = inMesh.getIndicesAsList();
+            IndexBuffer outIdx = mesh.getIndexBuffer();
+            int offset = triStart * components;
+            for (int i = 0; i < geomTriCount * components; i++) {
+                outIdx.put(offset + i, inIdx.get(i) + vertStart);
+            }
+            idxBuf.setUpdateNeeded(triStart, geomTriCount);
+
+            if (!geom.isBatched() || geom.batchNode != BatchNode.this) {
+                geom.batch(BatchNode.this, vertStart);
+            } else {
+                geom.startIndex = vertStart;
+            }
+            primitiveRanges.put(geom, new Range(triStart, geomTriCount));
+            batchesByGeom.put(geom, this);
+            // the transformed positions are computed by updateSubBatch
+            geom.setTransformRefresh();
+
+            if (maxVertCount < geomVertCount) {
+                maxVertCount = geomVertCount;
+            }
+            //TODO these arrays should be allocated by chunk instead to avoid recreating them each time the batch is changed.
+            if (tmpFloat == null || tmpFloat.length < maxVertCount * 3) {
+                tmpFloat = new float[maxVertCount * 3];
+                tmpFloatN = new float[maxVertCount * 3];
+            }
+            if (useTangents && (tmpFloatT == null || tmpFloatT.length < maxVertCount * 4)) {
+                tmpFloatT = new float[maxVertCount * 4];
+            }
+            needMeshUpdate = true;
+        }
+
+        /**
+         * Removes the geometry from the batch mesh, its primitives are made
+         * degenerate and its vertices and primitives are released.
+         */
+        void remove(Geometry geom) {
+            Range range = primitiveRanges.remove(geom);
+            if (range == null) {
+                return;
+            }
+            batchesByGeom.remove(geom);
+
+            Mesh mesh = geometry.getMesh();
+            VertexBuffer idxBuf = mesh.getBuffer(VertexBuffer.Type.Index);
+            int components = idxBuf.getNumComponents();
+            IndexBuffer outIdx = mesh.getIndexBuffer();
+            int end = (range.start + range.length) * components;
+            for (int i = range.start * components; i < end; i++) {
+                outIdx.put(i, 0);
+            }
+            idxBuf.setUpdateNeeded(range.start, range.length);
+
+            primitiveCount = free(freePrimitives, range.start, range.length, primitiveCount);
+            vertexCount = free(freeVertices, geom.startIndex, geom.getVertexCount(), vertexCount);
+            needMeshUpdate = true;
+        }
+
+        private void ensureVertexCapacity(int count) {
+            Mesh mesh = geometry.getMesh();
+            if (count <= mesh.getVertexCount()) {
+                return;
+            }
+            int capacity = Math.max(count, mesh.getVertexCount() * 2);
+            for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+                if (vb.getBufferType() == VertexBuffer.Type.Index) {
+                    continue;
+                }
+                Buffer data = VertexBuffer.createBuffer(vb.getFormat(), vb.getNumComponents(), capacity);
+                copyBuffer(vb.getData(), data);
+                vb.updateData(data);
+            }
+            mesh.updateCounts();
+
+            VertexBuffer idxBuf = mesh.getBuffer(VertexBuffer.Type.Index);
+            if (getIndexFormat(capacity) != idxBuf.getFormat()) {
+                // short indices cannot address the new vertices
+                IndexBuffer inIdx = mesh.getIndexBuffer();
+                Buffer data = VertexBuffer.createBuffer(VertexBuffer.Format.UnsignedInt, idxBuf.getNumComponents(), idxBuf.getNumElements());
+                IndexBuffer outIdx = IndexBuffer.wrapIndexBuffer(data);
+                for (int i = 0; i < inIdx.size(); i++) {
+                    outIdx.put(i, inIdx.get(i));
+                }
+                mesh.clearBuffer(VertexBuffer.Type.Index);
+                mesh.setBuffer(VertexBuffer.Type.Index, idxBuf.getNumComponents(), VertexBuffer.Format.UnsignedInt, data);
+                mesh.getBuffer(VertexBuffer.Type.Index).setUsage(VertexBuffer.Usage.Dynamic);
+            }
+        }
+
+        private void ensurePrimitiveCapacity(int count) {
+            Mesh mesh = geometry.getMesh();
+            VertexBuffer idxBuf = mesh.getBuffer(VertexBuffer.Type.Index);
+            if (count <= idxBuf.getNumElements()) {
+                return;
+            }
+            // the unused primitives are degenerate
+            int capacity = Math.max(count, idxBuf.getNumElements() * 2);
+            Buffer data = VertexBuffer.createBuffer(idxBuf.getFormat(), idxBuf.getNumComponents(), capacity);
+            copyBuffer(idxBuf.getData(), data);
+            idxBuf.updateData(data);
+            mesh.updateCounts();
+        }
+
+        /**
+         * The bound of the batch mesh merges the bounds of the batched meshes,
+         * which is cheaper than reading all the vertices.
+         */
+        void updateBound() {
+            Mesh mesh = geometry.getMesh();
+            BoundingVolume bound = null;
+            for (Geometry geom : primitiveRanges.keySet()) {
+                BoundingVolume modelBound = geom.getMesh().getBound();
+                if (modelBound == null) {
+                    continue;
+                }
+                if (bound == null) {
+                    bound = modelBound.transform(getTransformMatrix(geom), mesh.getBound());
+                } else {
+                    tmpBound = modelBound.transform(getTransformMatrix(geom), tmpBound);
+                    bound.mergeLocal(tmpBound);
+                }
+            }
+            if (bound != null) {
+                mesh.setBound(bound);
+            }
         }
-        Geometry geometry;
-        boolean needMeshUpdate = false;
     }
 
     protected void setNeedsFullRebatch(boolean needsFullRebatch) {
@@ -768,8 +1003,8 @@ public class BatchNode extends Node implements Savable {
                 }
             }
             clone.needsFullRebatch = true;
-            clone.batches.clear();
-            clone.batchesByGeom.clear();
+            clone.batches = new SafeArrayList<Batch>(Batch.class);
+            clone.batchesByGeom = new HashMap<Geometry, Batch>();
             clone.batch();
         }
         return clone;
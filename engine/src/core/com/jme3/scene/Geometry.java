@@ -39,6 +39,7 @@ import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
 import com.jme3.export.OutputCapsule;
+import com.jme3.light.LightList;
 import com.jme3.material.Material;
 import com.jme3.math.Matrix4f;
 import com.jme3.math.Transform;
@@ -79,6 +80,19 @@ public class Geometry extends Spatial {
      * the start index of this geom's mesh in the batchNode mesh
      */
     protected int startIndex;    
+    /**
+     * used when geometry is instanced
+     */
+    protected InstancedGeometry instancedGeometry = null;
+    /**
+     * the index of this geom in the instancedGeometry
+     */
+    protected int instanceIndex;
+    /**
+     * set when the world light list must be filtered again 
+     * against the world bound
+     */
+    protected transient boolean lightListOutdated = true;
     /**
      * Serialization only. Do not use.
      */
@@ -195,6 +209,9 @@ public class Geometry extends Spatial {
         if (isBatched()) {
             throw new UnsupportedOperationException("Cannot set the mesh of a batched geometry");
         }
+        if (isInstanced()) {
+            throw new UnsupportedOperationException("Cannot set the mesh of an instanced geometry");
+        }
 
         this.mesh = mesh;
         setBoundRefresh();
@@ -221,7 +238,11 @@ public class Geometry extends Spatial {
         if (isBatched()) {
             throw new UnsupportedOperationException("Cannot set the material of a batched geometry, change the material of the parent BatchNode.");
         }
+        if (isInstanced()) {
+            throw new UnsupportedOperationException("Cannot set the material of an instanced geometry, detach it from the InstancedNode first.");
+        }
         this.material = material;
+        setStaticDrawListRefresh();
     }
 
     /**
@@ -274,6 +295,7 @@ public class Geometry extends Spatial {
                 worldBound = mesh.getBound().transform(worldTransform, worldBound);
             }
         }
+        lightListOutdated = true;
     }
 
     @Override
@@ -285,8 +307,39 @@ public class Geometry extends Spatial {
         if (isBatched()) {        
             batchNode.updateSubBatch(this);     
         }
-        // geometry requires lights to be sorted
-        worldLights.sort(true);
+        if (isInstanced()) {
+            instancedGeometry.updateInstance(this);
+        }
+    }
+
+    @Override
+    protected void updateWorldLightList() {
+        // the world light list depends on the world bound, 
+        // it is rebuilt on demand by getWorldLightList()
+        refreshFlags &= ~RF_LIGHTLIST;
+        lightListOutdated = true;
+    }
+
+    /**
+     * Returns the world {@link LightList}, containing the lights combined 
+     * from all this <code>Geometry's</code> parents up to and including
+     * this <code>Geometry</code>'s lights, that can affect its world bound.
+     * The lights are sorted by distance to the geometry.
+     * 
+     * @return The combined world light list
+     * 
+     * @see LightList#updateFiltered(com.jme3.bounding.BoundingVolume) 
+     */
+    @Override
+    public LightList getWorldLightList() {
+        BoundingVolume bound = getWorldBound();
+        if (lightListOutdated || worldLights.isFilterOutdated()) {
+            worldLights.updateFiltered(bound);
+            // geometry requires lights to be sorted
+            worldLights.sort(true);
+            lightListOutdated = false;
+        }
+        return worldLights;
     }
 
     /**
@@ -304,12 +357,35 @@ public class Geometry extends Spatial {
      * unBatch this geometry. 
      */
     protected void unBatch() {
-        this.startIndex = 0;
-        //once the geometry is removed from the screnegraph the batchNode needs to be rebatched.
+        //once the geometry is removed from the screnegraph its part of the batched mesh is released.
         if (batchNode != null) {
-            this.batchNode.setNeedsFullRebatch(true);
+            this.batchNode.removeFromBatch(this);
             this.batchNode = null;
         }
+        this.startIndex = 0;
+        setCullHint(CullHint.Dynamic);
+    }
+
+    /**
+     * Instance this geometry, should only be called by the InstancedNode.
+     * @param geometry the instanced geometry rendering this geometry
+     * @param index the index of this geometry in the instanced geometry
+     */
+    protected void instance(InstancedGeometry geometry, int index) {
+        this.instancedGeometry = geometry;
+        this.instanceIndex = index;
+        setCullHint(CullHint.Always);
+    }
+
+    /**
+     * unInstance this geometry. 
+     */
+    protected void unInstance() {
+        if (instancedGeometry != null) {
+            instancedGeometry.removeInstance(this);
+            instancedGeometry = null;
+        }
+        this.instanceIndex = 0;
         setCullHint(CullHint.Dynamic);
     }
 
@@ -325,6 +401,10 @@ public class Geometry extends Spatial {
         if (parent == null && isBatched()) {
             unBatch();
         }
+        //same thing for instancing
+        if (parent == null && isInstanced()) {
+            unInstance();
+        }
     }
 
 
@@ -428,6 +508,10 @@ public class Geometry extends Spatial {
         return batchNode != null;
     }
 
+    public boolean isInstanced() {
+        return instancedGeometry != null;
+    }
+
     /**
      * This version of clone is a shallow clone, in other words, the
      * same mesh is referenced as the original geometry.
@@ -443,6 +527,11 @@ public class Geometry extends Spatial {
             geomClone.batchNode = null;
             geomClone.unBatch();
         }
+        //same for instancing
+        if (isInstanced()) {
+            geomClone.instancedGeometry = null;
+            geomClone.unInstance();
+        }
         geomClone.cachedWorldMat = cachedWorldMat.clone();
         if (material != null) {
             if (cloneMaterial) {
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.material.MatParam;
+import com.jme3.material.Material;
+import com.jme3.math.Matrix4f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.VertexBuffer.Format;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.util.BufferUtils;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+
+/**
+ * InstancedGeometry renders all the geometries sharing a mesh and a material 
+ * in an {@link InstancedNode} with a single instanced draw call.
+ * The world matrices of the instances are cached and only recomputed for the 
+ * instances whose transform changed. Instances are culled one by one against
+ * the camera when rendering and the world matrices of the visible ones are 
+ * packed in an instanced {@link VertexBuffer}, which is uploaded only when 
+ * the visible set or one of the matrices changed.
+ * <p>
+ * The material must have the <code>UseInstancing</code> parameter set to true
+ * and the renderer must support {@link Caps#MeshInstancing}, otherwise the
+ * visible instances are rendered one by one.
+ * The geometry itself is rendered with an identity world matrix and uses the 
+ * lights of the InstancedNode, the local lights of the instances are ignored.
+ * 
+ * @see InstancedNode
+ */
+public class InstancedGeometry extends Geometry {
+
+    private static final int INSTANCE_SIZE = 16;
+
+    private ArrayList<Geometry> instances = new ArrayList<Geometry>();
+    /**
+     * world matrices of the instances, column major, by instance index
+     */
+    private float[] matrices = new float[INSTANCE_SIZE * 4];
+    /**
+     * indices of the instances visible from the last camera
+     */
+    private int[] visible = new int[4];
+    private int visibleCount = 0;
+    /**
+     * true if the matrices or the instance list changed since the last upload
+     */
+    private boolean instancesChanged = true;
+    private VertexBuffer instanceData;
+    private VertexBuffer[] instanceDataArray;
+
+    /**
+     * Serialization only. Do not use.
+     */
+    public InstancedGeometry() {
+        initInstanceData();
+    }
+
+    /**
+     * Create an instanced geometry rendering the given mesh with the given
+     * material, it has no instance.
+     * 
+     * @param name The name of this geometry
+     * @param mesh The mesh shared by all the instances
+     * @param material The material shared by all the instances
+     */
+    public InstancedGeometry(String name, Mesh mesh, Material material) {
+        super(name, mesh);
+        setMaterial(material);
+        setIgnoreTransform(true);
+        setBatchHint(BatchHint.Never);
+        initInstanceData();
+    }
+
+    private void initInstanceData() {
+        instanceData = new VertexBuffer(Type.InstanceData);
+        instanceData.setInstanced(true);
+        instanceDataArray = new VertexBuffer[]{instanceData};
+    }
+
+    /**
+     * Adds an instance, should only be called by the InstancedNode.
+     */
+    void addInstance(Geometry geom) {
+        int index = instances.size();
+        if (matrices.length < (index + 1) * INSTANCE_SIZE) {
+            float[] newMatrices = new float[matrices.length * 2];
+            System.arraycopy(matrices, 0, newMatrices, 0, matrices.length);
+            matrices = newMatrices;
+        }
+        instances.add(geom);
+        geom.instance(this, index);
+        // will call updateInstance() on the next update
+        geom.setTransformRefresh();
+        instancesChanged = true;
+        setBoundRefresh();
+    }
+
+    /**
+     * Removes an instance, the last instance takes its place.
+     */
+    void removeInstance(Geometry geom) {
+        int index = geom.instanceIndex;
+        int last = instances.size() - 1;
+        assert instances.get(index) == geom;
+        if (index != last) {
+            Geometry lastGeom = instances.get(last);
+            System.arraycopy(matrices, last * INSTANCE_SIZE, matrices, index * INSTANCE_SIZE, INSTANCE_SIZE);
+            instances.set(index, lastGeom);
+            lastGeom.instanceIndex = index;
+        }
+        instances.remove(last);
+        instancesChanged = true;
+        setBoundRefresh();
+    }
+
+    /**
+     * Called by an instance when its world transform changed.
+     */
+    void updateInstance(Geometry geom) {
+        Matrix4f m = geom.getWorldMatrix();
+        int i = geom.instanceIndex * INSTANCE_SIZE;
+        matrices[i] = m.m00;
+        matrices[i + 1] = m.m10;
+        matrices[i + 2] = m.m20;
+        matrices[i + 3] = m.m30;
+        matrices[i + 4] = m.m01;
+        matrices[i + 5] = m.m11;
+        matrices[i + 6] = m.m21;
+        matrices[i + 7] = m.m31;
+        matrices[i + 8] = m.m02;
+        matrices[i + 9] = m.m12;
+        matrices[i + 10] = m.m22;
+        matrices[i + 11] = m.m32;
+        matrices[i + 12] = m.m03;
+        matrices[i + 13] = m.m13;
+        matrices[i + 14] = m.m23;
+        matrices[i + 15] = m.m33;
+        instancesChanged = true;
+        setBoundRefresh();
+    }
+
+    /**
+     * @return The number of instances rendered by this geometry
+     */
+    public int getInstanceCount() {
+        return instances.size();
+    }
+
+    /**
+     * @param index the index of the instance
+     * @return the instance at the given index
+     */
+    public Geometry getInstance(int index) {
+        return instances.get(index);
+    }
+
+    /**
+     * @return The number of instances visible from the camera given to the
+     * last {@link #updateInstances(com.jme3.renderer.Camera) } call.
+     */
+    public int getVisibleInstanceCount() {
+        return visibleCount;
+    }
+
+    /**
+     * @param index the index of the visible instance, between 0 and 
+     * {@link #getVisibleInstanceCount() }
+     * @return the visible instance
+     */
+    public Geometry getVisibleInstance(int index) {
+        return instances.get(visible[index]);
+    }
+
+    /**
+     * @return The instanced vertex buffers holding the world matrices of 
+     * the visible instances.
+     */
+    public VertexBuffer[] getAllInstanceData() {
+        return instanceDataArray;
+    }
+
+    /**
+     * @param caps the renderer caps
+     * @return true if the instances can be rendered in a single draw call 
+     * with the material of this geometry.
+     */
+    public boolean isInstancingEnabled(EnumSet<Caps> caps) {
+        if (!caps.contains(Caps.MeshInstancing) || material == null) {
+            return false;
+        }
+        MatParam param = material.getParam("UseInstancing");
+        return param != null && Boolean.TRUE.equals(param.getValue());
+    }
+
+    /**
+     * Culls the instances against the camera and updates the instance data
+     * with the world matrices of the visible instances. 
+     * Called by the RenderManager before rendering this geometry.
+     * 
+     * @param cam the camera used for rendering
+     */
+    public void updateInstances(Camera cam) {
+        int count = instances.size();
+        if (visible.length < count) {
+            visible = new int[Math.max(count, visible.length * 2)];
+        }
+
+        boolean changed = instancesChanged;
+        boolean gui = getQueueBucket() == Bucket.Gui;
+        int planeState = cam.getPlaneState();
+        int newVisibleCount = 0;
+        for (int i = 0; i < count; i++) {
+            BoundingVolume bv = instances.get(i).getWorldBound();
+            boolean inside;
+            if (gui) {
+                inside = cam.containsGui(bv);
+            } else {
+                cam.setPlaneState(0);
+                inside = cam.contains(bv) != Camera.FrustumIntersect.Outside;
+            }
+            if (inside) {
+                if (newVisibleCount >= visibleCount || visible[newVisibleCount] != i) {
+                    changed = true;
+                    visible[newVisibleCount] = i;
+                }
+                newVisibleCount++;
+            }
+        }
+        cam.setPlaneState(planeState);
+
+        if (newVisibleCount != visibleCount) {
+            changed = true;
+        }
+        visibleCount = newVisibleCount;
+
+        if (!changed || visibleCount == 0) {
+            return;
+        }
+
+        FloatBuffer data = (FloatBuffer) instanceData.getData();
+        if (data == null || data.capacity() < visibleCount * INSTANCE_SIZE) {
+            data = BufferUtils.createFloatBuffer(Math.max(visibleCount, instances.size()) * INSTANCE_SIZE);
+        }
+        data.clear();
+        for (int i = 0; i < visibleCount; i++) {
+            data.put(matrices, visible[i] * INSTANCE_SIZE, INSTANCE_SIZE);
+        }
+        data.flip();
+
+        if (instanceData.getData() == null) {
+            instanceData.setupData(Usage.Stream, INSTANCE_SIZE, Format.Float, data);
+        } else {
+            instanceData.updateData(data);
+        }
+        instancesChanged = false;
+    }
+
+    /**
+     * The world bound of an instanced geometry contains the world bounds 
+     * of all its instances.
+     */
+    @Override
+    protected void updateWorldBound() {
+        super.updateWorldBound();
+        BoundingVolume merged = null;
+        for (Geometry geom : instances) {
+            BoundingVolume bv = geom.getWorldBound();
+            if (bv == null) {
+                continue;
+            }
+            if (merged == null) {
+                merged = bv.clone(worldBound);
+            } else {
+                merged.mergeLocal(bv);
+            }
+        }
+        if (merged != null) {
+            worldBound = merged;
+        }
+    }
+
+    @Override
+    public InstancedGeometry clone(boolean cloneMaterial) {
+        InstancedGeometry geomClone = (InstancedGeometry) super.clone(cloneMaterial);
+        // the clone renders no instance, the InstancedNode owns the instances
+        geomClone.instances = new ArrayList<Geometry>();
+        geomClone.matrices = new float[INSTANCE_SIZE * 4];
+        geomClone.visible = new int[4];
+        geomClone.visibleCount = 0;
+        geomClone.instancesChanged = true;
+        geomClone.initInstanceData();
+        return geomClone;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.material.Material;
+import com.jme3.util.SafeArrayList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * InstancedNode renders the geometries of its sub scenegraph that share the 
+ * same mesh and material with hardware instancing, one draw call per 
+ * mesh/material pair.
+ * Usage is like any other node except you have to call the {@link #instance()} 
+ * method once all the geometries have been attached to the sub scene graph and 
+ * their material set, and the materials must have the <code>UseInstancing</code>
+ * parameter set to true (supported by Unshaded.j3md and Lighting.j3md).
+ * One {@link InstancedGeometry} is attached to this node per mesh/material pair,
+ * the instanced geometries are set to {@link CullHint#Always} to not render them.
+ * <p>
+ * The instances can be transformed as usual, only the world matrices of the 
+ * moved instances are recomputed, and they are culled one by one when rendering.
+ * Geometries attached after the instance() call are rendered as normal 
+ * geometries until instance() is called again. Detached geometries are removed 
+ * from their instanced geometry.
+ * Contrary to the {@link BatchNode}, the mesh is not duplicated, which makes 
+ * instancing preferable for many copies of the same model.
+ * 
+ * @see InstancedGeometry
+ */
+public class InstancedNode extends Node {
+
+    private static final Logger logger = Logger.getLogger(InstancedNode.class.getName());
+    /**
+     * the geometries rendering the instances, one per mesh/material pair
+     */
+    protected SafeArrayList<InstancedGeometry> instancedGeometries = new SafeArrayList<InstancedGeometry>(InstancedGeometry.class);
+
+    /**
+     * Serialization only. Do not use.
+     */
+    public InstancedNode() {
+        super();
+    }
+
+    public InstancedNode(String name) {
+        super(name);
+    }
+
+    @Override
+    public void updateGeometricState() {
+        if (refreshFlags == 0) {
+            // nothing changed in this subtree
+            return;
+        }
+
+        if ((refreshFlags & RF_LIGHTLIST) != 0) {
+            updateWorldLightList();
+        }
+
+        if ((refreshFlags & RF_TRANSFORM) != 0) {
+            // combine with parent transforms- same for all spatial
+            // subclasses.
+            updateWorldTransforms();
+        }
+
+        refreshFlags &= ~RF_CHILD_LIGHTLIST;
+        if (!children.isEmpty()) {
+            for (Spatial child : children.getArray()) {
+                if (child.refreshFlags != 0) {
+                    child.updateGeometricState();
+                }
+            }
+
+            // instances updated after their instanced geometry flagged it 
+            // for a bound update
+            for (InstancedGeometry geom : instancedGeometries.getArray()) {
+                if (geom.refreshFlags != 0) {
+                    geom.updateGeometricState();
+                }
+            }
+        }
+
+        if ((refreshFlags & RF_BOUND) != 0) {
+            updateWorldBound();
+        }
+
+        assert refreshFlags == 0;
+    }
+
+    /**
+     * Instance this node
+     * every geometry of the sub scene graph of this node that is not already
+     * instanced is added to the instanced geometry of its mesh and material.
+     */
+    public void instance() {
+        // drop the instanced geometries that lost all their instances
+        for (InstancedGeometry geom : instancedGeometries.getArray()) {
+            if (geom.getInstanceCount() == 0) {
+                instancedGeometries.remove(geom);
+                geom.removeFromParent();
+            }
+        }
+
+        List<Geometry> list = new ArrayList<Geometry>();
+        gatherGeometries(list, this);
+        for (Geometry g : list) {
+            InstancedGeometry geom = findInstancedGeometry(g);
+            if (geom == null) {
+                geom = new InstancedGeometry(name + "-instanced" + instancedGeometries.size(), g.getMesh(), g.getMaterial());
+                geom.setShadowMode(g.getShadowMode());
+                geom.setQueueBucket(g.getQueueBucket());
+                geom.setUserData(UserData.JME_PHYSICSIGNORE, true);
+                instancedGeometries.add(geom);
+                attachChild(geom);
+            }
+            geom.addInstance(g);
+        }
+
+        logger.log(Level.FINE, "Instanced {0} geometries in {1} instanced geometries.", new Object[]{list.size(), instancedGeometries.size()});
+    }
+
+    /**
+     * @return the number of instanced geometries, one per mesh/material pair.
+     */
+    public int getInstancedGeometryCount() {
+        return instancedGeometries.size();
+    }
+
+    /**
+     * @param index the index of the instanced geometry
+     * @return the instanced geometry at the given index
+     */
+    public InstancedGeometry getInstancedGeometry(int index) {
+        return instancedGeometries.get(index);
+    }
+
+    //in case the detached spatial is a node, we uninstance all geometries in its subegraph
+    @Override
+    public Spatial detachChildAt(int index) {
+        Spatial s = super.detachChildAt(index);
+        if (s instanceof InstancedGeometry) {
+            InstancedGeometry geom = (InstancedGeometry) s;
+            if (instancedGeometries.remove(geom)) {
+                while (geom.getInstanceCount() > 0) {
+                    geom.getInstance(geom.getInstanceCount() - 1).unInstance();
+                }
+            }
+        } else if (s instanceof Node) {
+            unInstanceSubGraph(s);
+        }
+        return s;
+    }
+
+    /**
+     * recursively visit the subgraph and uninstance geometries
+     * @param s 
+     */
+    private void unInstanceSubGraph(Spatial s) {
+        if (s instanceof Node) {
+            for (Spatial sp : ((Node) s).getChildren()) {
+                unInstanceSubGraph(sp);
+            }
+        } else if (s instanceof Geometry) {
+            Geometry g = (Geometry) s;
+            if (g.isInstanced()) {
+                g.unInstance();
+            }
+        }
+    }
+
+    private void gatherGeometries(List<Geometry> list, Spatial n) {
+        if (n instanceof Geometry) {
+            if (n instanceof InstancedGeometry) {
+                return;
+            }
+            Geometry g = (Geometry) n;
+            if (!g.isInstanced() && !g.isBatched() && g.getBatchHint() != BatchHint.Never) {
+                if (g.getMaterial() == null) {
+                    throw new IllegalStateException("No material is set for Geometry: " + g.getName() + " please set a material before instancing");
+                }
+                list.add(g);
+            }
+        } else if (n instanceof Node) {
+            for (Spatial child : ((Node) n).getChildren()) {
+                if (child instanceof InstancedNode || child instanceof BatchNode) {
+                    continue;
+                }
+                gatherGeometries(list, child);
+            }
+        }
+    }
+
+    private InstancedGeometry findInstancedGeometry(Geometry g) {
+        Material m = g.getMaterial();
+        for (InstancedGeometry geom : instancedGeometries.getArray()) {
+            if (geom.getMesh() == g.getMesh()
+                    && geom.getShadowMode() == g.getShadowMode()
+                    && geom.getQueueBucket() == g.getQueueBucket()
+                    && (geom.getMaterial() == m || geom.getMaterial().contentEquals(m))) {
+                return geom;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Node clone(boolean cloneMaterials) {
+        InstancedNode clone = (InstancedNode) super.clone(cloneMaterials);
+        // the cloned instances are not instanced, instance them again
+        clone.instancedGeometries = new SafeArrayList<InstancedGeometry>(InstancedGeometry.class);
+        if (instancedGeometries.size() > 0) {
+            for (int i = clone.children.size() - 1; i >= 0; i--) {
+                if (clone.children.get(i) instanceof InstancedGeometry) {
+                    clone.detachChildAt(i);
+                }
+            }
+            clone.instance();
+        }
+        return clone;
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        super.write(ex);
+        OutputCapsule oc = ex.getCapsule(this);
+        oc.write(instancedGeometries.size() > 0, "instanced", false);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        super.read(im);
+        InputCapsule ic = im.getCapsule(this);
+        // the instanced geometries are rebuilt from the instances
+        for (int i = children.size() - 1; i >= 0; i--) {
+            if (children.get(i) instanceof InstancedGeometry) {
+                detachChildAt(i);
+            }
+        }
+        if (ic.readBoolean("instanced", false)) {
+            instance();
+        }
+    }
+}
@@ -66,6 +66,9 @@ public class Node extends Spatial implements Savable {
      */
     protected SafeArrayList<Spatial> children = new SafeArrayList<Spatial>(Spatial.class);
 
+    private boolean isStatic = false;
+    transient StaticDrawList staticDrawList;
+
     /**
      * Serialization only. Do not use.
      */
@@ -84,6 +87,59 @@ public class Node extends Spatial implements Savable {
         super(name);
     }
 
+    /**
+     * Marks this node as static.
+     * <p>
+     * The geometries of a static node are recorded once into a 
+     * {@link StaticDrawList}, which is added to the render queue each frame
+     * instead of walking the subtree and culling each of its spatials. 
+     * The geometries are only culled one by one when the bound of the node
+     * intersects the camera frustum. 
+     * <p>
+     * Use it for large subtrees whose structure rarely changes, such as the 
+     * environment of a level: the list is recorded again when children are 
+     * attached or detached anywhere in the subtree, when materials or
+     * controls are changed, and when any cull hint, queue bucket or shadow 
+     * mode is set.
+     * 
+     * @param isStatic True to record the draw list of this node.
+     */
+    public void setStatic(boolean isStatic) {
+        this.isStatic = isStatic;
+        if (!isStatic) {
+            staticDrawList = null;
+        }
+    }
+
+    /**
+     * @return True if the node is static.
+     * 
+     * @see #setStatic(boolean) 
+     */
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * Returns the draw list of this static node, recording it if it 
+     * is outdated. Called by the {@link com.jme3.renderer.RenderManager} when 
+     * rendering the node.
+     * 
+     * @return The draw list, or null if the node is not static.
+     * 
+     * @see #setStatic(boolean) 
+     */
+    public StaticDrawList getStaticDrawList() {
+        if (!isStatic) {
+            return null;
+        }
+        if (staticDrawList == null) {
+            staticDrawList = new StaticDrawList(this);
+        }
+        staticDrawList.update();
+        return staticDrawList;
+    }
+
     /**
      * 
      * <code>getQuantity</code> returns the number of children this node
@@ -153,8 +209,23 @@ public class Node extends Spatial implements Savable {
         }
     }
 
+    /**
+     * Updates the geometric state of this node and of the children
+     * that need it.
+     * <p>
+     * Any change requiring a refresh of a spatial also flags all of its
+     * ancestors, so subtrees whose root has no refresh flag set are
+     * skipped. The cost of the update is proportional to the
+     * part of the scene graph that changed since the last update, not 
+     * to the size of the scene graph.
+     */
     @Override
     public void updateGeometricState(){
+        if (refreshFlags == 0) {
+            // nothing changed in this subtree
+            return;
+        }
+
         if ((refreshFlags & RF_LIGHTLIST) != 0){
             updateWorldLightList();
         }
@@ -165,6 +236,7 @@ public class Node extends Spatial implements Savable {
             updateWorldTransforms();
         }
 
+        refreshFlags &= ~RF_CHILD_LIGHTLIST;
         if (!children.isEmpty()) {
             // the important part- make sure child geometric state is refreshed
             // first before updating own world bound. This saves
@@ -172,7 +244,9 @@ public class Node extends Spatial implements Savable {
             // NOTE 9/19/09
             // Although it does save a round trip,
             for (Spatial child : children.getArray()) {
-                child.updateGeometricState();
+                if (child.refreshFlags != 0) {
+                    child.updateGeometricState();
+                }
             }
         }            
 
@@ -247,6 +321,7 @@ public class Node extends Spatial implements Savable {
             // transform update down the tree-
             child.setTransformRefresh();
             child.setLightListRefresh();
+            setStaticDrawListRefresh();
             if (logger.isLoggable(Level.FINE)) {
                 logger.log(Level.FINE,"Child ({0}) attached to this node ({1})",
                         new Object[]{child.getName(), getName()});
@@ -281,6 +356,7 @@ public class Node extends Spatial implements Savable {
             children.add(index, child);
             child.setTransformRefresh();
             child.setLightListRefresh();
+            setStaticDrawListRefresh();
             if (logger.isLoggable(Level.FINE)) {
                 logger.log(Level.FINE,"Child ({0}) attached to this node ({1})",
                         new Object[]{child.getName(), getName()});
@@ -354,6 +430,7 @@ public class Node extends Spatial implements Savable {
             // since a child with a bound was detached;
             // our own bound will probably change.
             setBoundRefresh();
+            setStaticDrawListRefresh();
 
             // our world transform no longer influences the child.
             // XXX: Not neccessary? Since child will have transform updated
@@ -563,6 +640,7 @@ public class Node extends Spatial implements Savable {
     @Override
     public Node clone(boolean cloneMaterials){
         Node nodeClone = (Node) super.clone(cloneMaterials);
+        nodeClone.staticDrawList = null;
 //        nodeClone.children = new ArrayList<Spatial>();
 //        for (Spatial child : children){
 //            Spatial childClone = child.clone();
@@ -575,6 +653,7 @@ public class Node extends Spatial implements Savable {
     @Override
     public Spatial deepClone(){
         Node nodeClone = (Node) super.clone();
+        nodeClone.staticDrawList = null;
         nodeClone.children = new SafeArrayList<Spatial>(Spatial.class);
         for (Spatial child : children){
             Spatial childClone = child.deepClone();
@@ -588,6 +667,7 @@ public class Node extends Spatial implements Savable {
     public void write(JmeExporter e) throws IOException {
         super.write(e);
         e.getCapsule(this).writeSavableArrayList(new ArrayList(children), "children", null);
+        e.getCapsule(this).write(isStatic, "static", false);
     }
 
     @Override
@@ -607,6 +687,7 @@ public class Node extends Spatial implements Savable {
         }
         
         super.read(e);
+        isStatic = e.getCapsule(this).readBoolean("static", false);
     }
 
     @Override
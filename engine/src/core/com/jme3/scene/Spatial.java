@@ -118,7 +118,8 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
      */
     protected static final int RF_TRANSFORM = 0x01, // need light resort + combine transforms
                                RF_BOUND = 0x02,
-                               RF_LIGHTLIST = 0x04; // changes in light lists 
+                               RF_LIGHTLIST = 0x04, // changes in light lists 
+                               RF_CHILD_LIGHTLIST = 0x08; // some child need light list update
     
     protected CullHint cullHint = CullHint.Inherit;
     protected BatchHint batchHint = BatchHint.Inherit;
@@ -159,6 +160,12 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
      * updated to reflect the correct state.
      */
     protected transient int refreshFlags = 0;
+    /**
+     * Incremented when the cull hint, queue bucket or shadow mode of any
+     * spatial is set, as it can change the inherited values of a whole 
+     * subtree.
+     */
+    private static int hintsVersion = 0;
 
     /**
      * Serialization only. Do not use.
@@ -205,6 +212,41 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
 
     protected void setLightListRefresh() {
         refreshFlags |= RF_LIGHTLIST;
+
+        // mark the path to the root so that the update 
+        // can find this spatial without visiting the whole tree
+        Spatial p = parent;
+        while (p != null) {
+            if ((p.refreshFlags & (RF_LIGHTLIST | RF_CHILD_LIGHTLIST)) != 0) {
+                return;
+            }
+
+            p.refreshFlags |= RF_CHILD_LIGHTLIST;
+            p = p.parent;
+        }
+    }
+
+    static int getHintsVersion() {
+        return hintsVersion;
+    }
+
+    /**
+     * Indicate that the recorded draw lists of the static nodes containing 
+     * this spatial, if any, must be recorded again.
+     * 
+     * @see Node#setStatic(boolean) 
+     */
+    protected void setStaticDrawListRefresh() {
+        Spatial s = this;
+        while (s != null) {
+            if (s instanceof Node) {
+                StaticDrawList drawList = ((Node) s).staticDrawList;
+                if (drawList != null) {
+                    drawList.invalidate();
+                }
+            }
+            s = s.parent;
+        }
     }
 
     /**
@@ -600,6 +642,7 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
     public void addControl(Control control) {
         controls.add(control);
         control.setSpatial(this);
+        setStaticDrawListRefresh();
     }
 
     /**
@@ -612,6 +655,7 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
             if (controlType.isAssignableFrom(controls.get(i).getClass())) {
                 Control control = controls.remove(i);
                 control.setSpatial(null);
+                setStaticDrawListRefresh();
             }
         }
     }
@@ -629,6 +673,7 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
         boolean result = controls.remove(control);
         if (result) {
             control.setSpatial(null);
+            setStaticDrawListRefresh();
         }
 
         return result;
@@ -1354,7 +1399,10 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
      * spatial gets re-parented.
      */
     public void setCullHint(CullHint hint) {
-        cullHint = hint;
+        if (cullHint != hint) {
+            cullHint = hint;
+            hintsVersion++;
+        }
     }
 
     /**
@@ -1394,7 +1442,10 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
      *            The bucket to use for this Spatial.
      */
     public void setQueueBucket(RenderQueue.Bucket queueBucket) {
-        this.queueBucket = queueBucket;
+        if (this.queueBucket != queueBucket) {
+            this.queueBucket = queueBucket;
+            hintsVersion++;
+        }
     }
 
     /**
@@ -1408,7 +1459,10 @@ public abstract class Spatial implements Savable, Cloneable, Collidable, Cloneab
      * @param shadowMode The local shadow mode to set.
      */
     public void setShadowMode(RenderQueue.ShadowMode shadowMode) {
-        this.shadowMode = shadowMode;
+        if (this.shadowMode != shadowMode) {
+            this.shadowMode = shadowMode;
+            hintsVersion++;
+        }
     }
 
     /**
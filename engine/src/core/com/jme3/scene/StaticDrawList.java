@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.SoftwareOcclusionCuller;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Spatial.CullHint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <code>StaticDrawList</code> is the flattened content of a 
+ * {@link Node#setStatic(boolean) static node}.
+ * <p>
+ * The geometries of the subtree are recorded once, along with the queue 
+ * bucket, shadow mode and cull hint they inherit, and sorted by bucket 
+ * and material. Every frame, the list is added to the render queue without 
+ * walking the subtree again: geometries are only checked against the camera
+ * when the bound of the static node intersects the frustum, and only
+ * against the bound of the spatial that decides their visibility.
+ * <p>
+ * The list is recorded again when children are attached or detached, 
+ * when a material or a control of the subtree is changed, or when 
+ * the cull hint, queue bucket or shadow mode of any spatial is set.
+ * Transforms, meshes and material parameters are read when rendering, 
+ * changing them does not require recording the list again.
+ * 
+ * @see Node#getStaticDrawList() 
+ */
+public final class StaticDrawList {
+
+    private static final Comparator<Entry> entryComparator = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            if (e1.bucket != e2.bucket) {
+                return e1.bucket.ordinal() - e2.bucket.ordinal();
+            }
+            int id1 = ((Geometry) e1.spatial).getMaterial().getSortId();
+            int id2 = ((Geometry) e2.spatial).getMaterial().getSortId();
+            return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+        }
+    };
+
+    private static class Entry {
+        
+        final Spatial spatial;
+        final Bucket bucket;
+        final ShadowMode shadowMode;
+        /**
+         * The spatial whose bound decides if this one is visible,
+         * null if it is always visible once the static node is.
+         */
+        final Spatial cullSpatial;
+        final boolean cullGui;
+
+        Entry(Spatial spatial, Spatial cullSpatial) {
+            this.spatial = spatial;
+            this.bucket = spatial.getQueueBucket();
+            this.shadowMode = spatial.getShadowMode();
+            this.cullSpatial = cullSpatial;
+            this.cullGui = cullSpatial != null && cullSpatial.getQueueBucket() == Bucket.Gui;
+        }
+    }
+
+    private final Node node;
+    private boolean valid = false;
+    private boolean sortPending = false;
+    private int hintsVersion;
+    private final ArrayList<Entry> recordedGeometries = new ArrayList<Entry>();
+    private final ArrayList<Entry> recordedControls = new ArrayList<Entry>();
+
+    private Geometry[] geometries = new Geometry[0];
+    private Bucket[] buckets;
+    private ShadowMode[] shadowModes;
+    private Spatial[] cullSpatials;
+    private boolean[] cullGui;
+
+    private Spatial[] controlSpatials = new Spatial[0];
+    private Spatial[] controlCullSpatials;
+    private boolean[] controlCullGui;
+
+    private Geometry[] shadowCasters = new Geometry[0];
+
+    StaticDrawList(Node node) {
+        this.node = node;
+    }
+
+    /**
+     * Marks the list as outdated, it will be recorded again 
+     * the next time the node is rendered.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * @return True if the recorded list matches the subtree of the node.
+     */
+    public boolean isValid() {
+        return valid && hintsVersion == Spatial.getHintsVersion();
+    }
+
+    /**
+     * @return The number of geometries in the recorded list
+     */
+    public int getGeometryCount() {
+        return geometries.length;
+    }
+
+    void update() {
+        if (!isValid()) {
+            record(false);
+        } else if (sortPending) {
+            // recorded before the shaders of the materials were loaded
+            record(true);
+        }
+    }
+
+    private void record(boolean resort) {
+        hintsVersion = Spatial.getHintsVersion();
+
+        // visible geometries, the static node itself is culled by the caller
+        List<Spatial> children = node.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            recordVisible(children.get(i), null);
+        }
+        Collections.sort(recordedGeometries, entryComparator);
+        sortPending = false;
+        if (!resort) {
+            for (int i = 0; i < recordedGeometries.size(); i++) {
+                if (((Geometry) recordedGeometries.get(i).spatial).getMaterial().getSortId() == -1) {
+                    sortPending = true;
+                    break;
+                }
+            }
+        }
+
+        int numGeometries = recordedGeometries.size();
+        int numControls = recordedControls.size();
+        geometries = new Geometry[numGeometries];
+        buckets = new Bucket[numGeometries];
+        shadowModes = new ShadowMode[numGeometries];
+        cullSpatials = new Spatial[numGeometries];
+        cullGui = new boolean[numGeometries];
+        controlSpatials = new Spatial[numControls];
+        controlCullSpatials = new Spatial[numControls];
+        controlCullGui = new boolean[numControls];
+
+        for (int i = 0; i < numGeometries; i++) {
+            Entry e = recordedGeometries.get(i);
+            geometries[i] = (Geometry) e.spatial;
+            buckets[i] = e.bucket;
+            shadowModes[i] = e.shadowMode;
+            cullSpatials[i] = e.cullSpatial;
+            cullGui[i] = e.cullGui;
+        }
+        for (int i = 0; i < numControls; i++) {
+            Entry e = recordedControls.get(i);
+            controlSpatials[i] = e.spatial;
+            controlCullSpatials[i] = e.cullSpatial;
+            controlCullGui[i] = e.cullGui;
+        }
+        recordedGeometries.clear();
+        recordedControls.clear();
+
+        // shadow casters when the whole node is culled
+        ArrayList<Geometry> casters = new ArrayList<Geometry>();
+        recordShadowCasters(node, casters);
+        shadowCasters = casters.toArray(new Geometry[casters.size()]);
+
+        valid = true;
+    }
+
+    private void recordVisible(Spatial s, Spatial cullSpatial) {
+        CullHint hint = s.getCullHint();
+        if (hint == CullHint.Always) {
+            return;
+        }
+        if (hint == CullHint.Dynamic) {
+            cullSpatial = s;
+        }
+
+        if (s.getNumControls() > 0) {
+            recordedControls.add(new Entry(s, cullSpatial));
+        }
+        if (s instanceof Node) {
+            List<Spatial> children = ((Node) s).getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                recordVisible(children.get(i), cullSpatial);
+            }
+        } else if (s instanceof Geometry) {
+            if (((Geometry) s).getMaterial() == null) {
+                throw new IllegalStateException("No material is set for Geometry: " + s.getName());
+            }
+            recordedGeometries.add(new Entry(s, cullSpatial));
+        }
+    }
+
+    private void recordShadowCasters(Spatial s, List<Geometry> casters) {
+        if (s instanceof Node) {
+            List<Spatial> children = ((Node) s).getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                recordShadowCasters(children.get(i), casters);
+            }
+        } else if (s instanceof Geometry) {
+            ShadowMode shadowMode = s.getShadowMode();
+            if (shadowMode != ShadowMode.Off && shadowMode != ShadowMode.Receive) {
+                casters.add((Geometry) s);
+            }
+        }
+    }
+
+    private static boolean isVisible(Camera cam, int planeState, boolean inside, Spatial cullSpatial, boolean gui) {
+        if (inside || cullSpatial == null) {
+            return true;
+        }
+        BoundingVolume bound = cullSpatial.getWorldBound();
+        if (gui) {
+            return cam.containsGui(bound);
+        }
+        cam.setPlaneState(planeState);
+        return cam.contains(bound) != Camera.FrustumIntersect.Outside;
+    }
+
+    /**
+     * Adds the visible geometries of the list to the queue, and the 
+     * others to the shadow cast queue if they cast shadows. 
+     * Must be called after the static node passed 
+     * {@link Spatial#checkCulling(com.jme3.renderer.Camera) }.
+     * <p>
+     * If an occlusion culler is given, the geometries and the spatials 
+     * with controls that are in the frustum are also tested against its 
+     * occluders, as the scene graph traversal does. Geometries of the
+     * GUI bucket are not tested.
+     * 
+     * @param cam The camera used for culling
+     * @param queue The queue to add the geometries to
+     * @param controlRenders Receives the visible spatials that have controls, 
+     * the caller must call {@link Spatial#runControlRender(com.jme3.renderer.RenderManager, com.jme3.renderer.ViewPort) }
+     * on them.
+     * @param occlusionCuller The occlusion culler, already rasterized 
+     * for the camera, or null.
+     * @return The number of geometries culled by the occlusion culler.
+     */
+    public int cull(Camera cam, RenderQueue queue, List<Spatial> controlRenders,
+                    SoftwareOcclusionCuller occlusionCuller) {
+        int planeState = cam.getPlaneState();
+        boolean inside = node.getLastFrustumIntersection() == Camera.FrustumIntersect.Inside;
+
+        for (int i = 0; i < controlSpatials.length; i++) {
+            if (isVisible(cam, planeState, inside, controlCullSpatials[i], controlCullGui[i])
+                    && (occlusionCuller == null || !occlusionCuller.isOccluded(controlSpatials[i]))) {
+                controlRenders.add(controlSpatials[i]);
+            }
+        }
+
+        int numOccluded = 0;
+        for (int i = 0; i < geometries.length; i++) {
+            Geometry g = geometries[i];
+            boolean visible = isVisible(cam, planeState, inside, cullSpatials[i], cullGui[i]);
+            if (visible && occlusionCuller != null && buckets[i] != Bucket.Gui
+                    && occlusionCuller.isOccluded(g)) {
+                visible = false;
+                numOccluded++;
+            }
+            if (visible) {
+                queue.addToQueue(g, buckets[i]);
+                if (shadowModes[i] != ShadowMode.Off) {
+                    queue.addToShadowQueue(g, shadowModes[i]);
+                }
+            } else if (shadowModes[i] != ShadowMode.Off && shadowModes[i] != ShadowMode.Receive) {
+                queue.addToShadowQueue(g, ShadowMode.Cast);
+            }
+        }
+        cam.setPlaneState(planeState);
+        return numOccluded;
+    }
+
+    /**
+     * Adds all the shadow casting geometries of the list to the shadow 
+     * cast queue, used when the static node is not in the camera frustum.
+     * 
+     * @param queue The queue to add the geometries to
+     */
+    public void addShadowCasters(RenderQueue queue) {
+        for (int i = 0; i < shadowCasters.length; i++) {
+            queue.addToShadowQueue(shadowCasters[i], ShadowMode.Cast);
+        }
+    }
+}
@@ -205,6 +205,13 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
          * either an int or float buffer due to shader attribute types restrictions.
          */
         HWBoneIndex,
+
+        /**
+         * Per-instance world matrices, used with instancing (16 floats, 
+         * column major). The buffer must be {@link #setInstanced(boolean) instanced}
+         * and is declared as a mat4 attribute in the shader.
+         */
+        InstanceData,
     }
 
     /**
@@ -310,6 +317,11 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         }
     }
 
+    /**
+     * The maximum number of modified ranges tracked between two uploads.
+     */
+    public static final int MAX_DIRTY_RANGES = 8;
+
     protected int offset = 0;
     protected int lastLimit = 0;
     protected int stride = 0;
@@ -324,7 +336,19 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
     protected Type bufType;
     protected Format format;
     protected boolean normalized = false;
+    protected int instanceSpan = 0;
     protected transient boolean dataSizeChanged = false;
+    /**
+     * sorted start and end elements of the ranges modified since the 
+     * last upload, empty if the whole buffer must be uploaded
+     */
+    protected transient int[] dirtyRanges;
+    protected transient int numDirtyRanges = 0;
+    /**
+     * position of the data in the renderer's streaming buffer,
+     * -1 if the data was not uploaded there
+     */
+    protected transient long streamPosition = -1;
 
     /**
      * Creates an empty, uninitialized buffer.
@@ -364,7 +388,7 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
             throw new AssertionError();
         }
         // Are components between 1 and 4?
-        if (components < 1 || components > 4) {
+        if (components < 1 || components > getMaxComponents()) {
             throw new AssertionError();
         }
         
@@ -434,6 +458,40 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         this.stride = stride;
     }
 
+    /**
+     * @return True if the data is per instance rather than per vertex.
+     * 
+     * @see #setInstanced(boolean) 
+     */
+    public boolean isInstanced() {
+        return instanceSpan > 0;
+    }
+
+    /**
+     * Sets whether the data is per instance, in which case an element of
+     * the buffer is used for each instance rendered instead of each vertex.
+     * Instanced buffers are not part of a {@link Mesh}, they are given to 
+     * {@link Renderer#renderMesh(com.jme3.scene.Mesh, int, int, com.jme3.scene.VertexBuffer[]) }.
+     * 
+     * @param instanced True if the data is per instance
+     */
+    public void setInstanced(boolean instanced) {
+        this.instanceSpan = instanced ? 1 : 0;
+    }
+
+    /**
+     * @return The number of instances that use each element of the buffer,
+     * 0 if the buffer is not instanced.
+     */
+    public int getInstanceSpan() {
+        return instanceSpan;
+    }
+
+    private int getMaxComponents() {
+        // a matrix is stored in 4 consecutive attributes
+        return bufType == Type.InstanceData ? 16 : 4;
+    }
+
     /**
      * Returns the raw internal data buffer used by this VertexBuffer.
      * This buffer is not safe to call from multiple threads since buffers
@@ -584,8 +642,8 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         if (data.isReadOnly()) 
             throw new IllegalArgumentException( "VertexBuffer data cannot be read-only." );
 
-        if (components < 1 || components > 4)
-            throw new IllegalArgumentException("components must be between 1 and 4");
+        if (components < 1 || components > getMaxComponents())
+            throw new IllegalArgumentException("components must be between 1 and " + getMaxComponents());
 
         this.data = data;
         this.components = components;
@@ -640,10 +698,135 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         return dataSizeChanged;
     }
 
+    /**
+     * Indicates that only a range of elements was modified in the data
+     * buffer, the renderer will only upload the modified ranges if the rest 
+     * of the buffer is up to date. Overlapping or adjacent ranges are merged,
+     * and the closest ranges are merged when there are more than 
+     * {@link #MAX_DIRTY_RANGES}.
+     * 
+     * @param startElement The first modified element
+     * @param numElements The number of modified elements
+     */
+    public void setUpdateNeeded(int startElement, int numElements) {
+        if (startElement < 0 || numElements < 0 || (startElement + numElements) * components > data.capacity()) {
+            throw new IndexOutOfBoundsException("Invalid element range: " + startElement + ", " + numElements);
+        }
+        if (numElements == 0) {
+            return;
+        }
+        if (!isUpdateNeeded()) {
+            numDirtyRanges = 0;
+        } else if (numDirtyRanges == 0) {
+            // the whole buffer is already going to be uploaded
+            return;
+        }
+        if (dirtyRanges == null) {
+            dirtyRanges = new int[MAX_DIRTY_RANGES * 2 + 2];
+        }
+        int start = startElement;
+        int end = startElement + numElements;
+
+        // ranges [first, last[ overlap or touch the new range
+        int first = 0;
+        while (first < numDirtyRanges && dirtyRanges[first * 2 + 1] < start) {
+            first++;
+        }
+        int last = first;
+        while (last < numDirtyRanges && dirtyRanges[last * 2] <= end) {
+            last++;
+        }
+        if (last > first) {
+            start = Math.min(start, dirtyRanges[first * 2]);
+            end = Math.max(end, dirtyRanges[last * 2 - 1]);
+        }
+        int removed = last - first - 1;
+        System.arraycopy(dirtyRanges, last * 2, dirtyRanges, (last - removed) * 2, (numDirtyRanges - last) * 2);
+        numDirtyRanges -= removed;
+        dirtyRanges[first * 2] = start;
+        dirtyRanges[first * 2 + 1] = end;
+
+        if (numDirtyRanges > MAX_DIRTY_RANGES) {
+            // merge the two ranges separated by the smallest gap
+            int closest = 0;
+            for (int i = 1; i < numDirtyRanges - 1; i++) {
+                if (dirtyRanges[i * 2 + 2] - dirtyRanges[i * 2 + 1] < dirtyRanges[closest * 2 + 2] - dirtyRanges[closest * 2 + 1]) {
+                    closest = i;
+                }
+            }
+            dirtyRanges[closest * 2 + 1] = dirtyRanges[closest * 2 + 3];
+            System.arraycopy(dirtyRanges, closest * 2 + 4, dirtyRanges, closest * 2 + 2, (numDirtyRanges - closest - 2) * 2);
+            numDirtyRanges--;
+        }
+        super.setUpdateNeeded();
+    }
+
+    @Override
+    public void setUpdateNeeded() {
+        super.setUpdateNeeded();
+        numDirtyRanges = 0;
+    }
+
+    /**
+     * Returns true if only some ranges of the elements must be sent to the GPU.
+     * Internal use only.
+     * 
+     * @return true if the update only concerns ranges of elements
+     * 
+     * @see #setUpdateNeeded(int, int) 
+     */
+    public boolean hasDirtyRanges() {
+        return numDirtyRanges > 0 && !dataSizeChanged;
+    }
+
+    /**
+     * @return The number of ranges modified since the last upload. Internal use only.
+     */
+    public int getNumDirtyRanges() {
+        return numDirtyRanges;
+    }
+
+    /**
+     * @return The first element of the given modified range. Internal use only.
+     */
+    public int getDirtyRangeStart(int range) {
+        return dirtyRanges[range * 2];
+    }
+
+    /**
+     * @return The element after the last element of the given modified
+     * range. Internal use only.
+     */
+    public int getDirtyRangeEnd(int range) {
+        return dirtyRanges[range * 2 + 1];
+    }
+
+    /**
+     * Returns the position of the data of this buffer in the renderer's 
+     * {@link com.jme3.renderer.StreamBufferAllocator streaming buffer}, 
+     * or -1 if it was not uploaded there. Internal use only.
+     * 
+     * @return the position in the streaming buffer, or -1
+     */
+    public long getStreamPosition() {
+        return streamPosition;
+    }
+
+    /**
+     * Sets the position of the data of this buffer in the renderer's
+     * streaming buffer. Internal use only.
+     * 
+     * @param streamPosition the position in the streaming buffer, or -1
+     */
+    public void setStreamPosition(long streamPosition) {
+        this.streamPosition = streamPosition;
+    }
+
     @Override
     public void clearUpdateNeeded(){
         super.clearUpdateNeeded();
         dataSizeChanged = false;
+        numDirtyRanges = 0;
     }
 
     /**
@@ -949,6 +1132,8 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         VertexBuffer vb = (VertexBuffer) super.clone();
         vb.handleRef = new Object();
         vb.id = -1;
+        vb.dirtyRanges = null;
+        vb.streamPosition = -1;
         if (data != null) {
             // Make sure to pass a read-only buffer to clone so that
             // the position information doesn't get clobbered by another
@@ -981,6 +1166,7 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         vb.handleRef = new Object();
         vb.id = -1;
         vb.normalized = normalized;
+        vb.instanceSpan = instanceSpan;
         vb.offset = offset;
         vb.stride = stride;
         vb.updateNeeded = true;
@@ -1004,6 +1190,7 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
     public void resetObject() {
 //        assert this.id != -1;
         this.id = -1;
+        this.streamPosition = -1;
         setUpdateNeeded();
     }
 
@@ -1036,6 +1223,7 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         oc.write(bufType, "buffer_type", null);
         oc.write(format, "format", Format.Float);
         oc.write(normalized, "normalized", false);
+        oc.write(instanceSpan, "instanceSpan", 0);
         oc.write(offset, "offset", 0);
         oc.write(stride, "stride", 0);
 
@@ -1070,6 +1258,7 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         bufType = ic.readEnum("buffer_type", Type.class, null);
         format = ic.readEnum("format", Format.class, Format.Float);
         normalized = ic.readBoolean("normalized", false);
+        instanceSpan = ic.readInt("instanceSpan", 0);
         offset = ic.readInt("offset", 0);
         stride = ic.readInt("stride", 0);
         componentsLength = components * format.getComponentSize();
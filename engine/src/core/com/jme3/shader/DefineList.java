@@ -37,28 +37,82 @@ import com.jme3.material.TechniqueDef;
 import com.jme3.util.ListMap;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * <code>DefineList</code> holds the preprocessor defines that are prepended
+ * to the sources of a shader.
+ * <p>
+ * Every define name is mapped to a small integer ID, which is shared
+ * by all define lists (see {@link #getDefineId(java.lang.String) }). 
+ * The list stores which IDs are set in a bitset and their values in an array
+ * indexed by ID, so setting, reading and comparing defines never has
+ * to compare define names. The hash code is kept up to date on every change.
+ */
 public class DefineList implements Savable, Cloneable {
 
     private static final String ONE = "1";
     
-    private TreeMap<String, String> defines = new TreeMap<String, String>();
+    private static final long[] NO_BITS = new long[0];
+    private static final String[] NO_VALUES = new String[0];
+    
+    private static final ConcurrentHashMap<String, Integer> defineIds = new ConcurrentHashMap<String, Integer>();
+    private static final ArrayList<String> defineNames = new ArrayList<String>();
+    
+    private long[] bits = NO_BITS;
+    private String[] values = NO_VALUES;
+    private int size = 0;
+    private int hash = 0;
     private String compiled = null;
-    private int cachedHashCode = 0;
+
+    /**
+     * Returns the ID of the define with the given name, assigning 
+     * a new one if the name was never used before.
+     * 
+     * @param name The name of the define
+     * @return The ID of the define
+     */
+    public static int getDefineId(String name) {
+        Integer id = defineIds.get(name);
+        if (id == null) {
+            synchronized (defineNames) {
+                id = defineIds.get(name);
+                if (id == null) {
+                    id = defineNames.size();
+                    defineNames.add(name);
+                    defineIds.put(name, id);
+                }
+            }
+        }
+        return id;
+    }
+    
+    /**
+     * Returns the name of the define with the given ID.
+     * 
+     * @param id The ID of the define, as returned by {@link #getDefineId(java.lang.String) }
+     * @return The name of the define
+     */
+    public static String getDefineName(int id) {
+        synchronized (defineNames) {
+            return defineNames.get(id);
+        }
+    }
+    
+    private static int hashOf(int id, String value) {
+        int h = (id + 1) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) ^ value.hashCode();
+    }
 
     public void write(JmeExporter ex) throws IOException{
         OutputCapsule oc = ex.getCapsule(this);
 
-        String[] keys = new String[defines.size()];
-        String[] vals = new String[defines.size()];
-
-        int i = 0;
-        for (Map.Entry<String, String> define : defines.entrySet()){
-            keys[i] = define.getKey();
-            vals[i] = define.getValue();
-            i++;
+        String[] keys = getSortedNames();
+        String[] vals = new String[keys.length];
+        for (int i = 0; i < keys.length; i++){
+            vals[i] = values[getDefineId(keys[i])];
         }
 
         oc.write(keys, "keys", null);
@@ -71,27 +125,43 @@ public class DefineList implements Savable, Cloneable {
         String[] keys = ic.readStringArray("keys", null);
         String[] vals = ic.readStringArray("vals", null);
         for (int i = 0; i < keys.length; i++){
-            defines.put(keys[i], vals[i]);
+            put(getDefineId(keys[i]), vals[i]);
         }
     }
 
     public void clear() {
-        defines.clear();
-        compiled = "";
-        cachedHashCode = 0;
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(bits, 0);
+        Arrays.fill(values, null);
+        size = 0;
+        hash = 0;
+        compiled = null;
     }
 
     public String get(String key){
-        return defines.get(key);
+        Integer id = defineIds.get(key);
+        return id != null ? get(id) : null;
+    }
+    
+    public String get(int id) {
+        return id < values.length ? values[id] : null;
+    }
+    
+    /**
+     * @return The number of defines in the list
+     */
+    public int size() {
+        return size;
     }
     
     @Override
     public DefineList clone() {
         try {
             DefineList clone = (DefineList) super.clone();
-            clone.cachedHashCode = 0;
-            clone.compiled = null;
-            clone.defines = (TreeMap<String, String>) defines.clone();
+            clone.bits = bits.clone();
+            clone.values = values.clone();
             return clone;
         } catch (CloneNotSupportedException ex) {
             throw new AssertionError();
@@ -99,77 +169,114 @@ public class DefineList implements Savable, Cloneable {
     }
 
     public boolean set(String key, VarType type, Object val){    
+        return set(getDefineId(key), type, val);
+    }
+    
+    public boolean set(int id, VarType type, Object val){    
         if (val == null){
-            defines.remove(key);
-            compiled = null;
-            cachedHashCode = 0;
-            return true;
+            return remove(id);
         }
 
         switch (type){
             case Boolean:
                 if (((Boolean) val).booleanValue()) {
-                    // same literal, != will work
-                    if (defines.put(key, ONE) != ONE) {
-                        compiled = null;
-                        cachedHashCode = 0;
-                        return true;
-                    }
-                } else if (defines.containsKey(key)) {
-                    defines.remove(key);
-                    compiled = null;
-                    cachedHashCode = 0;
-                    return true;
+                    return put(id, ONE);
+                } else {
+                    return remove(id);
                 }
-                
-                break;
             case Float:
             case Int:
+                String current = get(id);
                 String newValue = val.toString();
-                String original = defines.put(key, newValue);
-                if (!val.equals(original)) {
-                    compiled = null;
-                    cachedHashCode = 0;
-                    return true;            
-                }
-                break;
+                return !newValue.equals(current) && put(id, newValue);
             default:
-                // same literal, != will work
-                if (defines.put(key, ONE) != ONE) {  
-                    compiled = null;
-                    cachedHashCode = 0;
-                    return true;            
-                }
-                break;
+                return put(id, ONE);
         }
-        
-        return false;
     }
 
     public boolean remove(String key){   
-        if (defines.remove(key) != null) {
-            compiled = null;
-            cachedHashCode = 0;
-            return true;
+        Integer id = defineIds.get(key);
+        return id != null && remove(id);
+    }
+    
+    public boolean remove(int id){   
+        if (id >= values.length || values[id] == null) {
+            return false;
         }
-        return false;
+        hash -= hashOf(id, values[id]);
+        values[id] = null;
+        bits[id >>> 6] &= ~(1L << id);
+        size--;
+        compiled = null;
+        return true;
+    }
+    
+    private boolean put(int id, String value) {
+        if (id >= values.length) {
+            int length = Math.max(id + 1, values.length * 2);
+            values = Arrays.copyOf(values, length);
+            bits = Arrays.copyOf(bits, (length + 63) >>> 6);
+        }
+        String current = values[id];
+        if (current != null) {
+            // same literal is the common case for booleans
+            if (current == value || current.equals(value)) {
+                return false;
+            }
+            hash -= hashOf(id, current);
+        } else {
+            bits[id >>> 6] |= 1L << id;
+            size++;
+        }
+        values[id] = value;
+        hash += hashOf(id, value);
+        compiled = null;
+        return true;
     }
 
     public void addFrom(DefineList other){    
-        if (other == null) {
+        if (other == null || other.size == 0) {
             return;
         }
-        compiled = null;
-        cachedHashCode = 0;
-        defines.putAll(other.defines);
+        if (size == 0 && values.length == 0) {
+            bits = other.bits.clone();
+            values = other.values.clone();
+            size = other.size;
+            hash = other.hash;
+            compiled = other.compiled;
+            return;
+        }
+        long[] otherBits = other.bits;
+        for (int w = 0; w < otherBits.length; w++) {
+            long word = otherBits[w];
+            while (word != 0) {
+                int id = (w << 6) + Long.numberOfTrailingZeros(word);
+                put(id, other.values[id]);
+                word &= word - 1;
+            }
+        }
+    }
+    
+    private String[] getSortedNames() {
+        String[] names = new String[size];
+        int i = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                names[i++] = getDefineName((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        Arrays.sort(names);
+        return names;
     }
 
     public String getCompiled(){
         if (compiled == null){
             StringBuilder sb = new StringBuilder();
-            for (Map.Entry<String, String> entry : defines.entrySet()){
-                sb.append("#define ").append(entry.getKey()).append(" ");
-                sb.append(entry.getValue()).append('\n');
+            for (String name : getSortedNames()){
+                sb.append("#define ").append(name).append(" ");
+                sb.append(values[getDefineId(name)]).append('\n');
             }
             compiled = sb.toString();
         }
@@ -179,28 +286,48 @@ public class DefineList implements Savable, Cloneable {
     @Override
     public boolean equals(Object obj) {
         final DefineList other = (DefineList) obj;
-        return defines.equals(other.defines);
+        if (size != other.size || hash != other.hash) {
+            return false;
+        }
+        long[] shorter = bits.length < other.bits.length ? bits : other.bits;
+        long[] longer = shorter == bits ? other.bits : bits;
+        for (int w = 0; w < longer.length; w++) {
+            long word = w < shorter.length ? shorter[w] : 0;
+            if (word != longer[w]) {
+                return false;
+            }
+            while (word != 0) {
+                int id = (w << 6) + Long.numberOfTrailingZeros(word);
+                String value = values[id];
+                String otherValue = other.values[id];
+                if (value != otherValue && !value.equals(otherValue)) {
+                    return false;
+                }
+                word &= word - 1;
+            }
+        }
+        return true;
     }
     
     public boolean equalsParams(ListMap params, TechniqueDef def) {
         
-        int size = 0;
+        int count = 0;
 
         for(int i = 0; i < params.size() ; i++ ) {
             MatParam param = (MatParam)params.getValue(i);
-            String key = def.getShaderParamDefine(param.getName());
-            if (key != null) {
+            int id = def.getShaderParamDefineId(param.getName());
+            if (id != -1) {
                 Object val = param.getValue();
                 if (val != null) {
-
+                    String current = get(id);
+                    
                     switch (param.getVarType()) {
                     case Boolean: {
-                        String current = defines.get(key);
                         if (((Boolean) val).booleanValue()) {
-                            if (current == null || current != ONE) {
+                            if (!ONE.equals(current)) {
                                 return false;
                             }
-                            size++;
+                            count++;
                         } else {
                             if (current != null) {
                                 return false;
@@ -210,19 +337,17 @@ public class DefineList implements Savable, Cloneable {
                         break;
                     case Float:
                     case Int: {
-                        String newValue = val.toString();
-                        String current = defines.get(key);
-                        if (!newValue.equals(current)) {
+                        if (current == null || !current.equals(val.toString())) {
                             return false;
                         }
-                        size++;
+                        count++;
                     }
                         break;
                     default: {
-                        if (!defines.containsKey(key)) {
+                        if (current == null) {
                             return false;
                         }
-                        size++;
+                        count++;
                     }
                         break;
                     }
@@ -232,31 +357,23 @@ public class DefineList implements Savable, Cloneable {
             }
         }
 
-        if (size != defines.size()) {
-            return false;
-        }
-
-        return true;
+        return count == size;
     }
     
     @Override
     public int hashCode() {
-        if (cachedHashCode == 0) {
-            cachedHashCode = defines.hashCode();
-        }
-        return cachedHashCode;
+        return hash;
     }
 
     @Override
     public String toString(){
         StringBuilder sb = new StringBuilder();
-        int i = 0;
-        for (Map.Entry<String, String> entry : defines.entrySet()) {
-            sb.append(entry.getKey()).append("=").append(entry.getValue());
-            if (i != defines.size() - 1) {
+        String[] names = getSortedNames();
+        for (int i = 0; i < names.length; i++) {
+            sb.append(names[i]).append("=").append(values[getDefineId(names[i])]);
+            if (i != names.length - 1) {
                 sb.append(", ");
             }
-            i++;
         }
         return sb.toString();
     }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.shader.Shader.ShaderSource;
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <code>ProgramBinaryCache</code> stores linked shader programs on disk,
+ * so that the shaders do not have to be compiled again the next time the
+ * application is started.
+ * <p>
+ * Program binaries are only valid for the driver that created them, 
+ * entries are keyed by a hash of the shader sources, their defines 
+ * and a string identifying the driver. An entry that fails to load 
+ * is simply compiled again and replaced.
+ * <p>
+ * The cache is used by renderers supporting program binaries, it is 
+ * enabled with {@link com.jme3.system.AppSettings#setShaderCacheDirectory(java.lang.String) }.
+ * 
+ * @see Shader
+ */
+public class ProgramBinaryCache {
+
+    private static final Logger logger = Logger.getLogger(ProgramBinaryCache.class.getName());
+    private static final int MAGIC = 0x4A4D4542; // "JMEB"
+    private static final String EXTENSION = ".bin";
+
+    private final File directory;
+
+    /**
+     * A program binary, as returned by the driver.
+     */
+    public static final class Binary {
+
+        private final int format;
+        private final byte[] data;
+
+        public Binary(int format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+
+        /**
+         * @return the driver specific format of the binary
+         */
+        public int getFormat() {
+            return format;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    /**
+     * Creates a cache storing the program binaries in the given directory.
+     * The directory is created when the first binary is saved.
+     * 
+     * @param directory The directory to use
+     */
+    public ProgramBinaryCache(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Computes the key of the given shader.
+     * 
+     * @param shader The shader
+     * @param driver A string identifying the driver, e.g. the vendor,
+     * renderer and version strings of the OpenGL context.
+     * @return The key to use to load or save the shader binary
+     */
+    public String computeKey(Shader shader, String driver) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new UnsupportedOperationException("SHA-1 is not available", ex);
+        }
+        update(digest, driver);
+        for (ShaderSource source : shader.getSources()) {
+            update(digest, source.getType().name());
+            update(digest, source.getLanguage());
+            update(digest, source.getDefines());
+            update(digest, source.getSource());
+        }
+
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String str) {
+        if (str != null) {
+            try {
+                digest.update(str.getBytes("UTF-8"));
+            } catch (UnsupportedEncodingException ex) {
+                throw new AssertionError(ex);
+            }
+        }
+        // separator, so that the concatenation of strings is not ambiguous
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Loads the binary stored with the given key.
+     * 
+     * @param key The key of the binary
+     * @return the binary, or null if it is not in the cache or cannot be read.
+     */
+    public Binary load(String key) {
+        File file = new File(directory, key + EXTENSION);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC) {
+                logger.log(Level.WARNING, "Invalid program binary: {0}", file);
+                return null;
+            }
+            int format = in.readInt();
+            int length = in.readInt();
+            if (length <= 0 || length != file.length() - 12) {
+                logger.log(Level.WARNING, "Truncated program binary: {0}", file);
+                return null;
+            }
+            byte[] data = new byte[length];
+            in.readFully(data);
+            return new Binary(format, data);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot read program binary " + file, ex);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores a binary in the cache, replacing the previous binary 
+     * with the same key if any.
+     * 
+     * @param key The key of the binary
+     * @param binary The binary to store
+     */
+    public void save(String key, Binary binary) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.log(Level.WARNING, "Cannot create shader cache directory: {0}", directory);
+            return;
+        }
+
+        // write to a temporary file first so that other instances
+        // never read a partially written binary
+        File file = new File(directory, key + EXTENSION);
+        File temp = new File(directory, key + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(binary.getFormat());
+            out.writeInt(binary.getData().length);
+            out.write(binary.getData());
+            out.close();
+            out = null;
+            if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+                logger.log(Level.WARNING, "Cannot write program binary: {0}", file);
+                temp.delete();
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot write program binary " + file, ex);
+            close(out);
+            temp.delete();
+        }
+    }
+
+    /**
+     * Removes the binary with the given key from the cache, this should be
+     * called when a binary was rejected by the driver.
+     * 
+     * @param key The key of the binary
+     */
+    public void remove(String key) {
+        new File(directory, key + EXTENSION).delete();
+    }
+
+    private static void close(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+}
@@ -126,11 +126,24 @@ public class Uniform extends ShaderVariable {
         }
     }
     
+    /**
+     * Resets the value of the uniform to zero. The uniform is only flagged
+     * for update if its value was not already zero.
+     */
     public void clearValue(){
-        updateNeeded = true;
-
-        if (multiData != null){           
+        if (multiData != null){
             multiData.clear();
+            boolean zero = true;
+            while (multiData.remaining() > 0){
+                if (multiData.get() != 0f){
+                    zero = false;
+                    break;
+                }
+            }
+            multiData.clear();
+            if (zero){
+                return;
+            }
 
             while (multiData.remaining() > 0){
                 ZERO_BUF.clear();
@@ -139,38 +152,140 @@ public class Uniform extends ShaderVariable {
             }
 
             multiData.clear();
-
+            updateNeeded = true;
             return;
         }
 
         if (varType == null) {
+            updateNeeded = true;
             return;
         }
             
         switch (varType){
             case Int:
-                this.value = ZERO_INT;
+                setClearedValue(ZERO_INT);
                 break;
             case Boolean:
-                this.value = Boolean.FALSE;
+                setClearedValue(Boolean.FALSE);
                 break;
             case Float:
-                this.value = ZERO_FLT; 
+                setClearedValue(ZERO_FLT);
                 break;
             case Vector2:
-                this.value = Vector2f.ZERO;
+                if (value == null) {
+                    value = new Vector2f();
+                    updateNeeded = true;
+                } else if (!Vector2f.ZERO.equals(value)) {
+                    ((Vector2f) value).set(0, 0);
+                    updateNeeded = true;
+                }
                 break;
             case Vector3:
-                this.value = Vector3f.ZERO;
+                if (value == null) {
+                    value = new Vector3f();
+                    updateNeeded = true;
+                } else if (!Vector3f.ZERO.equals(value)) {
+                    ((Vector3f) value).set(0, 0, 0);
+                    updateNeeded = true;
+                }
                 break;
             case Vector4:
-                this.value = Vector4f.ZERO;
+                if (value == null) {
+                    value = new Vector4f();
+                    updateNeeded = true;
+                } else if (value instanceof ColorRGBA) {
+                    ColorRGBA color = (ColorRGBA) value;
+                    if (color.r != 0 || color.g != 0 || color.b != 0 || color.a != 0) {
+                        color.set(0, 0, 0, 0);
+                        updateNeeded = true;
+                    }
+                } else if (value instanceof Quaternion) {
+                    Quaternion quat = (Quaternion) value;
+                    if (quat.getX() != 0 || quat.getY() != 0 || quat.getZ() != 0 || quat.getW() != 0) {
+                        quat.set(0, 0, 0, 0);
+                        updateNeeded = true;
+                    }
+                } else if (!Vector4f.ZERO.equals(value)) {
+                    ((Vector4f) value).set(0, 0, 0, 0);
+                    updateNeeded = true;
+                }
                 break;
             default:
                 // won't happen because those are either textures
                 // or multidata types
         }
     }
+
+    private void setClearedValue(Object zero) {
+        if (!zero.equals(value)) {
+            value = zero;
+            updateNeeded = true;
+        }
+    }
+
+    /**
+     * Copies a vector value into the uniform.
+     * The uniform keeps its own copy so that the next value 
+     * can be compared with it, even if the caller modifies the object.
+     * 
+     * @return false if the value was already set
+     */
+    private boolean setVectorValue(Object value) {
+        if (this.value == null || this.value.getClass() != value.getClass()) {
+            if (value instanceof Vector2f) {
+                this.value = ((Vector2f) value).clone();
+            } else if (value instanceof Vector3f) {
+                this.value = ((Vector3f) value).clone();
+            } else if (value instanceof Vector4f) {
+                this.value = ((Vector4f) value).clone();
+            } else if (value instanceof ColorRGBA) {
+                this.value = ((ColorRGBA) value).clone();
+            } else if (value instanceof Quaternion) {
+                this.value = ((Quaternion) value).clone();
+            } else {
+                this.value = value;
+            }
+            return true;
+        }
+
+        if (this.value.equals(value)) {
+            return false;
+        }
+
+        if (value instanceof Vector2f) {
+            ((Vector2f) this.value).set((Vector2f) value);
+        } else if (value instanceof Vector3f) {
+            ((Vector3f) this.value).set((Vector3f) value);
+        } else if (value instanceof Vector4f) {
+            ((Vector4f) this.value).set((Vector4f) value);
+        } else if (value instanceof ColorRGBA) {
+            ((ColorRGBA) this.value).set((ColorRGBA) value);
+        } else if (value instanceof Quaternion) {
+            ((Quaternion) this.value).set((Quaternion) value);
+        } else {
+            this.value = value;
+        }
+        return true;
+    }
+
+    private static boolean matrixEquals(FloatBuffer fb, Matrix4f m) {
+        // data is stored in column major order
+        return fb.get(0) == m.m00 && fb.get(1) == m.m10 && fb.get(2) == m.m20 && fb.get(3) == m.m30
+            && fb.get(4) == m.m01 && fb.get(5) == m.m11 && fb.get(6) == m.m21 && fb.get(7) == m.m31
+            && fb.get(8) == m.m02 && fb.get(9) == m.m12 && fb.get(10) == m.m22 && fb.get(11) == m.m32
+            && fb.get(12) == m.m03 && fb.get(13) == m.m13 && fb.get(14) == m.m23 && fb.get(15) == m.m33;
+    }
+
+    private static boolean matrixEquals(FloatBuffer fb, Matrix3f m) {
+        for (int col = 0; col < 3; col++) {
+            for (int row = 0; row < 3; row++) {
+                if (fb.get(col * 3 + row) != m.get(row, col)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
     
     public void setValue(VarType type, Object value){
         if (location == LOC_NOT_DEFINED) {
@@ -192,6 +307,8 @@ public class Uniform extends ShaderVariable {
                 Matrix3f m3 = (Matrix3f) value;
                 if (multiData == null) {
                     multiData = BufferUtils.createFloatBuffer(9);
+                } else if (varType == type && matrixEquals(multiData, m3)) {
+                    return;
                 }
                 m3.fillFloatBuffer(multiData, true);
                 multiData.clear();
@@ -200,6 +317,8 @@ public class Uniform extends ShaderVariable {
                 Matrix4f m4 = (Matrix4f) value;
                 if (multiData == null) {
                     multiData = BufferUtils.createFloatBuffer(16);
+                } else if (varType == type && matrixEquals(multiData, m4)) {
+                    return;
                 }
                 m4.fillFloatBuffer(multiData, true);
                 multiData.clear();
@@ -292,6 +411,13 @@ public class Uniform extends ShaderVariable {
                 }
                 this.value = value;
                 break;
+            case Vector2:
+            case Vector3:
+            case Vector4:
+                if (!setVectorValue(value)) {
+                    return;
+                }
+                break;
             default:
                 this.value = value;
                 break;
@@ -44,7 +44,9 @@ import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
 import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.texture.FrameBuffer;
+import com.jme3.texture.Image.Format;
 import java.io.IOException;
+import java.util.ArrayList;
 
 /**
  *
@@ -57,6 +59,7 @@ public abstract class AbstractShadowFilter<T extends AbstractShadowRenderer> ext
 
     protected T shadowRenderer;
     protected ViewPort viewPort;
+    private Material upsampleMaterial;
 
     /**
      * Abstract class constructor
@@ -78,7 +81,9 @@ public abstract class AbstractShadowFilter<T extends AbstractShadowRenderer> ext
 
     @Override
     protected Material getMaterial() {
-        return material;
+        //when the shadows are rendered at a lower resolution the filter 
+        //only upsamples them on the scene
+        return upsampleMaterial != null ? upsampleMaterial : material;
     }
 
     @Override
@@ -111,7 +116,8 @@ public abstract class AbstractShadowFilter<T extends AbstractShadowRenderer> ext
 
     @Override
     protected void postFrame(RenderManager renderManager, ViewPort viewPort, FrameBuffer prevFilterBuffer, FrameBuffer sceneBuffer) {
-        if(!shadowRenderer.skipPostPass){
+        //the scaled shadow pass sets them itself, it's rendered before postFrame
+        if(upsampleMaterial == null && !shadowRenderer.skipPostPass){
             shadowRenderer.setPostShadowParams();
         }
     }
@@ -121,6 +127,36 @@ public abstract class AbstractShadowFilter<T extends AbstractShadowRenderer> ext
         shadowRenderer.needsfallBackMaterial = true;
         shadowRenderer.initialize(renderManager, vp);
         this.viewPort = vp;
+
+        if (getResolutionScale() < 1f) {
+            //the shadow factor is rendered at a lower resolution in a pass,
+            //and upsampled on the scene by the filter material
+            material.setBoolean("OutputShadowFactor", true);
+            material.clearParam("Texture");
+            material.clearParam("NumSamples");
+            Pass shadowPass = new Pass() {
+
+                @Override
+                public boolean requiresDepthAsTexture() {
+                    return true;
+                }
+
+                @Override
+                public void beforeRender() {
+                    if (!shadowRenderer.skipPostPass) {
+                        shadowRenderer.setPostShadowParams();
+                    }
+                }
+            };
+            shadowPass.init(renderManager.getRenderer(), getScaledSize(w), getScaledSize(h), Format.RGBA8, Format.Depth, 1, material);
+            postRenderPasses = new ArrayList<Pass>();
+            postRenderPasses.add(shadowPass);
+            upsampleMaterial = createUpsampleMaterial(manager, vp, shadowPass.getRenderedTexture());
+        } else {
+            material.clearParam("OutputShadowFactor");
+            postRenderPasses = null;
+            upsampleMaterial = null;
+        }
     }
 
     /**
@@ -223,6 +259,53 @@ public abstract class AbstractShadowFilter<T extends AbstractShadowRenderer> ext
         return shadowRenderer.getEdgeFilteringMode();
     }
 
+    /**
+     * Enables caching of the static shadow casters, see
+     * {@link AbstractShadowRenderer#setShadowCacheEnabled(boolean)}
+     *
+     * @param enabled true to cache the static shadow casters
+     */
+    public void setShadowCacheEnabled(boolean enabled) {
+        shadowRenderer.setShadowCacheEnabled(enabled);
+    }
+
+    /**
+     * returns true if the static shadow casters are cached
+     *
+     * @return true if the shadow cache is enabled
+     */
+    public boolean isShadowCacheEnabled() {
+        return shadowRenderer.isShadowCacheEnabled();
+    }
+
+    /**
+     * Sets how far, in shadow map texels, the shadow camera can move before
+     * the cached static casters are rendered again, see
+     * {@link AbstractShadowRenderer#setShadowCacheThreshold(float)}
+     *
+     * @param texels the distance in texels
+     */
+    public void setShadowCacheThreshold(float texels) {
+        shadowRenderer.setShadowCacheThreshold(texels);
+    }
+
+    /**
+     * returns the shadow cache threshold
+     *
+     * @return the distance in texels
+     */
+    public float getShadowCacheThreshold() {
+        return shadowRenderer.getShadowCacheThreshold();
+    }
+
+    /**
+     * Forces the cached static casters to be rendered again on the next
+     * frame
+     */
+    public void invalidateShadowCache() {
+        shadowRenderer.invalidateShadowCache();
+    }
+
     @Override
     public void write(JmeExporter ex) throws IOException {
         super.write(ex);
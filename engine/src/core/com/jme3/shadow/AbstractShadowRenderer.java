@@ -33,9 +33,11 @@ package com.jme3.shadow;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingSphere;
 import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
@@ -45,6 +47,7 @@ import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Matrix4f;
 import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
 import com.jme3.post.SceneProcessor;
 import com.jme3.renderer.Camera;
 import com.jme3.renderer.Caps;
@@ -56,6 +59,7 @@ import com.jme3.renderer.queue.OpaqueComparator;
 import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.renderer.queue.RenderQueue.ShadowMode;
 import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.debug.WireFrustum;
 import com.jme3.texture.FrameBuffer;
@@ -113,6 +117,34 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
      * true to skip the post pass when there are no shadow casters
      */
     protected boolean skipPostPass;
+    /**
+     * depth of the static shadow casters for each shadow map, null if
+     * caching is disabled
+     */
+    protected ShadowCache[] shadowCaches;
+    protected float shadowCacheThreshold = 1f;
+    private GeometryList staticOccluders = new GeometryList(new OpaqueComparator());
+    private GeometryList dynamicOccluders = new GeometryList(new OpaqueComparator());
+    private final Matrix4f tmpInvViewProj = new Matrix4f();
+    private final Vector4f tmpCorner = new Vector4f();
+    private final Vector4f tmpProj = new Vector4f();
+    /**
+     * the atlas holding the shadow maps, null if the renderer has its own
+     * shadow maps
+     */
+    protected ShadowAtlas shadowAtlas;
+    private Texture2D[] ownShadowMaps;
+
+    /**
+     * Depth of the static shadow casters rendered with a given shadow camera.
+     */
+    protected static class ShadowCache {
+
+        protected FrameBuffer frameBuffer;
+        protected Camera camera;
+        protected int signature;
+        protected boolean valid = false;
+    }
 
     
     /**
@@ -378,6 +410,15 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
             return;
         }
 
+        if (shadowAtlas != null) {
+            shadowAtlas.update(this, occluders, sceneReceivers);
+            skipPostPass = !shadowAtlas.isReady(this);
+            if (flushQueues) {
+                occluders.clear();
+            }
+            return;
+        }
+
         updateShadowCams(viewPort.getCamera());
 
         Renderer r = renderManager.getRenderer();
@@ -409,6 +450,11 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
         shadowMapOccluders = getOccludersToRender(shadowMapIndex, occluders, receivers, shadowMapOccluders);
         Camera shadowCam = getShadowCam(shadowMapIndex);
 
+        if (shadowCaches != null && renderManager.getRenderer().getCaps().contains(Caps.FrameBufferBlit)) {
+            renderCachedShadowMap(shadowMapIndex, shadowCam);
+            return;
+        }
+
         //saving light view projection matrix for this split            
         lightViewProjectionsMatrices[shadowMapIndex].set(shadowCam.getViewProjectionMatrix());
         renderManager.setCamera(shadowCam, false);
@@ -419,6 +465,245 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
         // render shadow casters to shadow map
         viewPort.getQueue().renderShadowQueue(shadowMapOccluders, renderManager, shadowCam, true);
     }
+
+    /**
+     * Renders the static casters to the cache of the shadow map if it is 
+     * outdated, then copies the cache to the shadow map and renders 
+     * the dynamic casters on top of it.
+     */
+    private void renderCachedShadowMap(int shadowMapIndex, Camera shadowCam) {
+        ShadowCache cache = shadowCaches[shadowMapIndex];
+        Renderer r = renderManager.getRenderer();
+
+        for (int i = 0; i < shadowMapOccluders.size(); i++) {
+            Geometry geom = shadowMapOccluders.get(i);
+            if (isStaticCaster(geom)) {
+                staticOccluders.add(geom);
+            } else {
+                dynamicOccluders.add(geom);
+            }
+        }
+        shadowMapOccluders.clear();
+
+        int signature = getSignature(staticOccluders);
+        boolean moved = !cache.valid || getCacheDisplacement(cache.camera, shadowCam) > shadowCacheThreshold;
+        if (!moved) {
+            // keep using the camera the cached depth was rendered with
+            shadowCam.copyFrom(cache.camera);
+        }
+
+        lightViewProjectionsMatrices[shadowMapIndex].set(shadowCam.getViewProjectionMatrix());
+        renderManager.setCamera(shadowCam, false);
+
+        if (moved || signature != cache.signature) {
+            r.setFrameBuffer(cache.frameBuffer);
+            r.clearBuffers(false, true, false);
+            viewPort.getQueue().renderShadowQueue(staticOccluders, renderManager, shadowCam, true);
+            cache.camera.copyFrom(shadowCam);
+            cache.signature = signature;
+            cache.valid = true;
+        } else {
+            staticOccluders.clear();
+        }
+
+        r.copyFrameBuffer(cache.frameBuffer, shadowFB[shadowMapIndex], true);
+        r.setFrameBuffer(shadowFB[shadowMapIndex]);
+        viewPort.getQueue().renderShadowQueue(dynamicOccluders, renderManager, shadowCam, true);
+    }
+
+    /**
+     * Returns true if the given shadow caster is static, its depth is then 
+     * cached when shadow caching is enabled. By default, the geometries 
+     * of {@link Node#setStatic(boolean) static nodes} are static casters.
+     *
+     * @param geom a shadow caster
+     * @return true if the caster is static
+     */
+    protected boolean isStaticCaster(Geometry geom) {
+        for (Node node = geom.getParent(); node != null; node = node.getParent()) {
+            if (node.isStatic()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the identities and world transforms of the given casters,
+     * regardless of their order.
+     */
+    static int getSignature(GeometryList casters) {
+        int signature = casters.size();
+        for (int i = 0; i < casters.size(); i++) {
+            Geometry geom = casters.get(i);
+            signature += 31 * System.identityHashCode(geom) + geom.getWorldMatrix().hashCode();
+        }
+        return signature;
+    }
+
+    /**
+     * Returns how far, in shadow map texels, the corners of the shadow
+     * camera frustum move when seen from the cached camera.
+     */
+    private float getCacheDisplacement(Camera cached, Camera shadowCam) {
+        shadowCam.getViewProjectionMatrix().invert(tmpInvViewProj);
+        Matrix4f cachedViewProj = cached.getViewProjectionMatrix();
+        float max = 0;
+        for (int i = 0; i < 8; i++) {
+            float x = (i & 1) == 0 ? -1 : 1;
+            float y = (i & 2) == 0 ? -1 : 1;
+            float z = (i & 4) == 0 ? -1 : 1;
+            tmpCorner.set(x, y, z, 1);
+            tmpInvViewProj.mult(tmpCorner, tmpProj);
+            tmpCorner.set(tmpProj.divideLocal(tmpProj.w));
+            cachedViewProj.mult(tmpCorner, tmpProj);
+            if (tmpProj.w <= 0) {
+                return Float.POSITIVE_INFINITY;
+            }
+            tmpProj.divideLocal(tmpProj.w);
+            max = Math.max(max, Math.abs(tmpProj.x - x));
+            max = Math.max(max, Math.abs(tmpProj.y - y));
+            max = Math.max(max, Math.abs(tmpProj.z - z));
+        }
+        return max * shadowMapSize * 0.5f;
+    }
+
+    /**
+     * Enables caching of the static shadow casters. The depth of the 
+     * {@link #isStaticCaster(com.jme3.scene.Geometry) static casters} is 
+     * kept in a copy of each shadow map, and only rendered again when a 
+     * static caster is added, removed or moved, or when the shadow camera 
+     * moves by more than the {@link #setShadowCacheThreshold(float) threshold}.
+     * Each frame the cached depth is copied to the shadow map and the
+     * dynamic casters are rendered on top of it.
+     * <p>
+     * As long as the cache is used, the shadow camera it was rendered with
+     * is kept, so the shadow map may cover the view a bit less accurately.
+     * Requires {@link Caps#FrameBufferBlit} and doubles the memory used
+     * by the shadow maps, without it the shadow maps are fully rendered
+     * every frame.
+     *
+     * @param enabled true to cache the static shadow casters
+     */
+    public void setShadowCacheEnabled(boolean enabled) {
+        if (!enabled) {
+            shadowCaches = null;
+        } else if (shadowCaches == null) {
+            shadowCaches = new ShadowCache[nbShadowMaps];
+            int size = (int) shadowMapSize;
+            for (int i = 0; i < nbShadowMaps; i++) {
+                ShadowCache cache = new ShadowCache();
+                cache.frameBuffer = new FrameBuffer(size, size, 1);
+                cache.frameBuffer.setDepthTexture(new Texture2D(size, size, Format.Depth));
+                //DO NOT COMMENT THIS (it prevent the OSX incomplete read buffer crash)
+                cache.frameBuffer.setColorTexture(dummyTex);
+                cache.camera = new Camera(size, size);
+                shadowCaches[i] = cache;
+            }
+        }
+    }
+
+    /**
+     * returns true if the static shadow casters are cached
+     *
+     * @see #setShadowCacheEnabled(boolean)
+     * @return true if the shadow cache is enabled
+     */
+    public boolean isShadowCacheEnabled() {
+        return shadowCaches != null;
+    }
+
+    /**
+     * Sets how far, in shadow map texels, the shadow camera can move before
+     * the cached static casters are rendered again. The default is 1.
+     *
+     * @param texels the distance in texels
+     */
+    public void setShadowCacheThreshold(float texels) {
+        this.shadowCacheThreshold = texels;
+    }
+
+    /**
+     * returns the shadow cache threshold
+     *
+     * @see #setShadowCacheThreshold(float)
+     * @return the distance in texels
+     */
+    public float getShadowCacheThreshold() {
+        return shadowCacheThreshold;
+    }
+
+    /**
+     * Forces the cached static casters to be rendered again on the next 
+     * frame, for changes that are not detected, such as a mesh being 
+     * modified.
+     */
+    public void invalidateShadowCache() {
+        if (shadowCaches != null) {
+            for (ShadowCache cache : shadowCaches) {
+                cache.valid = false;
+            }
+        }
+    }
+
+    /**
+     * Renders the shadow maps in the given shadow atlas instead of the 
+     * shadow maps of this renderer, or back in its own shadow maps when
+     * null. The shadow cache is not used with an atlas.
+     *
+     * @param atlas the shadow atlas or null
+     */
+    protected void setShadowAtlas(ShadowAtlas atlas) {
+        if (atlas == shadowAtlas) {
+            return;
+        }
+        if (shadowAtlas != null) {
+            shadowAtlas.remove(this);
+            System.arraycopy(ownShadowMaps, 0, shadowMaps, 0, nbShadowMaps);
+            for (int i = 0; i < nbShadowMaps; i++) {
+                Camera shadowCam = getShadowCam(i);
+                shadowCam.resize((int) shadowMapSize, (int) shadowMapSize, false);
+                shadowCam.setViewPort(0, 1, 0, 1);
+            }
+        } else {
+            ownShadowMaps = shadowMaps.clone();
+        }
+
+        shadowAtlas = atlas;
+        if (atlas != null) {
+            atlas.add(this);
+            Arrays.fill(shadowMaps, atlas.getShadowMap());
+            postshadowMat.setFloat("ShadowMapSize", atlas.getSize());
+        } else {
+            postshadowMat.setFloat("ShadowMapSize", shadowMapSize);
+        }
+        for (int i = 0; i < nbShadowMaps; i++) {
+            postshadowMat.setTexture(shadowMapStringCache[i], shadowMaps[i]);
+            dispPic[i].setTexture(assetManager, shadowMaps[i], false);
+        }
+        setShadowCompareMode(shadowCompareMode);
+    }
+
+    /**
+     * returns the shadow atlas holding the shadow maps
+     *
+     * @return the shadow atlas or null
+     */
+    protected ShadowAtlas getShadowAtlas() {
+        return shadowAtlas;
+    }
+
+    /**
+     * Returns a bounding sphere of the volume lit by the light, used by the
+     * {@link ShadowAtlas} to prioritize the lights. The default returns null,
+     * the light is then considered as covering the whole view.
+     *
+     * @param store the sphere to store the result in
+     * @return the bound or null
+     */
+    protected BoundingSphere getLightBound(BoundingSphere store) {
+        return null;
+    }
     boolean debugfrustums = false;
 
     public void displayFrustum() {
@@ -519,7 +804,7 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
         //iterating through the mat cache and setting the parameters
         for (Material mat : matCache) {
 
-            mat.setFloat("ShadowMapSize", shadowMapSize);
+            mat.setFloat("ShadowMapSize", shadowAtlas != null ? shadowAtlas.getSize() : shadowMapSize);
 
             for (int j = 0; j < nbShadowMaps; j++) {
                 mat.setMatrix4(lightViewStringCache[j], lightViewProjectionsMatrices[j]);
@@ -555,6 +840,9 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
     }
 
     public void preFrame(float tpf) {
+        if (shadowAtlas != null) {
+            shadowAtlas.preFrame(this);
+        }
     }
 
     public void cleanup() {
@@ -644,6 +932,8 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
         init(assetManager, nbShadowMaps, (int) shadowMapSize);
         edgesThickness = ic.readFloat("edgesThickness", 1.0f);
         postshadowMat.setFloat("PCFEdge", edgesThickness);
+        shadowCacheThreshold = ic.readFloat("shadowCacheThreshold", 1f);
+        setShadowCacheEnabled(ic.readBoolean("shadowCacheEnabled", false));
 
     }
 
@@ -661,5 +951,7 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, Savable
         oc.write(shadowCompareMode, "shadowCompareMode", CompareMode.Hardware);
         oc.write(flushQueues, "flushQueues", false);
         oc.write(edgesThickness, "edgesThickness", 1.0f);
+        oc.write(shadowCaches != null, "shadowCacheEnabled", false);
+        oc.write(shadowCacheThreshold, "shadowCacheThreshold", 1f);
     }
 }
\ No newline at end of file
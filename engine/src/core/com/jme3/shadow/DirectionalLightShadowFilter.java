@@ -173,6 +173,24 @@ public class DirectionalLightShadowFilter extends AbstractShadowFilter<Direction
         shadowRenderer.setEnabledStabilization(stabilize);        
     }    
 
+    /**
+     * Enables the hierarchical culling of the shadow casters. (default is 
+     * false)
+     * @see DirectionalLightShadowRenderer#setHierarchicalCasterCulling(boolean) 
+     * @param enabled true to walk the scene graph for each split
+     */
+    public void setHierarchicalCasterCulling(boolean enabled) {
+        shadowRenderer.setHierarchicalCasterCulling(enabled);
+    }
+
+    /**
+     * returns true if the shadow casters are culled hierarchically
+     * @return 
+     */
+    public boolean isHierarchicalCasterCulling() {
+        return shadowRenderer.isHierarchicalCasterCulling();
+    }
+
     @Override
     public void write(JmeExporter ex) throws IOException {
         super.write(ex);
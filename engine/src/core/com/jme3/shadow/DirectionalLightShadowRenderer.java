@@ -70,6 +70,8 @@ public class DirectionalLightShadowRenderer extends AbstractShadowRenderer {
     protected Vector2f fadeInfo;
     protected float fadeLength;
     private boolean stabilize = true;
+    private ShadowCasterCuller casterCuller;
+    private Vector3f[][] splitPoints;
 
     /**
      * Used for serialzation use
@@ -166,6 +168,23 @@ public class DirectionalLightShadowRenderer extends AbstractShadowRenderer {
                 break;
         }
 
+        if (casterCuller != null) {
+            cullSplitCasters(viewCam);
+        }
+    }
+
+    /**
+     * Selects the casters and computes the projection of every split at
+     * once, see {@link #setHierarchicalCasterCulling(boolean)}
+     */
+    private void cullSplitCasters(Camera viewCam) {
+        for (int i = 0; i < nbShadowMaps; i++) {
+            ShadowUtil.updateFrustumPoints(viewCam, splitsArray[i], splitsArray[i + 1], 1.0f, splitPoints[i]);
+        }
+        shadowCam.setProjectionMatrix(null);
+        shadowCam.setFrustum(-1, 1, -1, 1, 1, -1);
+        casterCuller.cull(viewPort.getScenes(), sceneReceivers, shadowCam.getViewProjectionMatrix(),
+                shadowCam.getProjectionMatrix(), splitPoints, stabilize ? shadowMapSize : 0);
     }
     
     @Override
@@ -174,6 +193,13 @@ public class DirectionalLightShadowRenderer extends AbstractShadowRenderer {
         // update frustum points based on current camera and split
         ShadowUtil.updateFrustumPoints(viewPort.getCamera(), splitsArray[shadowMapIndex], splitsArray[shadowMapIndex + 1], 1.0f, points);
 
+        if (casterCuller != null) {
+            // already culled when updating the shadow cams
+            shadowCam.setProjectionMatrix(casterCuller.getProjection(shadowMapIndex).clone());
+            shadowMapOccluders.addAll(casterCuller.getCasters(shadowMapIndex));
+            return shadowMapOccluders;
+        }
+
         //Updating shadow cam with curent split frustra        
         ShadowUtil.updateShadowCamera(sceneOccluders, sceneReceivers, shadowCam, points, shadowMapOccluders, stabilize?shadowMapSize:0);
 
@@ -301,6 +327,49 @@ public class DirectionalLightShadowRenderer extends AbstractShadowRenderer {
     public void setEnabledStabilization(boolean stabilize) {
         this.stabilize = stabilize;
     }
+
+    /**
+     * Enables the hierarchical culling of the shadow casters. (default is 
+     * false) Instead of testing every caster of the shadow queue against 
+     * every split, the scene graph is walked for each split and whole 
+     * subtrees are skipped when their bound can't cast a shadow on any 
+     * visible receiver of the split. The splits are culled concurrently 
+     * when several processors are available.
+     * This is faster for scenes with many casters organized in nodes, but
+     * spatials with a null world bound never cast shadows.
+     * @param enabled true to walk the scene graph for each split
+     */
+    public void setHierarchicalCasterCulling(boolean enabled) {
+        if (enabled && casterCuller == null) {
+            int numThreads = Math.min(nbShadowMaps, Runtime.getRuntime().availableProcessors());
+            casterCuller = new ShadowCasterCuller(numThreads);
+            splitPoints = new Vector3f[nbShadowMaps][8];
+            for (int i = 0; i < nbShadowMaps; i++) {
+                for (int j = 0; j < 8; j++) {
+                    splitPoints[i][j] = new Vector3f();
+                }
+            }
+        } else if (!enabled && casterCuller != null) {
+            casterCuller.cleanup();
+            casterCuller = null;
+        }
+    }
+
+    /**
+     * returns true if the shadow casters are culled hierarchically
+     * @return 
+     */
+    public boolean isHierarchicalCasterCulling() {
+        return casterCuller != null;
+    }
+
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        if (casterCuller != null) {
+            casterCuller.cleanup();
+        }
+    }
     
     @Override
     public void read(JmeImporter im) throws IOException {
@@ -312,6 +381,7 @@ public class DirectionalLightShadowRenderer extends AbstractShadowRenderer {
         fadeInfo = (Vector2f) ic.readSavable("fadeInfo", null);
         fadeLength = ic.readFloat("fadeLength", 0f);
         init(nbShadowMaps, (int) shadowMapSize);
+        setHierarchicalCasterCulling(ic.readBoolean("hierarchicalCasterCulling", false));
     }
 
     @Override
@@ -323,5 +393,6 @@ public class DirectionalLightShadowRenderer extends AbstractShadowRenderer {
         oc.write(light, "light", null);
         oc.write(fadeInfo, "fadeInfo", null);
         oc.write(fadeLength, "fadeLength", 0f);
+        oc.write(casterCuller != null, "hierarchicalCasterCulling", false);
     }
 }
@@ -85,6 +85,24 @@ public class PointLightShadowFilter extends AbstractShadowFilter<PointLightShado
         shadowRenderer.setLight(light);
     }
 
+    /**
+     * Renders the shadow maps in a shadow atlas shared with other point and
+     * spot light shadows.
+     * @see PointLightShadowRenderer#setShadowAtlas(com.jme3.shadow.ShadowAtlas) 
+     * @param atlas the shadow atlas or null
+     */
+    public void setShadowAtlas(ShadowAtlas atlas) {
+        shadowRenderer.setShadowAtlas(atlas);
+    }
+
+    /**
+     * returns the shadow atlas holding the shadow maps
+     * @return the shadow atlas or null
+     */
+    public ShadowAtlas getShadowAtlas() {
+        return shadowRenderer.getShadowAtlas();
+    }
+
     @Override
     public void write(JmeExporter ex) throws IOException {
         super.write(ex);
@@ -32,6 +32,7 @@
 package com.jme3.shadow;
 
 import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingSphere;
 import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
@@ -160,6 +161,13 @@ public class PointLightShadowRenderer extends AbstractShadowRenderer {
         material.setVector3("LightPos", light.getPosition());
     }
 
+    @Override
+    protected BoundingSphere getLightBound(BoundingSphere store) {
+        store.setCenter(light.getPosition());
+        store.setRadius(light.getRadius());
+        return store;
+    }
+
     /**
      * gets the point light used to cast shadows with this processor
      *
@@ -178,6 +186,30 @@ public class PointLightShadowRenderer extends AbstractShadowRenderer {
         this.light = light;
     }
 
+    /**
+     * Renders the shadow maps of this renderer in a shadow atlas shared 
+     * with other point and spot light shadow renderers, see 
+     * {@link ShadowAtlas}. Set it back to null to release the tiles of the
+     * atlas and use the own shadow maps of this renderer again.
+     *
+     * @param atlas the shadow atlas or null
+     */
+    @Override
+    public void setShadowAtlas(ShadowAtlas atlas) {
+        super.setShadowAtlas(atlas);
+    }
+
+    /**
+     * returns the shadow atlas holding the shadow maps
+     *
+     * @see #setShadowAtlas(com.jme3.shadow.ShadowAtlas)
+     * @return the shadow atlas or null
+     */
+    @Override
+    public ShadowAtlas getShadowAtlas() {
+        return super.getShadowAtlas();
+    }
+
     @Override
     public void read(JmeImporter im) throws IOException {
         super.read(im);
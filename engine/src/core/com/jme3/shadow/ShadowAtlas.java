@@ -0,0 +1,687 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shadow;
+
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.math.FastMath;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector4f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.Renderer;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.OpaqueComparator;
+import com.jme3.texture.FrameBuffer;
+import com.jme3.texture.Image.Format;
+import com.jme3.texture.Texture2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * A single depth texture shared by the shadow maps of several
+ * {@link PointLightShadowRenderer point} and 
+ * {@link SpotLightShadowRenderer spot} light shadow renderers.<br>
+ * Each light gets one square tile of the atlas per shadow map, and only a
+ * limited number of shadow maps, the update budget, are rendered each frame:
+ * <ul>
+ * <li>lights are updated by priority: the part of the screen covered by the
+ * volume they light, doubled when the light or the casters in its range
+ * changed since the last update;</li>
+ * <li>the budget left is used to refresh the shadow maps of the lights that
+ * did not change, in a round-robin fashion;</li>
+ * <li>the size of the tiles follows the screen coverage of the light. Tiles
+ * grow as soon as the budget allows to render all the shadow maps of the
+ * light in the same frame, and shrink once the light needs tiles four times
+ * smaller;</li>
+ * <li>when the atlas is full, the lights with the lowest priority lose
+ * their tiles and cast no shadows until there is room again.</li>
+ * </ul>
+ * All the shadow renderers sharing an atlas must be added to the same
+ * ViewPort and use the same compare and edge filtering modes. The atlas is
+ * updated when the first of them processes the render queue.
+ * <pre>
+ * ShadowAtlas atlas = new ShadowAtlas(4096);
+ * PointLightShadowRenderer plsr = new PointLightShadowRenderer(assetManager, 512);
+ * plsr.setLight(pointLight);
+ * plsr.setShadowAtlas(atlas);
+ * viewPort.addProcessor(plsr);
+ * </pre>
+ */
+public class ShadowAtlas {
+
+    /**
+     * border in texels left around each shadow map, so that filtering never
+     * samples the neighbouring tiles
+     */
+    static final int GUTTER = 4;
+    /**
+     * priority factor of the lights that changed since their last update
+     */
+    static final float CHANGE_WEIGHT = 2f;
+    private final int size;
+    private final FrameBuffer frameBuffer;
+    private final Texture2D shadowMap;
+    private int minTileSize;
+    private int maxTileSize;
+    private int updateBudget = 6;
+    private final ArrayList<Slot> slots = new ArrayList<Slot>();
+    private final ArrayList<Slot> queue = new ArrayList<Slot>();
+    private final ArrayList<TreeSet<Integer>> freeTiles = new ArrayList<TreeSet<Integer>>();
+    private final BoundingSphere lightBound = new BoundingSphere();
+    private final Matrix4f tileMatrix = new Matrix4f();
+    private long frame = 0;
+    private boolean updated = false;
+    /**
+     * number of shadow maps rendered during the last update
+     */
+    int renderedFaces;
+
+    /**
+     * The tiles of the atlas used by a shadow renderer.
+     */
+    static class Slot {
+
+        final AbstractShadowRenderer renderer;
+        final int[] tiles;
+        final Vector4f[] tileRects;
+        final int[] signatures;
+        final int[] pendingSignatures;
+        final long[] renderedFrames;
+        final boolean[] scheduled;
+        final GeometryList[] occluders;
+        int tileSize = 0;
+        int desiredSize;
+        float coverage;
+        float priority;
+        long activeFrame = -1;
+
+        Slot(AbstractShadowRenderer renderer) {
+            this.renderer = renderer;
+            int nbShadowMaps = renderer.nbShadowMaps;
+            tiles = new int[nbShadowMaps];
+            tileRects = new Vector4f[nbShadowMaps];
+            signatures = new int[nbShadowMaps];
+            pendingSignatures = new int[nbShadowMaps];
+            renderedFrames = new long[nbShadowMaps];
+            scheduled = new boolean[nbShadowMaps];
+            occluders = new GeometryList[nbShadowMaps];
+            for (int i = 0; i < nbShadowMaps; i++) {
+                tileRects[i] = new Vector4f();
+                renderedFrames[i] = -1;
+                occluders[i] = new GeometryList(new OpaqueComparator());
+            }
+        }
+    }
+
+    private static final Comparator<Slot> priorityComparator = new Comparator<Slot>() {
+        public int compare(Slot s1, Slot s2) {
+            return Float.compare(s2.priority, s1.priority);
+        }
+    };
+
+    /**
+     * Creates a shadow atlas.
+     *
+     * @param size the width and height of the atlas in texels, a power of 
+     * two (2048, 4096, etc...)
+     */
+    public ShadowAtlas(int size) {
+        if (!FastMath.isPowerOfTwo(size)) {
+            throw new IllegalArgumentException("The shadow atlas size must be a power of two");
+        }
+        this.size = size;
+        minTileSize = Math.min(64, size);
+        maxTileSize = Math.max(size / 4, minTileSize);
+
+        frameBuffer = new FrameBuffer(size, size, 1);
+        shadowMap = new Texture2D(size, size, Format.Depth);
+        frameBuffer.setDepthTexture(shadowMap);
+        //DO NOT COMMENT THIS (it prevent the OSX incomplete read buffer crash)
+        frameBuffer.setColorTexture(new Texture2D(size, size, Format.RGBA8));
+
+        for (int i = 0; i <= log2(size); i++) {
+            freeTiles.add(new TreeSet<Integer>());
+        }
+        freeTiles.get(log2(size)).add(0);
+    }
+
+    /**
+     * returns the width and height of the atlas in texels
+     *
+     * @return the atlas size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * returns the depth texture holding the shadow maps
+     *
+     * @return the shadow map texture
+     */
+    public Texture2D getShadowMap() {
+        return shadowMap;
+    }
+
+    /**
+     * Sets the maximum number of shadow maps rendered per frame. A point
+     * light has six shadow maps and a spot light one. The default is 6.
+     * <p>
+     * The shadow maps of a light getting new tiles are all rendered in the
+     * same frame, so a light with more shadow maps than the budget is
+     * still updated, but alone in its frame.
+     *
+     * @param updateBudget the number of shadow maps, at least 1
+     */
+    public void setUpdateBudget(int updateBudget) {
+        if (updateBudget < 1) {
+            throw new IllegalArgumentException("The update budget must be at least 1");
+        }
+        this.updateBudget = updateBudget;
+    }
+
+    /**
+     * returns the maximum number of shadow maps rendered per frame
+     *
+     * @see #setUpdateBudget(int)
+     * @return the update budget
+     */
+    public int getUpdateBudget() {
+        return updateBudget;
+    }
+
+    /**
+     * Sets the range of the tile sizes given to the lights. The defaults are
+     * 64 and a quarter of the atlas size.
+     *
+     * @param minTileSize the smallest tile size, a power of two
+     * @param maxTileSize the largest tile size, a power of two between the
+     * smallest tile size and the atlas size
+     */
+    public void setTileSizeRange(int minTileSize, int maxTileSize) {
+        if (!FastMath.isPowerOfTwo(minTileSize) || !FastMath.isPowerOfTwo(maxTileSize)) {
+            throw new IllegalArgumentException("Tile sizes must be powers of two");
+        }
+        if (minTileSize <= 2 * GUTTER || minTileSize > maxTileSize || maxTileSize > size) {
+            throw new IllegalArgumentException("Invalid tile size range " + minTileSize + " - " + maxTileSize);
+        }
+        this.minTileSize = minTileSize;
+        this.maxTileSize = maxTileSize;
+    }
+
+    /**
+     * returns the smallest tile size
+     *
+     * @return the size in texels
+     */
+    public int getMinTileSize() {
+        return minTileSize;
+    }
+
+    /**
+     * returns the largest tile size
+     *
+     * @return the size in texels
+     */
+    public int getMaxTileSize() {
+        return maxTileSize;
+    }
+
+    void add(AbstractShadowRenderer renderer) {
+        if (getSlot(renderer) == null) {
+            slots.add(new Slot(renderer));
+        }
+    }
+
+    void remove(AbstractShadowRenderer renderer) {
+        Slot slot = getSlot(renderer);
+        if (slot != null) {
+            release(slot);
+            slots.remove(slot);
+        }
+    }
+
+    Slot getSlot(AbstractShadowRenderer renderer) {
+        for (Slot slot : slots) {
+            if (slot.renderer == renderer) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if all the shadow maps of the renderer are in the atlas
+     * and the light is visible, so its post shadow pass has to be rendered.
+     */
+    boolean isReady(AbstractShadowRenderer renderer) {
+        Slot slot = getSlot(renderer);
+        return slot != null && slot.tileSize > 0 && slot.coverage > 0;
+    }
+
+    /**
+     * Returns the area of the atlas holding the given shadow map of the 
+     * renderer, in texture coordinates: x and y are the lower left corner,
+     * z and w the width and height.
+     */
+    Vector4f getTileRect(AbstractShadowRenderer renderer, int shadowMapIndex) {
+        return getSlot(renderer).tileRects[shadowMapIndex];
+    }
+
+    /**
+     * Marks the renderer as active for the coming frame, only the active
+     * renderers are updated.
+     */
+    void preFrame(AbstractShadowRenderer renderer) {
+        if (updated) {
+            updated = false;
+            frame++;
+        }
+        Slot slot = getSlot(renderer);
+        if (slot != null) {
+            slot.activeFrame = frame;
+        }
+    }
+
+    /**
+     * Renders the shadow maps of the active renderers that fit in the update
+     * budget. Only the first call of a frame does something.
+     *
+     * @param caller the shadow renderer processing the render queue
+     * @param occluders the occluders of the whole scene
+     * @param receivers the receivers of the whole scene
+     */
+    void update(AbstractShadowRenderer caller, GeometryList occluders, GeometryList receivers) {
+        if (updated) {
+            return;
+        }
+        updated = true;
+        renderedFaces = 0;
+
+        ViewPort viewPort = caller.viewPort;
+        queue.clear();
+        for (Slot slot : slots) {
+            if (slot.activeFrame != frame || slot.renderer.viewPort != viewPort) {
+                slot.coverage = 0;
+                slot.priority = -1;
+                continue;
+            }
+            prepare(slot, viewPort.getCamera(), occluders, receivers);
+            if (slot.coverage > 0) {
+                queue.add(slot);
+            }
+        }
+        Collections.sort(queue, priorityComparator);
+
+        int budget = updateBudget;
+        for (Slot slot : queue) {
+            budget -= schedule(slot, budget);
+        }
+        while (budget > 0 && scheduleOldest()) {
+            budget--;
+        }
+
+        render(caller.renderManager, viewPort);
+    }
+
+    /**
+     * Updates the shadow cameras of the renderer, then computes the priority
+     * of the light and the signature of each of its shadow maps.
+     */
+    private void prepare(Slot slot, Camera viewCam, GeometryList occluders, GeometryList receivers) {
+        AbstractShadowRenderer renderer = slot.renderer;
+        renderer.updateShadowCams(viewCam);
+        slot.coverage = getScreenCoverage(renderer, viewCam);
+        slot.priority = 0;
+        boolean changed = false;
+        for (int i = 0; i < slot.tiles.length; i++) {
+            slot.scheduled[i] = false;
+            slot.occluders[i].clear();
+            if (slot.coverage == 0) {
+                continue;
+            }
+            slot.occluders[i] = renderer.getOccludersToRender(i, occluders, receivers, slot.occluders[i]);
+            int signature = AbstractShadowRenderer.getSignature(slot.occluders[i]);
+            signature = 31 * signature + renderer.getShadowCam(i).getViewProjectionMatrix().hashCode();
+            slot.pendingSignatures[i] = signature;
+            changed |= signature != slot.signatures[i];
+        }
+        if (slot.coverage == 0) {
+            return;
+        }
+        slot.priority = changed ? slot.coverage * CHANGE_WEIGHT : slot.coverage;
+
+        float side = FastMath.sqrt(slot.coverage * viewCam.getWidth() * viewCam.getHeight());
+        int desiredSize = minTileSize;
+        while (desiredSize < side && desiredSize < maxTileSize) {
+            desiredSize *= 2;
+        }
+        slot.desiredSize = desiredSize;
+    }
+
+    /**
+     * Returns the part of the screen covered by the volume lit by the light
+     * of the renderer, between 0 and 1.
+     */
+    private float getScreenCoverage(AbstractShadowRenderer renderer, Camera cam) {
+        BoundingSphere bound = renderer.getLightBound(lightBound);
+        if (bound == null) {
+            return 1f;
+        }
+        float radius = bound.getRadius();
+        float distance = bound.getCenter().distance(cam.getLocation());
+        if (distance <= radius) {
+            return 1f;
+        }
+        int planeState = cam.getPlaneState();
+        cam.setPlaneState(0);
+        Camera.FrustumIntersect intersect = cam.contains(bound);
+        cam.setPlaneState(planeState);
+        if (intersect == Camera.FrustumIntersect.Outside) {
+            return 0f;
+        }
+
+        float projectedRadius = radius;
+        if (!cam.isParallelProjection()) {
+            // radius of the sphere projected on the near plane
+            projectedRadius *= cam.getFrustumNear() / FastMath.sqrt(distance * distance - radius * radius);
+        }
+        float frustumArea = (cam.getFrustumRight() - cam.getFrustumLeft()) * (cam.getFrustumTop() - cam.getFrustumBottom());
+        return Math.min(1f, FastMath.PI * projectedRadius * projectedRadius / frustumArea);
+    }
+
+    /**
+     * Schedules the shadow maps of the light for rendering, new tiles are
+     * only given when all the shadow maps fit in the budget.
+     *
+     * @return the number of scheduled shadow maps
+     */
+    private int schedule(Slot slot, int budget) {
+        int nbShadowMaps = slot.tiles.length;
+        int tileSize = slot.tileSize;
+        if (tileSize == 0 || slot.desiredSize > tileSize || slot.desiredSize * 4 <= tileSize
+                || tileSize > maxTileSize || tileSize < minTileSize) {
+            tileSize = slot.desiredSize;
+        }
+        if (tileSize != slot.tileSize && (nbShadowMaps <= budget || budget == updateBudget)
+                && allocate(slot, tileSize)) {
+            for (int i = 0; i < nbShadowMaps; i++) {
+                slot.scheduled[i] = true;
+            }
+            return nbShadowMaps;
+        }
+        if (slot.tileSize == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int i = 0; i < nbShadowMaps && count < budget; i++) {
+            if (slot.pendingSignatures[i] != slot.signatures[i]) {
+                slot.scheduled[i] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Schedules the visible shadow map that was rendered the longest time
+     * ago.
+     *
+     * @return false if all the visible shadow maps are already scheduled
+     */
+    private boolean scheduleOldest() {
+        Slot oldestSlot = null;
+        int oldest = -1;
+        for (Slot slot : queue) {
+            if (slot.tileSize == 0) {
+                continue;
+            }
+            for (int i = 0; i < slot.tiles.length; i++) {
+                if (!slot.scheduled[i] && (oldestSlot == null
+                        || slot.renderedFrames[i] < oldestSlot.renderedFrames[oldest])) {
+                    oldestSlot = slot;
+                    oldest = i;
+                }
+            }
+        }
+        if (oldestSlot == null) {
+            return false;
+        }
+        oldestSlot.scheduled[oldest] = true;
+        return true;
+    }
+
+    /**
+     * Gives the light new tiles of the given size, evicting the lights of
+     * lower priority if needed. Falls back to smaller tiles when there is
+     * still no room.
+     */
+    private boolean allocate(Slot slot, int tileSize) {
+        release(slot);
+        if (allocateTiles(slot, tileSize)) {
+            return true;
+        }
+        while (evict(slot.priority)) {
+            if (allocateTiles(slot, tileSize)) {
+                return true;
+            }
+        }
+        for (int smaller = tileSize / 2; smaller >= minTileSize; smaller /= 2) {
+            if (allocateTiles(slot, smaller)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean allocateTiles(Slot slot, int tileSize) {
+        for (int i = 0; i < slot.tiles.length; i++) {
+            int tile = allocateTile(tileSize);
+            if (tile < 0) {
+                for (int j = 0; j < i; j++) {
+                    freeTile(slot.tiles[j], tileSize);
+                }
+                return false;
+            }
+            slot.tiles[i] = tile;
+        }
+        slot.tileSize = tileSize;
+        for (int i = 0; i < slot.tiles.length; i++) {
+            int x = slot.tiles[i] >>> 16;
+            int y = slot.tiles[i] & 0xffff;
+            slot.tileRects[i].set((float) (x + GUTTER) / size, (float) (y + GUTTER) / size,
+                    (float) (tileSize - 2 * GUTTER) / size, (float) (tileSize - 2 * GUTTER) / size);
+            slot.renderedFrames[i] = -1;
+        }
+        return true;
+    }
+
+    private void release(Slot slot) {
+        if (slot.tileSize == 0) {
+            return;
+        }
+        for (int i = 0; i < slot.tiles.length; i++) {
+            freeTile(slot.tiles[i], slot.tileSize);
+        }
+        slot.tileSize = 0;
+    }
+
+    /**
+     * Releases the tiles of the light with the lowest priority below the
+     * given one.
+     *
+     * @return false if there is no such light
+     */
+    private boolean evict(float priority) {
+        Slot lowest = null;
+        for (Slot slot : slots) {
+            if (slot.tileSize > 0 && slot.priority < priority
+                    && (lowest == null || slot.priority < lowest.priority)) {
+                lowest = slot;
+            }
+        }
+        if (lowest == null) {
+            return false;
+        }
+        release(lowest);
+        return true;
+    }
+
+    /**
+     * Allocates a free tile, splitting a larger one in four if needed.
+     *
+     * @return the tile position packed as x &lt;&lt; 16 | y, or -1 if there
+     * is no room
+     */
+    int allocateTile(int tileSize) {
+        TreeSet<Integer> free = freeTiles.get(log2(tileSize));
+        if (!free.isEmpty()) {
+            return free.pollFirst();
+        }
+        if (tileSize >= size) {
+            return -1;
+        }
+        int parent = allocateTile(tileSize * 2);
+        if (parent < 0) {
+            return -1;
+        }
+        int x = parent >>> 16;
+        int y = parent & 0xffff;
+        free.add(((x + tileSize) << 16) | y);
+        free.add((x << 16) | (y + tileSize));
+        free.add(((x + tileSize) << 16) | (y + tileSize));
+        return parent;
+    }
+
+    /**
+     * Frees a tile, merging it back with its three siblings when they are
+     * free too.
+     */
+    void freeTile(int tile, int tileSize) {
+        TreeSet<Integer> free = freeTiles.get(log2(tileSize));
+        if (tileSize < size) {
+            int x = tile >>> 16;
+            int y = tile & 0xffff;
+            int parentX = x - x % (tileSize * 2);
+            int parentY = y - y % (tileSize * 2);
+            int parent = (parentX << 16) | parentY;
+            int[] siblings = {
+                parent,
+                ((parentX + tileSize) << 16) | parentY,
+                (parentX << 16) | (parentY + tileSize),
+                ((parentX + tileSize) << 16) | (parentY + tileSize)
+            };
+            boolean merge = true;
+            for (int sibling : siblings) {
+                if (sibling != tile && !free.contains(sibling)) {
+                    merge = false;
+                    break;
+                }
+            }
+            if (merge) {
+                for (int sibling : siblings) {
+                    free.remove(sibling);
+                }
+                freeTile(parent, tileSize * 2);
+                return;
+            }
+        }
+        free.add(tile);
+    }
+
+    private static int log2(int powerOfTwo) {
+        return Integer.numberOfTrailingZeros(powerOfTwo);
+    }
+
+    /**
+     * Renders the scheduled shadow maps in their tiles.
+     */
+    private void render(RenderManager renderManager, ViewPort viewPort) {
+        Renderer r = renderManager.getRenderer();
+        r.setFrameBuffer(frameBuffer);
+        renderManager.setForcedTechnique("PreShadow");
+
+        for (Slot slot : queue) {
+            renderManager.setForcedMaterial(slot.renderer.preshadowMat);
+            for (int i = 0; i < slot.tiles.length; i++) {
+                if (slot.scheduled[i] && slot.tileSize > 0) {
+                    renderTile(renderManager, slot, i);
+                }
+            }
+        }
+
+        //restore setting for future rendering
+        r.clearClipRect();
+        r.setFrameBuffer(viewPort.getOutputFrameBuffer());
+        renderManager.setForcedMaterial(null);
+        renderManager.setForcedTechnique(null);
+        renderManager.setCamera(viewPort.getCamera(), false);
+    }
+
+    private void renderTile(RenderManager renderManager, Slot slot, int shadowMapIndex) {
+        Renderer r = renderManager.getRenderer();
+        AbstractShadowRenderer renderer = slot.renderer;
+        Camera shadowCam = renderer.getShadowCam(shadowMapIndex);
+        int x = slot.tiles[shadowMapIndex] >>> 16;
+        int y = slot.tiles[shadowMapIndex] & 0xffff;
+        int tileSize = slot.tileSize;
+        Vector4f rect = slot.tileRects[shadowMapIndex];
+
+        // the shadow camera renders in the tile minus its gutter
+        if (shadowCam.getWidth() != size || shadowCam.getHeight() != size) {
+            shadowCam.resize(size, size, false);
+        }
+        shadowCam.setViewPort(rect.x, rect.x + rect.z, rect.y, rect.y + rect.w);
+        renderManager.setCamera(shadowCam, false);
+
+        r.setClipRect(x, y, tileSize, tileSize);
+        r.clearBuffers(false, true, false);
+        r.setClipRect(x + GUTTER, y + GUTTER, tileSize - 2 * GUTTER, tileSize - 2 * GUTTER);
+        renderer.viewPort.getQueue().renderShadowQueue(slot.occluders[shadowMapIndex], renderManager, shadowCam, true);
+
+        // maps the light clip space to the tile
+        tileMatrix.loadIdentity();
+        tileMatrix.m00 = rect.z;
+        tileMatrix.m03 = 2f * rect.x + rect.z - 1f;
+        tileMatrix.m11 = rect.w;
+        tileMatrix.m13 = 2f * rect.y + rect.w - 1f;
+        tileMatrix.mult(shadowCam.getViewProjectionMatrix(), renderer.lightViewProjectionsMatrices[shadowMapIndex]);
+
+        slot.signatures[shadowMapIndex] = slot.pendingSignatures[shadowMapIndex];
+        slot.renderedFrames[shadowMapIndex] = frame;
+        renderedFaces++;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shadow;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.OpaqueComparator;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.util.TempVars;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <code>ShadowCasterCuller</code> selects the shadow casters of each split 
+ * of a directional light shadow by walking the scene graph, instead of 
+ * testing every geometry of the shadow queue against every split.
+ * <p>
+ * A subtree is skipped as soon as the world bound of its root, seen from 
+ * the light, is outside of the split, outside of the area covered by the 
+ * visible receivers of the split, or behind all of them. Each split is 
+ * culled by its own task, the tasks run concurrently when several 
+ * processors are available.
+ * <p>
+ * The shadow camera projection of each split is then cropped exactly
+ * like {@link ShadowUtil#updateShadowCamera(com.jme3.renderer.queue.GeometryList, com.jme3.renderer.queue.GeometryList, com.jme3.renderer.Camera, com.jme3.math.Vector3f[], com.jme3.renderer.queue.GeometryList, float) }
+ * does.
+ *
+ * @see DirectionalLightShadowRenderer#setHierarchicalCasterCulling(boolean)
+ */
+class ShadowCasterCuller {
+
+    private final int numThreads;
+    private ExecutorService executor;
+    private int nextThreadId = 0;
+    private final ArrayList<SplitTask> tasks = new ArrayList<SplitTask>();
+    private final ArrayList<SplitTask> activeTasks = new ArrayList<SplitTask>();
+
+    // shared by the tasks, read only while they run
+    private List<Spatial> scenes;
+    private GeometryList receivers;
+    private final Matrix4f viewProjMatrix = new Matrix4f();
+    private final Matrix4f projMatrix = new Matrix4f();
+    private float shadowMapSize;
+
+    ShadowCasterCuller(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    private class CasterThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "jME3-shadow-cull-" + (nextThreadId++));
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * Culls the casters of one split and computes its projection.
+     */
+    private class SplitTask implements Callable<SplitTask> {
+
+        private final Vector3f[] points = new Vector3f[8];
+        private final GeometryList casters = new GeometryList(new OpaqueComparator());
+        private final Matrix4f projection = new Matrix4f();
+        private final BoundingBox casterBB = new BoundingBox();
+        private final BoundingBox receiverBB = new BoundingBox();
+        private BoundingBox splitBB;
+        private int casterCount, receiverCount;
+
+        SplitTask() {
+            for (int i = 0; i < points.length; i++) {
+                points[i] = new Vector3f();
+            }
+        }
+
+        public SplitTask call() {
+            casters.clear();
+            casterBB.setCenter(Vector3f.ZERO);
+            casterBB.setXExtent(0);
+            casterBB.setYExtent(0);
+            casterBB.setZExtent(0);
+            receiverBB.setCenter(Vector3f.ZERO);
+            receiverBB.setXExtent(0);
+            receiverBB.setYExtent(0);
+            receiverBB.setZExtent(0);
+            casterCount = 0;
+            receiverCount = 0;
+
+            splitBB = ShadowUtil.computeBoundForPoints(points, viewProjMatrix);
+
+            TempVars vars = TempVars.get();
+            for (int i = 0; i < receivers.size(); i++) {
+                // convert bounding box to light's viewproj space
+                BoundingVolume recvBox = receivers.get(i).getWorldBound().transform(viewProjMatrix, vars.bbox);
+                if (splitBB.intersects(recvBox)) {
+                    //Nehon : prevent NaN and infinity values to screw the final bounding box
+                    if (!Float.isNaN(recvBox.getCenter().x) && !Float.isInfinite(recvBox.getCenter().x)) {
+                        receiverBB.mergeLocal(recvBox);
+                        receiverCount++;
+                    }
+                }
+            }
+
+            // nothing visible to cast shadows on
+            if (receiverCount > 0) {
+                for (int i = 0; i < scenes.size(); i++) {
+                    cullCasters(scenes.get(i), vars);
+                }
+            }
+            vars.release();
+
+            ShadowUtil.computeCropMatrix(projMatrix, splitBB, casterBB, receiverBB,
+                    casterCount != receiverCount, shadowMapSize, projection);
+            return this;
+        }
+
+        private void cullCasters(Spatial s, TempVars vars) {
+            if (s.getCullHint() == Spatial.CullHint.Always) {
+                return;
+            }
+
+            if (s instanceof Node) {
+                BoundingVolume bv = s.getWorldBound();
+                if (bv == null || !isInSplit(bv.transform(viewProjMatrix, vars.bbox), vars)) {
+                    return;
+                }
+                List<Spatial> children = ((Node) s).getChildren();
+                for (int i = 0; i < children.size(); i++) {
+                    cullCasters(children.get(i), vars);
+                }
+            } else if (s instanceof Geometry) {
+                ShadowMode shadowMode = s.getShadowMode();
+                if (shadowMode == ShadowMode.Off || shadowMode == ShadowMode.Receive) {
+                    return;
+                }
+                BoundingVolume occBox = s.getWorldBound().transform(viewProjMatrix, vars.bbox);
+                if (!isInSplit(occBox, vars)) {
+                    return;
+                }
+                //Nehon : prevent NaN and infinity values to screw the final bounding box
+                if (!Float.isNaN(occBox.getCenter().x) && !Float.isInfinite(occBox.getCenter().x)) {
+                    casterBB.mergeLocal(occBox);
+                    casterCount++;
+                }
+                casters.add((Geometry) s);
+            }
+        }
+
+        /**
+         * Tests a bound, in the light view projection space, against the 
+         * split extended towards the light and against the receivers.
+         */
+        private boolean isInSplit(BoundingVolume occBox, TempVars vars) {
+            if (!(occBox instanceof BoundingBox)) {
+                return splitBB.intersects(occBox);
+            }
+            BoundingBox occBB = (BoundingBox) occBox;
+            if (!splitBB.intersects(occBB)) {
+                // Extend the occluder further into the frustum, so 
+                // casters outside of the view still cast their shadows
+                occBB.setZExtent(occBB.getZExtent() + 50);
+                occBB.setCenter(occBB.getCenter().addLocal(0, 0, 25));
+                boolean intersects = splitBB.intersects(occBB);
+                occBB.setZExtent(occBB.getZExtent() - 50);
+                occBB.setCenter(occBB.getCenter().subtractLocal(0, 0, 25));
+                if (!intersects) {
+                    return false;
+                }
+            }
+            return canShadowReceivers(occBB, vars);
+        }
+
+        /**
+         * The crop keeps the area covered by the receivers and clips 
+         * what is behind them, a caster outside of it casts nothing visible.
+         */
+        private boolean canShadowReceivers(BoundingBox occBB, TempVars vars) {
+            Vector3f occMin = occBB.getMin(vars.vect1);
+            Vector3f occMax = occBB.getMax(vars.vect2);
+            Vector3f recvMin = receiverBB.getMin(vars.vect3);
+            Vector3f recvMax = receiverBB.getMax(vars.vect4);
+            return occMax.x >= recvMin.x && occMin.x <= recvMax.x
+                    && occMax.y >= recvMin.y && occMin.y <= recvMax.y
+                    && occMin.z <= recvMax.z;
+        }
+    }
+
+    /**
+     * Culls the casters of every split. 
+     *
+     * @param scenes the scenes of the view port
+     * @param receivers the visible shadow receivers
+     * @param viewProjMatrix the view projection matrix of the light, 
+     * before cropping
+     * @param projMatrix the projection matrix of the light, before cropping
+     * @param splitPoints the frustum corners of each split
+     * @param shadowMapSize the size of the shadow maps, or 0 to disable 
+     * stabilization
+     */
+    void cull(List<Spatial> scenes, GeometryList receivers, Matrix4f viewProjMatrix,
+            Matrix4f projMatrix, Vector3f[][] splitPoints, float shadowMapSize) {
+        this.scenes = scenes;
+        this.receivers = receivers;
+        this.viewProjMatrix.set(viewProjMatrix);
+        this.projMatrix.set(projMatrix);
+        this.shadowMapSize = shadowMapSize;
+
+        while (tasks.size() < splitPoints.length) {
+            tasks.add(new SplitTask());
+        }
+        for (int i = 0; i < splitPoints.length; i++) {
+            SplitTask task = tasks.get(i);
+            for (int j = 0; j < 8; j++) {
+                task.points[j].set(splitPoints[i][j]);
+            }
+            activeTasks.add(task);
+        }
+
+        try {
+            if (numThreads == 1 || activeTasks.size() == 1) {
+                for (int i = 0; i < activeTasks.size(); i++) {
+                    activeTasks.get(i).call();
+                }
+            } else {
+                List<Future<SplitTask>> results = getExecutor().invokeAll(activeTasks);
+                for (Future<SplitTask> result : results) {
+                    result.get();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            activeTasks.clear();
+            this.scenes = null;
+            this.receivers = null;
+        }
+    }
+
+    /**
+     * Returns the casters of a split found by the last call to
+     * {@link #cull(java.util.List, com.jme3.renderer.queue.GeometryList, com.jme3.math.Matrix4f, com.jme3.math.Matrix4f, com.jme3.math.Vector3f[][], float) }.
+     */
+    GeometryList getCasters(int split) {
+        return tasks.get(split).casters;
+    }
+
+    /**
+     * Returns the cropped projection matrix of a split found by the last 
+     * call to {@link #cull(java.util.List, com.jme3.renderer.queue.GeometryList, com.jme3.math.Matrix4f, com.jme3.math.Matrix4f, com.jme3.math.Vector3f[][], float) }.
+     */
+    Matrix4f getProjection(int split) {
+        return tasks.get(split).projection;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(numThreads, new CasterThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    void cleanup() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).casters.clear();
+        }
+    }
+}
@@ -436,8 +436,41 @@ public class ShadowUtil {
             }
         }
 
+        Matrix4f result = new Matrix4f();
+        computeCropMatrix(shadowCam.getProjectionMatrix(), splitBB, casterBB, receiverBB,
+                casterCount != receiverCount, shadowMapSize, result);
+        vars.release();
+
+        shadowCam.setProjectionMatrix(result);
+
+    }
+
+    /**
+     * Computes the projection matrix of a shadow camera cropped to the
+     * given bounds, which are expressed in the light view projection space.
+     *
+     * @param projMatrix the projection matrix of the shadow camera
+     * @param splitBB the bound of the split frustum
+     * @param casterBB the bound of the shadow casters of the split
+     * @param receiverBB the bound of the shadow receivers of the split
+     * @param extendCasters true to extend the casters bound, to avoid
+     * shadow bleeding on objects that only receive shadows
+     * @param shadowMapSize the size of the shadow map, or 0 to disable
+     * stabilization
+     * @param store the matrix to store the result in
+     */
+    static void computeCropMatrix(Matrix4f projMatrix,
+            BoundingBox splitBB,
+            BoundingBox casterBB,
+            BoundingBox receiverBB,
+            boolean extendCasters,
+            float shadowMapSize,
+            Matrix4f store) {
+
+        TempVars vars = TempVars.get();
+
         //Nehon 08/18/2010 this is to avoid shadow bleeding when the ground is set to only receive shadows
-        if (casterCount != receiverCount) {
+        if (extendCasters) {
             casterBB.setXExtent(casterBB.getXExtent() + 2.0f);
             casterBB.setYExtent(casterBB.getYExtent() + 2.0f);
             casterBB.setZExtent(casterBB.getZExtent() + 2.0f);
@@ -458,8 +491,6 @@ public class ShadowUtil {
 //            shadowCam.setFrustumPerspective(45, 1, 1, splitMax.z);
 //        }
 
-        Matrix4f projMatrix = shadowCam.getProjectionMatrix();
-
         Vector3f cropMin = vars.vect7;
         Vector3f cropMax = vars.vect8;
 
@@ -517,13 +548,10 @@ public class ShadowUtil {
                 0f, 0f, 0f, 1f);
 
 
-        Matrix4f result = new Matrix4f();
-        result.set(cropMatrix);
-        result.multLocal(projMatrix);
+        store.set(cropMatrix);
+        store.multLocal(projMatrix);
         vars.release();
 
-        shadowCam.setProjectionMatrix(result);
-
     }
 
     /**
@@ -85,6 +85,24 @@ public class SpotLightShadowFilter extends AbstractShadowFilter<SpotLightShadowR
         shadowRenderer.setLight(light);
     }
 
+    /**
+     * Renders the shadow maps in a shadow atlas shared with other point and
+     * spot light shadows.
+     * @see SpotLightShadowRenderer#setShadowAtlas(com.jme3.shadow.ShadowAtlas) 
+     * @param atlas the shadow atlas or null
+     */
+    public void setShadowAtlas(ShadowAtlas atlas) {
+        shadowRenderer.setShadowAtlas(atlas);
+    }
+
+    /**
+     * returns the shadow atlas holding the shadow maps
+     * @return the shadow atlas or null
+     */
+    public ShadowAtlas getShadowAtlas() {
+        return shadowRenderer.getShadowAtlas();
+    }
+
     /**
      * How far the shadows are rendered in the view
      *
@@ -32,6 +32,7 @@
 package com.jme3.shadow;
 
 import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingSphere;
 import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
@@ -113,6 +114,30 @@ public class SpotLightShadowRenderer extends AbstractShadowRenderer {
         this.light = light;
     }
 
+    /**
+     * Renders the shadow maps of this renderer in a shadow atlas shared 
+     * with other point and spot light shadow renderers, see 
+     * {@link ShadowAtlas}. Set it back to null to release the tiles of the
+     * atlas and use the own shadow maps of this renderer again.
+     *
+     * @param atlas the shadow atlas or null
+     */
+    @Override
+    public void setShadowAtlas(ShadowAtlas atlas) {
+        super.setShadowAtlas(atlas);
+    }
+
+    /**
+     * returns the shadow atlas holding the shadow maps
+     *
+     * @see #setShadowAtlas(com.jme3.shadow.ShadowAtlas)
+     * @return the shadow atlas or null
+     */
+    @Override
+    public ShadowAtlas getShadowAtlas() {
+        return super.getShadowAtlas();
+    }
+
     @Override
     protected void updateShadowCams(Camera viewCam) {
 
@@ -166,6 +191,29 @@ public class SpotLightShadowRenderer extends AbstractShadowRenderer {
     protected void setMaterialParameters(Material material) {    
          material.setVector3("LightPos", light.getPosition());
          material.setVector3("LightDir", light.getDirection());
+         if (material.getMaterialDef().getMaterialParam("ShadowAtlasTile") != null) {
+             if (shadowAtlas != null) {
+                 material.setVector4("ShadowAtlasTile", shadowAtlas.getTileRect(this, 0));
+             } else {
+                 material.clearParam("ShadowAtlasTile");
+             }
+         }
+    }
+
+    @Override
+    protected BoundingSphere getLightBound(BoundingSphere store) {
+        float range = light.getSpotRange();
+        float coneRadius = range * FastMath.tan(light.getSpotOuterAngle());
+        float radius = FastMath.sqrt(range * range * 0.25f + coneRadius * coneRadius);
+        if (radius < range) {
+            // sphere around the middle of the cone
+            light.getDirection().mult(range * 0.5f, store.getCenter()).addLocal(light.getPosition());
+            store.setRadius(radius);
+        } else {
+            store.setCenter(light.getPosition());
+            store.setRadius(range);
+        }
+        return store;
     }
 
     /**
@@ -746,6 +746,27 @@ public final class AppSettings extends HashMap<String, Object> {
         putString("SettingsDialogImage", path);
     }
 
+    /**
+     * Sets the directory where linked shader programs are cached.
+     * <p>
+     * When set, renderers supporting program binaries store the shaders
+     * they compile in this directory and load them from it on the next
+     * launch, skipping the compilation of the shaders.
+     * </p>
+     * (Default: not set)
+     *
+     * @param path The path of the cache directory, or null to disable the cache.
+     * 
+     * @see com.jme3.shader.ProgramBinaryCache
+     */
+    public void setShaderCacheDirectory(String path) {
+        if (path == null) {
+            remove("ShaderCacheDirectory");
+        } else {
+            putString("ShaderCacheDirectory", path);
+        }
+    }
+
     /**
      * Get the framerate.
      * @see #setFrameRate(int)
@@ -914,4 +935,12 @@ public final class AppSettings extends HashMap<String, Object> {
     public String getSettingsDialogImage() {
         return getString("SettingsDialogImage");
     }
+
+    /**
+     * Get the shader cache directory, or null if it is not set.
+     * @see #setShaderCacheDirectory(java.lang.String)
+     */
+    public String getShaderCacheDirectory() {
+        return getString("ShaderCacheDirectory");
+    }
 }
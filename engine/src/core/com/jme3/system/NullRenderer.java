@@ -39,6 +39,7 @@ import com.jme3.material.RenderState;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Matrix4f;
 import com.jme3.renderer.Caps;
+import com.jme3.renderer.OcclusionQuery;
 import com.jme3.renderer.Renderer;
 import com.jme3.renderer.Statistics;
 import com.jme3.scene.Mesh;
@@ -140,6 +141,26 @@ public class NullRenderer implements Renderer {
     public void renderMesh(Mesh mesh, int lod, int count) {
     }
 
+    public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+    }
+
+    public void startOcclusionQuery(OcclusionQuery query) {
+    }
+
+    public void stopOcclusionQuery(OcclusionQuery query) {
+    }
+
+    public boolean isOcclusionQueryResultAvailable(OcclusionQuery query) {
+        return true;
+    }
+
+    public int getOcclusionQueryResult(OcclusionQuery query) {
+        return 1;
+    }
+
+    public void deleteOcclusionQuery(OcclusionQuery query) {
+    }
+
     public void resetGLObjects() {
     }
 
@@ -924,6 +924,32 @@ public class IGLESShaderRenderer implements Renderer {
         }
     }
 
+    public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+        if (instanceData != null) {
+            throw new UnsupportedOperationException("OpenGL ES 2.0 doesn't support instanced vertex buffers.");
+        }
+        renderMesh(mesh, lod, count);
+    }
+
+    public void startOcclusionQuery(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL ES 2.0 doesn't support occlusion queries.");
+    }
+
+    public void stopOcclusionQuery(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL ES 2.0 doesn't support occlusion queries.");
+    }
+
+    public boolean isOcclusionQueryResultAvailable(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL ES 2.0 doesn't support occlusion queries.");
+    }
+
+    public int getOcclusionQueryResult(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL ES 2.0 doesn't support occlusion queries.");
+    }
+
+    public void deleteOcclusionQuery(OcclusionQuery query) {
+    }
+
     /**
      * Renders <code>count</code> meshes, with the geometry data supplied.
      * The shader which is currently set with <code>setShader</code> is
@@ -42,6 +42,7 @@ import com.jme3.math.Vector3f;
 import com.jme3.math.Vector4f;
 import com.jme3.renderer.Caps;
 import com.jme3.renderer.IDList;
+import com.jme3.renderer.OcclusionQuery;
 import com.jme3.renderer.RenderContext;
 import com.jme3.renderer.Renderer;
 import com.jme3.renderer.RendererException;
@@ -301,10 +302,15 @@ public class JoglRenderer implements Renderer {
             caps.add(Caps.PackedDepthStencilBuffer);
         }
 
-        if (gl.isExtensionAvailable("GL_ARB_draw_instanced")) {
+        if (gl.isExtensionAvailable("GL_ARB_draw_instanced")
+                && gl.isExtensionAvailable("GL_ARB_instanced_arrays")) {
             caps.add(Caps.MeshInstancing);
         }
 
+        if (gl.isExtensionAvailable("GL_VERSION_1_5")) {
+            caps.add(Caps.OcclusionQuery);
+        }
+
         if (gl.isExtensionAvailable("GL_ARB_fragment_program")) {
             caps.add(Caps.ARBprogram);
         }
@@ -367,6 +373,10 @@ public class JoglRenderer implements Renderer {
             maxFBOAttachs = intBuf16.get(0);
             logger.log(Level.FINER, "FBO Max renderbuffers: {0}", maxFBOAttachs);
             
+            if (gl.isExtensionAvailable("GL_EXT_framebuffer_blit") && gl.isGL2GL3()) {
+                caps.add(Caps.FrameBufferBlit);
+            }
+
             if (gl.isExtensionAvailable("GL_EXT_framebuffer_multisample")) {
                 caps.add(Caps.FrameBufferMultisample);
 
@@ -466,6 +476,7 @@ public class JoglRenderer implements Renderer {
             if (context.colorWriteEnabled == false) {
                 gl.glColorMask(true, true, true, true);
                 context.colorWriteEnabled = true;
+                context.renderStateId = -1;
             }
             bits = GL.GL_COLOR_BUFFER_BIT;
         }
@@ -478,6 +489,7 @@ public class JoglRenderer implements Renderer {
             if (context.depthWriteEnabled == false) {
                 gl.glDepthMask(true);
                 context.depthWriteEnabled = true;
+                context.renderStateId = -1;
             }
             bits |= GL.GL_DEPTH_BUFFER_BIT;
         }
@@ -506,6 +518,14 @@ public class JoglRenderer implements Renderer {
     }
 
     public void applyRenderState(RenderState state) {
+        int stateId = state.getStateId();
+        if (stateId == context.renderStateId) {
+            // same values as the render state applied last
+            statistics.onRenderStateUse(state, false);
+            return;
+        }
+        statistics.onRenderStateUse(state, true);
+
         GL gl = GLContext.getCurrentGL();
         if (state.isWireframe() && !context.wireframe) {
             if (gl.isGL2GL3()) {
@@ -726,6 +746,13 @@ public class JoglRenderer implements Renderer {
                 gl.glDisable(GL.GL_STENCIL_TEST);
             }
         }
+
+        if (state.isPointSprite() || context.pointSprite) {
+            // point sprite state also depends on the bound texture
+            context.renderStateId = -1;
+        } else {
+            context.renderStateId = stateId;
+        }
     }
     
     private int convertStencilOperation(RenderState.StencilOperation stencilOp) {
@@ -2184,11 +2211,28 @@ public class JoglRenderer implements Renderer {
         Buffer data = vb.getData();
         data.rewind();
 
+        int componentSize = vb.getFormat().getComponentSize();
         if (created || vb.hasDataSizeChanged()) {
             // upload data based on format
-            gl.glBufferData(target, data.capacity() * vb.getFormat().getComponentSize(), data, usage);
+            gl.glBufferData(target, data.capacity() * componentSize, data, usage);
+            statistics.onBufferUpload(data.capacity() * componentSize);
+        } else if (vb.hasDirtyRanges()) {
+            // only upload the modified elements
+            int components = vb.getNumComponents();
+            int limit = data.limit();
+            for (int i = 0; i < vb.getNumDirtyRanges(); i++) {
+                int start = vb.getDirtyRangeStart(i) * components;
+                int length = vb.getDirtyRangeEnd(i) * components - start;
+                data.limit(start + length);
+                data.position(start);
+                gl.glBufferSubData(target, start * componentSize, length * componentSize, data);
+                statistics.onBufferUpload(length * componentSize);
+            }
+            data.limit(limit);
+            data.rewind();
         } else {
-            gl.glBufferSubData(target, 0, data.capacity() * vb.getFormat().getComponentSize(), data);
+            gl.glBufferSubData(target, 0, data.capacity() * componentSize, data);
+            statistics.onBufferUpload(data.capacity() * componentSize);
         }
 
         vb.clearUpdateNeeded();
@@ -2214,10 +2258,21 @@ public class JoglRenderer implements Renderer {
             int idx = attribList.oldList[i];
             GL gl = GLContext.getCurrentGL();
             gl.getGL2ES2().glDisableVertexAttribArray(idx);
+            if (context.boundAttribs[idx].isInstanced()) {
+                setVertexAttribDivisor(gl, idx, 0);
+            }
             context.boundAttribs[idx] = null;
         }
         context.attribIndexList.copyNewToOld();
     }
+
+    private void setVertexAttribDivisor(GL gl, int loc, int divisor) {
+        if (!gl.isGL3ES3()) {
+            throw new RendererException("Instanced vertex buffers are not "
+                                      + "supported by this GL profile");
+        }
+        gl.getGL3ES3().glVertexAttribDivisor(loc, divisor);
+    }
     
     public void setVertexAttrib(VertexBuffer vb, VertexBuffer idb) {
         if (vb.getBufferType() == VertexBuffer.Type.Index) {
@@ -2248,14 +2303,24 @@ public class JoglRenderer implements Renderer {
                 }
             }
 
+            if (vb.isInstanced() && !caps.contains(Caps.MeshInstancing)) {
+                throw new RendererException("Instanced vertex buffers require "
+                                          + "GL_ARB_instanced_arrays");
+            }
+
             if (vb.isUpdateNeeded() && idb == null) {
                 updateBufferData(vb);
             }
 
+            // matrices take one attribute location per column
+            int slots = vb.getNumComponents() > 4 ? vb.getNumComponents() / 4 : 1;
+
             VertexBuffer[] attribs = context.boundAttribs;
-            if (!context.attribIndexList.moveToNew(loc)) {
-                gl.getGL2ES2().glEnableVertexAttribArray(loc);
-                //System.out.println("Enabled ATTRIB IDX: "+loc);
+            for (int i = 0; i < slots; i++) {
+                if (!context.attribIndexList.moveToNew(loc + i)) {
+                    gl.getGL2ES2().glEnableVertexAttribArray(loc + i);
+                    //System.out.println("Enabled ATTRIB IDX: "+loc);
+                }
             }
             if (attribs[loc] != vb) {
                 // NOTE: Use id from interleaved buffer if specified
@@ -2269,14 +2334,36 @@ public class JoglRenderer implements Renderer {
                     //statistics.onVertexBufferUse(vb, false);
                 }
 
-                gl.getGL2ES2().glVertexAttribPointer(loc,
-                        vb.getNumComponents(),
-                        convertFormat(vb.getFormat()),
-                        vb.isNormalized(),
-                        vb.getStride(),
-                        vb.getOffset());
+                if (slots == 1) {
+                    gl.getGL2ES2().glVertexAttribPointer(loc,
+                            vb.getNumComponents(),
+                            convertFormat(vb.getFormat()),
+                            vb.isNormalized(),
+                            vb.getStride(),
+                            vb.getOffset());
+                } else {
+                    int componentSize = vb.getFormat().getComponentSize();
+                    int stride = vb.getStride() != 0 ? vb.getStride()
+                                                     : vb.getNumComponents() * componentSize;
+                    for (int i = 0; i < slots; i++) {
+                        gl.getGL2ES2().glVertexAttribPointer(loc + i,
+                                4,
+                                convertFormat(vb.getFormat()),
+                                vb.isNormalized(),
+                                stride,
+                                vb.getOffset() + 4 * componentSize * i);
+                    }
+                }
 
-                attribs[loc] = vb;
+                for (int i = 0; i < slots; i++) {
+                    VertexBuffer oldVb = attribs[loc + i];
+                    if (vb.isInstanced()) {
+                        setVertexAttribDivisor(gl, loc + i, vb.getInstanceSpan());
+                    } else if (oldVb != null && oldVb.isInstanced()) {
+                        setVertexAttribDivisor(gl, loc + i, 0);
+                    }
+                    attribs[loc + i] = vb;
+                }
             }
         } else {
             throw new IllegalStateException("Cannot render mesh without shader bound");
@@ -2405,6 +2492,51 @@ public class JoglRenderer implements Renderer {
         }
     }
 
+    /**
+     * *******************************************************************\ |*
+     * Occlusion Queries *|
+    \********************************************************************
+     */
+    public void startOcclusionQuery(OcclusionQuery query) {
+        GL gl = GLContext.getCurrentGL();
+        int id = query.getId();
+        if (id == -1) {
+            gl.getGL2ES2().glGenQueries(1, intBuf1);
+            id = intBuf1.get(0);
+            query.setId(id);
+            objManager.registerObject(query);
+        }
+
+        gl.getGL2ES2().glBeginQuery(GL2GL3.GL_SAMPLES_PASSED, id);
+        statistics.onOcclusionQuery();
+    }
+
+    public void stopOcclusionQuery(OcclusionQuery query) {
+        GL gl = GLContext.getCurrentGL();
+        gl.getGL2ES2().glEndQuery(GL2GL3.GL_SAMPLES_PASSED);
+    }
+
+    public boolean isOcclusionQueryResultAvailable(OcclusionQuery query) {
+        GL gl = GLContext.getCurrentGL();
+        gl.getGL2GL3().glGetQueryObjectiv(query.getId(), GL2ES2.GL_QUERY_RESULT_AVAILABLE, intBuf1);
+        return intBuf1.get(0) == GL.GL_TRUE;
+    }
+
+    public int getOcclusionQueryResult(OcclusionQuery query) {
+        GL gl = GLContext.getCurrentGL();
+        gl.getGL2GL3().glGetQueryObjectiv(query.getId(), GL2ES2.GL_QUERY_RESULT, intBuf1);
+        return intBuf1.get(0);
+    }
+
+    public void deleteOcclusionQuery(OcclusionQuery query) {
+        if (query.getId() != -1) {
+            GL gl = GLContext.getCurrentGL();
+            intBuf1.put(0, query.getId());
+            gl.getGL2ES2().glDeleteQueries(1, intBuf1);
+            query.resetObject();
+        }
+    }
+
     /**
      * *******************************************************************\ |*
      * Render Calls *|
@@ -2504,7 +2636,7 @@ public class JoglRenderer implements Renderer {
         clearTextureUnits();
     }
     
-    private void renderMeshDefault(Mesh mesh, int lod, int count) {
+    private void renderMeshDefault(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
         VertexBuffer indices;
 
         VertexBuffer interleavedData = mesh.getBuffer(Type.InterleavedData);
@@ -2539,6 +2671,12 @@ public class JoglRenderer implements Renderer {
             }
         }
 
+        if (instanceData != null) {
+            for (VertexBuffer vb : instanceData) {
+                setVertexAttrib(vb);
+            }
+        }
+
         if (indices != null) {
             drawTriangleList(indices, mesh, count);
         } else {
@@ -2549,6 +2687,10 @@ public class JoglRenderer implements Renderer {
     }
 
     public void renderMesh(Mesh mesh, int lod, int count) {
+        renderMesh(mesh, lod, count, null);
+    }
+
+    public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
         if (mesh.getVertexCount() == 0) {
             return;
         }
@@ -2568,6 +2710,7 @@ public class JoglRenderer implements Renderer {
                     gl.glDisable(GL2GL3.GL_VERTEX_PROGRAM_POINT_SIZE);
                 }
                 context.pointSprite = false;
+                context.renderStateId = -1;
             }
         }
 
@@ -2586,7 +2729,7 @@ public class JoglRenderer implements Renderer {
 //        if (gl.isExtensionAvailable("GL_ARB_vertex_array_object")){
 //            renderMeshVertexArray(mesh, lod, count);
 //        }else{
-        renderMeshDefault(mesh, lod, count);
+        renderMeshDefault(mesh, lod, count, instanceData);
 //        }
     }
 }
@@ -31,6 +31,7 @@ import com.jme3.math.Matrix4f;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.Caps;
 import com.jme3.renderer.GL1Renderer;
+import com.jme3.renderer.OcclusionQuery;
 import com.jme3.renderer.RenderContext;
 import com.jme3.renderer.RendererException;
 import com.jme3.renderer.Statistics;
@@ -1121,6 +1122,32 @@ public class LwjglGL1Renderer implements GL1Renderer {
         resetFixedFuncBindings();
     }
 
+    public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+        if (instanceData != null) {
+            throw new UnsupportedOperationException("OpenGL 1.1 doesn't support instanced vertex buffers.");
+        }
+        renderMesh(mesh, lod, count);
+    }
+
+    public void startOcclusionQuery(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL 1.1 doesn't support occlusion queries.");
+    }
+
+    public void stopOcclusionQuery(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL 1.1 doesn't support occlusion queries.");
+    }
+
+    public boolean isOcclusionQueryResultAvailable(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL 1.1 doesn't support occlusion queries.");
+    }
+
+    public int getOcclusionQueryResult(OcclusionQuery query) {
+        throw new UnsupportedOperationException("OpenGL 1.1 doesn't support occlusion queries.");
+    }
+
+    public void deleteOcclusionQuery(OcclusionQuery query) {
+    }
+
     public void renderMesh(Mesh mesh, int lod, int count) {
         if (mesh.getVertexCount() == 0) {
             return;
@@ -44,6 +44,7 @@ import com.jme3.scene.VertexBuffer.Format;
 import com.jme3.scene.VertexBuffer.Type;
 import com.jme3.scene.VertexBuffer.Usage;
 import com.jme3.shader.Attribute;
+import com.jme3.shader.ProgramBinaryCache;
 import com.jme3.shader.Shader;
 import com.jme3.shader.Shader.ShaderSource;
 import com.jme3.shader.Shader.ShaderType;
@@ -114,10 +115,72 @@ public class LwjglRenderer implements Renderer {
     private final Statistics statistics = new Statistics();
     private int vpX, vpY, vpW, vpH;
     private int clipX, clipY, clipW, clipH;
+    // shader program binaries
+    private ProgramBinaryCache binaryCache;
+    private boolean programBinarySupported;
+    private String driverString;
+    // ring buffer holding the data of Usage.Stream vertex buffers
+    private static final int STREAM_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int STREAM_MAX_SIZE = STREAM_BUFFER_SIZE / 4;
+    private StreamBuffer streamBuffer;
+
+    /**
+     * Ring buffer object shared by the streamed vertex buffers. 
+     * Uses unsynchronized mapping guarded with fences when 
+     * sync objects are available, orphaning otherwise.
+     */
+    private class StreamBuffer extends StreamBufferAllocator {
+
+        private int id = -1;
+
+        StreamBuffer(boolean fenced) {
+            super(STREAM_BUFFER_SIZE, 16, fenced);
+        }
+
+        @Override
+        protected void waitFence(Object fence) {
+            GLSync sync = (GLSync) fence;
+            int status;
+            do {
+                status = GL32.glClientWaitSync(sync, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, 1000000);
+            } while (status == GL32.GL_TIMEOUT_EXPIRED);
+        }
+
+        @Override
+        protected void deleteFence(Object fence) {
+            GL32.glDeleteSync((GLSync) fence);
+        }
+
+        @Override
+        protected void orphan() {
+            if (id != -1) {
+                bindArrayBuffer(id);
+                glBufferData(GL_ARRAY_BUFFER, getCapacity(), GL_STREAM_DRAW);
+            }
+        }
+    }
 
     public LwjglRenderer() {
     }
 
+    /**
+     * Sets the cache used to store linked shader programs between runs.
+     * Has no effect if the driver does not support program binaries.
+     * 
+     * @param cache The cache to use, or null to always compile shaders.
+     */
+    public void setProgramBinaryCache(ProgramBinaryCache cache) {
+        if (cache != null && !programBinarySupported) {
+            logger.log(Level.WARNING, "Program binaries are not supported by the driver, "
+                    + "shaders will not be cached.");
+        }
+        this.binaryCache = cache;
+    }
+
+    public ProgramBinaryCache getProgramBinaryCache() {
+        return binaryCache;
+    }
+
     protected void updateNameBuffer() {
         int len = stringBuf.length();
 
@@ -282,10 +345,14 @@ public class LwjglRenderer implements Renderer {
             caps.add(Caps.PackedDepthStencilBuffer);
         }
 
-        if (ctxCaps.GL_ARB_draw_instanced) {
+        if (ctxCaps.GL_ARB_draw_instanced && ctxCaps.GL_ARB_instanced_arrays) {
             caps.add(Caps.MeshInstancing);
         }
 
+        if (ctxCaps.OpenGL15) {
+            caps.add(Caps.OcclusionQuery);
+        }
+
         if (ctxCaps.GL_ARB_fragment_program) {
             caps.add(Caps.ARBprogram);
         }
@@ -304,6 +371,10 @@ public class LwjglRenderer implements Renderer {
             caps.add(Caps.VertexBufferArray);
         }
 
+        programBinarySupported = ctxCaps.GL_ARB_get_program_binary;
+        driverString = glGetString(GL_VENDOR) + "/" + glGetString(GL_RENDERER) 
+                + "/" + glGetString(GL_VERSION);
+
         if (ctxCaps.GL_ARB_texture_non_power_of_two) {
             caps.add(Caps.NonPowerOfTwoTextures);
         } else {
@@ -345,6 +416,10 @@ public class LwjglRenderer implements Renderer {
             maxFBOAttachs = intBuf16.get(0);
             logger.log(Level.FINER, "FBO Max renderbuffers: {0}", maxFBOAttachs);
 
+            if (ctxCaps.GL_EXT_framebuffer_blit) {
+                caps.add(Caps.FrameBufferBlit);
+            }
+
             if (ctxCaps.GL_EXT_framebuffer_multisample) {
                 caps.add(Caps.FrameBufferMultisample);
 
@@ -393,6 +468,12 @@ public class LwjglRenderer implements Renderer {
             caps.add(Caps.Multisample);
         }
 
+        if (ctxCaps.OpenGL15) {
+            // unsynchronized mapping requires sync objects to know
+            // when the GPU is done with a range
+            streamBuffer = new StreamBuffer(ctxCaps.OpenGL30 && ctxCaps.OpenGL32);
+        }
+
         logger.log(Level.FINE, "Caps: {0}", caps);
     }
 
@@ -408,6 +489,10 @@ public class LwjglRenderer implements Renderer {
     public void resetGLObjects() {
         logger.log(Level.FINE, "Reseting objects and invalidating state");
         objManager.resetObjects();
+        if (streamBuffer != null) {
+            streamBuffer.reset();
+            streamBuffer.id = -1;
+        }
         statistics.clearMemory();
         invalidateState();
     }
@@ -415,6 +500,16 @@ public class LwjglRenderer implements Renderer {
     public void cleanup() {
         logger.log(Level.FINE, "Deleting objects and invalidating state");
         objManager.deleteAllObjects(this);
+        if (streamBuffer != null) {
+            streamBuffer.cleanup();
+            streamBuffer.reset();
+            if (streamBuffer.id != -1) {
+                intBuf1.put(0, streamBuffer.id);
+                intBuf1.position(0).limit(1);
+                glDeleteBuffers(intBuf1);
+                streamBuffer.id = -1;
+            }
+        }
         statistics.clearMemory();
         invalidateState();
     }
@@ -439,6 +534,7 @@ public class LwjglRenderer implements Renderer {
             if (context.colorWriteEnabled == false) {
                 glColorMask(true, true, true, true);
                 context.colorWriteEnabled = true;
+                context.renderStateId = -1;
             }
             bits = GL_COLOR_BUFFER_BIT;
         }
@@ -451,6 +547,7 @@ public class LwjglRenderer implements Renderer {
             if (context.depthWriteEnabled == false) {
                 glDepthMask(true);
                 context.depthWriteEnabled = true;
+                context.renderStateId = -1;
             }
             bits |= GL_DEPTH_BUFFER_BIT;
         }
@@ -477,6 +574,14 @@ public class LwjglRenderer implements Renderer {
     }
 
     public void applyRenderState(RenderState state) {
+        int stateId = state.getStateId();
+        if (stateId == context.renderStateId) {
+            // same values as the render state applied last
+            statistics.onRenderStateUse(state, false);
+            return;
+        }
+        statistics.onRenderStateUse(state, true);
+
         if (state.isWireframe() && !context.wireframe) {
             glPolygonMode(GL_FRONT_AND_BACK, GL_LINE);
             context.wireframe = true;
@@ -507,7 +612,7 @@ public class LwjglRenderer implements Renderer {
             context.alphaTestEnabled = false;
         }
         if (state.getAlphaFallOff() != context.alphaTestFallOff) {
-            glAlphaFunc(convertTestFunction(context.alphaFunc), context.alphaTestFallOff);   
+            glAlphaFunc(convertTestFunction(context.alphaFunc), state.getAlphaFallOff());
             context.alphaTestFallOff = state.getAlphaFallOff();
         }         
         if (state.getAlphaFunc() != context.alphaFunc) {
@@ -684,6 +789,13 @@ public class LwjglRenderer implements Renderer {
                 glDisable(GL_STENCIL_TEST);
             }
         }
+
+        if (state.isPointSprite() || context.pointSprite) {
+            // point sprite state also depends on the bound texture
+            context.renderStateId = -1;
+        } else {
+            context.renderStateId = stateId;
+        }
     }
 
     private int convertStencilOperation(StencilOperation stencilOp) {
@@ -773,6 +885,13 @@ public class LwjglRenderer implements Renderer {
 
     public void onFrame() {
         objManager.deleteUnused(this);
+        if (streamBuffer != null && streamBuffer.hasFrameAllocations()) {
+            GLSync fence = null;
+            if (streamBuffer.isFenced()) {
+                fence = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            }
+            streamBuffer.endFrame(fence);
+        }
 //        statistics.clearFrame();
     }
 
@@ -1052,42 +1171,22 @@ public class LwjglRenderer implements Renderer {
             needRegister = true;
         }
 
-        for (ShaderSource source : shader.getSources()) {
-            if (source.isUpdateNeeded()) {
-                updateShaderSourceData(source);
-            }
-            glAttachShader(id, source.getId());
+        String binaryKey = null;
+        boolean linkOK = false;
+        String infoLog = null;
+        if (binaryCache != null && programBinarySupported) {
+            // try the binary linked during a previous run
+            binaryKey = binaryCache.computeKey(shader, driverString);
+            linkOK = loadProgramBinary(id, binaryKey);
         }
 
-        if (caps.contains(Caps.OpenGL30)) {
-            // Check if GLSL version is 1.5 for shader
-            GL30.glBindFragDataLocation(id, 0, "outFragColor");
-            // For MRT
-            for (int i = 0; i < maxMRTFBOAttachs; i++) {
-                GL30.glBindFragDataLocation(id, i, "outFragData[" + i + "]");
+        if (!linkOK) {
+            linkOK = compileAndLinkProgram(shader, binaryKey != null);
+            if (!linkOK || VALIDATE_SHADER) {
+                infoLog = getProgramInfoLog(id);
             }
-        }
-
-        // Link shaders to program
-        glLinkProgram(id);
-
-        // Check link status
-        glGetProgram(id, GL_LINK_STATUS, intBuf1);
-        boolean linkOK = intBuf1.get(0) == GL_TRUE;
-        String infoLog = null;
-
-        if (VALIDATE_SHADER || !linkOK) {
-            glGetProgram(id, GL_INFO_LOG_LENGTH, intBuf1);
-            int length = intBuf1.get(0);
-            if (length > 3) {
-                // get infos
-                ByteBuffer logBuf = BufferUtils.createByteBuffer(length);
-                glGetProgramInfoLog(id, null, logBuf);
-
-                // convert to string, etc
-                byte[] logBytes = new byte[length];
-                logBuf.get(logBytes, 0, length);
-                infoLog = new String(logBytes);
+            if (linkOK && binaryKey != null) {
+                saveProgramBinary(id, binaryKey);
             }
         }
 
@@ -1115,6 +1214,92 @@ public class LwjglRenderer implements Renderer {
         }
     }
 
+    private boolean compileAndLinkProgram(Shader shader, boolean retrievable) {
+        int id = shader.getId();
+        for (ShaderSource source : shader.getSources()) {
+            if (source.isUpdateNeeded()) {
+                updateShaderSourceData(source);
+            }
+            glAttachShader(id, source.getId());
+        }
+
+        if (caps.contains(Caps.OpenGL30)) {
+            // Check if GLSL version is 1.5 for shader
+            GL30.glBindFragDataLocation(id, 0, "outFragColor");
+            // For MRT
+            for (int i = 0; i < maxMRTFBOAttachs; i++) {
+                GL30.glBindFragDataLocation(id, i, "outFragData[" + i + "]");
+            }
+        }
+
+        if (retrievable) {
+            ARBGetProgramBinary.glProgramParameteri(id, 
+                    ARBGetProgramBinary.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+        }
+
+        // Link shaders to program
+        glLinkProgram(id);
+
+        // Check link status
+        glGetProgram(id, GL_LINK_STATUS, intBuf1);
+        return intBuf1.get(0) == GL_TRUE;
+    }
+
+    private String getProgramInfoLog(int id) {
+        glGetProgram(id, GL_INFO_LOG_LENGTH, intBuf1);
+        int length = intBuf1.get(0);
+        if (length > 3) {
+            // get infos
+            ByteBuffer logBuf = BufferUtils.createByteBuffer(length);
+            glGetProgramInfoLog(id, null, logBuf);
+
+            // convert to string, etc
+            byte[] logBytes = new byte[length];
+            logBuf.get(logBytes, 0, length);
+            return new String(logBytes);
+        }
+        return null;
+    }
+
+    private boolean loadProgramBinary(int id, String key) {
+        ProgramBinaryCache.Binary binary = binaryCache.load(key);
+        if (binary == null) {
+            return false;
+        }
+
+        ByteBuffer data = BufferUtils.createByteBuffer(binary.getData().length);
+        data.put(binary.getData()).flip();
+        ARBGetProgramBinary.glProgramBinary(id, binary.getFormat(), data);
+        BufferUtils.destroyDirectBuffer(data);
+
+        glGetProgram(id, GL_LINK_STATUS, intBuf1);
+        if (intBuf1.get(0) != GL_TRUE) {
+            // usually happens after a driver update
+            logger.log(Level.FINE, "Program binary {0} rejected by the driver", key);
+            binaryCache.remove(key);
+            return false;
+        }
+        logger.log(Level.FINE, "Program binary {0} loaded", key);
+        return true;
+    }
+
+    private void saveProgramBinary(int id, String key) {
+        glGetProgram(id, ARBGetProgramBinary.GL_PROGRAM_BINARY_LENGTH, intBuf1);
+        int length = intBuf1.get(0);
+        if (length <= 0) {
+            return;
+        }
+
+        ByteBuffer data = BufferUtils.createByteBuffer(length);
+        intBuf1.clear();
+        intBuf16.clear();
+        ARBGetProgramBinary.glGetProgramBinary(id, intBuf1, intBuf16, data);
+        byte[] bytes = new byte[intBuf1.get(0)];
+        data.get(bytes);
+        BufferUtils.destroyDirectBuffer(data);
+        binaryCache.save(key, new ProgramBinaryCache.Binary(intBuf16.get(0), bytes));
+    }
+
     public void setShader(Shader shader) {
         if (shader == null) {
             throw new IllegalArgumentException("Shader cannot be null");
@@ -2094,6 +2279,7 @@ public class LwjglRenderer implements Renderer {
         vb.getData().rewind();
 
         if (created || vb.hasDataSizeChanged()) {
+            statistics.onBufferUpload(vb.getData().limit() * vb.getFormat().getComponentSize());
             // upload data based on format
             switch (vb.getFormat()) {
                 case Byte:
@@ -2118,7 +2304,13 @@ public class LwjglRenderer implements Renderer {
                 default:
                     throw new UnsupportedOperationException("Unknown buffer format.");
             }
+        } else if (vb.hasDirtyRanges()) {
+            // only upload the modified elements
+            for (int i = 0; i < vb.getNumDirtyRanges(); i++) {
+                updateBufferRange(target, vb, vb.getDirtyRangeStart(i), vb.getDirtyRangeEnd(i));
+            }
         } else {
+            statistics.onBufferUpload(vb.getData().limit() * vb.getFormat().getComponentSize());
             switch (vb.getFormat()) {
                 case Byte:
                 case UnsignedByte:
@@ -2146,6 +2338,156 @@ public class LwjglRenderer implements Renderer {
         vb.clearUpdateNeeded();
     }
 
+    /**
+     * Uploads a range of elements of the buffer, which must be bound.
+     */
+    private void updateBufferRange(int target, VertexBuffer vb, int start, int end) {
+        Buffer data = vb.getData();
+        int components = vb.getNumComponents();
+        int componentSize = vb.getFormat().getComponentSize();
+        long offset = (long) start * components * componentSize;
+        int limit = data.limit();
+        data.limit(end * components);
+        data.position(start * components);
+        statistics.onBufferUpload(data.remaining() * componentSize);
+        switch (vb.getFormat()) {
+            case Byte:
+            case UnsignedByte:
+                glBufferSubData(target, offset, (ByteBuffer) data);
+                break;
+            case Short:
+            case UnsignedShort:
+                glBufferSubData(target, offset, (ShortBuffer) data);
+                break;
+            case Int:
+            case UnsignedInt:
+                glBufferSubData(target, offset, (IntBuffer) data);
+                break;
+            case Float:
+                glBufferSubData(target, offset, (FloatBuffer) data);
+                break;
+            case Double:
+                glBufferSubData(target, offset, (DoubleBuffer) data);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown buffer format.");
+        }
+        data.limit(limit);
+        data.rewind();
+    }
+
+    private void bindArrayBuffer(int bufId) {
+        if (context.boundArrayVBO != bufId) {
+            glBindBuffer(GL_ARRAY_BUFFER, bufId);
+            context.boundArrayVBO = bufId;
+        }
+    }
+
+    private boolean isStreamed(VertexBuffer vb) {
+        return streamBuffer != null
+                && vb.getUsage() == Usage.Stream
+                && vb.getData() != null
+                && vb.getData().limit() * vb.getFormat().getComponentSize() <= STREAM_MAX_SIZE;
+    }
+
+    /**
+     * Copies the data of the vertex buffer into the stream buffer, unless
+     * the data copied earlier is still there.
+     * 
+     * @return The offset of the data in the stream buffer, or -1 if there
+     * is no room left for it in this frame.
+     */
+    private int streamBufferData(VertexBuffer vb) {
+        long position = vb.getStreamPosition();
+        if (!vb.isUpdateNeeded() && streamBuffer.isValid(position)) {
+            streamBuffer.markUsed(position);
+            return streamBuffer.getOffset(position);
+        }
+
+        Buffer data = vb.getData();
+        int size = data.limit() * vb.getFormat().getComponentSize();
+        position = streamBuffer.allocate(size);
+        if (position == -1) {
+            vb.setStreamPosition(-1);
+            return -1;
+        }
+
+        if (streamBuffer.id == -1) {
+            glGenBuffers(intBuf1);
+            streamBuffer.id = intBuf1.get(0);
+            bindArrayBuffer(streamBuffer.id);
+            glBufferData(GL_ARRAY_BUFFER, STREAM_BUFFER_SIZE, GL_STREAM_DRAW);
+        } else {
+            bindArrayBuffer(streamBuffer.id);
+        }
+
+        int offset = streamBuffer.getOffset(position);
+        statistics.onBufferUpload(size);
+        data.rewind();
+        ByteBuffer mapped = null;
+        if (streamBuffer.isFenced()) {
+            mapped = GL30.glMapBufferRange(GL_ARRAY_BUFFER, offset, size,
+                    GL30.GL_MAP_WRITE_BIT
+                    | GL30.GL_MAP_UNSYNCHRONIZED_BIT
+                    | GL30.GL_MAP_INVALIDATE_RANGE_BIT, null);
+        }
+        if (mapped != null) {
+            mapped.order(ByteOrder.nativeOrder());
+            switch (vb.getFormat()) {
+                case Byte:
+                case UnsignedByte:
+                    mapped.put((ByteBuffer) data);
+                    break;
+                case Short:
+                case UnsignedShort:
+                    mapped.asShortBuffer().put((ShortBuffer) data);
+                    break;
+                case Int:
+                case UnsignedInt:
+                    mapped.asIntBuffer().put((IntBuffer) data);
+                    break;
+                case Float:
+                    mapped.asFloatBuffer().put((FloatBuffer) data);
+                    break;
+                case Double:
+                    mapped.asDoubleBuffer().put((DoubleBuffer) data);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown buffer format.");
+            }
+            glUnmapBuffer(GL_ARRAY_BUFFER);
+        } else {
+            // orphaning mode, or the mapping failed
+            switch (vb.getFormat()) {
+                case Byte:
+                case UnsignedByte:
+                    glBufferSubData(GL_ARRAY_BUFFER, offset, (ByteBuffer) data);
+                    break;
+                case Short:
+                case UnsignedShort:
+                    glBufferSubData(GL_ARRAY_BUFFER, offset, (ShortBuffer) data);
+                    break;
+                case Int:
+                case UnsignedInt:
+                    glBufferSubData(GL_ARRAY_BUFFER, offset, (IntBuffer) data);
+                    break;
+                case Float:
+                    glBufferSubData(GL_ARRAY_BUFFER, offset, (FloatBuffer) data);
+                    break;
+                case Double:
+                    glBufferSubData(GL_ARRAY_BUFFER, offset, (DoubleBuffer) data);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown buffer format.");
+            }
+        }
+        data.rewind();
+
+        vb.setStreamPosition(position);
+        vb.clearUpdateNeeded();
+        return offset;
+    }
+
     public void deleteBuffer(VertexBuffer vb) {
         int bufId = vb.getId();
         if (bufId != -1) {
@@ -2164,6 +2506,9 @@ public class LwjglRenderer implements Renderer {
         for (int i = 0; i < attribList.oldLen; i++) {
             int idx = attribList.oldList[i];
             glDisableVertexAttribArray(idx);
+            if (context.boundAttribs[idx].isInstanced()) {
+                ARBInstancedArrays.glVertexAttribDivisorARB(idx, 0);
+            }
             context.boundAttribs[idx] = null;
         }
         context.attribIndexList.copyNewToOld();
@@ -2197,18 +2542,43 @@ public class LwjglRenderer implements Renderer {
                 }
             }
 
-            if (vb.isUpdateNeeded() && idb == null) {
+            if (vb.isInstanced() && !caps.contains(Caps.MeshInstancing)) {
+                throw new RendererException("Instanced vertex buffers require "
+                                          + "GL_ARB_instanced_arrays");
+            }
+
+            // stream buffers are sourced from the shared ring buffer,
+            // at a different offset every time they are updated
+            boolean streamed = idb == null && isStreamed(vb);
+            int streamOffset = -1;
+            if (streamed) {
+                streamOffset = streamBufferData(vb);
+                if (streamOffset == -1) {
+                    // no room left this frame, use a buffer of its own
+                    updateBufferData(vb);
+                }
+            } else if (vb.isUpdateNeeded() && idb == null) {
                 updateBufferData(vb);
             }
 
+            // matrices take one attribute location per column
+            int slots = vb.getNumComponents() > 4 ? vb.getNumComponents() / 4 : 1;
+
             VertexBuffer[] attribs = context.boundAttribs;
-            if (!context.attribIndexList.moveToNew(loc)) {
-                glEnableVertexAttribArray(loc);
-                //System.out.println("Enabled ATTRIB IDX: "+loc);
+            for (int i = 0; i < slots; i++) {
+                if (!context.attribIndexList.moveToNew(loc + i)) {
+                    glEnableVertexAttribArray(loc + i);
+                    //System.out.println("Enabled ATTRIB IDX: "+loc);
+                }
             }
-            if (attribs[loc] != vb) {
+            if (attribs[loc] != vb || streamed) {
                 // NOTE: Use id from interleaved buffer if specified
                 int bufId = idb != null ? idb.getId() : vb.getId();
+                int offset = vb.getOffset();
+                if (streamOffset != -1) {
+                    bufId = streamBuffer.id;
+                    offset += streamOffset;
+                }
                 assert bufId != -1;
                 if (context.boundArrayVBO != bufId) {
                     glBindBuffer(GL_ARRAY_BUFFER, bufId);
@@ -2218,14 +2588,36 @@ public class LwjglRenderer implements Renderer {
                     //statistics.onVertexBufferUse(vb, false);
                 }
 
-                glVertexAttribPointer(loc,
-                        vb.getNumComponents(),
-                        convertFormat(vb.getFormat()),
-                        vb.isNormalized(),
-                        vb.getStride(),
-                        vb.getOffset());
+                if (slots == 1) {
+                    glVertexAttribPointer(loc,
+                            vb.getNumComponents(),
+                            convertFormat(vb.getFormat()),
+                            vb.isNormalized(),
+                            vb.getStride(),
+                            offset);
+                } else {
+                    int componentSize = vb.getFormat().getComponentSize();
+                    int stride = vb.getStride() != 0 ? vb.getStride()
+                                                     : vb.getNumComponents() * componentSize;
+                    for (int i = 0; i < slots; i++) {
+                        glVertexAttribPointer(loc + i,
+                                4,
+                                convertFormat(vb.getFormat()),
+                                vb.isNormalized(),
+                                stride,
+                                offset + 4 * componentSize * i);
+                    }
+                }
 
-                attribs[loc] = vb;
+                for (int i = 0; i < slots; i++) {
+                    VertexBuffer oldVb = attribs[loc + i];
+                    if (vb.isInstanced()) {
+                        ARBInstancedArrays.glVertexAttribDivisorARB(loc + i, vb.getInstanceSpan());
+                    } else if (oldVb != null && oldVb.isInstanced()) {
+                        ARBInstancedArrays.glVertexAttribDivisorARB(loc + i, 0);
+                    }
+                    attribs[loc + i] = vb;
+                }
             }
         } else {
             throw new IllegalStateException("Cannot render mesh without shader bound");
@@ -2322,6 +2714,40 @@ public class LwjglRenderer implements Renderer {
         }
     }
 
+    /*********************************************************************\
+    |* Occlusion Queries                                                 *|
+    \*********************************************************************/
+    public void startOcclusionQuery(OcclusionQuery query) {
+        int id = query.getId();
+        if (id == -1) {
+            id = glGenQueries();
+            query.setId(id);
+            objManager.registerObject(query);
+        }
+
+        glBeginQuery(GL_SAMPLES_PASSED, id);
+        statistics.onOcclusionQuery();
+    }
+
+    public void stopOcclusionQuery(OcclusionQuery query) {
+        glEndQuery(GL_SAMPLES_PASSED);
+    }
+
+    public boolean isOcclusionQueryResultAvailable(OcclusionQuery query) {
+        return glGetQueryObjecti(query.getId(), GL_QUERY_RESULT_AVAILABLE) == GL_TRUE;
+    }
+
+    public int getOcclusionQueryResult(OcclusionQuery query) {
+        return glGetQueryObjecti(query.getId(), GL_QUERY_RESULT);
+    }
+
+    public void deleteOcclusionQuery(OcclusionQuery query) {
+        if (query.getId() != -1) {
+            glDeleteQueries(query.getId());
+            query.resetObject();
+        }
+    }
+
     /*********************************************************************\
     |* Render Calls                                                      *|
     \*********************************************************************/
@@ -2410,7 +2836,7 @@ public class LwjglRenderer implements Renderer {
         clearTextureUnits();
     }
 
-    private void renderMeshDefault(Mesh mesh, int lod, int count) {
+    private void renderMeshDefault(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
         VertexBuffer indices;
 
         VertexBuffer interleavedData = mesh.getBuffer(Type.InterleavedData);
@@ -2445,6 +2871,12 @@ public class LwjglRenderer implements Renderer {
             }
         }
 
+        if (instanceData != null) {
+            for (VertexBuffer vb : instanceData) {
+                setVertexAttrib(vb);
+            }
+        }
+
         if (indices != null) {
             drawTriangleList(indices, mesh, count);
         } else {
@@ -2455,6 +2887,10 @@ public class LwjglRenderer implements Renderer {
     }
 
     public void renderMesh(Mesh mesh, int lod, int count) {
+        renderMesh(mesh, lod, count, null);
+    }
+
+    public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
         if (mesh.getVertexCount() == 0) {
             return;
         }
@@ -2469,6 +2905,7 @@ public class LwjglRenderer implements Renderer {
                 glDisable(GL_POINT_SPRITE);
                 glDisable(GL_VERTEX_PROGRAM_POINT_SIZE);
                 context.pointSprite = false;
+                context.renderStateId = -1;
             }
         }
 
@@ -2485,7 +2922,7 @@ public class LwjglRenderer implements Renderer {
 //        if (GLContext.getCapabilities().GL_ARB_vertex_array_object){
 //            renderMeshVertexArray(mesh, lod, count);
 //        }else{
-        renderMeshDefault(mesh, lod, count);
+        renderMeshDefault(mesh, lod, count, instanceData);
 //        }
     }
 }
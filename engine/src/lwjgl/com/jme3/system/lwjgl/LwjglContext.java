@@ -39,11 +39,13 @@ import com.jme3.math.FastMath;
 import com.jme3.renderer.Renderer;
 import com.jme3.renderer.lwjgl.LwjglGL1Renderer;
 import com.jme3.renderer.lwjgl.LwjglRenderer;
+import com.jme3.shader.ProgramBinaryCache;
 import com.jme3.system.AppSettings;
 import com.jme3.system.JmeContext;
 import com.jme3.system.JmeSystem;
 import com.jme3.system.SystemListener;
 import com.jme3.system.Timer;
+import java.io.File;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -232,6 +234,10 @@ public abstract class LwjglContext implements JmeContext {
         // Init renderer
         if (renderer instanceof LwjglRenderer){
             ((LwjglRenderer)renderer).initialize();
+            if (settings.getShaderCacheDirectory() != null){
+                ProgramBinaryCache cache = new ProgramBinaryCache(new File(settings.getShaderCacheDirectory()));
+                ((LwjglRenderer)renderer).setProgramBinaryCache(cache);
+            }
         }else if (renderer instanceof LwjglGL1Renderer){
             ((LwjglGL1Renderer)renderer).initialize();
         }else{
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.light;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.font.BitmapText;
+import com.jme3.input.KeyInput;
+import com.jme3.input.controls.ActionListener;
+import com.jme3.input.controls.KeyTrigger;
+import com.jme3.light.AmbientLight;
+import com.jme3.light.PointLight;
+import com.jme3.light.SpotLight;
+import com.jme3.material.Material;
+import com.jme3.material.TechniqueDef.LightMode;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Caps;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+
+/**
+ * Lights a field of boxes and spheres with 320 moving point and spot lights.
+ * Press space to switch between the MultiPass and Clustered light modes, 
+ * and compare the number of objects drawn and the frame time in the stats.
+ */
+public class TestClusteredLighting extends SimpleApplication implements ActionListener {
+
+    private static final int SIZE = 30;
+    private static final int NUM_LIGHTS = 320;
+
+    private PointLight[] pointLights;
+    private SpotLight[] spotLights;
+    private BitmapText modeText;
+    private float time = 0;
+
+    public static void main(String[] args) {
+        TestClusteredLighting app = new TestClusteredLighting();
+        app.start();
+    }
+
+    @Override
+    public void simpleInitApp() {
+        if (!renderer.getCaps().contains(Caps.FloatTexture)) {
+            throw new UnsupportedOperationException("Clustered lighting requires float textures");
+        }
+        renderManager.setPreferredLightMode(LightMode.Clustered);
+
+        Material mat = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        mat.setBoolean("UseMaterialColors", true);
+        mat.setColor("Diffuse", ColorRGBA.White);
+        mat.setColor("Ambient", ColorRGBA.White);
+        mat.setColor("Specular", ColorRGBA.White);
+        mat.setFloat("Shininess", 16);
+
+        Mesh box = new Box(0.4f, 0.4f, 0.4f);
+        Mesh sphere = new Sphere(12, 12, 0.4f);
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                Geometry geom = new Geometry("geom", (x + z) % 2 == 0 ? box : sphere);
+                geom.setMaterial(mat);
+                geom.setLocalTranslation(x * 2, 0, z * 2);
+                rootNode.attachChild(geom);
+            }
+        }
+        Geometry floor = new Geometry("floor", new Box(SIZE, 0.1f, SIZE));
+        floor.setMaterial(mat);
+        floor.setLocalTranslation(SIZE - 1, -0.5f, SIZE - 1);
+        rootNode.attachChild(floor);
+
+        AmbientLight al = new AmbientLight();
+        al.setColor(ColorRGBA.White.mult(0.05f));
+        rootNode.addLight(al);
+
+        pointLights = new PointLight[NUM_LIGHTS * 3 / 4];
+        for (int i = 0; i < pointLights.length; i++) {
+            pointLights[i] = new PointLight();
+            pointLights[i].setColor(ColorRGBA.randomColor());
+            pointLights[i].setRadius(4);
+            rootNode.addLight(pointLights[i]);
+        }
+        spotLights = new SpotLight[NUM_LIGHTS - pointLights.length];
+        for (int i = 0; i < spotLights.length; i++) {
+            spotLights[i] = new SpotLight();
+            spotLights[i].setColor(ColorRGBA.randomColor().multLocal(2));
+            spotLights[i].setSpotRange(8);
+            spotLights[i].setSpotInnerAngle(10 * FastMath.DEG_TO_RAD);
+            spotLights[i].setSpotOuterAngle(25 * FastMath.DEG_TO_RAD);
+            spotLights[i].setDirection(Vector3f.UNIT_Y.negate());
+            rootNode.addLight(spotLights[i]);
+        }
+        moveLights();
+
+        cam.setLocation(new Vector3f(-8, 15, -8));
+        cam.lookAt(new Vector3f(SIZE, 0, SIZE), Vector3f.UNIT_Y);
+        flyCam.setMoveSpeed(20);
+
+        modeText = new BitmapText(guiFont, false);
+        modeText.setLocalTranslation(0, cam.getHeight(), 0);
+        guiNode.attachChild(modeText);
+        updateModeText();
+
+        inputManager.addMapping("switchMode", new KeyTrigger(KeyInput.KEY_SPACE));
+        inputManager.addListener(this, "switchMode");
+    }
+
+    private void updateModeText() {
+        modeText.setText("Light mode: " + renderManager.getPreferredLightMode() + " (space to switch)");
+    }
+
+    public void onAction(String name, boolean isPressed, float tpf) {
+        if (name.equals("switchMode") && isPressed) {
+            if (renderManager.getPreferredLightMode() == LightMode.Clustered) {
+                renderManager.setPreferredLightMode(LightMode.MultiPass);
+            } else {
+                renderManager.setPreferredLightMode(LightMode.Clustered);
+            }
+            updateModeText();
+        }
+    }
+
+    private void moveLights() {
+        float extent = SIZE * 2;
+        for (int i = 0; i < pointLights.length; i++) {
+            float angle = time * 0.3f + i;
+            pointLights[i].setPosition(new Vector3f(
+                    (i * 7.31f) % extent + FastMath.sin(angle) * 2,
+                    1.5f,
+                    (i * 3.17f) % extent + FastMath.cos(angle) * 2));
+        }
+        for (int i = 0; i < spotLights.length; i++) {
+            float angle = time * 0.5f + i;
+            spotLights[i].setPosition(new Vector3f(
+                    (i * 11.3f) % extent + FastMath.cos(angle) * 3,
+                    5,
+                    (i * 5.7f) % extent + FastMath.sin(angle) * 3));
+        }
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        time += tpf;
+        moveLights();
+    }
+}
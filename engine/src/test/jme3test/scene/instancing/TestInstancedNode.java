@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.scene.instancing;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.light.DirectionalLight;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.InstancedNode;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+
+/**
+ * Renders 5000 moving boxes and spheres with two instanced draw calls.
+ */
+public class TestInstancedNode extends SimpleApplication {
+
+    private static final int SIZE = 50;
+
+    private InstancedNode instancedNode;
+    private Geometry[] geometries;
+    private float time = 0;
+
+    public static void main(String[] args) {
+        TestInstancedNode app = new TestInstancedNode();
+        app.start();
+    }
+
+    @Override
+    public void simpleInitApp() {
+        Material mat = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        mat.setBoolean("UseMaterialColors", true);
+        mat.setColor("Diffuse", ColorRGBA.Orange);
+        mat.setColor("Ambient", ColorRGBA.Orange.mult(0.2f));
+        mat.setBoolean("UseInstancing", true);
+
+        Mesh box = new Box(0.3f, 0.3f, 0.3f);
+        Mesh sphere = new Sphere(10, 10, 0.3f);
+
+        instancedNode = new InstancedNode("instanced");
+        geometries = new Geometry[SIZE * SIZE * 2];
+        for (int i = 0; i < geometries.length; i++) {
+            Geometry geom = new Geometry("geom" + i, i % 2 == 0 ? box : sphere);
+            geom.setMaterial(mat);
+            geom.setLocalTranslation((i / 2) % SIZE, 0, (i / 2) / SIZE + (i % 2) * 0.5f);
+            instancedNode.attachChild(geom);
+            geometries[i] = geom;
+        }
+        instancedNode.instance();
+        rootNode.attachChild(instancedNode);
+
+        DirectionalLight dl = new DirectionalLight();
+        dl.setDirection(new Vector3f(-1, -1, -1).normalizeLocal());
+        rootNode.addLight(dl);
+
+        cam.setLocation(new Vector3f(-10, 20, -10));
+        cam.lookAt(new Vector3f(SIZE / 2, 0, SIZE / 2), Vector3f.UNIT_Y);
+        flyCam.setMoveSpeed(20);
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        time += tpf;
+        Quaternion rot = new Quaternion().fromAngleAxis(time, Vector3f.UNIT_Y);
+        // only a tenth of the instances move each frame
+        for (int i = (int) (time * 60) % 10; i < geometries.length; i += 10) {
+            Vector3f pos = geometries[i].getLocalTranslation();
+            geometries[i].setLocalTranslation(pos.x, FastMath.sin(time + pos.x * 0.2f), pos.z);
+            geometries[i].setLocalRotation(rot);
+        }
+    }
+}
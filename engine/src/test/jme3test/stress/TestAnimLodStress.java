@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.stress;
+
+import com.jme3.animation.AnimChannel;
+import com.jme3.animation.AnimControl;
+import com.jme3.animation.AnimLod;
+import com.jme3.animation.SkeletonControl;
+import com.jme3.app.SimpleApplication;
+import com.jme3.font.BitmapText;
+import com.jme3.input.KeyInput;
+import com.jme3.input.controls.ActionListener;
+import com.jme3.input.controls.KeyTrigger;
+import com.jme3.light.DirectionalLight;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.post.SceneProcessor;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Spatial;
+import com.jme3.texture.FrameBuffer;
+import java.util.ArrayList;
+
+/**
+ * Stress test for animation levels of detail, 1000 software skinned
+ * models are spread from a few units to a few hundred units from the
+ * camera. The CPU time spent animating and skinning the models is 
+ * displayed, press space to toggle the levels of detail.
+ */
+public class TestAnimLodStress extends SimpleApplication implements ActionListener {
+
+    private static final int ROWS = 40;
+    private static final int COLUMNS = 25;
+    private static final float SPACING = 6f;
+    private static final int SAMPLES = 60;
+
+    private final String[] animNames = {"Dodge", "Walk", "pull", "push"};
+    private final ArrayList<AnimControl> controls = new ArrayList<AnimControl>();
+    private AnimLod lod;
+    private boolean lodEnabled = true;
+    private BitmapText timeText;
+    private long frameStart;
+    private long animTime;
+    private int frames;
+
+    public static void main(String[] args){
+        TestAnimLodStress app = new TestAnimLodStress();
+        app.setShowSettings(false);
+        app.setPauseOnLostFocus(false);
+        app.start();
+    }
+
+    public void simpleInitApp() {
+        DirectionalLight dl = new DirectionalLight();
+        dl.setDirection(new Vector3f(-0.1f, -0.7f, -1).normalizeLocal());
+        dl.setColor(ColorRGBA.White);
+        rootNode.addLight(dl);
+
+        lod = new AnimLod();
+        lod.addLevel(30, 2, -1);
+        lod.addLevel(80, 4, 3);
+        lod.addLevel(150, 8, 1).setScreenArea(50);
+
+        Spatial oto = assetManager.loadModel("Models/Oto/Oto.mesh.xml");
+        oto.setLocalScale(0.5f);
+        for (int row = 0; row < ROWS; row++){
+            for (int column = 0; column < COLUMNS; column++){
+                Spatial model = oto.clone();
+                model.setLocalTranslation((column - COLUMNS / 2) * SPACING, 0, -row * SPACING);
+                model.getControl(SkeletonControl.class).setHardwareSkinningPreferred(false);
+
+                AnimControl control = model.getControl(AnimControl.class);
+                AnimChannel channel = control.createChannel();
+                channel.setAnim(animNames[(row + column) % animNames.length]);
+                control.setLod(lod);
+                controls.add(control);
+                rootNode.attachChild(model);
+            }
+        }
+
+        cam.setLocation(new Vector3f(0, 8, 10));
+        cam.lookAt(new Vector3f(0, 0, -ROWS * SPACING / 2), Vector3f.UNIT_Y);
+        cam.setFrustumFar(1000);
+        flyCam.setMoveSpeed(50);
+
+        viewPort.addProcessor(new AnimTimer());
+
+        timeText = new BitmapText(guiFont, false);
+        timeText.setLocalTranslation(0, cam.getHeight() - timeText.getLineHeight() * 2, 0);
+        guiNode.attachChild(timeText);
+
+        inputManager.addMapping("toggleLod", new KeyTrigger(KeyInput.KEY_SPACE));
+        inputManager.addListener(this, "toggleLod");
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        frameStart = System.nanoTime();
+    }
+
+    public void onAction(String name, boolean isPressed, float tpf) {
+        if (isPressed && name.equals("toggleLod")){
+            lodEnabled = !lodEnabled;
+            for (AnimControl control : controls){
+                control.setLod(lodEnabled ? lod : null);
+            }
+            animTime = 0;
+            frames = 0;
+        }
+    }
+
+    /**
+     * Measures the time between the scene update and the moment the render
+     * queue has been filled, e.g. the time spent animating the models and
+     * skinning the visible ones.
+     */
+    private class AnimTimer implements SceneProcessor {
+
+        private boolean initialized = false;
+
+        public void initialize(RenderManager rm, ViewPort vp) {
+            initialized = true;
+        }
+
+        public void reshape(ViewPort vp, int w, int h) {
+        }
+
+        public boolean isInitialized() {
+            return initialized;
+        }
+
+        public void preFrame(float tpf) {
+        }
+
+        public void postQueue(RenderQueue rq) {
+            animTime += System.nanoTime() - frameStart;
+            frames++;
+            if (frames == SAMPLES){
+                timeText.setText("Animation LOD: " + lodEnabled
+                        + " (space to toggle)\nAnimation time: "
+                        + (animTime / frames / 1000) / 1000f + " ms/frame");
+                animTime = 0;
+                frames = 0;
+            }
+        }
+
+        public void postFrame(FrameBuffer out) {
+        }
+
+        public void cleanup() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.stress;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.material.Material;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.system.NullRenderer;
+import java.util.EnumSet;
+
+/**
+ * Measures the cost of changing a define bound material parameter 
+ * and switching techniques, without any rendering.
+ * Every iteration toggles a boolean define, and alternates between the 
+ * default and the PreShadow technique of the lighting material, 
+ * so the define list of the technique is compared against the material 
+ * parameters and the shader is looked up again in the asset cache.
+ */
+public class TestDefineToggle {
+
+    private static final int WARMUP_ITERATIONS = 200000;
+    private static final int ITERATIONS = 2000000;
+
+    public static void main(String[] args) {
+        AssetManager assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        
+        NullRenderer renderer = new NullRenderer();
+        renderer.getCaps().addAll(EnumSet.of(Caps.GLSL100, Caps.GLSL110, Caps.GLSL120));
+        RenderManager renderManager = new RenderManager(renderer);
+
+        Material mat = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        mat.setBoolean("UseMaterialColors", true);
+        mat.setInt("NumberOfBones", 4);
+        mat.setFloat("AlphaDiscardThreshold", 0.5f);
+
+        run(mat, renderManager, WARMUP_ITERATIONS);
+
+        long nanos = System.nanoTime();
+        run(mat, renderManager, ITERATIONS);
+        long elapsed = System.nanoTime() - nanos;
+
+        System.out.println(ITERATIONS + " setParam + selectTechnique calls: " 
+                + (elapsed / 1000000) + " ms, " 
+                + ((double) elapsed / ITERATIONS) + " ns/op");
+    }
+
+    private static void run(Material mat, RenderManager renderManager, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            mat.setBoolean("UseVertexColor", (i & 2) == 0);
+            mat.setInt("NumberOfBones", 4);
+            mat.selectTechnique((i & 1) == 0 ? "Default" : "PreShadow", renderManager);
+        }
+    }
+}
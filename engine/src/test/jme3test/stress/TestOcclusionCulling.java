@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.stress;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.font.BitmapText;
+import com.jme3.input.KeyInput;
+import com.jme3.input.controls.ActionListener;
+import com.jme3.input.controls.KeyTrigger;
+import com.jme3.light.DirectionalLight;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.post.OcclusionCullingProcessor;
+import com.jme3.renderer.SoftwareOcclusionCuller;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+
+/**
+ * A maze of walls, each room holding a detailed object. Most rooms are
+ * hidden behind walls from any point of view. Press SPACE to switch 
+ * between no occlusion culling, the {@link OcclusionCullingProcessor}
+ * using hardware queries, and the {@link SoftwareOcclusionCuller} using
+ * the walls as occluders. The number of occluded objects is displayed 
+ * in the statistics.
+ */
+public class TestOcclusionCulling extends SimpleApplication implements ActionListener {
+
+    private static final int ROOMS = 16;
+    private static final float ROOM_SIZE = 10;
+
+    private OcclusionCullingProcessor occlusionProcessor;
+    private SoftwareOcclusionCuller occlusionCuller;
+    private int mode = 1;
+    private BitmapText infoText;
+
+    public static void main(String[] args){
+        TestOcclusionCulling app = new TestOcclusionCulling();
+        app.start();
+    }
+
+    public void simpleInitApp() {
+        Material wallMat = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        wallMat.setBoolean("UseMaterialColors", true);
+        wallMat.setColor("Diffuse", ColorRGBA.Gray);
+        wallMat.setColor("Ambient", ColorRGBA.DarkGray);
+
+        Material objectMat = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        objectMat.setBoolean("UseMaterialColors", true);
+        objectMat.setColor("Diffuse", ColorRGBA.Orange);
+        objectMat.setColor("Ambient", ColorRGBA.DarkGray);
+
+        Box wallX = new Box(ROOM_SIZE / 2, 3, 0.2f);
+        Box wallZ = new Box(0.2f, 3, ROOM_SIZE / 2);
+        Sphere sphere = new Sphere(64, 64, 1.5f);
+
+        occlusionCuller = new SoftwareOcclusionCuller();
+
+        Node maze = new Node("maze");
+        for (int x = 0; x < ROOMS; x++){
+            for (int z = 0; z < ROOMS; z++){
+                Vector3f center = new Vector3f((x - ROOMS / 2) * ROOM_SIZE, 0, (z - ROOMS / 2) * ROOM_SIZE);
+
+                // leave a door in every other wall
+                if ((x + z) % 2 == 0){
+                    Geometry wall = new Geometry("wall", wallX);
+                    wall.setMaterial(wallMat);
+                    wall.setLocalTranslation(center.add(0, 3, -ROOM_SIZE / 2));
+                    maze.attachChild(wall);
+                    occlusionCuller.addOccluder(wall);
+                }
+                if ((x + z) % 3 != 0){
+                    Geometry wall = new Geometry("wall", wallZ);
+                    wall.setMaterial(wallMat);
+                    wall.setLocalTranslation(center.add(-ROOM_SIZE / 2, 3, 0));
+                    maze.attachChild(wall);
+                    occlusionCuller.addOccluder(wall);
+                }
+
+                Geometry object = new Geometry("object", sphere);
+                object.setMaterial(objectMat);
+                object.setLocalTranslation(center.add(0, 1.5f, 0));
+                maze.attachChild(object);
+            }
+        }
+        rootNode.attachChild(maze);
+
+        DirectionalLight dl = new DirectionalLight();
+        dl.setDirection(new Vector3f(-1, -2, -1).normalizeLocal());
+        rootNode.addLight(dl);
+
+        cam.setLocation(new Vector3f(2, 2, 2));
+        flyCam.setMoveSpeed(20);
+
+        occlusionProcessor = new OcclusionCullingProcessor(assetManager);
+        viewPort.addProcessor(occlusionProcessor);
+
+        infoText = new BitmapText(guiFont, false);
+        infoText.setLocalTranslation(0, cam.getHeight(), 0);
+        guiNode.attachChild(infoText);
+        updateText();
+
+        inputManager.addMapping("toggle", new KeyTrigger(KeyInput.KEY_SPACE));
+        inputManager.addListener(this, "toggle");
+    }
+
+    private void updateText() {
+        String[] modes = {"off", "hardware queries", "software rasterizer"};
+        infoText.setText("Occlusion culling: " + modes[mode] + " (SPACE to switch)");
+    }
+
+    public void onAction(String name, boolean isPressed, float tpf) {
+        if (name.equals("toggle") && isPressed){
+            mode = (mode + 1) % 3;
+            occlusionProcessor.setEnabled(mode == 1);
+            renderManager.setOcclusionCuller(mode == 2 ? occlusionCuller : null);
+            updateText();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        occlusionCuller.cleanup();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.stress;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.font.BitmapText;
+import com.jme3.input.KeyInput;
+import com.jme3.input.controls.ActionListener;
+import com.jme3.input.controls.KeyTrigger;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.post.SceneProcessor;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.texture.FrameBuffer;
+
+/**
+ * Stress test for scene culling, a city of 40000 buildings is flattened
+ * into the render queue every frame. The time spent culling the scene is
+ * displayed, press space to toggle parallel culling.
+ */
+public class TestParallelCulling extends SimpleApplication implements ActionListener {
+
+    private static final int BLOCKS = 20;
+    private static final int BUILDINGS_PER_BLOCK = 10;
+    private static final int SAMPLES = 60;
+
+    private BitmapText cullText;
+    private long cullStart;
+    private long cullTime;
+    private int frames;
+
+    public static void main(String[] args){
+        TestParallelCulling app = new TestParallelCulling();
+        app.setShowSettings(false);
+        app.setPauseOnLostFocus(false);
+        app.start();
+    }
+
+    public void simpleInitApp() {
+        Box box = new Box(0.4f, 1f, 0.4f);
+        Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        mat.setColor("Color", ColorRGBA.Gray);
+
+        for (int bx = 0; bx < BLOCKS; bx++){
+            for (int bz = 0; bz < BLOCKS; bz++){
+                Node block = new Node("block " + bx + "," + bz);
+                for (int x = 0; x < BUILDINGS_PER_BLOCK; x++){
+                    for (int z = 0; z < BUILDINGS_PER_BLOCK; z++){
+                        Geometry building = new Geometry("building", box);
+                        building.setMaterial(mat);
+                        building.setShadowMode(ShadowMode.CastAndReceive);
+                        building.setLocalTranslation(x, 0, z);
+                        building.setLocalScale(1, 1 + FastMath.nextRandomFloat() * 4f, 1);
+                        block.attachChild(building);
+                    }
+                }
+                block.setLocalTranslation((bx - BLOCKS / 2) * (BUILDINGS_PER_BLOCK + 2), 0,
+                                          (bz - BLOCKS / 2) * (BUILDINGS_PER_BLOCK + 2));
+                rootNode.attachChild(block);
+            }
+        }
+
+        cam.setLocation(new Vector3f(0, 20, 0));
+        cam.setFrustumFar(500);
+        flyCam.setMoveSpeed(50);
+
+        viewPort.addProcessor(new CullTimer());
+
+        cullText = new BitmapText(guiFont, false);
+        cullText.setLocalTranslation(0, cam.getHeight() - cullText.getLineHeight() * 2, 0);
+        guiNode.attachChild(cullText);
+
+        inputManager.addMapping("toggleParallel", new KeyTrigger(KeyInput.KEY_SPACE));
+        inputManager.addListener(this, "toggleParallel");
+    }
+
+    public void onAction(String name, boolean isPressed, float tpf) {
+        if (isPressed && name.equals("toggleParallel")){
+            renderManager.setParallelCulling(!renderManager.isParallelCulling());
+            cullTime = 0;
+            frames = 0;
+        }
+    }
+
+    /**
+     * Measures the time between the start of the frame and the moment
+     * the render queue has been filled, e.g. the time spent culling.
+     */
+    private class CullTimer implements SceneProcessor {
+
+        private boolean initialized = false;
+
+        public void initialize(RenderManager rm, ViewPort vp) {
+            initialized = true;
+        }
+
+        public void reshape(ViewPort vp, int w, int h) {
+        }
+
+        public boolean isInitialized() {
+            return initialized;
+        }
+
+        public void preFrame(float tpf) {
+            cullStart = System.nanoTime();
+        }
+
+        public void postQueue(RenderQueue rq) {
+            cullTime += System.nanoTime() - cullStart;
+            frames++;
+            if (frames == SAMPLES){
+                cullText.setText("Parallel culling: " + renderManager.isParallelCulling()
+                        + " (space to toggle)\nCull time: "
+                        + (cullTime / frames / 1000) / 1000f + " ms/frame");
+                cullTime = 0;
+                frames = 0;
+            }
+        }
+
+        public void postFrame(FrameBuffer out) {
+        }
+
+        public void cleanup() {
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.stress;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.font.BitmapText;
+import com.jme3.input.KeyInput;
+import com.jme3.input.controls.ActionListener;
+import com.jme3.input.controls.KeyTrigger;
+import com.jme3.light.DirectionalLight;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+
+/**
+ * A static environment of 64x64 blocks, each made of a small hierarchy
+ * of nodes and four boxes. Press SPACE to mark the environment node 
+ * as static, so its geometries are added to the render queue from the
+ * recorded draw list instead of walking and culling the whole scene graph.
+ * The average frame time is displayed.
+ */
+public class TestStaticNode extends SimpleApplication implements ActionListener {
+
+    private static final int SIZE = 64;
+    private static final int SAMPLES = 60;
+
+    private Node environment;
+    private BitmapText infoText;
+    private float frameTimes;
+    private int frames;
+
+    public static void main(String[] args){
+        TestStaticNode app = new TestStaticNode();
+        app.setShowSettings(false);
+        app.setPauseOnLostFocus(false);
+        app.start();
+    }
+
+    public void simpleInitApp() {
+        Box box = new Box(0.2f, 0.2f, 0.2f);
+        Material[] mats = new Material[4];
+        for (int i = 0; i < mats.length; i++){
+            mats[i] = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+            mats[i].setBoolean("UseMaterialColors", true);
+            mats[i].setColor("Diffuse", ColorRGBA.randomColor());
+            mats[i].setColor("Ambient", ColorRGBA.DarkGray);
+        }
+
+        environment = new Node("environment");
+        for (int x = 0; x < SIZE; x++){
+            Node row = new Node("row" + x);
+            for (int z = 0; z < SIZE; z++){
+                Node block = new Node("block");
+                block.setLocalTranslation(x - SIZE / 2, 0, z - SIZE / 2);
+                for (int i = 0; i < 4; i++){
+                    Node part = new Node("part");
+                    part.setLocalTranslation((i % 2) * 0.5f, (i / 2) * 0.5f, 0);
+                    Geometry geom = new Geometry("box", box);
+                    geom.setMaterial(mats[(x + z + i) % mats.length]);
+                    part.attachChild(geom);
+                    block.attachChild(part);
+                }
+                row.attachChild(block);
+            }
+            environment.attachChild(row);
+        }
+        rootNode.attachChild(environment);
+
+        DirectionalLight dl = new DirectionalLight();
+        dl.setDirection(new Vector3f(-1, -2, -1).normalizeLocal());
+        rootNode.addLight(dl);
+
+        cam.setLocation(new Vector3f(0, 20, 40));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        flyCam.setMoveSpeed(30);
+
+        infoText = new BitmapText(guiFont, false);
+        infoText.setLocalTranslation(0, cam.getHeight(), 0);
+        guiNode.attachChild(infoText);
+
+        inputManager.addMapping("toggle", new KeyTrigger(KeyInput.KEY_SPACE));
+        inputManager.addListener(this, "toggle");
+    }
+
+    public void onAction(String name, boolean isPressed, float tpf) {
+        if (name.equals("toggle") && isPressed){
+            environment.setStatic(!environment.isStatic());
+            frameTimes = 0;
+            frames = 0;
+        }
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        frameTimes += tpf;
+        frames++;
+        if (frames == SAMPLES){
+            infoText.setText((environment.isStatic() ? "Static" : "Dynamic")
+                    + " (SPACE to toggle): " + (frameTimes * 1000f / frames) + " ms per frame");
+            frameTimes = 0;
+            frames = 0;
+        }
+    }
+}
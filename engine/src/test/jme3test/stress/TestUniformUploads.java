@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2009-2012 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.stress;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.font.BitmapText;
+import com.jme3.light.DirectionalLight;
+import com.jme3.light.PointLight;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.Statistics;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+
+/**
+ * Benchmark for uniform uploads, 2500 boxes sharing four lit materials
+ * are rendered with a directional light and two moving point lights.
+ * The average number of uniforms set per frame and per object is displayed.
+ */
+public class TestUniformUploads extends SimpleApplication {
+
+    private static final int SIZE = 50;
+    private static final int SAMPLES = 60;
+
+    private int[] statData;
+    private String[] statLabels;
+    private int uniformsIndex;
+    private int objectsIndex;
+    
+    private BitmapText uniformsText;
+    private PointLight[] lights = new PointLight[2];
+    private long uniforms;
+    private long objects;
+    private int frames;
+    private float time;
+
+    public static void main(String[] args){
+        TestUniformUploads app = new TestUniformUploads();
+        app.setShowSettings(false);
+        app.setPauseOnLostFocus(false);
+        app.start();
+    }
+
+    public void simpleInitApp() {
+        Box box = new Box(0.4f, 0.4f, 0.4f);
+        Material[] mats = new Material[4];
+        for (int i = 0; i < mats.length; i++){
+            mats[i] = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+            mats[i].setBoolean("UseMaterialColors", true);
+            mats[i].setColor("Diffuse", ColorRGBA.randomColor());
+            mats[i].setColor("Ambient", ColorRGBA.DarkGray);
+            mats[i].setColor("Specular", ColorRGBA.White);
+            mats[i].setFloat("Shininess", 8 + i * 8);
+        }
+
+        for (int x = 0; x < SIZE; x++){
+            for (int z = 0; z < SIZE; z++){
+                Geometry geom = new Geometry("box", box);
+                geom.setMaterial(mats[(x + z * 3) % mats.length]);
+                geom.setLocalTranslation(x - SIZE / 2, 0, z - SIZE / 2);
+                rootNode.attachChild(geom);
+            }
+        }
+
+        DirectionalLight dl = new DirectionalLight();
+        dl.setDirection(new Vector3f(-1, -2, -1).normalizeLocal());
+        rootNode.addLight(dl);
+        for (int i = 0; i < lights.length; i++){
+            lights[i] = new PointLight();
+            lights[i].setColor(ColorRGBA.randomColor());
+            lights[i].setRadius(SIZE);
+            rootNode.addLight(lights[i]);
+        }
+
+        cam.setLocation(new Vector3f(0, 30, 30));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        flyCam.setMoveSpeed(30);
+
+        Statistics stats = renderer.getStatistics();
+        stats.setEnabled(true);
+        statLabels = stats.getLabels();
+        statData = new int[statLabels.length];
+        for (int i = 0; i < statLabels.length; i++){
+            if (statLabels[i].equals("Uniforms")){
+                uniformsIndex = i;
+            } else if (statLabels[i].equals("Objects")){
+                objectsIndex = i;
+            }
+        }
+
+        uniformsText = new BitmapText(guiFont, false);
+        uniformsText.setLocalTranslation(0, cam.getHeight(), 0);
+        guiNode.attachChild(uniformsText);
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        time += tpf;
+        for (int i = 0; i < lights.length; i++){
+            float angle = time + i * FastMath.PI;
+            lights[i].setPosition(new Vector3f(FastMath.cos(angle) * 15, 3, FastMath.sin(angle) * 15));
+        }
+    }
+
+    @Override
+    public void simpleRender(RenderManager rm) {
+        // the statistics now hold the values for the frame just rendered
+        renderer.getStatistics().getData(statData);
+        uniforms += statData[uniformsIndex];
+        objects += statData[objectsIndex];
+        frames++;
+        if (frames == SAMPLES){
+            uniformsText.setText("Uniforms: " + uniforms / frames + " per frame, "
+                    + (objects == 0 ? 0 : uniforms * 100 / objects) / 100f + " per object");
+            uniforms = 0;
+            objects = 0;
+            frames = 0;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.jme3.animation;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AnimBatchTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private Animation createAnimation(String name, int boneIndex, Vector3f axis) {
+        float[] times = {0, 0.5f, 1};
+        Vector3f[] translations = {new Vector3f(), new Vector3f(0, 1, 0), new Vector3f()};
+        Quaternion[] rotations = new Quaternion[times.length];
+        for (int i = 0; i < times.length; i++) {
+            rotations[i] = new Quaternion().fromAngleAxis(times[i] * FastMath.HALF_PI, axis);
+        }
+        Animation anim = new Animation(name, 1);
+        anim.addTrack(new BoneTrack(boneIndex, times, translations, rotations));
+        return anim;
+    }
+
+    private Node createModel() {
+        Bone root = new Bone("root");
+        Bone arm = new Bone("arm");
+        arm.setBindTransforms(new Vector3f(0, 2, 0), new Quaternion(), Vector3f.UNIT_XYZ);
+        root.addChild(arm);
+        Skeleton skeleton = new Skeleton(new Bone[]{root, arm});
+
+        HashMap<String, Animation> anims = new HashMap<String, Animation>();
+        anims.put("wave", createAnimation("wave", 1, Vector3f.UNIT_Z));
+        anims.put("turn", createAnimation("turn", 0, Vector3f.UNIT_Y));
+        AnimControl control = new AnimControl(skeleton);
+        control.setAnimations(anims);
+
+        Node model = new Node("model");
+        model.addControl(control);
+        return model;
+    }
+
+    private void assertSamePose(Skeleton expected, Skeleton actual) {
+        for (int i = 0; i < expected.getBoneCount(); i++) {
+            Bone e = expected.getBone(i);
+            Bone a = actual.getBone(i);
+            assertTrue(e.getModelSpacePosition().distance(a.getModelSpacePosition()) < 0.0001f);
+            assertTrue(e.getModelSpaceRotation().dot(a.getModelSpaceRotation()) > 0.9999f);
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSerialUpdate() {
+        Node serial = createModel();
+        Node batched = createModel();
+        AnimControl serialControl = serial.getControl(AnimControl.class);
+        AnimControl batchedControl = batched.getControl(AnimControl.class);
+
+        AnimBatch batch = new AnimBatch(executor);
+        batch.add(batchedControl);
+        assertSame(batch, batchedControl.getBatch());
+
+        serialControl.createChannel().setAnim("wave");
+        batchedControl.createChannel().setAnim("wave");
+
+        float tpf = 0.07f;
+        for (int frame = 0; frame < 30; frame++) {
+            if (frame == 10) {
+                // blend to another animation
+                serialControl.getChannel(0).setAnim("turn", 0.3f);
+                batchedControl.getChannel(0).setAnim("turn", 0.3f);
+            }
+            serial.updateLogicalState(tpf);
+            batch.update(tpf);
+            // batched controls are not updated by their spatial
+            batched.updateLogicalState(tpf);
+
+            assertSamePose(serialControl.getSkeleton(), batchedControl.getSkeleton());
+            assertEquals(serialControl.getChannel(0).getTime(), batchedControl.getChannel(0).getTime(), 0.0001f);
+        }
+    }
+
+    @Test
+    public void testListenersNotifiedOnCallingThread() {
+        Node batched = createModel();
+        AnimControl control = batched.getControl(AnimControl.class);
+        AnimBatch batch = new AnimBatch(executor);
+        batch.add(control);
+
+        final Thread thread = Thread.currentThread();
+        final int[] cycles = {0};
+        control.addListener(new AnimEventListener() {
+            public void onAnimCycleDone(AnimControl control, AnimChannel channel, String animName) {
+                assertSame(thread, Thread.currentThread());
+                cycles[0]++;
+            }
+
+            public void onAnimChange(AnimControl control, AnimChannel channel, String animName) {
+            }
+        });
+        AnimChannel channel = control.createChannel();
+        channel.setAnim("wave");
+        channel.setLoopMode(LoopMode.DontLoop);
+
+        for (int frame = 0; frame < 15; frame++) {
+            batch.update(0.1f);
+        }
+        assertEquals(1, cycles[0]);
+    }
+
+    @Test
+    public void testClonesJoinBatch() {
+        Node model = createModel();
+        AnimBatch batch = new AnimBatch(executor);
+        batch.add(model.getControl(AnimControl.class));
+
+        Node clone = model.clone(false);
+        AnimControl cloneControl = clone.getControl(AnimControl.class);
+        assertSame(batch, cloneControl.getBatch());
+        assertEquals(2, batch.getControlCount());
+
+        batch.remove(cloneControl);
+        assertNull(cloneControl.getBatch());
+        assertEquals(1, batch.getControlCount());
+    }
+}
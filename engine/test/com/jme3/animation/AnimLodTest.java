@@ -0,0 +1,128 @@
+package com.jme3.animation;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import java.util.HashMap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AnimLodTest {
+
+    private AnimControl createControl() {
+        Bone root = new Bone("root");
+        Bone arm = new Bone("arm");
+        arm.setBindTransforms(new Vector3f(0, 2, 0), new Quaternion(), Vector3f.UNIT_XYZ);
+        root.addChild(arm);
+        Skeleton skeleton = new Skeleton(new Bone[]{root, arm});
+
+        float[] times = {0, 1};
+        Vector3f[] translations = {new Vector3f(), new Vector3f(1, 0, 0)};
+        Quaternion[] rotations = {new Quaternion(), new Quaternion().fromAngleAxis(FastMath.HALF_PI, Vector3f.UNIT_Z)};
+        Animation anim = new Animation("move", 1);
+        anim.addTrack(new BoneTrack(0, times, translations, rotations));
+        anim.addTrack(new BoneTrack(1, times, translations, rotations));
+
+        HashMap<String, Animation> anims = new HashMap<String, Animation>();
+        anims.put("move", anim);
+        AnimControl control = new AnimControl(skeleton);
+        control.setAnimations(anims);
+        new Node("model").addControl(control);
+
+        AnimChannel channel = control.createChannel();
+        channel.setAnim("move", 0);
+        channel.setLoopMode(LoopMode.DontLoop);
+        return control;
+    }
+
+    @Test
+    public void testUpdateInterval() {
+        AnimControl control = createControl();
+        AnimLod lod = new AnimLod();
+        lod.addLevel(10, 3, -1);
+        control.setLod(lod);
+
+        // not rendered, so the farthest level is used
+        Bone root = control.getSkeleton().getBone(0);
+        float[] expected = {0, 0, 0, 0.1f, 0.1f, 0.1f, 0.4f};
+        for (int frame = 0; frame < expected.length; frame++) {
+            control.update(0.1f);
+            assertEquals(1, control.getLodLevel());
+            assertEquals(expected[frame], root.getModelSpacePosition().x, 0.0001f);
+        }
+        // time keeps advancing at full speed
+        assertEquals(0.7f, control.getChannel(0).getTime(), 0.0001f);
+    }
+
+    @Test
+    public void testBoneDepth() {
+        AnimControl control = createControl();
+        AnimLod lod = new AnimLod();
+        lod.addLevel(10, 1, 0);
+        control.setLod(lod);
+
+        control.update(0.5f);
+        control.update(0.1f);
+        Skeleton skeleton = control.getSkeleton();
+        // the root bone is animated, the arm stays in bind pose relative to it
+        assertEquals(0.5f, skeleton.getBone(0).getModelSpacePosition().x, 0.0001f);
+        assertTrue(skeleton.getBone(1).getLocalRotation().equals(new Quaternion()));
+        assertEquals(new Vector3f(0, 2, 0), skeleton.getBone(1).getLocalPosition());
+
+        control.setLod(null);
+        control.update(0.1f);
+        assertFalse(skeleton.getBone(1).getLocalRotation().equals(new Quaternion()));
+    }
+
+    @Test
+    public void testBoneDepthChangedOnActiveLevel() {
+        AnimControl control = createControl();
+        AnimLod lod = new AnimLod();
+        AnimLod.Level level = lod.addLevel(10, 1, -1);
+        control.setLod(lod);
+
+        control.update(0.5f);
+        control.update(0.1f);
+        Skeleton skeleton = control.getSkeleton();
+        assertFalse(skeleton.getBone(1).getLocalRotation().equals(new Quaternion()));
+
+        // applies without switching to another level
+        level.setBoneDepth(0);
+        control.update(0.1f);
+        assertEquals(1, control.getLodLevel());
+        assertTrue(skeleton.getBone(1).getLocalRotation().equals(new Quaternion()));
+    }
+
+    @Test
+    public void testComputeLevel() {
+        AnimLod lod = new AnimLod();
+        lod.addLevel(20, 2, -1);
+        lod.addLevel(50, 4, 1).setScreenArea(100);
+
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640f / 480f, 1, 1000);
+        Geometry model = new Geometry("model", new Box(1, 1, 1));
+
+        model.setLocalTranslation(0, 0, -10);
+        model.updateGeometricState();
+        assertEquals(0, lod.computeLevel(model, cam));
+
+        model.setLocalTranslation(0, 0, -30);
+        model.updateGeometricState();
+        assertEquals(1, lod.computeLevel(model, cam));
+
+        model.setLocalTranslation(0, 0, -60);
+        model.updateGeometricState();
+        assertEquals(2, lod.computeLevel(model, cam));
+
+        // small on screen, whatever the distance
+        model.setLocalScale(0.05f);
+        model.setLocalTranslation(0, 0, -10);
+        model.updateGeometricState();
+        assertEquals(2, lod.computeLevel(model, cam));
+    }
+}
@@ -0,0 +1,155 @@
+package com.jme3.animation;
+
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.export.binary.BinaryImporter;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.util.TempVars;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AnimationCompressorTest {
+
+    private static final int FRAMES = 300;
+    private static final float FPS = 30;
+
+    private BoneTrack createTrack() {
+        float[] times = new float[FRAMES];
+        Vector3f[] translations = new Vector3f[FRAMES];
+        Quaternion[] rotations = new Quaternion[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            float t = i / FPS;
+            times[i] = t;
+            translations[i] = new Vector3f(FastMath.sin(t * 0.5f) * 0.5f, 1f, t * 0.5f);
+            rotations[i] = new Quaternion().fromAngles(FastMath.sin(t) * 0.5f, t * 0.2f, 0.3f);
+        }
+        return new BoneTrack(0, times, translations, rotations);
+    }
+
+    private byte[] save(BoneTrack track) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryExporter.getInstance().save(track, out);
+        return out.toByteArray();
+    }
+
+    private void assertSameAnimation(BoneTrack expected, BoneTrack actual, float posError, float rotError) {
+        Bone expectedBone = new Bone("expected");
+        Bone actualBone = new Bone("actual");
+        Skeleton expectedSkeleton = new Skeleton(new Bone[]{expectedBone});
+        Skeleton actualSkeleton = new Skeleton(new Bone[]{actualBone});
+        AnimControl expectedControl = new AnimControl(expectedSkeleton);
+        AnimControl actualControl = new AnimControl(actualSkeleton);
+        AnimChannel expectedChannel = expectedControl.createChannel();
+        AnimChannel actualChannel = actualControl.createChannel();
+
+        TempVars vars = TempVars.get();
+        for (float time = 0; time < FRAMES / FPS; time += 0.0123f) {
+            expectedSkeleton.reset();
+            actualSkeleton.reset();
+            expected.setTime(time, 1, expectedControl, expectedChannel, vars);
+            actual.setTime(time, 1, actualControl, actualChannel, vars);
+            expectedSkeleton.updateWorldVectors();
+            actualSkeleton.updateWorldVectors();
+
+            assertTrue(expectedBone.getLocalPosition().distance(actualBone.getLocalPosition()) <= posError);
+            float dot = Math.abs(expectedBone.getLocalRotation().dot(actualBone.getLocalRotation()));
+            assertTrue(dot >= FastMath.cos(rotError / 2f) - 0.000001f);
+        }
+        vars.release();
+    }
+
+    @Test
+    public void testCompressionError() {
+        BoneTrack original = createTrack();
+        BoneTrack compressed = createTrack();
+        new AnimationCompressor(0.001f, 0.002f, 0.001f).compress(compressed);
+
+        assertTrue(compressed.getTimes().length < FRAMES / 2);
+        assertEquals(original.getTimes()[0], compressed.getTimes()[0], 0f);
+        assertEquals(original.getLength(), compressed.getLength(), 0f);
+        // tolerance, plus quantization and interpolation error
+        assertSameAnimation(original, compressed, 0.002f, 0.004f);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        BoneTrack original = createTrack();
+        BoneTrack compressed = createTrack();
+        new AnimationCompressor().compress(compressed);
+
+        byte[] originalData = save(original);
+        byte[] compressedData = save(compressed);
+        assertTrue(compressedData.length * 4 < originalData.length);
+
+        BoneTrack loaded = (BoneTrack) BinaryImporter.getInstance().load(new ByteArrayInputStream(compressedData));
+        assertTrue(Arrays.equals(compressed.getTimes(), loaded.getTimes()));
+        assertSameAnimation(compressed, loaded, 0f, 0f);
+    }
+
+    @Test
+    public void testQuantizedQuaternions() {
+        Quaternion[] values = {
+            new Quaternion(),
+            new Quaternion().fromAngles(0.1f, -2f, 3f),
+            new Quaternion(-0.5f, 0.5f, -0.5f, -0.5f),
+            new Quaternion(0, 0, -1, 0)
+        };
+        QuantizedQuaternionArray array = new QuantizedQuaternionArray(values);
+        assertEquals(values.length, array.getTotalObjectSize());
+        Quaternion q = new Quaternion();
+        for (int i = 0; i < values.length; i++) {
+            array.get(i, q);
+            assertEquals(1f, Math.abs(q.dot(values[i])), 0.0001f);
+        }
+
+        array.add(new Quaternion().fromAngles(1f, 0.5f, -0.2f));
+        assertEquals(values.length + 1, array.getTotalObjectSize());
+        array.get(values.length, q);
+        assertEquals(1f, Math.abs(q.dot(new Quaternion().fromAngles(1f, 0.5f, -0.2f))), 0.0001f);
+        array.get(1, q);
+        assertEquals(1f, Math.abs(q.dot(values[1])), 0.0001f);
+    }
+
+    @Test
+    public void testQuantizedVectorsAdd() {
+        QuantizedVector3Array array = new QuantizedVector3Array(new Vector3f[]{
+            new Vector3f(0, 0, 0), new Vector3f(1, 2, 3)
+        });
+        Vector3f v = new Vector3f();
+
+        // within the range
+        array.add(new Vector3f(0.5f, 1f, 1.5f));
+        assertEquals(3, array.getTotalObjectSize());
+        assertTrue(array.get(2, v).distance(new Vector3f(0.5f, 1f, 1.5f)) < 0.001f);
+
+        // outside the range, the array is quantized again
+        array.add(new Vector3f(-4, 10, 3));
+        assertEquals(4, array.getTotalObjectSize());
+        assertTrue(array.get(3, v).distance(new Vector3f(-4, 10, 3)) < 0.001f);
+        assertTrue(array.get(0, v).distance(Vector3f.ZERO) < 0.001f);
+        assertTrue(array.get(1, v).distance(new Vector3f(1, 2, 3)) < 0.001f);
+        assertTrue(array.get(2, v).distance(new Vector3f(0.5f, 1f, 1.5f)) < 0.001f);
+    }
+
+    @Test
+    public void testShortTracks() {
+        for (int frames = 1; frames <= 2; frames++) {
+            float[] times = new float[frames];
+            Vector3f[] translations = new Vector3f[frames];
+            Quaternion[] rotations = new Quaternion[frames];
+            for (int i = 0; i < frames; i++) {
+                times[i] = i;
+                translations[i] = new Vector3f(i, 0, 0);
+                rotations[i] = new Quaternion();
+            }
+            BoneTrack track = new BoneTrack(0, times, translations, rotations);
+            new AnimationCompressor().compress(track);
+            assertEquals(frames, track.getTimes().length);
+        }
+    }
+}
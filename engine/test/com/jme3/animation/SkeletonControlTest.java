@@ -0,0 +1,118 @@
+package com.jme3.animation;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.shape.Sphere;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SkeletonControlTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private Skeleton createSkeleton() {
+        Bone root = new Bone("root");
+        Bone arm = new Bone("arm");
+        arm.setBindTransforms(new Vector3f(0, 1, 0), new Quaternion(), Vector3f.UNIT_XYZ);
+        root.addChild(arm);
+        Skeleton skeleton = new Skeleton(new Bone[]{root, arm});
+        skeleton.setBindingPose();
+        for (int i = 0; i < skeleton.getBoneCount(); i++) {
+            skeleton.getBone(i).setUserControl(true);
+        }
+        return skeleton;
+    }
+
+    private Node createModel(Skeleton skeleton) {
+        // more vertices than a single skinning task handles
+        Mesh mesh = new Sphere(64, 64, 1f);
+        int numVerts = mesh.getVertexCount();
+        FloatBuffer positions = mesh.getFloatBuffer(Type.Position);
+        byte[] indices = new byte[numVerts * 4];
+        float[] weights = new float[numVerts * 4];
+        for (int i = 0; i < numVerts; i++) {
+            float y = positions.get(i * 3 + 1);
+            indices[i * 4 + 1] = 1;
+            weights[i * 4] = (1f - y) / 2f;
+            weights[i * 4 + 1] = (1f + y) / 2f;
+        }
+        mesh.setBuffer(Type.BoneIndex, 4, indices);
+        mesh.setBuffer(Type.BoneWeight, 4, weights);
+        mesh.setMaxNumWeights(2);
+        mesh.generateBindPose(true);
+
+        Node model = new Node("model");
+        model.attachChild(new Geometry("geom", mesh));
+        model.addControl(new SkeletonControl(skeleton));
+        return model;
+    }
+
+    private void setPose(Skeleton skeleton, float t) {
+        skeleton.getBone(0).setUserTransforms(new Vector3f(t, 0, 0),
+                new Quaternion().fromAngleAxis(t, Vector3f.UNIT_Y), Vector3f.UNIT_XYZ);
+        skeleton.getBone(1).setUserTransforms(Vector3f.ZERO,
+                new Quaternion().fromAngleAxis(t * FastMath.HALF_PI, Vector3f.UNIT_Z), Vector3f.UNIT_XYZ);
+        skeleton.updateWorldVectors();
+    }
+
+    private void assertSameBuffer(Mesh expected, Mesh actual, Type type) {
+        FloatBuffer expectedData = expected.getFloatBuffer(type);
+        FloatBuffer actualData = actual.getFloatBuffer(type);
+        assertEquals(expectedData.limit(), actualData.limit());
+        for (int i = 0; i < expectedData.limit(); i++) {
+            assertEquals(expectedData.get(i), actualData.get(i), 0.00001f);
+        }
+    }
+
+    @Test
+    public void testExecutorSkinning() {
+        Skeleton serialSkeleton = createSkeleton();
+        Skeleton parallelSkeleton = createSkeleton();
+        Node serialModel = createModel(serialSkeleton);
+        Node parallelModel = createModel(parallelSkeleton);
+        SkeletonControl serialControl = serialModel.getControl(SkeletonControl.class);
+        SkeletonControl parallelControl = parallelModel.getControl(SkeletonControl.class);
+        parallelControl.setSkinningExecutor(executor);
+
+        Mesh serialMesh = ((Geometry) serialModel.getChild(0)).getMesh();
+        Mesh parallelMesh = ((Geometry) parallelModel.getChild(0)).getMesh();
+        for (int frame = 1; frame <= 4; frame++) {
+            setPose(serialSkeleton, frame * 0.2f);
+            setPose(parallelSkeleton, frame * 0.2f);
+            serialControl.update(0.1f);
+            parallelControl.update(0.1f);
+
+            Buffer before = parallelMesh.getBuffer(Type.Position).getData();
+            serialControl.render(null, null);
+            parallelControl.render(null, null);
+            if (frame > 1) {
+                // the buffers skinned by the executor were swapped in
+                assertNotSame(before, parallelMesh.getBuffer(Type.Position).getData());
+            }
+
+            assertSameBuffer(serialMesh, parallelMesh, Type.Position);
+            assertSameBuffer(serialMesh, parallelMesh, Type.Normal);
+        }
+    }
+}
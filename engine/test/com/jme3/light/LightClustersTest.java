@@ -0,0 +1,130 @@
+package com.jme3.light;
+
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LightClustersTest {
+
+    private Camera cam;
+    private LightClusters clusters;
+    private List<Light> lights;
+
+    @Before
+    public void setUp() {
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640f / 480f, 1, 1000);
+        cam.setLocation(new Vector3f(0, 0, 10));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        clusters = new LightClusters(8, 8, 16);
+        lights = new ArrayList<Light>();
+    }
+
+    private PointLight addPointLight(Vector3f position, float radius) {
+        PointLight pl = new PointLight();
+        pl.setPosition(position);
+        pl.setRadius(radius);
+        lights.add(pl);
+        return pl;
+    }
+
+    private int countClusters() {
+        int count = 0;
+        for (int z = 0; z < clusters.getSlices(); z++) {
+            for (int y = 0; y < clusters.getTilesY(); y++) {
+                for (int x = 0; x < clusters.getTilesX(); x++) {
+                    if (clusters.getClusterLightCount(x, y, z) > 0) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testGlobalLights() {
+        DirectionalLight dl = new DirectionalLight();
+        dl.setDirection(new Vector3f(0, -1, 0));
+        lights.add(dl);
+        lights.add(new AmbientLight());
+        addPointLight(new Vector3f(0, 0, 0), 0);
+        clusters.update(cam, lights);
+
+        assertEquals(2, clusters.getNumGlobalLights());
+        assertEquals(2, clusters.getNumLights());
+        assertEquals(0, clusters.getNumIndices());
+    }
+
+    @Test
+    public void testPointLightBinning() {
+        // in front of the camera, right half of the screen
+        addPointLight(new Vector3f(2, 0, 0), 0.5f);
+        clusters.update(cam, lights);
+
+        assertEquals(1, clusters.getNumLights());
+        assertTrue(clusters.getNumIndices() > 0);
+        assertEquals(clusters.getNumIndices(), countClusters());
+
+        // the depth of the light is 10, between 9.5 and 10.5
+        float sliceScale = clusters.getSlices() / (float) Math.log(1000);
+        int slice = (int) Math.floor(Math.log(10) * sliceScale);
+        assertTrue(clusters.getClusterLightCount(5, 4, slice) > 0);
+        for (int x = 0; x < 4; x++) {
+            assertEquals(0, clusters.getClusterLightCount(x, 4, slice));
+        }
+        assertEquals(0, clusters.getClusterLightCount(5, 4, 0));
+        assertEquals(0, clusters.getClusterLightCount(5, 4, clusters.getSlices() - 1));
+    }
+
+    @Test
+    public void testCulledLights() {
+        // behind the camera
+        addPointLight(new Vector3f(0, 0, 20), 2);
+        // out of the left side of the frustum
+        addPointLight(new Vector3f(-50, 0, 0), 2);
+        // beyond the far plane
+        addPointLight(new Vector3f(0, 0, -2000), 2);
+        SpotLight sl = new SpotLight();
+        sl.setPosition(new Vector3f(0, 0, 5));
+        sl.setSpotRange(1);
+        lights.add(sl);
+        clusters.update(cam, lights);
+
+        assertEquals(1, clusters.getNumLights());
+        assertTrue(clusters.getNumIndices() > 0);
+    }
+
+    @Test
+    public void testLightAroundCamera() {
+        addPointLight(new Vector3f(0, 0, 10), 5);
+        clusters.update(cam, lights);
+        assertEquals(1, clusters.getNumLights());
+        for (int y = 0; y < clusters.getTilesY(); y++) {
+            for (int x = 0; x < clusters.getTilesX(); x++) {
+                assertEquals(1, clusters.getClusterLightCount(x, y, 0));
+            }
+        }
+    }
+
+    @Test
+    public void testManyLights() {
+        for (int i = 0; i < 300; i++) {
+            PointLight pl = addPointLight(new Vector3f(((i % 20) - 10) * 0.3f, ((i / 20) - 7) * 0.3f, -i * 0.5f), 1.5f);
+            pl.setColor(ColorRGBA.randomColor());
+        }
+        clusters.update(cam, lights);
+        assertEquals(300, clusters.getNumLights());
+        assertTrue(clusters.getNumIndices() >= 300);
+
+        // capacity does not shrink, the next frame can have less lights
+        lights.subList(10, 300).clear();
+        clusters.update(cam, lights);
+        assertEquals(10, clusters.getNumLights());
+    }
+}
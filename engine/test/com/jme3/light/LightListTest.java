@@ -0,0 +1,133 @@
+package com.jme3.light;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LightListTest {
+
+    private Node root;
+    private Node sub;
+    private Geometry geom;
+
+    @Before
+    public void setUp() {
+        root = new Node("root");
+        sub = new Node("sub");
+        geom = new Geometry("box", new Box(0.5f, 0.5f, 0.5f));
+        geom.setMaterial(new Material());
+        sub.attachChild(geom);
+        root.attachChild(sub);
+    }
+
+    private PointLight addPointLight(Node node, Vector3f position, float radius) {
+        PointLight pl = new PointLight();
+        pl.setPosition(position);
+        pl.setRadius(radius);
+        node.addLight(pl);
+        return pl;
+    }
+
+    private boolean contains(LightList list, Light light) {
+        for (Light l : list) {
+            if (l == light) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testUnboundedLightsKept() {
+        DirectionalLight dl = new DirectionalLight();
+        root.addLight(dl);
+        AmbientLight al = new AmbientLight();
+        sub.addLight(al);
+        PointLight infinite = addPointLight(root, new Vector3f(100, 0, 0), 0);
+        PointLight far = addPointLight(root, new Vector3f(100, 0, 0), 1);
+        root.updateGeometricState();
+
+        LightList lights = geom.getWorldLightList();
+        assertEquals(3, lights.size());
+        assertTrue(contains(lights, dl));
+        assertTrue(contains(lights, al));
+        assertTrue(contains(lights, infinite));
+        assertFalse(contains(lights, far));
+        // nodes keep all the lights
+        assertEquals(4, sub.getWorldLightList().size());
+    }
+
+    @Test
+    public void testIndexedListMatchesBruteForce() {
+        for (int i = 0; i < 200; i++) {
+            float x = (i % 20) * 3 - 30;
+            float z = (i / 20) * 3 - 15;
+            addPointLight(root, new Vector3f(x, (i % 3) - 1, z), 1 + (i % 4));
+        }
+        geom.setLocalTranslation(2, 0, 1);
+        root.updateGeometricState();
+
+        LightList lights = geom.getWorldLightList();
+        int expected = 0;
+        for (Light light : root.getLocalLightList()) {
+            if (light.intersectsBound(geom.getWorldBound())) {
+                expected++;
+                assertTrue(contains(lights, light));
+            }
+        }
+        assertEquals(expected, lights.size());
+        assertTrue(lights.size() > 0);
+        assertTrue(lights.size() < 40);
+
+        // sorted by distance
+        float dist = 0;
+        for (Light light : lights) {
+            float d = geom.getWorldBound().distanceSquaredTo(((PointLight) light).getPosition());
+            assertTrue(d >= dist);
+            dist = d;
+        }
+    }
+
+    @Test
+    public void testMovingLightsAndGeometry() {
+        for (int i = 0; i < 50; i++) {
+            addPointLight(root, new Vector3f(i * 10 + 20, 0, 0), 2);
+        }
+        PointLight moving = addPointLight(root, new Vector3f(-20, 0, 0), 2);
+        root.updateGeometricState();
+        assertEquals(0, geom.getWorldLightList().size());
+
+        moving.setPosition(new Vector3f(1, 0, 0));
+        assertEquals(1, geom.getWorldLightList().size());
+        assertTrue(contains(geom.getWorldLightList(), moving));
+
+        geom.setLocalTranslation(50, 0, 0);
+        root.updateGeometricState();
+        assertEquals(1, geom.getWorldLightList().size());
+        assertFalse(contains(geom.getWorldLightList(), moving));
+
+        root.removeLight(root.getLocalLightList().get(3));
+        root.updateGeometricState();
+        assertEquals(0, geom.getWorldLightList().size());
+    }
+
+    @Test
+    public void testSpotLightCone() {
+        SpotLight spot = new SpotLight();
+        spot.setPosition(new Vector3f(0, 3, 0));
+        spot.setDirection(new Vector3f(0, -1, 0));
+        spot.setSpotRange(10);
+        root.addLight(spot);
+        root.updateGeometricState();
+        assertEquals(1, geom.getWorldLightList().size());
+
+        // the geometry is behind the spot light
+        spot.setDirection(new Vector3f(0, 1, 0));
+        assertEquals(0, geom.getWorldLightList().size());
+    }
+}
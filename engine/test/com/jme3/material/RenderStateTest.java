@@ -0,0 +1,94 @@
+package com.jme3.material;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.material.RenderState.BlendMode;
+import com.jme3.material.RenderState.FaceCullMode;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RenderStateTest {
+
+    private static class RecordingRenderer extends NullRenderer {
+
+        private final List<RenderState> applied = new ArrayList<RenderState>();
+
+        @Override
+        public void applyRenderState(RenderState state) {
+            applied.add(state);
+        }
+    }
+
+    @Test
+    public void testStateIdFollowsContent() {
+        RenderState a = new RenderState();
+        a.setBlendMode(BlendMode.Alpha);
+        RenderState b = new RenderState();
+        b.setBlendMode(BlendMode.Alpha);
+        assertEquals(a.getStateId(), b.getStateId());
+        assertEquals(a.getStateId(), a.clone().getStateId());
+
+        int id = a.getStateId();
+        a.setFaceCullMode(FaceCullMode.Off);
+        assertTrue(a.getStateId() != id);
+        assertTrue(a.getStateId() != b.getStateId());
+
+        // back to the same values gives back the same ID
+        a.setFaceCullMode(FaceCullMode.Back);
+        assertEquals(b.getStateId(), a.getStateId());
+    }
+
+    @Test
+    public void testApplyFlagsChangeStateId() {
+        RenderState additional = RenderState.ADDITIONAL.clone();
+        int id = additional.getStateId();
+        // same value as the default, but now overrides the merged state
+        additional.setDepthWrite(true);
+        assertTrue(additional.getStateId() != id);
+    }
+
+    @Test
+    public void testMergedStateReusedUntilModified() {
+        AssetManager assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        RecordingRenderer renderer = new RecordingRenderer();
+        renderer.getCaps().addAll(EnumSet.of(Caps.GLSL100, Caps.GLSL110, Caps.GLSL120));
+        RenderManager renderManager = new RenderManager(renderer);
+
+        Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        mat.getAdditionalRenderState().setBlendMode(BlendMode.Alpha);
+        Material clone = mat.clone();
+        clone.getAdditionalRenderState().setWireframe(true);
+
+        Geometry geom = new Geometry("box", new Box(1, 1, 1));
+        geom.setMaterial(mat);
+        mat.render(geom, renderManager);
+        mat.render(geom, renderManager);
+        clone.render(geom, renderManager);
+
+        RenderState first = renderer.applied.get(0);
+        RenderState second = renderer.applied.get(1);
+        RenderState cloned = renderer.applied.get(2);
+        assertSame(first, second);
+        assertEquals(BlendMode.Alpha, first.getBlendMode());
+        assertFalse(first.isWireframe());
+        assertNotSame(first, cloned);
+        assertTrue(cloned.isWireframe());
+        assertTrue(first.getStateId() != cloned.getStateId());
+
+        int id = first.getStateId();
+        mat.getAdditionalRenderState().setBlendMode(BlendMode.Additive);
+        mat.render(geom, renderManager);
+        RenderState modified = renderer.applied.get(3);
+        assertEquals(BlendMode.Additive, modified.getBlendMode());
+        assertTrue(modified.getStateId() != id);
+    }
+}
@@ -0,0 +1,74 @@
+package com.jme3.material;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import java.util.EnumSet;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShaderVariantsTest {
+
+    private AssetManager assetManager;
+    private RenderManager renderManager;
+    private Node scene;
+
+    @Before
+    public void setUp() {
+        assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        NullRenderer renderer = new NullRenderer();
+        renderer.getCaps().addAll(EnumSet.of(Caps.GLSL100, Caps.GLSL110, Caps.GLSL120));
+        renderManager = new RenderManager(renderer);
+        scene = new Node("scene");
+    }
+
+    private Material addGeometry(Material mat) {
+        Geometry geom = new Geometry("box", new Box(1, 1, 1));
+        geom.setMaterial(mat);
+        scene.attachChild(geom);
+        return mat;
+    }
+
+    private Material createUnshaded(boolean vertexColor) {
+        Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        mat.setColor("Color", ColorRGBA.randomColor());
+        mat.setBoolean("VertexColor", vertexColor);
+        return mat;
+    }
+
+    @Test
+    public void testVariantsShared() {
+        Material a = addGeometry(createUnshaded(false));
+        addGeometry(createUnshaded(false));
+        addGeometry(a);
+        addGeometry(createUnshaded(true));
+
+        // two sets of defines
+        assertEquals(2, renderManager.preloadShaderVariants(scene, "Default"));
+        assertNotNull(a.getActiveTechnique());
+        assertEquals("Default", a.getActiveTechnique().getDef().getName());
+    }
+
+    @Test
+    public void testNamedTechniques() {
+        Material mat = addGeometry(createUnshaded(false));
+        Material lit = addGeometry(new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md"));
+        int count = renderManager.preloadShaderVariants(scene, "PreShadow", "Missing");
+        assertTrue(count >= 1);
+        // the active technique is not changed
+        assertNull(mat.getActiveTechnique());
+        assertNull(lit.getActiveTechnique());
+
+        int all = renderManager.preloadShaderVariants(scene);
+        assertTrue(all > count);
+        assertEquals("Default", lit.getActiveTechnique().getDef().getName());
+    }
+}
@@ -0,0 +1,261 @@
+package com.jme3.post;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.light.SpotLight;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.Renderer;
+import com.jme3.renderer.Statistics;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.shadow.SpotLightShadowFilter;
+import com.jme3.system.NullRenderer;
+import com.jme3.texture.FrameBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FilterPostProcessorTest {
+
+    private static final int SIZE = 64;
+
+    /**
+     * Counts the full screen passes.
+     */
+    private static class PassRenderer extends NullRenderer {
+
+        private final EnumSet<Caps> caps = EnumSet.of(Caps.GLSL100, Caps.GLSL110, Caps.GLSL120);
+        private final Statistics stats = new Statistics();
+        private int passes;
+
+        PassRenderer() {
+            stats.setEnabled(true);
+        }
+
+        @Override
+        public EnumSet<Caps> getCaps() {
+            return caps;
+        }
+
+        @Override
+        public Statistics getStatistics() {
+            return stats;
+        }
+
+        @Override
+        public void renderMesh(Mesh mesh, int lod, int count) {
+            passes++;
+        }
+    }
+
+    /**
+     * An overlay filter recording the buffers it reads and writes.
+     */
+    private static class RecordingFilter extends Filter {
+
+        private final boolean fusable;
+        private FrameBuffer read;
+        private FrameBuffer written;
+
+        RecordingFilter(boolean fusable) {
+            super("Recording");
+            this.fusable = fusable;
+        }
+
+        @Override
+        protected void initFilter(AssetManager manager, RenderManager renderManager, ViewPort vp, int w, int h) {
+            material = new Material(manager, "Common/MatDefs/Post/Overlay.j3md");
+            material.setColor("Color", ColorRGBA.White);
+        }
+
+        @Override
+        protected Material getMaterial() {
+            return material;
+        }
+
+        @Override
+        protected int getFusedStageType() {
+            return fusable ? FUSED_STAGE_OVERLAY : FUSED_STAGE_NONE;
+        }
+
+        @Override
+        protected void setFusedParameters(Material fused, int stage) {
+            fused.setColor("Color" + stage, ColorRGBA.White);
+        }
+
+        @Override
+        protected void postFrame(RenderManager renderManager, ViewPort viewPort, FrameBuffer prevFilterBuffer, FrameBuffer sceneBuffer) {
+            read = prevFilterBuffer;
+        }
+
+        @Override
+        protected void postFilter(Renderer r, FrameBuffer buffer) {
+            written = buffer;
+        }
+    }
+
+    private AssetManager assetManager;
+    private PassRenderer renderer;
+    private RenderManager rm;
+    private ViewPort vp;
+    private FilterPostProcessor fpp;
+
+    @Before
+    public void setUp() {
+        assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        renderer = new PassRenderer();
+        rm = new RenderManager(renderer);
+        vp = rm.createMainView("main", new Camera(SIZE, SIZE));
+        Node scene = new Node("scene");
+        scene.updateGeometricState();
+        vp.attachScene(scene);
+        fpp = new FilterPostProcessor(assetManager);
+        vp.addProcessor(fpp);
+    }
+
+    private List<RecordingFilter> addFilters(boolean... fusable) {
+        List<RecordingFilter> added = new ArrayList<RecordingFilter>();
+        for (boolean f : fusable) {
+            RecordingFilter filter = new RecordingFilter(f);
+            fpp.addFilter(filter);
+            added.add(filter);
+        }
+        return added;
+    }
+
+    private int getStat(int[] data, String label) {
+        return data[Arrays.asList(renderer.stats.getLabels()).indexOf(label)];
+    }
+
+    private int[] renderFrame() {
+        renderer.stats.clearFrame();
+        renderer.passes = 0;
+        rm.renderViewPort(vp, 0.016f);
+        int[] data = new int[renderer.stats.getLabels().length];
+        renderer.stats.getData(data);
+        return data;
+    }
+
+    @Test
+    public void testPooledTargetsArePingPonged() {
+        fpp.setRenderTargetPooling(true);
+        List<RecordingFilter> filters = addFilters(false, false, false, false);
+        int[] data = renderFrame();
+
+        Set<FrameBuffer> targets = new HashSet<FrameBuffer>();
+        for (int i = 0; i < filters.size(); i++) {
+            RecordingFilter filter = filters.get(i);
+            assertNotSame(filter.read, filter.written);
+            if (i > 0) {
+                assertSame(filters.get(i - 1).written, filter.read);
+            }
+            if (i < filters.size() - 1) {
+                targets.add(filter.written);
+            }
+        }
+        assertEquals(2, targets.size());
+        // the last filter renders to the viewport output
+        assertNull(filters.get(3).written);
+        assertEquals(4, renderer.passes);
+
+        // RGBA8 color and a 24 bits depth buffer per target, 2 targets instead of 4
+        int targetSize = SIZE * SIZE * (32 + 24) / 8;
+        assertEquals(2 * targetSize / 1024, getStat(data, "Filter Memory Saved (KB)"));
+    }
+
+    @Test
+    public void testMemorySavedForLargeTargets() {
+        vp.getCamera().resize(10240, 5760, true);
+        fpp.setRenderTargetPooling(true);
+        addFilters(false, false, false, false);
+        int[] data = renderFrame();
+
+        // the size of a target in bits does not fit in an int
+        long targetSize = 10240L * 5760 * (32 + 24) / 8;
+        assertEquals(2 * targetSize / 1024, getStat(data, "Filter Memory Saved (KB)"));
+    }
+
+    @Test
+    public void testPoolingEnabledAfterInitialization() {
+        List<RecordingFilter> filters = addFilters(false, false, false);
+        renderFrame();
+        assertNotSame(filters.get(0).written, filters.get(1).written);
+
+        fpp.setRenderTargetPooling(true);
+        renderFrame();
+        assertSame(filters.get(0).written, filters.get(1).read);
+        assertNotSame(filters.get(1).read, filters.get(1).written);
+        assertNull(filters.get(2).written);
+        assertEquals(3, renderer.passes);
+    }
+
+    @Test
+    public void testFusionMergesConsecutiveFilters() {
+        fpp.setFilterFusion(true);
+        List<RecordingFilter> filters = addFilters(true, true, false, true, true, true);
+        filters.get(4).setEnabled(false);
+        int[] data = renderFrame();
+
+        // (0, 1), (2) and (3, 5) in three passes
+        assertEquals(3, renderer.passes);
+        assertEquals(2, getStat(data, "Filter Passes Merged"));
+        assertSame(filters.get(0).written, filters.get(1).written);
+        assertSame(filters.get(1).written, filters.get(2).read);
+        assertNull(filters.get(5).written);
+
+        fpp.setFilterFusion(false);
+        data = renderFrame();
+        assertEquals(5, renderer.passes);
+        assertEquals(0, getStat(data, "Filter Passes Merged"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResolutionScaleOutOfRange() {
+        new RecordingFilter(false).setResolutionScale(1.5f);
+    }
+
+    @Test
+    public void testScaledShadowFilterUpsamples() {
+        SpotLight light = new SpotLight();
+        light.setPosition(new Vector3f(0, 10, 0));
+        light.setDirection(new Vector3f(0, -1, -1).normalizeLocal());
+        SpotLightShadowFilter filter = new SpotLightShadowFilter(assetManager, 256);
+        filter.setLight(light);
+        fpp.addFilter(filter);
+        renderFrame();
+        assertNull(filter.getPostRenderPasses());
+        assertSame(filter.getShadowMaterial(), ((Filter) filter).getMaterial());
+
+        // changing the scale of an initialized filter creates its passes again
+        filter.setResolutionScale(0.5f);
+        Filter.Pass pass = filter.getPostRenderPasses().get(0);
+        assertEquals(SIZE / 2, pass.getRenderFrameBuffer().getWidth());
+        assertEquals(SIZE / 2, pass.getRenderFrameBuffer().getHeight());
+        assertSame(filter.getShadowMaterial(), pass.getPassMaterial());
+        Material upsample = ((Filter) filter).getMaterial();
+        assertEquals("Common/MatDefs/Post/BilateralUpsample.j3md", upsample.getMaterialDef().getAssetName());
+        assertSame(pass.getRenderedTexture(), upsample.getTextureParam("LowResTexture").getTextureValue());
+        assertNotNull(upsample.getTextureParam("DepthTexture"));
+        renderFrame();
+        // the shadow factor pass and the upsampling
+        assertEquals(2, renderer.passes);
+
+        filter.setResolutionScale(1f);
+        assertNull(filter.getPostRenderPasses());
+        assertSame(filter.getShadowMaterial(), ((Filter) filter).getMaterial());
+        assertNull(filter.getShadowMaterial().getParam("OutputShadowFactor"));
+    }
+}
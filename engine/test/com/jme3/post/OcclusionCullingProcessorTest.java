@@ -0,0 +1,239 @@
+package com.jme3.post;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.OcclusionQuery;
+import com.jme3.renderer.RecordingRenderer;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.Statistics;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OcclusionCullingProcessorTest {
+
+    /**
+     * Simulates a wall at z = 0: any bounding box drawn into a query
+     * with its center behind the wall passes no sample.
+     */
+    private static class QueryRenderer extends RecordingRenderer {
+
+        private final HashMap<OcclusionQuery, Integer> results = new HashMap<OcclusionQuery, Integer>();
+        private final Vector3f translation = new Vector3f();
+        private OcclusionQuery activeQuery;
+        private boolean resultsAvailable = true;
+        private int queries;
+
+        QueryRenderer() {
+            super(Caps.OcclusionQuery);
+        }
+
+        @Override
+        protected boolean isRecorded(Geometry g) {
+            return !g.getName().equals("OcclusionBounds");
+        }
+
+        @Override
+        public void setWorldMatrix(Matrix4f worldMatrix) {
+            worldMatrix.toTranslationVector(translation);
+        }
+
+        @Override
+        public void startOcclusionQuery(OcclusionQuery query) {
+            assertNull(activeQuery);
+            activeQuery = query;
+            results.put(query, 0);
+            queries++;
+            getStatistics().onOcclusionQuery();
+        }
+
+        @Override
+        public void renderMesh(Mesh mesh, int lod, int count) {
+            if (activeQuery != null && translation.z > 0) {
+                results.put(activeQuery, results.get(activeQuery) + 100);
+            }
+        }
+
+        @Override
+        public void stopOcclusionQuery(OcclusionQuery query) {
+            assertSame(activeQuery, query);
+            activeQuery = null;
+        }
+
+        @Override
+        public boolean isOcclusionQueryResultAvailable(OcclusionQuery query) {
+            return resultsAvailable;
+        }
+
+        @Override
+        public int getOcclusionQueryResult(OcclusionQuery query) {
+            return results.get(query);
+        }
+    }
+
+    private AssetManager assetManager;
+    private QueryRenderer renderer;
+    private RenderManager rm;
+    private ViewPort vp;
+    private OcclusionCullingProcessor processor;
+    private Material mat;
+    private Node root;
+
+    @Before
+    public void setUp() {
+        assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        renderer = new QueryRenderer();
+        rm = renderer.getRenderManager();
+        Camera cam = RecordingRenderer.createCamera(new Vector3f(0, 0, 20), new Vector3f(0, 0, -1000), 1000);
+        vp = rm.createMainView("test", cam);
+
+        processor = new OcclusionCullingProcessor(assetManager);
+        processor.setVisibleQueryInterval(1);
+        vp.addProcessor(processor);
+
+        mat = new Material();
+        root = new Node("root");
+        root.attachChild(createGeometry("front", 0, 0, 5));
+        root.attachChild(createGeometry("behind", 0, 0, -5));
+        vp.attachScene(root);
+    }
+
+    private Geometry createGeometry(String name, float x, float y, float z) {
+        return RecordingRenderer.createBox(name, mat, x, y, z, 0.5f, 0.5f, 0.5f);
+    }
+
+    private Set<String> renderFrame() {
+        renderer.clear();
+        root.updateGeometricState();
+        rm.renderViewPort(vp, 0.016f);
+        return new TreeSet<String>(renderer.getRendered(null));
+    }
+
+    private int getStatistic(String label) {
+        Statistics stats = renderer.getStatistics();
+        String[] labels = stats.getLabels();
+        int[] data = new int[labels.length];
+        stats.getData(data);
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals(label)) {
+                return data[i];
+            }
+        }
+        throw new AssertionError(label);
+    }
+
+    @Test
+    public void testOccludedGeometryIsCulled() {
+        // no result yet, everything is drawn and queried
+        assertEquals(new TreeSet<String>(Arrays.asList("behind", "front")), renderFrame());
+        assertEquals(2, getStatistic("Occlusion Queries"));
+        assertEquals(0, getStatistic("Occluded Objects"));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Collections.singleton("front"), renderFrame());
+            assertEquals(1, getStatistic("Occluded Objects"));
+        }
+        assertTrue(processor.isOccluded(root.getChild("behind")));
+        assertFalse(processor.isOccluded(root.getChild("front")));
+
+        // moving out of the wall shows it again one frame later
+        root.getChild("behind").setLocalTranslation(0, 0, 2);
+        assertEquals(Collections.singleton("front"), renderFrame());
+        assertEquals(2, renderFrame().size());
+    }
+
+    @Test
+    public void testPendingResultsDoNotStall() {
+        renderer.resultsAvailable = false;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, renderFrame().size());
+        }
+        // pending queries are not issued again
+        assertEquals(0, getStatistic("Occlusion Queries"));
+        assertEquals(2, renderer.queries);
+
+        renderer.resultsAvailable = true;
+        renderFrame();
+        assertEquals(Collections.singleton("front"), renderFrame());
+    }
+
+    @Test
+    public void testVisibleObjectsAreQueriedLessOften() {
+        processor.setVisibleQueryInterval(4);
+        for (int i = 0; i < 8; i++) {
+            renderFrame();
+        }
+        renderer.queries = 0;
+        for (int i = 0; i < 8; i++) {
+            renderFrame();
+        }
+        // the hidden object is queried every frame, the visible one every 4 frames
+        assertEquals(8 + 2, renderer.queries);
+    }
+
+    @Test
+    public void testQueryNode() {
+        Node building = new Node("building");
+        building.attachChild(createGeometry("room1", -2, 0, -5));
+        building.attachChild(createGeometry("room2", 2, 0, -5));
+        building.attachChild(createGeometry("room3", 0, 2, -6));
+        root.attachChild(building);
+        processor.addQueryNode(building);
+
+        renderFrame();
+        assertEquals(3, getStatistic("Occlusion Queries"));
+        assertEquals(Collections.singleton("front"), renderFrame());
+        assertEquals(4, getStatistic("Occluded Objects"));
+        assertTrue(processor.isOccluded(building));
+
+        processor.removeQueryNode(building);
+        assertEquals(4, renderFrame().size());
+        assertEquals(5, getStatistic("Occlusion Queries"));
+    }
+
+    @Test
+    public void testHiddenObjectIsShownWhenQueuedAgain() {
+        renderFrame();
+        renderFrame();
+        assertTrue(processor.isOccluded(root.getChild("behind")));
+
+        // out of the frustum for a frame, the last result is outdated
+        root.getChild("behind").setLocalTranslation(0, 0, 50);
+        renderFrame();
+        root.getChild("behind").setLocalTranslation(0, 0, -5);
+        assertEquals(2, renderFrame().size());
+    }
+
+    @Test
+    public void testCameraInsideBoundIsVisible() {
+        vp.getCamera().setLocation(new Vector3f(0, 0, -4));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(renderFrame().contains("behind"));
+        }
+        assertFalse(processor.isOccluded(root.getChild("behind")));
+    }
+
+    @Test
+    public void testDisabled() {
+        processor.setEnabled(false);
+        renderFrame();
+        renderFrame();
+        assertEquals(2, renderFrame().size());
+        assertEquals(0, renderer.queries);
+    }
+}
@@ -0,0 +1,137 @@
+package com.jme3.renderer;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ParallelSceneCullerTest {
+
+    private static final ShadowMode[] SHADOW_MODES = ShadowMode.values();
+
+    private Camera cam;
+    private ViewPort vp;
+    private RenderManager rm;
+    private Node root;
+
+    @Before
+    public void setUp() {
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640f / 480f, 1, 100);
+        cam.setLocation(new Vector3f(0, 0, 10));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        vp = new ViewPort("test", cam);
+        rm = new RenderManager(new NullRenderer());
+
+        Material mat = new Material();
+        Mesh box = new Box(0.5f, 0.5f, 0.5f);
+        root = new Node("root");
+        // groups in front of and behind the camera, some of them deep
+        for (int i = 0; i < 40; i++) {
+            Node group = new Node("group" + i);
+            group.setLocalTranslation((i % 8) * 4 - 14, 0, i < 30 ? -i : 40);
+            Node parent = group;
+            for (int j = 0; j < 6; j++) {
+                Geometry geom = new Geometry("geom" + i + "_" + j, box);
+                geom.setMaterial(mat);
+                geom.setLocalTranslation(j, j % 2, 0);
+                geom.setShadowMode(SHADOW_MODES[(i + j) % SHADOW_MODES.length]);
+                if (j % 3 == 2) {
+                    geom.setQueueBucket(Bucket.Transparent);
+                }
+                parent.attachChild(geom);
+                if (i % 5 == 0 && j % 2 == 1) {
+                    Node child = new Node("node" + i + "_" + j);
+                    parent.attachChild(child);
+                    parent = child;
+                }
+            }
+            group.setStatic(i % 7 == 3);
+            root.attachChild(group);
+        }
+        root.updateGeometricState();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.interrupted();
+        rm.setParallelCulling(false);
+    }
+
+    private static List<String> names(GeometryList list) {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < list.size(); i++) {
+            names.add(list.get(i).getName());
+        }
+        return names;
+    }
+
+    /**
+     * Flattens the scene and returns the content of the queue,
+     * in queue order.
+     */
+    private List<List<String>> cull() {
+        RenderQueue queue = vp.getQueue();
+        rm.renderScene(root, vp);
+        List<List<String>> content = new ArrayList<List<String>>();
+        content.add(names(queue.getQueueContent(Bucket.Opaque)));
+        content.add(names(queue.getQueueContent(Bucket.Transparent)));
+        content.add(names(queue.getShadowQueueContent(ShadowMode.Cast)));
+        content.add(names(queue.getShadowQueueContent(ShadowMode.Receive)));
+        queue.clear();
+        return content;
+    }
+
+    @Test
+    public void testSameQueueAsSerialTraversal() {
+        List<List<String>> expected = cull();
+        assertFalse(expected.get(0).isEmpty());
+        assertFalse(expected.get(1).isEmpty());
+        // the groups behind the camera still cast shadows
+        assertTrue(expected.get(2).contains("geom35_1"));
+        assertFalse(expected.get(0).contains("geom35_1"));
+
+        rm.setParallelCulling(true);
+        for (int frame = 0; frame < 3; frame++) {
+            assertEquals(expected, cull());
+        }
+    }
+
+    @Test
+    public void testInterrupted() {
+        List<List<String>> expected = cull();
+        rm.setParallelCulling(true);
+
+        // the workers are abandoned and the scene is culled serially
+        Thread.currentThread().interrupt();
+        assertEquals(expected, cull());
+        assertTrue(Thread.interrupted());
+        assertEquals(expected, cull());
+    }
+
+    @Test
+    public void testCullHintChangesBetweenFrames() {
+        rm.setParallelCulling(true);
+        cull();
+        root.getChild("group2").setCullHint(Spatial.CullHint.Always);
+        root.getChild("group4").setCullHint(Spatial.CullHint.Never);
+        List<List<String>> parallel = cull();
+
+        rm.setParallelCulling(false);
+        assertEquals(cull(), parallel);
+    }
+}
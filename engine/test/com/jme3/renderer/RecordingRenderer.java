@@ -0,0 +1,142 @@
+package com.jme3.renderer;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import com.jme3.texture.FrameBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Renderer for tests that records the geometries rendered by its
+ * {@link #getRenderManager() render manager}, with the frame buffer bound
+ * when each one was rendered. Recorded geometries are not rendered, so
+ * their material does not need a definition.
+ * <p>
+ * Unlike the NullRenderer, each instance has its own caps and statistics.
+ */
+public class RecordingRenderer extends NullRenderer {
+
+    /**
+     * A geometry rendered by the render manager.
+     */
+    public static class Draw {
+
+        public final Geometry geometry;
+        public final FrameBuffer frameBuffer;
+
+        Draw(Geometry geometry, FrameBuffer frameBuffer) {
+            this.geometry = geometry;
+            this.frameBuffer = frameBuffer;
+        }
+    }
+
+    private final EnumSet<Caps> caps = EnumSet.noneOf(Caps.class);
+    private final Statistics stats = new Statistics();
+    private final ArrayList<Draw> draws = new ArrayList<Draw>();
+    private FrameBuffer frameBuffer;
+    private RenderManager renderManager;
+
+    public RecordingRenderer(Caps... caps) {
+        for (Caps cap : caps) {
+            this.caps.add(cap);
+        }
+        stats.setEnabled(true);
+    }
+
+    /**
+     * @return The render manager using this renderer
+     */
+    public RenderManager getRenderManager() {
+        if (renderManager == null) {
+            renderManager = new RenderManager(this) {
+                @Override
+                public void renderGeometry(Geometry g) {
+                    if (isRecorded(g)) {
+                        draws.add(new Draw(g, frameBuffer));
+                    } else {
+                        super.renderGeometry(g);
+                    }
+                }
+            };
+        }
+        return renderManager;
+    }
+
+    /**
+     * @return True to record the geometry, false to render it
+     */
+    protected boolean isRecorded(Geometry g) {
+        return true;
+    }
+
+    @Override
+    public EnumSet<Caps> getCaps() {
+        return caps;
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return stats;
+    }
+
+    @Override
+    public void setFrameBuffer(FrameBuffer fb) {
+        frameBuffer = fb;
+    }
+
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    /**
+     * @return The geometries recorded since the last call to {@link #clear() }
+     */
+    public List<Draw> getDraws() {
+        return draws;
+    }
+
+    /**
+     * @return The names of the geometries rendered to the given frame
+     * buffer, in render order
+     */
+    public List<String> getRendered(FrameBuffer fb) {
+        List<String> names = new ArrayList<String>();
+        for (Draw draw : draws) {
+            if (draw.frameBuffer == fb) {
+                names.add(draw.geometry.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Forgets the recorded geometries and clears the frame statistics.
+     */
+    public void clear() {
+        draws.clear();
+        stats.clearFrame();
+    }
+
+    /**
+     * Creates a 640x480 camera with a 45 degrees field of view.
+     */
+    public static Camera createCamera(Vector3f location, Vector3f target, float far) {
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640f / 480f, 1, far);
+        cam.setLocation(location);
+        cam.lookAt(target, Vector3f.UNIT_Y);
+        return cam;
+    }
+
+    public static Geometry createBox(String name, Material mat, float x, float y, float z,
+            float xExtent, float yExtent, float zExtent) {
+        Geometry geom = new Geometry(name, new Box(xExtent, yExtent, zExtent));
+        geom.setMaterial(mat);
+        geom.setLocalTranslation(x, y, z);
+        return geom;
+    }
+}
@@ -0,0 +1,235 @@
+package com.jme3.renderer;
+
+import com.jme3.material.Material;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Quad;
+import com.jme3.system.NullRenderer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SoftwareOcclusionCullerTest {
+
+    private Camera cam;
+    private Material mat;
+    private Node root;
+    private Node walls;
+    private Geometry wall;
+    private SoftwareOcclusionCuller culler;
+
+    @Before
+    public void setUp() {
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640f / 480f, 1, 1000);
+        cam.setLocation(new Vector3f(0, 0, 10));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+
+        mat = new Material();
+        root = new Node("root");
+        walls = new Node("walls");
+        wall = createBox("wall", 0, 0, 0, 5, 5, 0.1f);
+        walls.attachChild(wall);
+        root.attachChild(walls);
+        root.attachChild(createBox("front", 0, 0, 5, 0.5f, 0.5f, 0.5f));
+        root.attachChild(createBox("behind", 0, 0, -5, 0.5f, 0.5f, 0.5f));
+        root.attachChild(createBox("beside", 8, 0, -5, 0.5f, 0.5f, 0.5f));
+        root.updateGeometricState();
+
+        culler = new SoftwareOcclusionCuller(128, 96, 1);
+        culler.addOccluder(wall);
+    }
+
+    private Geometry createBox(String name, float x, float y, float z, float ex, float ey, float ez) {
+        Geometry geom = new Geometry(name, new Box(ex, ey, ez));
+        geom.setMaterial(mat);
+        geom.setLocalTranslation(x, y, z);
+        return geom;
+    }
+
+    private boolean isOccluded(String name) {
+        return culler.isOccluded(root.getChild(name));
+    }
+
+    @Test
+    public void testWallHidesObjectsBehind() {
+        culler.rasterize(root, cam);
+
+        assertTrue(isOccluded("behind"));
+        assertFalse(isOccluded("front"));
+        assertFalse(isOccluded("beside"));
+        // never culls the occluders themselves
+        assertFalse(isOccluded("wall"));
+        assertFalse(isOccluded("walls"));
+        assertFalse(culler.isOccluded(root));
+
+        // the wall covers the center of the screen only
+        assertTrue(culler.getDepth(64, 48) < 1);
+        assertEquals(Float.POSITIVE_INFINITY, culler.getDepth(0, 0), 0);
+    }
+
+    @Test
+    public void testOccluderOutsideOfScene() {
+        walls.removeFromParent();
+        culler.rasterize(root, cam);
+        assertFalse(isOccluded("behind"));
+
+        root.attachChild(walls);
+        walls.setCullHint(Node.CullHint.Always);
+        root.updateGeometricState();
+        culler.rasterize(root, cam);
+        assertFalse(isOccluded("behind"));
+    }
+
+    @Test
+    public void testNeverCulledHint() {
+        root.getChild("behind").setCullHint(Node.CullHint.Never);
+        culler.rasterize(root, cam);
+        assertFalse(isOccluded("behind"));
+    }
+
+    @Test
+    public void testOccluderCrossingNearPlane() {
+        // a floor going from behind the camera to the far distance
+        Geometry floor = new Geometry("floor", new Quad(200, 200));
+        floor.setMaterial(mat);
+        floor.setLocalRotation(new Quaternion().fromAngleAxis(-FastMath.HALF_PI, Vector3f.UNIT_X));
+        floor.setLocalTranslation(-100, -1, 100);
+        root.attachChild(floor);
+        root.attachChild(createBox("under", 0, -5, -10, 0.5f, 0.5f, 0.5f));
+        root.attachChild(createBox("above", 0, 0, -10, 0.5f, 0.5f, 0.5f));
+        root.updateGeometricState();
+        culler.removeOccluder(wall);
+        culler.addOccluder(floor);
+
+        cam.lookAt(new Vector3f(0, -5, -10), Vector3f.UNIT_Y);
+        culler.rasterize(root, cam);
+        assertTrue(isOccluded("under"));
+        assertFalse(isOccluded("above"));
+    }
+
+    @Test
+    public void testThreadsProduceSameDepth() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            Geometry occluder = createBox("occluder" + i,
+                    random.nextFloat() * 20 - 10, random.nextFloat() * 20 - 10, -random.nextFloat() * 20,
+                    random.nextFloat() * 2, random.nextFloat() * 2, random.nextFloat() * 2);
+            occluder.setLocalRotation(new Quaternion().fromAngles(random.nextFloat(), random.nextFloat(), 0));
+            root.attachChild(occluder);
+        }
+        root.updateGeometricState();
+
+        SoftwareOcclusionCuller parallel = new SoftwareOcclusionCuller(128, 96, 4);
+        parallel.addOccluder(wall);
+        for (Geometry occluder : root.descendantMatches(Geometry.class, "occluder.*")) {
+            culler.addOccluder(occluder);
+            parallel.addOccluder(occluder);
+        }
+        culler.rasterize(root, cam);
+        parallel.rasterize(root, cam);
+        parallel.cleanup();
+
+        for (int y = 0; y < culler.getHeight(); y++) {
+            for (int x = 0; x < culler.getWidth(); x++) {
+                assertEquals(culler.getDepth(x, y), parallel.getDepth(x, y), 0);
+            }
+        }
+    }
+
+    private Set<String> getQueued(ViewPort vp, Bucket bucket) {
+        Set<String> names = new TreeSet<String>();
+        GeometryList list = vp.getQueue().getQueueContent(bucket);
+        for (int i = 0; i < list.size(); i++) {
+            names.add(list.get(i).getName());
+        }
+        return names;
+    }
+
+    private Set<String> getShadowCasters(ViewPort vp) {
+        Set<String> names = new TreeSet<String>();
+        GeometryList list = vp.getQueue().getShadowQueueContent(ShadowMode.Cast);
+        for (int i = 0; i < list.size(); i++) {
+            names.add(list.get(i).getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testRenderManagerCulling() {
+        root.getChild("behind").setShadowMode(ShadowMode.Cast);
+        RenderManager rm = new RenderManager(new NullRenderer());
+        rm.setOcclusionCuller(culler);
+        ViewPort vp = new ViewPort("test", cam);
+
+        rm.renderScene(root, vp);
+        Set<String> expected = new TreeSet<String>();
+        expected.add("beside");
+        expected.add("front");
+        expected.add("wall");
+        assertEquals(expected, getQueued(vp, Bucket.Opaque));
+        // still casts shadows
+        assertEquals(1, getShadowCasters(vp).size());
+        vp.getQueue().clear();
+
+        rm.setParallelCulling(true);
+        rm.renderScene(root, vp);
+        assertEquals(expected, getQueued(vp, Bucket.Opaque));
+        assertEquals(1, getShadowCasters(vp).size());
+        vp.getQueue().clear();
+        rm.setParallelCulling(false);
+
+        rm.setOcclusionCuller(null);
+        rm.renderScene(root, vp);
+        assertEquals(4, getQueued(vp, Bucket.Opaque).size());
+    }
+
+    private int getOccludedObjects(Statistics stats) {
+        int[] data = new int[stats.getLabels().length];
+        stats.getData(data);
+        return data[Arrays.asList(stats.getLabels()).indexOf("Occluded Objects")];
+    }
+
+    @Test
+    public void testStaticNodeCulling() {
+        Node props = new Node("props");
+        props.attachChild(root.getChild("front"));
+        props.attachChild(root.getChild("behind"));
+        props.attachChild(root.getChild("beside"));
+        root.attachChild(props);
+        props.setStatic(true);
+        root.updateGeometricState();
+
+        NullRenderer renderer = new NullRenderer();
+        Statistics stats = renderer.getStatistics();
+        stats.setEnabled(true);
+        RenderManager rm = new RenderManager(renderer);
+        rm.setOcclusionCuller(culler);
+        ViewPort vp = new ViewPort("test", cam);
+        Set<String> expected = new TreeSet<String>();
+        expected.add("beside");
+        expected.add("front");
+        expected.add("wall");
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            rm.setParallelCulling(parallel);
+            stats.clearFrame();
+            rm.renderScene(root, vp);
+            assertEquals(expected, getQueued(vp, Bucket.Opaque));
+            assertEquals(1, getOccludedObjects(stats));
+            vp.getQueue().clear();
+        }
+        rm.setParallelCulling(false);
+    }
+}
@@ -0,0 +1,152 @@
+package com.jme3.renderer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class StreamBufferAllocatorTest {
+
+    private static class RecordingAllocator extends StreamBufferAllocator {
+
+        final List<Object> waited = new ArrayList<Object>();
+        final List<Object> deleted = new ArrayList<Object>();
+        int orphans = 0;
+
+        RecordingAllocator(int capacity, boolean fenced) {
+            super(capacity, 16, fenced);
+        }
+
+        @Override
+        protected void waitFence(Object fence) {
+            waited.add(fence);
+        }
+
+        @Override
+        protected void deleteFence(Object fence) {
+            deleted.add(fence);
+        }
+
+        @Override
+        protected void orphan() {
+            orphans++;
+        }
+    }
+
+    private RecordingAllocator fenced;
+    private RecordingAllocator orphaning;
+
+    @Before
+    public void setUp() {
+        fenced = new RecordingAllocator(256, true);
+        orphaning = new RecordingAllocator(256, false);
+    }
+
+    @Test
+    public void testAllocationsAreAligned() {
+        long a = fenced.allocate(10);
+        long b = fenced.allocate(20);
+        assertEquals(0, a);
+        assertEquals(16, b);
+        assertEquals(48, fenced.allocate(1));
+        assertTrue(fenced.hasFrameAllocations());
+        assertTrue(fenced.isValid(a));
+        assertFalse(fenced.isValid(-1));
+    }
+
+    @Test
+    public void testTooLarge() {
+        assertEquals(-1, fenced.allocate(257));
+        assertEquals(-1, orphaning.allocate(257));
+        assertFalse(fenced.hasFrameAllocations());
+    }
+
+    @Test
+    public void testFencedWaitsBeforeReuse() {
+        long first = fenced.allocate(128);
+        fenced.endFrame("frame0");
+        long second = fenced.allocate(128);
+        fenced.endFrame("frame1");
+        assertTrue(fenced.waited.isEmpty());
+
+        // wraps around and reuses the memory of frame 0
+        long third = fenced.allocate(64);
+        assertEquals(0, fenced.getOffset(third));
+        assertEquals(256, third);
+        assertEquals(1, fenced.waited.size());
+        assertEquals("frame0", fenced.waited.get(0));
+        assertEquals("frame0", fenced.deleted.get(0));
+        assertFalse(fenced.isValid(first));
+        assertTrue(fenced.isValid(third));
+        assertEquals(0, fenced.orphans);
+    }
+
+    @Test
+    public void testUnchangedDataDrawnInLaterFrame() {
+        long first = fenced.allocate(64);
+        fenced.endFrame("frame0");
+        long other = fenced.allocate(128);
+        fenced.endFrame("frame1");
+
+        // drawn again without being uploaded
+        assertTrue(fenced.isValid(first));
+        fenced.markUsed(first);
+        assertTrue(fenced.hasFrameAllocations());
+        // cannot be overwritten while the frame uses it
+        assertEquals(-1, fenced.allocate(128));
+        fenced.endFrame("frame2");
+        assertFalse(fenced.hasFrameAllocations());
+
+        // reusing it waits for the last frame that drew it
+        assertEquals(192, fenced.allocate(64));
+        assertTrue(fenced.waited.isEmpty());
+        assertEquals(256, fenced.allocate(64));
+        assertEquals(Arrays.asList("frame0", "frame1", "frame2"), fenced.waited);
+        assertEquals(fenced.waited, fenced.deleted);
+        assertFalse(fenced.isValid(first));
+        assertTrue(fenced.isValid(other));
+    }
+
+    @Test
+    public void testFencedNeverOverwritesCurrentFrame() {
+        assertEquals(0, fenced.allocate(128));
+        assertEquals(128, fenced.allocate(128));
+        assertEquals(-1, fenced.allocate(16));
+        assertTrue(fenced.waited.isEmpty());
+
+        fenced.endFrame("frame0");
+        assertEquals(256, fenced.allocate(16));
+        assertEquals("frame0", fenced.waited.get(0));
+    }
+
+    @Test
+    public void testOrphanOnWrap() {
+        long first = orphaning.allocate(200);
+        orphaning.endFrame(null);
+        long second = orphaning.allocate(40);
+        assertEquals(0, orphaning.orphans);
+        assertTrue(orphaning.isValid(first));
+
+        long third = orphaning.allocate(100);
+        assertEquals(1, orphaning.orphans);
+        assertEquals(0, orphaning.getOffset(third));
+        assertFalse(orphaning.isValid(first));
+        assertFalse(orphaning.isValid(second));
+        assertTrue(orphaning.isValid(third));
+        assertTrue(orphaning.waited.isEmpty());
+    }
+
+    @Test
+    public void testReset() {
+        long first = fenced.allocate(64);
+        fenced.endFrame("frame0");
+        fenced.reset();
+        assertFalse(fenced.isValid(first));
+        assertFalse(fenced.hasFrameAllocations());
+        assertEquals(0, fenced.getOffset(fenced.allocate(64)));
+        fenced.cleanup();
+        assertTrue(fenced.deleted.isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package com.jme3.renderer.queue;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GeometryListTest {
+
+    private Geometry[] createGeometries(int count, long seed) {
+        Random random = new Random(seed);
+        Material mat = new Material();
+        Box box = new Box(0.5f, 0.5f, 0.5f);
+        Geometry[] geoms = new Geometry[count];
+        for (int i = 0; i < count; i++) {
+            geoms[i] = new Geometry("geom" + i, box);
+            geoms[i].setMaterial(mat);
+            // use a coarse grid so that some distances are equal
+            geoms[i].setLocalTranslation(random.nextInt(20) - 10, 0, random.nextInt(20) - 10);
+            geoms[i].updateGeometricState();
+        }
+        return geoms;
+    }
+
+    private void checkSortMatchesComparator(int count) {
+        Camera cam = new Camera(640, 480);
+        cam.setLocation(new Vector3f(0, 0, 15));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+
+        OpaqueComparator comparator = new OpaqueComparator();
+        comparator.setCamera(cam);
+        GeometryList list = new GeometryList(comparator);
+
+        Geometry[] expected = createGeometries(count, count);
+        for (Geometry g : expected) {
+            list.add(g);
+        }
+        // Arrays.sort is a stable merge sort
+        Arrays.sort(expected, comparator);
+
+        list.setCamera(cam);
+        list.sort();
+
+        assertEquals(expected.length, list.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(expected[i], list.get(i));
+        }
+    }
+
+    @Test
+    public void testInsertionSortMatchesComparator() {
+        checkSortMatchesComparator(20);
+    }
+
+    @Test
+    public void testRadixSortMatchesComparator() {
+        checkSortMatchesComparator(2000);
+    }
+
+    @Test
+    public void testAddAll() {
+        GeometryList list = new GeometryList(new NullComparator());
+        GeometryList other = new GeometryList(new NullComparator());
+        Geometry[] geoms = createGeometries(50, 0);
+        for (int i = 0; i < 10; i++) {
+            list.add(geoms[i]);
+        }
+        for (int i = 10; i < geoms.length; i++) {
+            other.add(geoms[i]);
+        }
+        list.addAll(other);
+
+        assertEquals(geoms.length, list.size());
+        for (int i = 0; i < geoms.length; i++) {
+            assertSame(geoms[i], list.get(i));
+        }
+    }
+}
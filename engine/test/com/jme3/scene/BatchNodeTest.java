@@ -0,0 +1,126 @@
+package com.jme3.scene;
+
+import com.jme3.material.Material;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.scene.shape.Box;
+import java.nio.FloatBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BatchNodeTest {
+
+    private Material mat;
+    private Mesh box;
+
+    @Before
+    public void setUp() {
+        mat = new Material();
+        box = new Box(0.5f, 0.5f, 0.5f);
+    }
+
+    private Geometry createBox(int i) {
+        Geometry geom = new Geometry("box" + i, box);
+        geom.setMaterial(mat);
+        geom.setLocalTranslation(i * 2, 0, 0);
+        return geom;
+    }
+
+    private BatchNode createNode(int count) {
+        BatchNode node = new BatchNode("node");
+        for (int i = 0; i < count; i++) {
+            node.attachChild(createBox(i));
+        }
+        node.batch();
+        return node;
+    }
+
+    private Mesh getBatchMesh(BatchNode node) {
+        assertEquals(1, node.batches.size());
+        return node.batches.get(0).geometry.getMesh();
+    }
+
+    private void uploaded(Mesh mesh) {
+        for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+            vb.clearUpdateNeeded();
+        }
+    }
+
+    @Test
+    public void testAppendKeepsBatch() {
+        BatchNode node = createNode(2);
+        Mesh mesh = getBatchMesh(node);
+        uploaded(mesh);
+
+        Geometry added = createBox(2);
+        node.attachChild(added);
+        node.batch();
+
+        assertSame(mesh, getBatchMesh(node));
+        assertTrue(added.isBatched());
+        assertEquals(2 * box.getVertexCount(), node.getOffsetIndex(added));
+        VertexBuffer pos = mesh.getBuffer(VertexBuffer.Type.Position);
+        assertTrue(pos.hasDataSizeChanged());
+        assertEquals(4 * box.getVertexCount(), mesh.getVertexCount());
+
+        // transformed position of the new box
+        FloatBuffer data = (FloatBuffer) pos.getData();
+        float x = ((FloatBuffer) box.getBuffer(VertexBuffer.Type.Position).getData()).get(0);
+        assertEquals(4f + x, data.get(node.getOffsetIndex(added) * 3), 0.0001f);
+        assertEquals(2f, node.getWorldBound().getCenter().x, 0.0001f);
+    }
+
+    @Test
+    public void testMoveOnlyUploadsGeometry() {
+        BatchNode node = createNode(3);
+        Mesh mesh = getBatchMesh(node);
+        uploaded(mesh);
+
+        Geometry moved = (Geometry) node.getChild(1);
+        moved.move(0, 1, 0);
+        node.updateGeometricState();
+
+        VertexBuffer pos = mesh.getBuffer(VertexBuffer.Type.Position);
+        assertTrue(pos.isUpdateNeeded());
+        assertTrue(pos.hasDirtyRanges());
+        assertEquals(1, pos.getNumDirtyRanges());
+        assertEquals(node.getOffsetIndex(moved), pos.getDirtyRangeStart(0));
+        assertEquals(node.getOffsetIndex(moved) + box.getVertexCount(), pos.getDirtyRangeEnd(0));
+        assertFalse(mesh.getBuffer(VertexBuffer.Type.TexCoord).isUpdateNeeded());
+        assertFalse(mesh.getBuffer(VertexBuffer.Type.Index).isUpdateNeeded());
+    }
+
+    @Test
+    public void testRemoveAndReuse() {
+        BatchNode node = createNode(3);
+        Mesh mesh = getBatchMesh(node);
+        uploaded(mesh);
+        Geometry removed = (Geometry) node.getChild(1);
+        int offset = node.getOffsetIndex(removed);
+        int triangles = box.getTriangleCount();
+
+        removed.removeFromParent();
+        node.updateGeometricState();
+
+        assertFalse(removed.isBatched());
+        VertexBuffer idx = mesh.getBuffer(VertexBuffer.Type.Index);
+        assertTrue(idx.hasDirtyRanges());
+        assertEquals(triangles, idx.getDirtyRangeStart(0));
+        IndexBuffer indices = mesh.getIndexBuffer();
+        for (int i = triangles * 3; i < triangles * 6; i++) {
+            assertEquals(0, indices.get(i));
+        }
+        assertEquals(2f, node.getWorldBound().getCenter().x, 0.0001f);
+
+        uploaded(mesh);
+        Geometry added = createBox(5);
+        node.attachChild(added);
+        node.batch();
+
+        assertSame(mesh, getBatchMesh(node));
+        assertEquals(offset, node.getOffsetIndex(added));
+        assertEquals(3 * box.getVertexCount(), mesh.getVertexCount());
+        assertFalse(mesh.getBuffer(VertexBuffer.Type.Position).hasDataSizeChanged());
+        assertEquals(box.getIndexBuffer().get(0) + offset, indices.get(triangles * 3));
+    }
+}
@@ -0,0 +1,146 @@
+package com.jme3.scene;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import java.nio.FloatBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class InstancedNodeTest {
+
+    private Camera cam;
+    private Material mat;
+    private Mesh box;
+
+    @Before
+    public void setUp() {
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640f / 480f, 1, 1000);
+        cam.setLocation(new Vector3f(0, 0, 10));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        mat = new Material();
+        box = new Box(0.5f, 0.5f, 0.5f);
+    }
+
+    private InstancedNode createNode(int count) {
+        InstancedNode node = new InstancedNode("node");
+        for (int i = 0; i < count; i++) {
+            Geometry geom = new Geometry("box" + i, box);
+            geom.setMaterial(mat);
+            geom.setLocalTranslation(i, 0, 0);
+            node.attachChild(geom);
+        }
+        node.instance();
+        node.updateGeometricState();
+        return node;
+    }
+
+    private void assertClean(Spatial spatial) {
+        assertEquals(0, spatial.refreshFlags);
+        if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                assertClean(child);
+            }
+        }
+    }
+
+    @Test
+    public void testInstanceGroupsByMesh() {
+        InstancedNode node = createNode(10);
+        Node sub = new Node("sub");
+        Mesh sphere = new Sphere(8, 8, 1);
+        for (int i = 0; i < 5; i++) {
+            Geometry geom = new Geometry("sphere" + i, sphere);
+            geom.setMaterial(mat);
+            sub.attachChild(geom);
+        }
+        node.attachChild(sub);
+        node.instance();
+        node.updateGeometricState();
+
+        assertEquals(2, node.getInstancedGeometryCount());
+        assertEquals(10, node.getInstancedGeometry(0).getInstanceCount());
+        assertEquals(5, node.getInstancedGeometry(1).getInstanceCount());
+        assertSame(sphere, node.getInstancedGeometry(1).getMesh());
+        assertTrue(sub.getChild(0) instanceof Geometry);
+        assertTrue(((Geometry) sub.getChild(0)).isInstanced());
+        assertEquals(Spatial.CullHint.Always, sub.getChild(0).getCullHint());
+        assertClean(node);
+    }
+
+    @Test
+    public void testCullingAndPacking() {
+        InstancedNode node = createNode(4);
+        // moves the second instance behind the camera
+        node.getChild(1).setLocalTranslation(0, 0, 20);
+        node.updateGeometricState();
+
+        InstancedGeometry geom = node.getInstancedGeometry(0);
+        geom.updateInstances(cam);
+        assertEquals(3, geom.getVisibleInstanceCount());
+        assertSame(node.getChild(2), geom.getVisibleInstance(1));
+
+        VertexBuffer vb = geom.getAllInstanceData()[0];
+        assertTrue(vb.isInstanced());
+        assertEquals(16, vb.getNumComponents());
+        FloatBuffer data = (FloatBuffer) vb.getData();
+        assertEquals(3 * 16, data.limit());
+        // translation of the second visible instance
+        assertEquals(2f, data.get(16 + 12), 0f);
+        assertEquals(1f, data.get(16 + 15), 0f);
+    }
+
+    @Test
+    public void testUnchangedInstancesNotUploaded() {
+        InstancedNode node = createNode(4);
+        InstancedGeometry geom = node.getInstancedGeometry(0);
+        geom.updateInstances(cam);
+        VertexBuffer vb = geom.getAllInstanceData()[0];
+        vb.clearUpdateNeeded();
+
+        geom.updateInstances(cam);
+        assertFalse(vb.isUpdateNeeded());
+
+        node.getChild(3).setLocalTranslation(3, 1, 0);
+        node.updateGeometricState();
+        geom.updateInstances(cam);
+        assertTrue(vb.isUpdateNeeded());
+        assertEquals(1f, ((FloatBuffer) vb.getData()).get(3 * 16 + 13), 0f);
+    }
+
+    @Test
+    public void testWorldBoundFollowsInstances() {
+        InstancedNode node = createNode(4);
+        InstancedGeometry geom = node.getInstancedGeometry(0);
+        assertEquals(1.5f, geom.getWorldBound().getCenter().x, 0.0001f);
+
+        node.getChild(0).setLocalTranslation(-3, 0, 0);
+        node.updateGeometricState();
+        assertEquals(0f, geom.getWorldBound().getCenter().x, 0.0001f);
+        assertClean(node);
+    }
+
+    @Test
+    public void testDetachInstance() {
+        InstancedNode node = createNode(4);
+        InstancedGeometry geom = node.getInstancedGeometry(0);
+        Spatial first = node.getChild(0);
+        Spatial last = node.getChild(3);
+
+        first.removeFromParent();
+        node.updateGeometricState();
+
+        assertFalse(((Geometry) first).isInstanced());
+        assertEquals(Spatial.CullHint.Dynamic, first.getCullHint());
+        assertEquals(3, geom.getInstanceCount());
+        assertSame(last, geom.getInstance(0));
+
+        geom.updateInstances(cam);
+        FloatBuffer data = (FloatBuffer) geom.getAllInstanceData()[0].getData();
+        assertEquals(3f, data.get(12), 0f);
+    }
+}
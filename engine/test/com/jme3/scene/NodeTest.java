@@ -0,0 +1,71 @@
+package com.jme3.scene;
+
+import com.jme3.light.PointLight;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.shape.Box;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class NodeTest {
+
+    private Node createTree(Geometry leaf) {
+        Node root = new Node("root");
+        Node parent = root;
+        for (int i = 0; i < 5; i++) {
+            Node node = new Node("node" + i);
+            parent.attachChild(node);
+            parent = node;
+        }
+        parent.attachChild(leaf);
+        root.updateGeometricState();
+        return root;
+    }
+
+    private void assertClean(Spatial spatial) {
+        assertEquals(0, spatial.refreshFlags);
+        if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                assertClean(child);
+            }
+        }
+    }
+
+    @Test
+    public void testTransformUpdateOnDeepChild() {
+        Geometry leaf = new Geometry("leaf", new Box(1, 1, 1));
+        Node root = createTree(leaf);
+
+        leaf.setLocalTranslation(10, 0, 0);
+        root.updateGeometricState();
+
+        assertEquals(new Vector3f(10, 0, 0), leaf.getWorldTranslation());
+        assertEquals(10f, root.getWorldBound().getCenter().x, 0.0001f);
+        assertClean(root);
+    }
+
+    @Test
+    public void testLightListUpdateOnDeepChild() {
+        Geometry leaf = new Geometry("leaf", new Box(1, 1, 1));
+        Node root = createTree(leaf);
+
+        PointLight light = new PointLight();
+        leaf.addLight(light);
+        root.updateGeometricState();
+
+        assertEquals(1, leaf.getWorldLightList().size());
+        assertSame(light, leaf.getWorldLightList().get(0));
+        assertClean(root);
+    }
+
+    @Test
+    public void testParentLightReachesChildren() {
+        Geometry leaf = new Geometry("leaf", new Box(1, 1, 1));
+        Node root = createTree(leaf);
+
+        PointLight light = new PointLight();
+        root.addLight(light);
+        root.updateGeometricState();
+
+        assertEquals(1, leaf.getWorldLightList().size());
+    }
+}
@@ -0,0 +1,156 @@
+package com.jme3.scene;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class StaticDrawListTest {
+
+    private Camera cam;
+    private ViewPort vp;
+    private RenderManager rm;
+    private Material mat;
+    private Mesh box;
+    private Node root;
+    private Node env;
+    private final Set<String> rendered = new TreeSet<String>();
+
+    @Before
+    public void setUp() {
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640f / 480f, 1, 1000);
+        cam.setLocation(new Vector3f(0, 0, 10));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        vp = new ViewPort("test", cam);
+        rm = new RenderManager(new NullRenderer()) {
+            @Override
+            public void renderGeometry(Geometry g) {
+                rendered.add(g.getName());
+            }
+        };
+        mat = new Material();
+        box = new Box(0.5f, 0.5f, 0.5f);
+
+        root = new Node("root");
+        env = new Node("env");
+        root.attachChild(env);
+
+        env.attachChild(createGeometry("front", 0, 0, 0));
+        Geometry behind = createGeometry("behind", 0, 0, 30);
+        behind.setShadowMode(ShadowMode.Cast);
+        env.attachChild(behind);
+
+        // visible only if its parent is
+        Node sub = new Node("sub");
+        sub.setCullHint(Spatial.CullHint.Dynamic);
+        sub.setLocalTranslation(0, 0, 30);
+        Geometry never = createGeometry("never", 0, 0, 0);
+        never.setCullHint(Spatial.CullHint.Never);
+        never.setShadowMode(ShadowMode.CastAndReceive);
+        sub.attachChild(never);
+        env.attachChild(sub);
+
+        Geometry transparent = createGeometry("transparent", 1, 0, 0);
+        transparent.setQueueBucket(Bucket.Transparent);
+        transparent.setShadowMode(ShadowMode.Receive);
+        env.attachChild(transparent);
+
+        Geometry always = createGeometry("always", 0, 1, 0);
+        always.setCullHint(Spatial.CullHint.Always);
+        env.attachChild(always);
+    }
+
+    private Geometry createGeometry(String name, float x, float y, float z) {
+        Geometry geom = new Geometry(name, box);
+        geom.setMaterial(mat);
+        geom.setLocalTranslation(x, y, z);
+        return geom;
+    }
+
+    private String names(GeometryList list) {
+        Set<String> names = new TreeSet<String>();
+        for (int i = 0; i < list.size(); i++) {
+            names.add(list.get(i).getName());
+        }
+        return names.toString();
+    }
+
+    private String render() {
+        root.updateLogicalState(0);
+        root.updateGeometricState();
+        RenderQueue queue = vp.getQueue();
+        rm.renderScene(root, vp);
+
+        String result = "opaque=" + renderBucket(queue, Bucket.Opaque)
+                + " transparent=" + renderBucket(queue, Bucket.Transparent)
+                + " cast=" + names(queue.getShadowQueueContent(ShadowMode.Cast))
+                + " receive=" + names(queue.getShadowQueueContent(ShadowMode.Receive));
+        queue.clear();
+        return result;
+    }
+
+    private String renderBucket(RenderQueue queue, Bucket bucket) {
+        rendered.clear();
+        queue.renderQueue(bucket, rm, cam, true);
+        return rendered.toString();
+    }
+
+    @Test
+    public void testMatchesSceneTraversal() {
+        String expected = render();
+        assertEquals("opaque=[front] transparent=[transparent] cast=[behind, never] receive=[transparent]", expected);
+
+        env.setStatic(true);
+        assertEquals(expected, render());
+        assertTrue(env.getStaticDrawList().isValid());
+        assertEquals(4, env.getStaticDrawList().getGeometryCount());
+
+        // whole node out of the frustum
+        env.setLocalTranslation(0, 0, 100);
+        String culled = render();
+        env.setStatic(false);
+        assertEquals(culled, render());
+    }
+
+    @Test
+    public void testInvalidatedBySceneChanges() {
+        env.setStatic(true);
+        render();
+        StaticDrawList drawList = env.getStaticDrawList();
+
+        Geometry added = createGeometry("added", -1, 0, 0);
+        ((Node) env.getChild("sub")).attachChild(added);
+        assertFalse(drawList.isValid());
+        assertTrue(render().startsWith("opaque=[front]"));
+        // moves it in front of the camera, no need to record again
+        added.setLocalTranslation(0, 0, -30);
+        // and brings the bound of its parent in the frustum
+        assertTrue(render().startsWith("opaque=[added, front, never]"));
+        assertTrue(drawList.isValid());
+
+        env.getChild("always").setCullHint(Spatial.CullHint.Inherit);
+        assertFalse(drawList.isValid());
+        assertTrue(render().startsWith("opaque=[added, always, front, never]"));
+
+        ((Geometry) env.getChild("front")).setMaterial(new Material());
+        assertFalse(drawList.isValid());
+        render();
+
+        env.detachChildNamed("front");
+        assertFalse(drawList.isValid());
+        assertTrue(render().startsWith("opaque=[added, always, never]"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.jme3.scene;
+
+import com.jme3.util.BufferUtils;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class VertexBufferTest {
+
+    private VertexBuffer vb;
+
+    @Before
+    public void setUp() {
+        vb = new VertexBuffer(VertexBuffer.Type.Position);
+        vb.setupData(VertexBuffer.Usage.Dynamic, 3, VertexBuffer.Format.Float, BufferUtils.createFloatBuffer(300));
+        vb.clearUpdateNeeded();
+    }
+
+    private void assertRange(int range, int start, int end) {
+        assertEquals(start, vb.getDirtyRangeStart(range));
+        assertEquals(end, vb.getDirtyRangeEnd(range));
+    }
+
+    @Test
+    public void testRangesSortedAndMerged() {
+        vb.setUpdateNeeded(50, 10);
+        vb.setUpdateNeeded(10, 5);
+        vb.setUpdateNeeded(30, 5);
+        assertTrue(vb.hasDirtyRanges());
+        assertEquals(3, vb.getNumDirtyRanges());
+        assertRange(0, 10, 15);
+        assertRange(1, 30, 35);
+        assertRange(2, 50, 60);
+
+        // touches the first range and overlaps the second one
+        vb.setUpdateNeeded(15, 18);
+        assertEquals(2, vb.getNumDirtyRanges());
+        assertRange(0, 10, 35);
+        assertRange(1, 50, 60);
+
+        vb.clearUpdateNeeded();
+        assertFalse(vb.hasDirtyRanges());
+        assertEquals(0, vb.getNumDirtyRanges());
+    }
+
+    @Test
+    public void testClosestRangesMerged() {
+        for (int i = 0; i < VertexBuffer.MAX_DIRTY_RANGES; i++) {
+            vb.setUpdateNeeded(i * 10, 1);
+        }
+        assertEquals(VertexBuffer.MAX_DIRTY_RANGES, vb.getNumDirtyRanges());
+
+        vb.setUpdateNeeded(22, 1);
+        assertEquals(VertexBuffer.MAX_DIRTY_RANGES, vb.getNumDirtyRanges());
+        assertRange(2, 20, 23);
+        assertRange(3, 30, 31);
+    }
+
+    @Test
+    public void testWholeBufferUpdate() {
+        vb.setUpdateNeeded(10, 5);
+        vb.setUpdateNeeded();
+        vb.setUpdateNeeded(20, 5);
+        assertTrue(vb.isUpdateNeeded());
+        assertFalse(vb.hasDirtyRanges());
+
+        vb.clearUpdateNeeded();
+        vb.setUpdateNeeded(10, 5);
+        vb.updateData(BufferUtils.createFloatBuffer(600));
+        assertFalse(vb.hasDirtyRanges());
+    }
+
+    @Test
+    public void testCloneDoesNotShareRanges() {
+        vb.setUpdateNeeded(10, 5);
+        VertexBuffer clone = vb.clone();
+        clone.clearUpdateNeeded();
+        clone.setUpdateNeeded(40, 5);
+        assertRange(0, 10, 15);
+        assertEquals(1, vb.getNumDirtyRanges());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidRange() {
+        vb.setUpdateNeeded(95, 10);
+    }
+}
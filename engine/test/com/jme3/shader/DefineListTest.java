@@ -0,0 +1,91 @@
+package com.jme3.shader;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DefineListTest {
+
+    @Test
+    public void testSetReportsChanges() {
+        DefineList dl = new DefineList();
+        assertTrue(dl.set("A", VarType.Boolean, true));
+        assertFalse(dl.set("A", VarType.Boolean, true));
+        assertTrue(dl.set("A", VarType.Boolean, false));
+        assertFalse(dl.set("A", VarType.Boolean, false));
+        assertNull(dl.get("A"));
+
+        // same numeric value must not force a reload
+        assertTrue(dl.set("NUM", VarType.Int, 4));
+        assertFalse(dl.set("NUM", VarType.Int, 4));
+        assertTrue(dl.set("NUM", VarType.Int, 8));
+        assertEquals("8", dl.get("NUM"));
+
+        assertTrue(dl.remove("NUM"));
+        assertFalse(dl.remove("NUM"));
+        assertFalse(dl.remove("NEVER_USED_DEFINE"));
+        assertEquals(0, dl.size());
+    }
+
+    @Test
+    public void testEqualityIndependentOfOrder() {
+        DefineList a = new DefineList();
+        a.set("X", VarType.Boolean, true);
+        a.set("Y", VarType.Float, 0.5f);
+        a.set("Z", VarType.Texture2D, new Object());
+
+        DefineList b = new DefineList();
+        b.set("Z", VarType.Texture2D, new Object());
+        b.set("Y", VarType.Float, 0.5f);
+        b.set("X", VarType.Boolean, true);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.getCompiled(), b.getCompiled());
+
+        b.set("Y", VarType.Float, 1f);
+        assertFalse(a.equals(b));
+        b.set("Y", VarType.Float, 0.5f);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        b.remove("X");
+        assertFalse(a.equals(b));
+        b.clear();
+        assertEquals(new DefineList(), b);
+        assertEquals(0, b.hashCode());
+    }
+
+    @Test
+    public void testCompiledIsSortedByName() {
+        DefineList dl = new DefineList();
+        dl.set("B_DEFINE", VarType.Int, 2);
+        dl.set("A_DEFINE", VarType.Boolean, true);
+        assertEquals("#define A_DEFINE 1\n#define B_DEFINE 2\n", dl.getCompiled());
+        assertEquals("A_DEFINE=1, B_DEFINE=2", dl.toString());
+    }
+
+    @Test
+    public void testCloneAndAddFrom() {
+        DefineList presets = new DefineList();
+        presets.set("PRESET", VarType.Boolean, true);
+
+        DefineList dl = new DefineList();
+        dl.set("PARAM", VarType.Int, 3);
+
+        DefineList all = presets.clone();
+        all.addFrom(dl);
+        assertEquals(2, all.size());
+        assertEquals("1", all.get("PRESET"));
+        assertEquals("3", all.get("PARAM"));
+
+        // the clone must not share state with the original
+        all.remove("PRESET");
+        assertEquals("1", presets.get("PRESET"));
+        assertEquals(1, presets.size());
+
+        DefineList empty = new DefineList();
+        empty.addFrom(dl);
+        empty.set("PARAM", VarType.Int, 5);
+        assertEquals("3", dl.get("PARAM"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.jme3.shader;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ProgramBinaryCacheTest {
+
+    private File dir;
+    private ProgramBinaryCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("shadercache", "");
+        dir.delete();
+        cache = new ProgramBinaryCache(new File(dir, "sub"));
+    }
+
+    @After
+    public void tearDown() {
+        File sub = cache.getDirectory();
+        File[] files = sub.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        sub.delete();
+        dir.delete();
+    }
+
+    private Shader createShader(String defines) {
+        Shader shader = new Shader();
+        shader.initialize();
+        shader.addSource(Shader.ShaderType.Vertex, "Test.vert", "void main(){}", defines, "GLSL100");
+        shader.addSource(Shader.ShaderType.Fragment, "Test.frag", "void main(){}", defines, "GLSL100");
+        return shader;
+    }
+
+    @Test
+    public void testKey() {
+        String key = cache.computeKey(createShader("#define A 1\n"), "driver");
+        assertEquals(40, key.length());
+        assertEquals(key, cache.computeKey(createShader("#define A 1\n"), "driver"));
+        assertFalse(key.equals(cache.computeKey(createShader("#define A 2\n"), "driver")));
+        assertFalse(key.equals(cache.computeKey(createShader("#define A 1\n"), "driver 2")));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        String key = cache.computeKey(createShader(""), "driver");
+        assertNull(cache.load(key));
+
+        byte[] data = new byte[]{1, 2, 3, 4, 5};
+        cache.save(key, new ProgramBinaryCache.Binary(0x1234, data));
+        ProgramBinaryCache.Binary binary = cache.load(key);
+        assertNotNull(binary);
+        assertEquals(0x1234, binary.getFormat());
+        assertArrayEquals(data, binary.getData());
+
+        cache.remove(key);
+        assertNull(cache.load(key));
+    }
+
+    @Test
+    public void testTruncatedBinaryIgnored() throws Exception {
+        String key = cache.computeKey(createShader(""), "driver");
+        cache.save(key, new ProgramBinaryCache.Binary(1, new byte[64]));
+        RandomAccessFile file = new RandomAccessFile(new File(cache.getDirectory(), key + ".bin"), "rw");
+        file.setLength(40);
+        file.close();
+        assertNull(cache.load(key));
+    }
+}
@@ -0,0 +1,96 @@
+package com.jme3.shader;
+
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Matrix3f;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class UniformTest {
+
+    private Uniform createUniform() {
+        Uniform u = new Uniform();
+        u.setName("m_Test");
+        return u;
+    }
+
+    @Test
+    public void testSameMatrixNotUpdated() {
+        Uniform u = createUniform();
+        Matrix4f m = new Matrix4f();
+        m.setTranslation(1, 2, 3);
+        u.setValue(VarType.Matrix4, m);
+        assertTrue(u.isUpdateNeeded());
+        u.clearUpdateNeeded();
+
+        u.setValue(VarType.Matrix4, m.clone());
+        assertFalse(u.isUpdateNeeded());
+        assertTrue(u.isSetByCurrentMaterial());
+
+        m.m13 = 5;
+        u.setValue(VarType.Matrix4, m);
+        assertTrue(u.isUpdateNeeded());
+
+        Uniform u3 = createUniform();
+        Matrix3f m3 = new Matrix3f(1, 2, 3, 4, 5, 6, 7, 8, 9);
+        u3.setValue(VarType.Matrix3, m3);
+        u3.clearUpdateNeeded();
+        u3.setValue(VarType.Matrix3, m3.clone());
+        assertFalse(u3.isUpdateNeeded());
+        m3.set(2, 1, 0);
+        u3.setValue(VarType.Matrix3, m3);
+        assertTrue(u3.isUpdateNeeded());
+    }
+
+    @Test
+    public void testVectorValueIsCopied() {
+        Uniform u = createUniform();
+        ColorRGBA color = new ColorRGBA(1, 0, 0, 1);
+        u.setValue(VarType.Vector4, color);
+        u.clearUpdateNeeded();
+
+        u.setValue(VarType.Vector4, new ColorRGBA(1, 0, 0, 1));
+        assertFalse(u.isUpdateNeeded());
+
+        // modifying the object given to the uniform must be detected
+        color.g = 1;
+        u.setValue(VarType.Vector4, color);
+        assertTrue(u.isUpdateNeeded());
+        assertNotSame(color, u.getValue());
+        assertEquals(color, u.getValue());
+    }
+
+    @Test
+    public void testClearValueOnlyOnce() {
+        Uniform u = createUniform();
+        u.setValue(VarType.Vector3, new Vector3f(1, 2, 3));
+        u.clearUpdateNeeded();
+
+        u.clearValue();
+        assertTrue(u.isUpdateNeeded());
+        assertEquals(Vector3f.ZERO, u.getValue());
+        u.clearUpdateNeeded();
+        u.clearValue();
+        assertFalse(u.isUpdateNeeded());
+
+        Uniform m = createUniform();
+        m.setValue(VarType.Matrix4, new Matrix4f());
+        m.clearValue();
+        m.clearUpdateNeeded();
+        m.clearValue();
+        assertFalse(m.isUpdateNeeded());
+        m.setValue(VarType.Matrix4, new Matrix4f());
+        assertTrue(m.isUpdateNeeded());
+    }
+
+    @Test
+    public void testClearedValueNotShared() {
+        Uniform a = createUniform();
+        a.setValue(VarType.Vector3, new Vector3f(1, 1, 1));
+        a.clearValue();
+        a.setValue(VarType.Vector3, new Vector3f(2, 2, 2));
+        assertEquals(Vector3f.ZERO, new Vector3f());
+        assertEquals(new Vector3f(2, 2, 2), a.getValue());
+    }
+}
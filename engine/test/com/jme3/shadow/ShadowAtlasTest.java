@@ -0,0 +1,215 @@
+package com.jme3.shadow;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.light.PointLight;
+import com.jme3.light.SpotLight;
+import com.jme3.material.Material;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import com.jme3.renderer.RecordingRenderer;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShadowAtlasTest {
+
+    private AssetManager assetManager;
+    private RenderManager rm;
+    private ViewPort vp;
+    private Node root;
+    private Material mat;
+    private ShadowAtlas atlas;
+
+    @Before
+    public void setUp() {
+        assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        rm = new RecordingRenderer().getRenderManager();
+        vp = rm.createMainView("main", RecordingRenderer.createCamera(new Vector3f(0, 10, 40), Vector3f.ZERO, 1000));
+
+        mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        root = new Node("root");
+        Geometry ground = RecordingRenderer.createBox("ground", mat, 0, -1, 0, 200, 0.1f, 200);
+        ground.setShadowMode(ShadowMode.Receive);
+        root.attachChild(ground);
+        vp.attachScene(root);
+
+        atlas = new ShadowAtlas(2048);
+    }
+
+    private Geometry addCaster(String name, float x, float y, float z) {
+        Geometry caster = RecordingRenderer.createBox(name, mat, x, y, z, 0.5f, 0.5f, 0.5f);
+        caster.setShadowMode(ShadowMode.Cast);
+        root.attachChild(caster);
+        return caster;
+    }
+
+    private PointLightShadowRenderer addPointLight(float x, float y, float z) {
+        PointLight light = new PointLight();
+        light.setPosition(new Vector3f(x, y, z));
+        light.setRadius(10);
+        PointLightShadowRenderer plsr = new PointLightShadowRenderer(assetManager, 512);
+        plsr.setLight(light);
+        plsr.setFlushQueues(false);
+        plsr.setShadowAtlas(atlas);
+        vp.addProcessor(plsr);
+        addCaster("caster" + x + "," + z, x + 2, y, z);
+        return plsr;
+    }
+
+    private void renderFrame() {
+        root.updateGeometricState();
+        rm.renderViewPort(vp, 0.016f);
+    }
+
+    @Test
+    public void testBudgetLimitsRenderedShadowMaps() {
+        PointLightShadowRenderer[] lights = {
+            addPointLight(-10, 2, 0),
+            addPointLight(0, 2, 0),
+            addPointLight(10, 2, 0)
+        };
+
+        for (int frame = 1; frame <= 3; frame++) {
+            renderFrame();
+            assertEquals(6, atlas.renderedFaces);
+            int ready = 0;
+            for (PointLightShadowRenderer plsr : lights) {
+                assertEquals(atlas.isReady(plsr), !plsr.skipPostPass);
+                if (atlas.isReady(plsr)) {
+                    ready++;
+                }
+            }
+            assertEquals(frame, ready);
+        }
+    }
+
+    @Test
+    public void testNearLightsFirst() {
+        PointLightShadowRenderer far = addPointLight(0, 2, -200);
+        PointLightShadowRenderer near = addPointLight(0, 2, 20);
+
+        renderFrame();
+        assertTrue(atlas.isReady(near));
+        assertFalse(atlas.isReady(far));
+
+        renderFrame();
+        assertTrue(atlas.isReady(far));
+        assertTrue(atlas.getSlot(near).tileSize > atlas.getSlot(far).tileSize);
+    }
+
+    @Test
+    public void testRoundRobinWhenNothingChanges() {
+        PointLightShadowRenderer plsr = addPointLight(0, 2, 0);
+        atlas.setUpdateBudget(2);
+
+        // all the faces of a light getting tiles are rendered together
+        renderFrame();
+        assertEquals(6, atlas.renderedFaces);
+        assertTrue(atlas.isReady(plsr));
+
+        ShadowAtlas.Slot slot = atlas.getSlot(plsr);
+        Set<Integer> refreshed = new HashSet<Integer>();
+        for (int frame = 0; frame < 3; frame++) {
+            long[] before = slot.renderedFrames.clone();
+            renderFrame();
+            assertEquals(2, atlas.renderedFaces);
+            for (int i = 0; i < 6; i++) {
+                if (slot.renderedFrames[i] != before[i]) {
+                    assertTrue(refreshed.add(i));
+                }
+            }
+        }
+        assertEquals(6, refreshed.size());
+    }
+
+    @Test
+    public void testChangedFacesRefreshedFirst() {
+        PointLightShadowRenderer first = addPointLight(-10, 2, 0);
+        PointLightShadowRenderer second = addPointLight(10, 2, 0);
+        renderFrame();
+        renderFrame();
+        assertTrue(atlas.isReady(first));
+        assertTrue(atlas.isReady(second));
+        atlas.setUpdateBudget(1);
+
+        // nothing changed, the oldest shadow maps are refreshed first
+        ShadowAtlas.Slot firstSlot = atlas.getSlot(first);
+        ShadowAtlas.Slot secondSlot = atlas.getSlot(second);
+        long[] before = firstSlot.renderedFrames.clone();
+        renderFrame();
+        assertEquals(1, atlas.renderedFaces);
+        assertFalse(java.util.Arrays.equals(before, firstSlot.renderedFrames));
+
+        // a caster moving under the second light has priority
+        Geometry caster = (Geometry) root.getChild("caster10.0,0.0");
+        caster.move(0, 0, 0.5f);
+        before = secondSlot.renderedFrames.clone();
+        long[] firstBefore = firstSlot.renderedFrames.clone();
+        renderFrame();
+        assertEquals(1, atlas.renderedFaces);
+        assertFalse(java.util.Arrays.equals(before, secondSlot.renderedFrames));
+        assertArrayEquals(firstBefore, firstSlot.renderedFrames);
+    }
+
+    @Test
+    public void testSpotLightTile() {
+        SpotLight light = new SpotLight();
+        light.setPosition(new Vector3f(0, 8, 0));
+        light.setDirection(new Vector3f(0, -1, -1).normalizeLocal());
+        light.setSpotRange(20);
+        light.setSpotOuterAngle(FastMath.QUARTER_PI);
+        light.setSpotInnerAngle(FastMath.QUARTER_PI / 2);
+        SpotLightShadowRenderer slsr = new SpotLightShadowRenderer(assetManager, 512);
+        slsr.setLight(light);
+        slsr.setShadowAtlas(atlas);
+        vp.addProcessor(slsr);
+        addCaster("caster", 0, 2, 0);
+
+        renderFrame();
+        assertTrue(atlas.isReady(slsr));
+        assertSame(atlas.getShadowMap(), slsr.shadowMaps[0]);
+
+        // the axis of the light is projected in the middle of its tile
+        Vector4f rect = atlas.getTileRect(slsr, 0);
+        Vector3f onAxis = light.getDirection().mult(5).addLocal(light.getPosition());
+        Vector4f proj = slsr.lightViewProjectionsMatrices[0].mult(new Vector4f(onAxis.x, onAxis.y, onAxis.z, 1), null);
+        proj.divideLocal(proj.w);
+        assertEquals(rect.x + rect.z * 0.5f, proj.x * 0.5f + 0.5f, 1e-4f);
+        assertEquals(rect.y + rect.w * 0.5f, proj.y * 0.5f + 0.5f, 1e-4f);
+        assertEquals(rect, mat.getParam("ShadowAtlasTile").getValue());
+
+        slsr.setShadowAtlas(null);
+        assertNull(atlas.getSlot(slsr));
+        assertNotSame(atlas.getShadowMap(), slsr.shadowMaps[0]);
+    }
+
+    @Test
+    public void testTileAllocation() {
+        ShadowAtlas small = new ShadowAtlas(256);
+        Set<Integer> tiles = new HashSet<Integer>();
+        for (int i = 0; i < 16; i++) {
+            int tile = small.allocateTile(64);
+            assertTrue(tile >= 0);
+            assertEquals(0, (tile >>> 16) % 64);
+            assertEquals(0, (tile & 0xffff) % 64);
+            assertTrue(tiles.add(tile));
+        }
+        assertEquals(-1, small.allocateTile(64));
+        assertEquals(-1, small.allocateTile(128));
+
+        for (int tile : tiles) {
+            small.freeTile(tile, 64);
+        }
+        assertEquals(0, small.allocateTile(256));
+    }
+}
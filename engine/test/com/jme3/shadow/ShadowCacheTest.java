@@ -0,0 +1,146 @@
+package com.jme3.shadow;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.light.DirectionalLight;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RecordingRenderer;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.texture.FrameBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShadowCacheTest {
+
+    private static class BlitRenderer extends RecordingRenderer {
+
+        private int copies;
+
+        BlitRenderer() {
+            super(Caps.FrameBuffer, Caps.FrameBufferBlit);
+        }
+
+        @Override
+        public void copyFrameBuffer(FrameBuffer src, FrameBuffer dst, boolean copyDepth) {
+            assertTrue(copyDepth);
+            copies++;
+        }
+    }
+
+    private AssetManager assetManager;
+    private BlitRenderer renderer;
+    private RenderManager rm;
+    private ViewPort vp;
+    private DirectionalLight light;
+    private DirectionalLightShadowRenderer shadows;
+    private Node root;
+    private Geometry wall;
+
+    @Before
+    public void setUp() {
+        assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        renderer = new BlitRenderer();
+        rm = renderer.getRenderManager();
+        vp = rm.createMainView("main", RecordingRenderer.createCamera(new Vector3f(0, 10, 20), Vector3f.ZERO, 100));
+
+        Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        root = new Node("root");
+        Node level = new Node("level");
+        level.setStatic(true);
+        wall = RecordingRenderer.createBox("wall", mat, 0, 0, 0, 2, 2, 0.5f);
+        wall.setShadowMode(ShadowMode.Cast);
+        level.attachChild(wall);
+        Geometry ground = RecordingRenderer.createBox("ground", mat, 0, -2.1f, 0, 10, 0.1f, 10);
+        ground.setShadowMode(ShadowMode.Receive);
+        level.attachChild(ground);
+        root.attachChild(level);
+        Geometry ball = RecordingRenderer.createBox("ball", mat, 4, 0, 0, 0.5f, 0.5f, 0.5f);
+        ball.setShadowMode(ShadowMode.Cast);
+        root.attachChild(ball);
+        vp.attachScene(root);
+
+        light = new DirectionalLight();
+        light.setDirection(new Vector3f(-1, -1, -1).normalizeLocal());
+        shadows = new DirectionalLightShadowRenderer(assetManager, 512, 1);
+        shadows.setLight(light);
+        vp.addProcessor(shadows);
+    }
+
+    private List<String> renderFrame() {
+        renderer.clear();
+        root.updateGeometricState();
+        rm.renderViewPort(vp, 0.016f);
+        List<String> rendered = new ArrayList<String>();
+        for (RecordingRenderer.Draw draw : renderer.getDraws()) {
+            if (draw.frameBuffer != null) {
+                String target = draw.frameBuffer == shadows.shadowFB[0] ? "shadow" : "cache";
+                rendered.add(target + ":" + draw.geometry.getName());
+            }
+        }
+        Collections.sort(rendered);
+        return rendered;
+    }
+
+    @Test
+    public void testDisabledRendersAllCasters() {
+        assertFalse(shadows.isShadowCacheEnabled());
+        assertEquals(Arrays.asList("shadow:ball", "shadow:wall"), renderFrame());
+        assertEquals(Arrays.asList("shadow:ball", "shadow:wall"), renderFrame());
+        assertEquals(0, renderer.copies);
+    }
+
+    @Test
+    public void testStaticCastersAreCached() {
+        shadows.setShadowCacheEnabled(true);
+        assertEquals(Arrays.asList("cache:wall", "shadow:ball"), renderFrame());
+        assertEquals(1, renderer.copies);
+        assertEquals(Arrays.asList("shadow:ball"), renderFrame());
+        assertEquals(Arrays.asList("shadow:ball"), renderFrame());
+        assertEquals(3, renderer.copies);
+    }
+
+    @Test
+    public void testMovedStaticCasterIsRenderedAgain() {
+        shadows.setShadowCacheEnabled(true);
+        renderFrame();
+        assertEquals(Arrays.asList("shadow:ball"), renderFrame());
+
+        wall.move(0.1f, 0, 0);
+        assertEquals(Arrays.asList("cache:wall", "shadow:ball"), renderFrame());
+        assertEquals(Arrays.asList("shadow:ball"), renderFrame());
+
+        shadows.invalidateShadowCache();
+        assertEquals(Arrays.asList("cache:wall", "shadow:ball"), renderFrame());
+    }
+
+    @Test
+    public void testLightChangeRendersAgain() {
+        shadows.setShadowCacheEnabled(true);
+        renderFrame();
+        assertEquals(Arrays.asList("shadow:ball"), renderFrame());
+
+        light.setDirection(new Vector3f(1, -1, -1).normalizeLocal());
+        assertEquals(Arrays.asList("cache:wall", "shadow:ball"), renderFrame());
+        assertEquals(Arrays.asList("shadow:ball"), renderFrame());
+    }
+
+    @Test
+    public void testRequiresBlit() {
+        renderer.getCaps().remove(Caps.FrameBufferBlit);
+        shadows.setShadowCacheEnabled(true);
+        assertEquals(Arrays.asList("shadow:ball", "shadow:wall"), renderFrame());
+        assertEquals(0, renderer.copies);
+    }
+}
@@ -0,0 +1,153 @@
+package com.jme3.shadow;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.light.DirectionalLight;
+import com.jme3.material.Material;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.RecordingRenderer;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShadowCasterCullerTest {
+
+    private AssetManager assetManager;
+    private RecordingRenderer renderer;
+    private RenderManager rm;
+    private ViewPort vp;
+    private DirectionalLightShadowRenderer shadows;
+    private Material mat;
+    private Node root;
+    private final List<Set<String>> rendered = new ArrayList<Set<String>>();
+
+    @Before
+    public void setUp() {
+        assetManager = new DesktopAssetManager(
+                Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        renderer = new RecordingRenderer();
+        rm = renderer.getRenderManager();
+        vp = rm.createMainView("main", RecordingRenderer.createCamera(new Vector3f(0, 10, 20), Vector3f.ZERO, 100));
+
+        mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        root = new Node("root");
+        root.attachChild(createBox("ground", 0, -2.1f, 0, 10, 0.1f, 10, ShadowMode.Receive));
+        root.attachChild(createBox("wall", 0, 0, 0, 2, 2, 0.5f, ShadowMode.Cast));
+        Node props = new Node("props");
+        props.attachChild(createBox("ball", 4, 0, 0, 0.5f, 0.5f, 0.5f, ShadowMode.Cast));
+        props.attachChild(createBox("crate", -3, -1, 5, 1, 1, 1, ShadowMode.CastAndReceive));
+        root.attachChild(props);
+        vp.attachScene(root);
+
+        DirectionalLight light = new DirectionalLight();
+        light.setDirection(new Vector3f(-1, -1, -1).normalizeLocal());
+        shadows = new DirectionalLightShadowRenderer(assetManager, 512, 2);
+        shadows.setLight(light);
+        vp.addProcessor(shadows);
+    }
+
+    private Geometry createBox(String name, float x, float y, float z,
+            float ex, float ey, float ez, ShadowMode mode) {
+        Geometry geom = RecordingRenderer.createBox(name, mat, x, y, z, ex, ey, ez);
+        geom.setShadowMode(mode);
+        return geom;
+    }
+
+    private Set<String> renderFrame() {
+        renderer.clear();
+        root.updateGeometricState();
+        rm.renderViewPort(vp, 0.016f);
+        rendered.clear();
+        for (int i = 0; i < shadows.shadowFB.length; i++) {
+            rendered.add(new TreeSet<String>(renderer.getRendered(shadows.shadowFB[i])));
+        }
+        Set<String> all = new TreeSet<String>();
+        for (Set<String> split : rendered) {
+            all.addAll(split);
+        }
+        return all;
+    }
+
+    private Matrix4f[] copyMatrices() {
+        Matrix4f[] matrices = new Matrix4f[shadows.lightViewProjectionsMatrices.length];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = shadows.lightViewProjectionsMatrices[i].clone();
+        }
+        return matrices;
+    }
+
+    private static void assertMatrixEquals(Matrix4f expected, Matrix4f actual) {
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultAsFlatList() {
+        assertFalse(shadows.isHierarchicalCasterCulling());
+        Set<String> flat = renderFrame();
+        List<Set<String>> flatSplits = new ArrayList<Set<String>>(rendered);
+        Matrix4f[] flatMatrices = copyMatrices();
+
+        shadows.setHierarchicalCasterCulling(true);
+        assertTrue(shadows.isHierarchicalCasterCulling());
+        Set<String> hierarchical = renderFrame();
+
+        assertEquals(new TreeSet<String>(Arrays.asList("ball", "crate", "wall")), flat);
+        assertEquals(flat, hierarchical);
+        assertEquals(flatSplits, rendered);
+        Matrix4f[] matrices = copyMatrices();
+        for (int i = 0; i < matrices.length; i++) {
+            assertMatrixEquals(flatMatrices[i], matrices[i]);
+        }
+    }
+
+    @Test
+    public void testRejectsCastersWithoutVisibleReceivers() {
+        // in the view, but its shadow falls away from the ground
+        Node floating = new Node("floating");
+        floating.attachChild(createBox("balloon1", -20, 5, -30, 1, 1, 1, ShadowMode.Cast));
+        floating.attachChild(createBox("balloon2", -22, 5, -30, 1, 1, 1, ShadowMode.Cast));
+        root.attachChild(floating);
+        // farther from the light than all the receivers
+        root.attachChild(createBox("cellar", 0, -20, -30, 1, 1, 1, ShadowMode.Cast));
+
+        Set<String> flat = renderFrame();
+        assertTrue(flat.containsAll(Arrays.asList("balloon1", "balloon2", "cellar")));
+
+        shadows.setHierarchicalCasterCulling(true);
+        assertEquals(new TreeSet<String>(Arrays.asList("ball", "crate", "wall")), renderFrame());
+    }
+
+    @Test
+    public void testCullHintAndShadowMode() {
+        shadows.setHierarchicalCasterCulling(true);
+        root.getChild("ball").setCullHint(Spatial.CullHint.Always);
+        root.getChild("crate").setShadowMode(ShadowMode.Receive);
+        assertEquals(Collections.singleton("wall"), renderFrame());
+    }
+
+    @Test
+    public void testNoReceivers() {
+        shadows.setHierarchicalCasterCulling(true);
+        root.getChild("ground").setShadowMode(ShadowMode.Off);
+        root.getChild("crate").setShadowMode(ShadowMode.Cast);
+        // no post pass, and nothing rendered to the shadow maps
+        assertTrue(renderFrame().isEmpty());
+    }
+}